@@ -0,0 +1,965 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The front end shared by the engines. It binds a <code>ClassLogger</code> to each class, validates and sanitizes the
+ * events whose level is enabled and hands them to the <code>LogDispatcher</code>, which writes them to the engine.
+ * <p>
+ * An engine decides which levels a class logs. It either returns the java <code>Logger</code> of the class from
+ * <code>resolveLogger()</code>, whose level is then checked on every call, or keeps its own levels and returns them
+ * from <code>resolveLevel()</code>. Call <code>refreshLevels()</code> when its own levels change. The levels set in the
+ * <code>LevelRegistry</code> are passed to <code>applyLevel()</code>.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public abstract class AbstractLogService implements LogService
+{
+	private static final int					MESSAGE_NAME_MAX_LENGTH	= 256;
+
+	private static final int					METHOD_NAME_MAX_LENGTH	= 64;
+
+	private static final Object[]				NO_ARGS					= new Object[0];
+
+	private volatile LogSanitizer				_sanitizer				= DefaultLogSanitizer.INSTANCE;
+
+	private volatile LengthPolicy				_lengthPolicy			= LengthPolicy.THROW;
+
+	private volatile LogDispatcher				_dispatcher;
+
+	private volatile LogDispatcher				_securityDispatcher;
+
+	private volatile LogSuppressor				_suppressor;
+
+	private volatile FlightRecorder				_flightRecorder;
+
+	private final LogMetrics					_metrics				= new LogMetrics(this);
+
+	/*
+	 * Counts changes of the sanitizer and length policy. A cached method name made with an older generation is not
+	 * used.
+	 */
+	private final AtomicInteger					_generation				= new AtomicInteger();
+
+	/*
+	 * Counts the times the levels or samplers are applied to the class loggers. A class logger made while they change
+	 * resolves them again, since it may have been missed by the loop that applied them.
+	 */
+	private final AtomicLong					_levelGeneration		= new AtomicLong();
+
+	private final Map<String, ClassLogger>		_classLoggersByName		= new ConcurrentHashMap<>();
+
+	private final LevelRegistry					_levelRegistry			= new LevelRegistry(this);
+
+	private final Map<String, LogSampler>		_samplers				= new ConcurrentHashMap<>();
+
+	/*
+	 * The bound logger for each class, so the class name is validated and the engine is asked for its level once per
+	 * class instead of on every call.
+	 */
+	private final ClassValue<ClassLogger>		_classLoggers			= new ClassValue<ClassLogger>()
+	{
+		@Override
+		protected ClassLogger computeValue(final Class<?> clazz)
+		{
+			return (createClassLogger(LogValidator.validateClass(clazz)));
+		}
+	};
+
+	/**
+	 * Creates the service.
+	 *
+	 * @param dispatcher
+	 *            The dispatcher that writes events to the engine on the caller's thread. Must not be null.
+	 */
+	protected AbstractLogService(final LogDispatcher dispatcher)
+	{
+		setDispatcher(dispatcher);
+	}
+
+	/**
+	 * Gets the java logger whose level decides which events a class logs. The default returns null, which means the
+	 * engine keeps its own levels.
+	 *
+	 * @param className
+	 *            The fully qualified class name.
+	 * @return A <code>Logger</code> instance or null.
+	 */
+	protected Logger resolveLogger(final String className)
+	{
+		return (null);
+	}
+
+	/**
+	 * Gets the lowest level a class logs when the engine keeps its own levels. The default is <code>INFO</code>.
+	 *
+	 * @param className
+	 *            The fully qualified class name.
+	 * @return A <code>Level</code> instance.
+	 */
+	protected Level resolveLevel(final String className)
+	{
+		return (Level.INFO);
+	}
+
+	/**
+	 * Applies a level set in the <code>LevelRegistry</code> to the engine. The registry calls
+	 * <code>refreshLevels()</code> once after every changed level is applied. The default does nothing.
+	 *
+	 * @param name
+	 *            The fully qualified name of the class or package, or an empty string for the root.
+	 * @param level
+	 *            The level, or null if the level of the name was removed.
+	 */
+	protected void applyLevel(final String name, final Level level)
+	{
+		// the engine reads the registry from resolveLevel().
+	}
+
+	/**
+	 * Asks the engine for the level of every class logger again. Call after the levels kept by the engine change.
+	 */
+	protected final void refreshLevels()
+	{
+		this._levelGeneration.incrementAndGet();
+		for (final ClassLogger classLogger : this._classLoggersByName.values())
+		{
+			classLogger.setLevel(resolveLevel(classLogger.getClassName()));
+		}
+	}
+
+	/*
+	 * Binds a new class logger to the engine. Two threads, or two class loaders with a class of the same name, can
+	 * get here at once for a name. Only the first logger put in the map is used, so the class value and the map that
+	 * levels and samplers are applied to always hold the same instance. putIfAbsent() is used rather than
+	 * computeIfAbsent(), since the engine can log while it resolves a logger and must not update the map from inside
+	 * its own computation.
+	 */
+	private ClassLogger createClassLogger(final String className)
+	{
+		long generation = this._levelGeneration.get();
+		final ClassLogger created = new ClassLogger(this, className, resolveLogger(className));
+		created.setLevel(resolveLevel(className));
+		created.setSampler(resolveSampler(className));
+		final ClassLogger existing = this._classLoggersByName.putIfAbsent(className, created);
+		final ClassLogger classLogger = (existing == null) ? created : existing;
+
+		// a change applied before the logger was in the map did not reach it, so resolve again until none came.
+		while (generation != this._levelGeneration.get())
+		{
+			generation = this._levelGeneration.get();
+			classLogger.setLevel(resolveLevel(className));
+			classLogger.setSampler(resolveSampler(className));
+		}
+		return (classLogger);
+	}
+
+	/*
+	 * Gets the sampler set for the class or the closest package above it.
+	 */
+	private LogSampler resolveSampler(final String className)
+	{
+		String name = className;
+		while (true)
+		{
+			final LogSampler sampler = this._samplers.get(name);
+			if (sampler != null)
+			{
+				return (sampler);
+			}
+			if (name.length() == 0)
+			{
+				return (null);
+			}
+			final int index = name.lastIndexOf('.');
+			name = (index < 0) ? "" : name.substring(0, index);
+		}
+	}
+
+	@Override
+	public LevelRegistry getLevelRegistry()
+	{
+		return (this._levelRegistry);
+	}
+
+	/**
+	 * Gets the class loggers created so far.
+	 *
+	 * @return A live view of the class loggers.
+	 */
+	Collection<ClassLogger> getClassLoggers()
+	{
+		return (this._classLoggersByName.values());
+	}
+
+	@Override
+	public void setSanitizer( LogSanitizer sanitizer )
+	{
+		if (sanitizer == null)
+		{
+			throw (new IllegalArgumentException("The 'sanitizer' parameter must not be null."));
+		}
+		this._sanitizer = sanitizer;
+		this._generation.incrementAndGet();
+	}
+
+	private LogSanitizer getSanitizer()
+	{
+		return(this._sanitizer);
+	}
+
+	@Override
+	public void setLengthPolicy(final LengthPolicy lengthPolicy)
+	{
+		if (lengthPolicy == null)
+		{
+			throw (new IllegalArgumentException("The 'lengthPolicy' parameter must not be null."));
+		}
+		this._lengthPolicy = lengthPolicy;
+		this._generation.incrementAndGet();
+	}
+
+	@Override
+	public LengthPolicy getLengthPolicy()
+	{
+		return (this._lengthPolicy);
+	}
+
+	@Override
+	public void setDispatcher(final LogDispatcher dispatcher)
+	{
+		if (dispatcher == null)
+		{
+			throw (new IllegalArgumentException("The 'dispatcher' parameter must not be null."));
+		}
+		this._dispatcher = dispatcher;
+	}
+
+	@Override
+	public LogDispatcher getDispatcher()
+	{
+		return (this._dispatcher);
+	}
+
+	@Override
+	public void setSecurityDispatcher(final LogDispatcher dispatcher)
+	{
+		this._securityDispatcher = dispatcher;
+	}
+
+	@Override
+	public LogDispatcher getSecurityDispatcher()
+	{
+		return (this._securityDispatcher);
+	}
+
+	/*
+	 * Gets the dispatcher of an event. The security events have their own lane when one is set.
+	 */
+	private LogDispatcher dispatcher(final Level level)
+	{
+		final LogDispatcher securityDispatcher = this._securityDispatcher;
+		return (((securityDispatcher != null) && (level == LogService.SecurityLevel.SECURITY)) ? securityDispatcher
+		        : this._dispatcher);
+	}
+
+	@Override
+	public void setSuppressor(final LogSuppressor suppressor)
+	{
+		final LogSuppressor previous;
+		synchronized (this)
+		{
+			previous = this._suppressor;
+			if (suppressor != null)
+			{
+				suppressor.bind(this);
+			}
+			this._suppressor = suppressor;
+		}
+		if ((previous != null) && (previous != suppressor))
+		{
+			previous.unbind();
+		}
+	}
+
+	@Override
+	public LogSuppressor getSuppressor()
+	{
+		return (this._suppressor);
+	}
+
+	@Override
+	public void setFlightRecorder(final FlightRecorder flightRecorder)
+	{
+		final FlightRecorder previous;
+		synchronized (this)
+		{
+			previous = this._flightRecorder;
+			if (flightRecorder != null)
+			{
+				flightRecorder.bind(this);
+			}
+			this._flightRecorder = flightRecorder;
+		}
+		if ((previous != null) && (previous != flightRecorder))
+		{
+			previous.unbind();
+		}
+	}
+
+	@Override
+	public FlightRecorder getFlightRecorder()
+	{
+		return (this._flightRecorder);
+	}
+
+	@Override
+	public synchronized void setSampler(final String name, final LogSampler sampler)
+	{
+		if (name == null)
+		{
+			throw (new IllegalArgumentException("The 'name' parameter must not be null."));
+		}
+		if (sampler != null)
+		{
+			this._samplers.put(name, sampler);
+		}
+		else
+		{
+			this._samplers.remove(name);
+		}
+		this._levelGeneration.incrementAndGet();
+		for (final ClassLogger classLogger : this._classLoggersByName.values())
+		{
+			classLogger.setSampler(resolveSampler(classLogger.getClassName()));
+		}
+	}
+
+	@Override
+	public LogSampler getSampler(final String name)
+	{
+		return ((name == null) ? null : this._samplers.get(name));
+	}
+
+	@Override
+	public LogMetrics getMetrics()
+	{
+		return (this._metrics);
+	}
+
+	@Override
+	public final ClassLogger forClass(final Class<?> clazz)
+	{
+		if (clazz == null)
+		{
+			throw (new IllegalArgumentException("The 'clazz' parameter must not be null."));
+		}
+		return (this._classLoggers.get(clazz));
+	}
+
+	@Override
+	public final LogBatch batch(final Class<?> clazz)
+	{
+		return (forClass(clazz).batch());
+	}
+
+	/*
+	 * Validates, sanitizes and logs an event. Only called once the level is known to be enabled.
+	 */
+	final void log(final ClassLogger classLogger, final Level level, final String methodName, final String message,
+	        final Throwable thrown)
+	{
+		dispatch(classLogger, level, methodName, message, thrown, true);
+	}
+
+	/*
+	 * Builds the message with the supplier, then validates, sanitizes and logs it. Only called once the level is known
+	 * to be enabled.
+	 */
+	final void logSupplied(final ClassLogger classLogger, final Level level, final String methodName,
+	        final Supplier<String> messageSupplier)
+	{
+		if (messageSupplier == null)
+		{
+			throw (new IllegalArgumentException("The 'messageSupplier' parameter must not be null."));
+		}
+		dispatch(classLogger, level, methodName, messageSupplier.get(), null, true);
+	}
+
+	/*
+	 * Formats the template with the sanitized arguments, then validates and logs it. Only called once the level is
+	 * known to be enabled.
+	 */
+	final void logTemplate(final ClassLogger classLogger, final Level level, final String methodName,
+	        final String template, final Object[] args)
+	{
+		LogValidator.validateNotEmpty(template, "template");
+		final String message = LogMessageFormatter.format(template,
+		        (args == null) ? AbstractLogService.NO_ARGS : args, getSanitizer());
+		dispatch(classLogger, level, methodName, message, null, false);
+	}
+
+	/*
+	 * Formats the template with a long argument, then validates and logs it. Only called once the level is known to
+	 * be enabled.
+	 */
+	final void logTemplate(final ClassLogger classLogger, final Level level, final String methodName,
+	        final String template, final long arg)
+	{
+		LogValidator.validateNotEmpty(template, "template");
+		dispatch(classLogger, level, methodName, LogMessageFormatter.format(template, arg), null, false);
+	}
+
+	/*
+	 * Formats the template with a double argument, then validates and logs it. Only called once the level is known
+	 * to be enabled.
+	 */
+	final void logTemplate(final ClassLogger classLogger, final Level level, final String methodName,
+	        final String template, final double arg)
+	{
+		LogValidator.validateNotEmpty(template, "template");
+		dispatch(classLogger, level, methodName, LogMessageFormatter.format(template, arg), null, false);
+	}
+
+	/*
+	 * Gets the length policy of an event. SECURITY events are never dropped, so they are truncated instead.
+	 */
+	private LengthPolicy lengthPolicy(final Level level)
+	{
+		final LengthPolicy lengthPolicy = this._lengthPolicy;
+		return (((lengthPolicy == LengthPolicy.DROP) && (level == LogService.SecurityLevel.SECURITY))
+		        ? LengthPolicy.TRUNCATE : lengthPolicy);
+	}
+
+	/*
+	 * Gets the validated and sanitized method name from the cache of the class, or validates, sanitizes and caches
+	 * it. Returns null if the length policy drops it.
+	 */
+	private String methodName(final ClassLogger classLogger, final String methodName, final LengthPolicy lengthPolicy,
+	        final boolean timed)
+	{
+		final MethodNameCache cache = classLogger.getMethodNames();
+		final int generation = this._generation.get();
+		final String cached = (methodName == null) ? null : cache.get(methodName, generation);
+		if (cached != null)
+		{
+			this._metrics.recordMethodNameLookup(true);
+			return (cached);
+		}
+
+		final String vMethodName = LogValidator.validateString(methodName, "methodName",
+		        AbstractLogService.METHOD_NAME_MAX_LENGTH, lengthPolicy);
+		if (vMethodName == null)
+		{
+			return (null);
+		}
+
+		final long sanitizeStart = timed ? System.nanoTime() : 0L;
+		final String sMethodName = getSanitizer().sanitize(vMethodName);
+		if (timed)
+		{
+			this._metrics.recordSanitizer(System.nanoTime() - sanitizeStart);
+		}
+
+		if ((vMethodName == methodName) || (lengthPolicy == this._lengthPolicy))
+		{
+			// a name truncated for a SECURITY event is not cached, so the other events still drop it.
+			cache.put(methodName, sMethodName, generation);
+		}
+		this._metrics.recordMethodNameLookup(false);
+		return (sMethodName);
+	}
+
+	/*
+	 * Validates the lengths, sanitizes and hands the event to the dispatcher. A message built from a template has
+	 * already had its arguments sanitized.
+	 */
+	private void dispatch(final ClassLogger classLogger, final Level level, final String methodName,
+	        final String message, final Throwable thrown, final boolean sanitizeMessage)
+	{
+		final LogMetrics metrics = this._metrics;
+		final boolean timed = metrics.isEnabled();
+		final LengthPolicy lengthPolicy = lengthPolicy(level);
+		final String sMethodName = methodName(classLogger, methodName, lengthPolicy, timed);
+		final String vMessage = LogValidator.validateString(message, "message",
+		        AbstractLogService.MESSAGE_NAME_MAX_LENGTH, lengthPolicy);
+		if ((sMethodName == null) || (vMessage == null))
+		{
+			// dropped by the length policy.
+			metrics.recordSuppressed();
+			return;
+		}
+
+		final FlightRecorder flightRecorder = this._flightRecorder;
+		if ((flightRecorder != null) && (level.intValue() < Level.INFO.intValue()) && !classLogger.isLoggable(level))
+		{
+			// kept in memory until a failure dumps it.
+			flightRecorder.record(classLogger, level, sMethodName,
+			        sanitizeMessage ? getSanitizer().sanitize(vMessage) : vMessage, thrown);
+			return;
+		}
+
+		final LogSuppressor suppressor = this._suppressor;
+		if ((suppressor != null) && (level != LogService.SecurityLevel.SECURITY)
+		        && !suppressor.admit(classLogger, level, sMethodName, vMessage))
+		{
+			// held back by the rate limit or collapsed into a summary.
+			metrics.recordSuppressed();
+			return;
+		}
+
+		final long sanitizeStart = timed ? System.nanoTime() : 0L;
+		final String sMessage = sanitizeMessage ? getSanitizer().sanitize(vMessage) : vMessage;
+
+		if ((flightRecorder != null) && flightRecorder.isTriggeredBy(level))
+		{
+			// the lead-up is written before the event that triggered it.
+			flightRecorder.dump();
+		}
+
+		final long dispatchStart = timed ? System.nanoTime() : 0L;
+		dispatcher(level).dispatch(classLogger, level, sMethodName, sMessage, thrown);
+
+		if (timed)
+		{
+			final long dispatchEnd = System.nanoTime();
+			metrics.recordSanitizer(dispatchStart - sanitizeStart);
+			metrics.recordEvent(classLogger, level, sMethodName.length() + sMessage.length(),
+			        dispatchEnd - dispatchStart);
+		}
+	}
+
+	/*
+	 * Sanitizes and logs a summary written by the suppressor. The method name is already sanitized and the message is
+	 * built within the length limit, so neither is validated.
+	 */
+	final void logSummary(final ClassLogger classLogger, final Level level, final String methodName,
+	        final String message)
+	{
+		final String sMessage = getSanitizer().sanitize(message);
+		final long dispatchStart = System.nanoTime();
+		this._dispatcher.dispatch(classLogger, level, methodName, sMessage, null);
+		this._metrics.recordEvent(classLogger, level, methodName.length() + sMessage.length(),
+		        System.nanoTime() - dispatchStart);
+	}
+
+	/*
+	 * Logs the events of a batch. Every event is validated before any is dispatched, so an invalid event throws and
+	 * none of the batch is logged. The security events go to the security lane when one is set and the rest go to the
+	 * dispatcher in one call.
+	 */
+	final void commit(final LogBatch batch)
+	{
+		final ClassLogger classLogger = batch.getClassLogger();
+		final LogMetrics metrics = this._metrics;
+		final boolean timed = metrics.isEnabled();
+		final int count = batch.size();
+
+		for (int i = 0; i < count; i++)
+		{
+			// a method name or message dropped by the length policy is left null.
+			final LengthPolicy lengthPolicy = lengthPolicy(batch.getLevel(i));
+			final String sMethodName = methodName(classLogger, batch.getMethodName(i), lengthPolicy, timed);
+			final String vMessage = LogValidator.validateString(batch.getMessage(i), "message",
+			        AbstractLogService.MESSAGE_NAME_MAX_LENGTH, lengthPolicy);
+			batch.setMethodName(i, sMethodName);
+			batch.setMessage(i, vMessage);
+		}
+
+		final LogDispatcher securityDispatcher = this._securityDispatcher;
+		commit(batch, this._dispatcher, securityDispatcher != null, false);
+		if (securityDispatcher != null)
+		{
+			commit(batch, securityDispatcher, false, true);
+		}
+	}
+
+	/*
+	 * Sanitizes the validated events of a batch and dispatches them, skipping the security events or all the others.
+	 */
+	private void commit(final LogBatch batch, final LogDispatcher dispatcher, final boolean skipSecurity,
+	        final boolean onlySecurity)
+	{
+		final ClassLogger classLogger = batch.getClassLogger();
+		final LogMetrics metrics = this._metrics;
+		final boolean timed = metrics.isEnabled();
+		final LogSuppressor suppressor = this._suppressor;
+		final LogSanitizer sanitizer = getSanitizer();
+		final long threadId = Thread.currentThread().getId();
+		final int count = batch.size();
+		final LogEvent[] events = batch.events(count);
+
+		final long sanitizeStart = timed ? System.nanoTime() : 0L;
+		int dispatchCount = 0;
+		for (int i = 0; i < count; i++)
+		{
+			final Level level = batch.getLevel(i);
+			final boolean isSecurity = (level == LogService.SecurityLevel.SECURITY);
+			if (isSecurity ? skipSecurity : onlySecurity)
+			{
+				continue;
+			}
+
+			final String sMethodName = batch.getMethodName(i);
+			final String vMessage = batch.getMessage(i);
+			if ((sMethodName == null) || (vMessage == null))
+			{
+				// dropped by the length policy.
+				metrics.recordSuppressed();
+				continue;
+			}
+			if ((suppressor != null) && !isSecurity && !suppressor.admit(classLogger, level, sMethodName, vMessage))
+			{
+				// held back by the rate limit or collapsed into a summary.
+				metrics.recordSuppressed();
+				continue;
+			}
+
+			events[dispatchCount++].set(classLogger, level, sMethodName, sanitizer.sanitize(vMessage),
+			        batch.getThrown(i), batch.getMillis(i), threadId, batch.getContext(i));
+		}
+		if (dispatchCount == 0)
+		{
+			return;
+		}
+
+		final long dispatchStart = timed ? System.nanoTime() : 0L;
+		try
+		{
+			dispatcher.dispatch(events, dispatchCount);
+
+			if (timed)
+			{
+				final long nanos = (System.nanoTime() - dispatchStart) / dispatchCount;
+				metrics.recordSanitizer(dispatchStart - sanitizeStart);
+				for (int i = 0; i < dispatchCount; i++)
+				{
+					final LogEvent event = events[i];
+					metrics.recordEvent(classLogger, event.getLevel(),
+					        event.getMethodName().length() + event.getMessage().length(), nanos);
+				}
+			}
+		}
+		finally
+		{
+			for (int i = 0; i < dispatchCount; i++)
+			{
+				events[i].clear();
+			}
+		}
+	}
+
+	@Override
+	public final void logConfiguration(final Class<?> clazz, final String methodName, final String message)
+	{
+		forClass(clazz).logConfiguration(methodName, message);
+	}
+
+	@Override
+	public final void logConfiguration(final Class<?> clazz, final String methodName,
+	        final Supplier<String> messageSupplier)
+	{
+		forClass(clazz).logConfiguration(methodName, messageSupplier);
+	}
+
+	@Override
+	public final void logConfiguration(final Class<?> clazz, final String methodName, final String template,
+	        final Object arg)
+	{
+		forClass(clazz).logConfiguration(methodName, template, arg);
+	}
+
+	@Override
+	public final void logConfiguration(final Class<?> clazz, final String methodName, final String template,
+	        final Object arg1, final Object arg2)
+	{
+		forClass(clazz).logConfiguration(methodName, template, arg1, arg2);
+	}
+
+	@Override
+	public final void logConfiguration(final Class<?> clazz, final String methodName, final String template,
+	        final Object... args)
+	{
+		forClass(clazz).logConfiguration(methodName, template, args);
+	}
+
+	@Override
+	public final void logConfiguration(final Class<?> clazz, final String methodName, final String template,
+	        final long arg)
+	{
+		forClass(clazz).logConfiguration(methodName, template, arg);
+	}
+
+	@Override
+	public final void logConfiguration(final Class<?> clazz, final String methodName, final String template,
+	        final double arg)
+	{
+		forClass(clazz).logConfiguration(methodName, template, arg);
+	}
+
+	@Override
+	public final void logDebug(final Class<?> clazz, final String methodName, final String message)
+	{
+		forClass(clazz).logDebug(methodName, message);
+	}
+
+	@Override
+	public final void logDebug(final Class<?> clazz, final String methodName, final Supplier<String> messageSupplier)
+	{
+		forClass(clazz).logDebug(methodName, messageSupplier);
+	}
+
+	@Override
+	public final void logDebug(final Class<?> clazz, final String methodName, final String template, final Object arg)
+	{
+		forClass(clazz).logDebug(methodName, template, arg);
+	}
+
+	@Override
+	public final void logDebug(final Class<?> clazz, final String methodName, final String template,
+	        final Object arg1, final Object arg2)
+	{
+		forClass(clazz).logDebug(methodName, template, arg1, arg2);
+	}
+
+	@Override
+	public final void logDebug(final Class<?> clazz, final String methodName, final String template,
+	        final Object... args)
+	{
+		forClass(clazz).logDebug(methodName, template, args);
+	}
+
+	@Override
+	public final void logDebug(final Class<?> clazz, final String methodName, final String template, final long arg)
+	{
+		forClass(clazz).logDebug(methodName, template, arg);
+	}
+
+	@Override
+	public final void logDebug(final Class<?> clazz, final String methodName, final String template, final double arg)
+	{
+		forClass(clazz).logDebug(methodName, template, arg);
+	}
+
+	@Override
+	public final void logFailure(final Class<?> clazz, final String methodName, final String message)
+	{
+		forClass(clazz).logFailure(methodName, message);
+	}
+
+	@Override
+	public final void logFailure(final Class<?> clazz, final String methodName, final Supplier<String> messageSupplier)
+	{
+		forClass(clazz).logFailure(methodName, messageSupplier);
+	}
+
+	@Override
+	public final void logFailure(final Class<?> clazz, final String methodName, final String template, final Object arg)
+	{
+		forClass(clazz).logFailure(methodName, template, arg);
+	}
+
+	@Override
+	public final void logFailure(final Class<?> clazz, final String methodName, final String template,
+	        final Object arg1, final Object arg2)
+	{
+		forClass(clazz).logFailure(methodName, template, arg1, arg2);
+	}
+
+	@Override
+	public final void logFailure(final Class<?> clazz, final String methodName, final String template,
+	        final Object... args)
+	{
+		forClass(clazz).logFailure(methodName, template, args);
+	}
+
+	@Override
+	public final void logFailure(final Class<?> clazz, final String methodName, final String template, final long arg)
+	{
+		forClass(clazz).logFailure(methodName, template, arg);
+	}
+
+	@Override
+	public final void logFailure(final Class<?> clazz, final String methodName, final String template, final double arg)
+	{
+		forClass(clazz).logFailure(methodName, template, arg);
+	}
+
+	@Override
+	public final void logFailure(final Class<?> clazz, final String methodName, final String message,
+	        final Throwable thrown)
+	{
+		forClass(clazz).logFailure(methodName, message, thrown);
+	}
+
+	@Override
+	public final void logMessage(final Class<?> clazz, final String methodName, final String message)
+	{
+		forClass(clazz).logMessage(methodName, message);
+	}
+
+	@Override
+	public final void logMessage(final Class<?> clazz, final String methodName, final Supplier<String> messageSupplier)
+	{
+		forClass(clazz).logMessage(methodName, messageSupplier);
+	}
+
+	@Override
+	public final void logMessage(final Class<?> clazz, final String methodName, final String template, final Object arg)
+	{
+		forClass(clazz).logMessage(methodName, template, arg);
+	}
+
+	@Override
+	public final void logMessage(final Class<?> clazz, final String methodName, final String template,
+	        final Object arg1, final Object arg2)
+	{
+		forClass(clazz).logMessage(methodName, template, arg1, arg2);
+	}
+
+	@Override
+	public final void logMessage(final Class<?> clazz, final String methodName, final String template,
+	        final Object... args)
+	{
+		forClass(clazz).logMessage(methodName, template, args);
+	}
+
+	@Override
+	public final void logMessage(final Class<?> clazz, final String methodName, final String template, final long arg)
+	{
+		forClass(clazz).logMessage(methodName, template, arg);
+	}
+
+	@Override
+	public final void logMessage(final Class<?> clazz, final String methodName, final String template, final double arg)
+	{
+		forClass(clazz).logMessage(methodName, template, arg);
+	}
+
+	@Override
+	public final void logSecurity(final Class<?> clazz, final String methodName, final String message)
+	{
+		forClass(clazz).logSecurity(methodName, message);
+	}
+
+	@Override
+	public final void logSecurity(final Class<?> clazz, final String methodName, final Supplier<String> messageSupplier)
+	{
+		forClass(clazz).logSecurity(methodName, messageSupplier);
+	}
+
+	@Override
+	public final void logSecurity(final Class<?> clazz, final String methodName, final String template,
+	        final Object arg)
+	{
+		forClass(clazz).logSecurity(methodName, template, arg);
+	}
+
+	@Override
+	public final void logSecurity(final Class<?> clazz, final String methodName, final String template,
+	        final Object arg1, final Object arg2)
+	{
+		forClass(clazz).logSecurity(methodName, template, arg1, arg2);
+	}
+
+	@Override
+	public final void logSecurity(final Class<?> clazz, final String methodName, final String template,
+	        final Object... args)
+	{
+		forClass(clazz).logSecurity(methodName, template, args);
+	}
+
+	@Override
+	public final void logSecurity(final Class<?> clazz, final String methodName, final String template, final long arg)
+	{
+		forClass(clazz).logSecurity(methodName, template, arg);
+	}
+
+	@Override
+	public final void logSecurity(final Class<?> clazz, final String methodName, final String template,
+	        final double arg)
+	{
+		forClass(clazz).logSecurity(methodName, template, arg);
+	}
+
+	@Override
+	public final void logSecurity(final Class<?> clazz, final String methodName, final String message,
+	        final Throwable thrown)
+	{
+		forClass(clazz).logSecurity(methodName, message, thrown);
+	}
+
+	@Override
+	public final void logWarning(final Class<?> clazz, final String methodName, final String message)
+	{
+		forClass(clazz).logWarning(methodName, message);
+	}
+
+	@Override
+	public final void logWarning(final Class<?> clazz, final String methodName, final Supplier<String> messageSupplier)
+	{
+		forClass(clazz).logWarning(methodName, messageSupplier);
+	}
+
+	@Override
+	public final void logWarning(final Class<?> clazz, final String methodName, final String template, final Object arg)
+	{
+		forClass(clazz).logWarning(methodName, template, arg);
+	}
+
+	@Override
+	public final void logWarning(final Class<?> clazz, final String methodName, final String template,
+	        final Object arg1, final Object arg2)
+	{
+		forClass(clazz).logWarning(methodName, template, arg1, arg2);
+	}
+
+	@Override
+	public final void logWarning(final Class<?> clazz, final String methodName, final String template,
+	        final Object... args)
+	{
+		forClass(clazz).logWarning(methodName, template, args);
+	}
+
+	@Override
+	public final void logWarning(final Class<?> clazz, final String methodName, final String template, final long arg)
+	{
+		forClass(clazz).logWarning(methodName, template, arg);
+	}
+
+	@Override
+	public final void logWarning(final Class<?> clazz, final String methodName, final String template, final double arg)
+	{
+		forClass(clazz).logWarning(methodName, template, arg);
+	}
+
+	@Override
+	public final void logWarning(final Class<?> clazz, final String methodName, final String message,
+	        final Throwable thrown)
+	{
+		forClass(clazz).logWarning(methodName, message, thrown);
+	}
+}
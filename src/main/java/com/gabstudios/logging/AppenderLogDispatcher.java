@@ -0,0 +1,186 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+
+/**
+ * The dispatcher of the <code>DirectLogService</code>. Writes each event to the appenders on the caller's thread. The
+ * appenders are kept in an array that is replaced when one is added or removed, so writing an event takes no lock and
+ * does not allocate.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+final class AppenderLogDispatcher implements LogDispatcher
+{
+	private static final LogAppender[]	NO_APPENDERS	= new LogAppender[0];
+
+	private final ThreadLocal<LogEvent>	_events			= new ThreadLocal<LogEvent>()
+	{
+		@Override
+		protected LogEvent initialValue()
+		{
+			return (new LogEvent());
+		}
+	};
+
+	private final ErrorManager			_errorManager	= new ErrorManager();
+
+	private volatile LogAppender[]		_appenders		= AppenderLogDispatcher.NO_APPENDERS;
+
+	/**
+	 * Package scope. Created by DirectLogService.
+	 */
+	AppenderLogDispatcher()
+	{
+		// void - the appenders are added by the service.
+	}
+
+	/**
+	 * Adds an appender.
+	 *
+	 * @param appender
+	 *            The appender to add.
+	 */
+	synchronized void addAppender(final LogAppender appender)
+	{
+		final LogAppender[] appenders = Arrays.copyOf(this._appenders, this._appenders.length + 1);
+		appenders[appenders.length - 1] = appender;
+		this._appenders = appenders;
+	}
+
+	/**
+	 * Removes an appender. The appender is not closed.
+	 *
+	 * @param appender
+	 *            The appender to remove.
+	 * @return True if the appender was removed, otherwise false.
+	 */
+	synchronized boolean removeAppender(final LogAppender appender)
+	{
+		final LogAppender[] appenders = this._appenders;
+		for (int i = 0; i < appenders.length; i++)
+		{
+			if (appenders[i] == appender)
+			{
+				final LogAppender[] remaining = new LogAppender[appenders.length - 1];
+				System.arraycopy(appenders, 0, remaining, 0, i);
+				System.arraycopy(appenders, i + 1, remaining, i, remaining.length - i);
+				this._appenders = remaining;
+				return (true);
+			}
+		}
+		return (false);
+	}
+
+	/**
+	 * Gets the appenders.
+	 *
+	 * @return An unmodifiable list of the appenders.
+	 */
+	List<LogAppender> getAppenders()
+	{
+		return (Collections.unmodifiableList(Arrays.asList(this._appenders)));
+	}
+
+	@Override
+	public void dispatch(final ClassLogger classLogger, final Level level, final String methodName,
+	        final String message, final Throwable thrown)
+	{
+		LogEvent event = this._events.get();
+		if (event.getLevel() != null)
+		{
+			// an appender is logging, so the event of this thread is in use.
+			event = new LogEvent();
+		}
+
+		event.set(classLogger, level, methodName, message, thrown, System.currentTimeMillis(),
+		        Thread.currentThread().getId(), LogContext.current());
+		try
+		{
+			dispatch(event);
+		}
+		finally
+		{
+			event.clear();
+		}
+	}
+
+	@Override
+	public void dispatch(final LogEvent event)
+	{
+		final LogAppender[] appenders = this._appenders;
+		for (int i = 0; i < appenders.length; i++)
+		{
+			try
+			{
+				appenders[i].append(event);
+			}
+			catch (final RuntimeException e)
+			{
+				// a broken appender must not stop the others.
+				this._errorManager.error("Unable to append a log event.", e, ErrorManager.WRITE_FAILURE);
+			}
+		}
+	}
+
+	@Override
+	public void dispatch(final LogEvent[] events, final int count)
+	{
+		final LogAppender[] appenders = this._appenders;
+		for (int i = 0; i < appenders.length; i++)
+		{
+			try
+			{
+				appenders[i].append(events, count);
+			}
+			catch (final RuntimeException e)
+			{
+				// a broken appender must not stop the others.
+				this._errorManager.error("Unable to append a batch of log events.", e, ErrorManager.WRITE_FAILURE);
+			}
+		}
+	}
+
+	@Override
+	public void flush()
+	{
+		for (final LogAppender appender : this._appenders)
+		{
+			appender.flush();
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		for (final LogAppender appender : this._appenders)
+		{
+			appender.close();
+		}
+	}
+
+	@Override
+	public long getDroppedCount()
+	{
+		return (0L);
+	}
+}
@@ -0,0 +1,164 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatches events on a background thread, so a slow handler or appender does not delay the caller.
+ * <p>
+ * Callers publish events into a bounded, preallocated ring buffer without taking a lock. A single consumer thread
+ * drains the buffer in batches and hands each event to the delegate dispatcher of the engine. When the buffer is full
+ * the <code>OverflowPolicy</code> decides whether the caller waits or an event is dropped. The buffer is drained when
+ * the dispatcher is closed and when the JVM shuts down.
+ * <p>
+ * The queued events can be kept out of the heap, up to a number of bytes. The time, thread and message of an event
+ * are then copied into a direct buffer when it is published and decoded on the consumer thread, so a backlog of
+ * events does not fill the old generation while the engine falls behind. The memory is reused slot by slot and
+ * dropped when the dispatcher is closed.
+ * <p>
+ * Enable it with <code>LogProvider.enableAsync()</code> or the <code>com.gabstudios.logging.async</code> system
+ * property.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class AsyncLogDispatcher extends RingLogDispatcher
+{
+
+	/**
+	 * The number of bytes each queued event uses out of the heap.
+	 */
+	public static final int				OFF_HEAP_EVENT_SIZE	= OffHeapEventStore.SLOT_SIZE;
+
+	private static final int			BATCH_SIZE			= 256;
+
+	private final OverflowPolicy		_overflowPolicy;
+
+	private final AtomicLong			_droppedCount		= new AtomicLong();
+
+	/**
+	 * Creates the dispatcher and starts its consumer thread.
+	 *
+	 * @param bufferSize
+	 *            The number of events the ring buffer holds. Rounded up to a power of two.
+	 * @param overflowPolicy
+	 *            What to do when the ring buffer is full. Must not be null.
+	 * @param delegate
+	 *            The dispatcher that writes the events to the engine on the consumer thread. Must not be null.
+	 */
+	public AsyncLogDispatcher(final int bufferSize, final OverflowPolicy overflowPolicy, final LogDispatcher delegate)
+	{
+		this(bufferSize, overflowPolicy, delegate, 0L);
+	}
+
+	/**
+	 * Creates the dispatcher and starts its consumer thread.
+	 *
+	 * @param bufferSize
+	 *            The number of events the ring buffer holds. Rounded up to a power of two.
+	 * @param overflowPolicy
+	 *            What to do when the ring buffer is full. Must not be null.
+	 * @param delegate
+	 *            The dispatcher that writes the events to the engine on the consumer thread. Must not be null.
+	 * @param maxOffHeapBytes
+	 *            The most memory the queued events may use out of the heap, or zero to keep them in the heap. The ring
+	 *            buffer holds fewer events if they do not fit. Must be zero or at least
+	 *            <code>OFF_HEAP_EVENT_SIZE</code>.
+	 */
+	public AsyncLogDispatcher(final int bufferSize, final OverflowPolicy overflowPolicy, final LogDispatcher delegate,
+	        final long maxOffHeapBytes)
+	{
+		super("gab-logging-async", AsyncLogDispatcher.createRingBuffer(bufferSize, overflowPolicy, maxOffHeapBytes),
+		        delegate, AsyncLogDispatcher.BATCH_SIZE);
+
+		this._overflowPolicy = overflowPolicy;
+		start();
+	}
+
+	/*
+	 * Checks the parameters the ring buffer depends on before it is allocated.
+	 */
+	private static LogRingBuffer createRingBuffer(final int bufferSize, final OverflowPolicy overflowPolicy,
+	        final long maxOffHeapBytes)
+	{
+		if ((maxOffHeapBytes != 0L) && (maxOffHeapBytes < AsyncLogDispatcher.OFF_HEAP_EVENT_SIZE))
+		{
+			throw (new IllegalArgumentException(
+			        "The 'maxOffHeapBytes' parameter must be zero or at least " + AsyncLogDispatcher.OFF_HEAP_EVENT_SIZE
+			                + "."));
+		}
+		if (overflowPolicy == null)
+		{
+			throw (new IllegalArgumentException("The 'overflowPolicy' parameter must not be null."));
+		}
+
+		if (maxOffHeapBytes == 0L)
+		{
+			return (new LogRingBuffer(bufferSize));
+		}
+		final long fit = Long.highestOneBit(maxOffHeapBytes / AsyncLogDispatcher.OFF_HEAP_EVENT_SIZE);
+		return (new LogRingBuffer((int) Math.min(bufferSize, Math.min(fit, 1 << 30)), true));
+	}
+
+	/**
+	 * Gets the number of bytes the ring buffer keeps out of the heap.
+	 *
+	 * @return The number of bytes, zero if the events are kept in the heap or the dispatcher is closed.
+	 */
+	public long getOffHeapSize()
+	{
+		return (ringBuffer().offHeapSize());
+	}
+
+	/**
+	 * Gets what is done when the ring buffer is full.
+	 *
+	 * @return An <code>OverflowPolicy</code> instance.
+	 */
+	public OverflowPolicy getOverflowPolicy()
+	{
+		return (this._overflowPolicy);
+	}
+
+	@Override
+	public long getDroppedCount()
+	{
+		return (this._droppedCount.get());
+	}
+
+	/**
+	 * Applies the overflow policy. With <code>DROP_NEWEST</code> a part of a batch that does not fit is dropped whole.
+	 */
+	@Override
+	long overflow(final int count)
+	{
+		if (this._overflowPolicy == OverflowPolicy.DROP_NEWEST)
+		{
+			this._droppedCount.addAndGet(count);
+			return (RingLogDispatcher.DROPPED);
+		}
+		if (this._overflowPolicy == OverflowPolicy.DROP_OLDEST)
+		{
+			if (discardOldest())
+			{
+				this._droppedCount.incrementAndGet();
+			}
+			return (ringBuffer().claim(count));
+		}
+		return (super.overflow(count));
+	}
+}
@@ -0,0 +1,439 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+
+/**
+ * Writes events to a file in a compact binary format instead of text, so no time or message is formatted while
+ * logging. Turn a file back into the text of the <code>SimpleLogLayout</code> with <code>BinaryLogDecoder</code>.
+ * <p>
+ * The file is a series of sections. Each section starts with a header and has its own dictionary, so a file can be
+ * appended to by several runs and decoded as a stream. The header is the four bytes <code>GABL</code>, a version byte
+ * and the time of the section in milliseconds since the epoch as eight big-endian bytes. It is followed by records,
+ * each starting with a tag byte:
+ * <ul>
+ * <li><code>STRING</code>: a dictionary entry. The UTF-8 bytes of a class, method or level name, which get the next
+ * id of the section starting from zero. Written before the first event that uses it.
+ * <li><code>EVENT</code>: the time as a zigzag varint of milliseconds since the event before, or since the header
+ * time, a level byte, the thread id as a varint, the ids of the class name and method name as varints, the UTF-8
+ * message and the UTF-8 stack trace, which is empty if no throwable was logged.
+ * <li><code>CONTEXT</code>: the diagnostic context of the events that follow in the section, written when it changes.
+ * The number of values as a varint, then for each value the id of its key as a varint and the UTF-8 value. A count of
+ * zero clears it. Added in version 2.
+ * </ul>
+ * UTF-8 values are written as a varint byte length followed by the bytes. The level byte is the position of the level
+ * in FINEST, FINER, FINE, CONFIG, INFO, WARNING, SEVERE and SECURITY. Any other level is written as the level byte
+ * <code>OTHER_LEVEL</code> followed by the varint id of its name.
+ * <p>
+ * The record buffer and the encoder are kept between events.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class BinaryFileAppender implements LogAppender
+{
+
+	static final byte[]				MAGIC				= { 'G', 'A', 'B', 'L' };
+
+	static final byte				VERSION				= 2;
+
+	static final byte				STRING				= 1;
+
+	static final byte				EVENT				= 2;
+
+	static final byte				CONTEXT				= 3;
+
+	static final byte				OTHER_LEVEL			= (byte) LogMetrics.LEVELS.length;
+
+	/*
+	 * A new section is started once the dictionary holds this many names, so it cannot grow without bound.
+	 */
+	static final int				MAX_DICTIONARY_SIZE	= 65536;
+
+	private static final int		BUFFER_SIZE			= 8192;
+
+	private final FileChannel		_channel;
+
+	private final boolean			_autoFlush;
+
+	private final Map<String, Integer>	_dictionary		= new HashMap<String, Integer>();
+
+	private final CharsetEncoder	_encoder			= StandardCharsets.UTF_8.newEncoder()
+	        .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private final ErrorManager		_errorManager		= new ErrorManager();
+
+	private final ReentrantLock		_lock				= new ReentrantLock();
+
+	private ByteBuffer				_buffer				= ByteBuffer.allocate(BinaryFileAppender.BUFFER_SIZE);
+
+	private CharBuffer				_chars				= CharBuffer.allocate(256);
+
+	private long					_lastMillis;
+
+	private LogContext				_lastContext		= LogContext.EMPTY;
+
+	private boolean					_closed;
+
+	private volatile LogMetrics		_metrics;
+
+	/**
+	 * Creates an appender that writes every event to the file as it is appended.
+	 *
+	 * @param file
+	 *            The file to append to. Created if it does not exist. Must not be null.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	public BinaryFileAppender(final Path file) throws IOException
+	{
+		this(file, true);
+	}
+
+	/**
+	 * Creates an appender.
+	 *
+	 * @param file
+	 *            The file to append to. Created if it does not exist. Must not be null.
+	 * @param autoFlush
+	 *            True to write every event to the file as it is appended, false to write when the buffer is full or
+	 *            on <code>flush()</code>.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	public BinaryFileAppender(final Path file, final boolean autoFlush) throws IOException
+	{
+		if (file == null)
+		{
+			throw (new IllegalArgumentException("The 'file' parameter must not be null."));
+		}
+		this._autoFlush = autoFlush;
+		this._channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		        StandardOpenOption.APPEND);
+		startSection(System.currentTimeMillis());
+	}
+
+	/*
+	 * Writes a section header and empties the dictionary.
+	 */
+	private void startSection(final long millis)
+	{
+		this._dictionary.clear();
+		this._lastMillis = millis;
+		this._lastContext = LogContext.EMPTY;
+		ensureRemaining(BinaryFileAppender.MAGIC.length + 9);
+		this._buffer.put(BinaryFileAppender.MAGIC).put(BinaryFileAppender.VERSION).putLong(millis);
+	}
+
+	@Override
+	public void setMetrics(final LogMetrics metrics)
+	{
+		this._metrics = metrics;
+	}
+
+	/**
+	 * Writes the events of a batch under one hold of the lock, so the events of other threads are not written between
+	 * them.
+	 */
+	@Override
+	public void append(final LogEvent[] events, final int count)
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			for (int i = 0; i < count; i++)
+			{
+				append(events[i]);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void append(final LogEvent event)
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+
+			final String className = event.getClassName();
+			final String methodName = event.getMethodName();
+			final Level level = event.getLevel();
+			final int levelIndex = LogMetrics.levelIndex(level);
+			final LogContext context = event.getContext();
+			if ((this._dictionary.size() + 3 + context.size()) > BinaryFileAppender.MAX_DICTIONARY_SIZE)
+			{
+				startSection(event.getMillis());
+			}
+			final int classId = intern(className);
+			final int methodId = intern(methodName);
+			final int levelId = (levelIndex == BinaryFileAppender.OTHER_LEVEL) ? intern(level.getName()) : -1;
+			if (context != this._lastContext)
+			{
+				putContext(context);
+			}
+
+			String stackTrace = "";
+			final Throwable thrown = event.getThrown();
+			if (thrown != null)
+			{
+				final StringWriter writer = new StringWriter();
+				thrown.printStackTrace(new PrintWriter(writer));
+				stackTrace = writer.toString();
+			}
+
+			// the tag, time, level, level id, thread, class and method.
+			final ByteBuffer buffer = ensureRemaining(1 + 10 + 1 + 5 + 10 + 5 + 5);
+			buffer.put(BinaryFileAppender.EVENT);
+			putVarLong(buffer, zigzag(event.getMillis() - this._lastMillis));
+			this._lastMillis = event.getMillis();
+			buffer.put((byte) levelIndex);
+			if (levelId >= 0)
+			{
+				putVarLong(buffer, levelId);
+			}
+			putVarLong(buffer, event.getThreadId());
+			putVarLong(buffer, classId);
+			putVarLong(buffer, methodId);
+			putString(event.getMessage());
+			putString(stackTrace);
+
+			try
+			{
+				if (this._autoFlush || (this._buffer.position() >= BinaryFileAppender.BUFFER_SIZE))
+				{
+					drain();
+				}
+			}
+			catch (final IOException e)
+			{
+				this._errorManager.error("Unable to write a log event.", e, ErrorManager.WRITE_FAILURE);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * Writes a context record. The keys are interned first, so their dictionary entries come before it.
+	 */
+	private void putContext(final LogContext context)
+	{
+		final int size = context.size();
+		final int[] keyIds = new int[size];
+		for (int i = 0; i < size; i++)
+		{
+			keyIds[i] = intern(context.getKey(i));
+		}
+
+		final ByteBuffer buffer = ensureRemaining(1 + 5);
+		buffer.put(BinaryFileAppender.CONTEXT);
+		putVarLong(buffer, size);
+		for (int i = 0; i < size; i++)
+		{
+			putVarLong(ensureRemaining(5), keyIds[i]);
+			putString(context.getValue(i));
+		}
+		this._lastContext = context;
+	}
+
+	/*
+	 * Gets the id of a name, writing a dictionary entry the first time it is used in the section.
+	 */
+	private int intern(final String name)
+	{
+		final Integer id = this._dictionary.get(name);
+		if (id != null)
+		{
+			return (id.intValue());
+		}
+		final int newId = this._dictionary.size();
+		this._dictionary.put(name, Integer.valueOf(newId));
+		ensureRemaining(1).put(BinaryFileAppender.STRING);
+		putString(name);
+		return (newId);
+	}
+
+	/*
+	 * Writes a string as its UTF-8 byte length and bytes, encoding straight into the buffer.
+	 */
+	private void putString(final String value)
+	{
+		// a char never takes more than three bytes in UTF-8, and the length takes at most five.
+		final ByteBuffer buffer = ensureRemaining(5 + (value.length() * 3));
+		final int lengthPosition = buffer.position();
+		buffer.position(lengthPosition + 5);
+
+		final int chars = value.length();
+		if (this._chars.capacity() < chars)
+		{
+			this._chars = CharBuffer.allocate(Math.max(chars, this._chars.capacity() * 2));
+		}
+		final CharBuffer charBuffer = this._chars;
+		charBuffer.clear();
+		value.getChars(0, chars, charBuffer.array(), 0);
+		charBuffer.limit(chars);
+
+		final CharsetEncoder encoder = this._encoder;
+		encoder.reset();
+		encoder.encode(charBuffer, buffer, true);
+		encoder.flush(buffer);
+
+		// move the bytes back to just after the length, which is known now.
+		final int end = buffer.position();
+		final int length = end - lengthPosition - 5;
+		buffer.position(lengthPosition);
+		putVarLong(buffer, length);
+		final int start = buffer.position();
+		System.arraycopy(buffer.array(), lengthPosition + 5, buffer.array(), start, length);
+		buffer.position(start + length);
+	}
+
+	/*
+	 * Makes room for a number of bytes, growing the buffer if needed.
+	 */
+	private ByteBuffer ensureRemaining(final int bytes)
+	{
+		if (this._buffer.remaining() < bytes)
+		{
+			final ByteBuffer grown = ByteBuffer
+			        .allocate(Math.max(this._buffer.capacity() * 2, this._buffer.position() + bytes));
+			this._buffer.flip();
+			grown.put(this._buffer);
+			this._buffer = grown;
+		}
+		return (this._buffer);
+	}
+
+	/*
+	 * Maps a signed value to an unsigned one so small negative values stay short.
+	 */
+	static long zigzag(final long value)
+	{
+		return ((value << 1) ^ (value >> 63));
+	}
+
+	/*
+	 * Writes an unsigned varint: seven bits a byte, low bits first, with the high bit set on every byte but the last.
+	 */
+	static void putVarLong(final ByteBuffer buffer, final long value)
+	{
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0L)
+		{
+			buffer.put((byte) ((remaining & 0x7F) | 0x80));
+			remaining >>>= 7;
+		}
+		buffer.put((byte) remaining);
+	}
+
+	/*
+	 * Writes the buffered bytes to the file.
+	 */
+	private void drain() throws IOException
+	{
+		final ByteBuffer buffer = this._buffer;
+		buffer.flip();
+		while (buffer.hasRemaining())
+		{
+			this._channel.write(buffer);
+		}
+
+		final LogMetrics metrics = this._metrics;
+		if (metrics != null)
+		{
+			metrics.recordBytesWritten(buffer.limit());
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public void flush()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			try
+			{
+				drain();
+			}
+			catch (final IOException e)
+			{
+				this._errorManager.error("Unable to flush the log file.", e, ErrorManager.FLUSH_FAILURE);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+			this._closed = true;
+			flush();
+			try
+			{
+				this._channel.close();
+			}
+			catch (final IOException e)
+			{
+				this._errorManager.error("Unable to close the log file.", e, ErrorManager.CLOSE_FAILURE);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,315 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StreamCorruptedException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a file written by <code>BinaryFileAppender</code> and turns it back into the text of the
+ * <code>SimpleLogLayout</code>. The file is read as a stream, one event at a time, so a file of any size can be
+ * decoded. Run it from the command line:
+ *
+ * <pre>
+ * java -cp gab-logging.jar com.gabstudios.logging.BinaryLogDecoder app.bin [zone] &gt; app.log
+ * </pre>
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class BinaryLogDecoder
+{
+	private final DataInputStream	_in;
+
+	private final SimpleLogLayout	_layout;
+
+	private final List<String>		_dictionary	= new ArrayList<String>();
+
+	private byte[]					_bytes		= new byte[256];
+
+	private long					_lastMillis;
+
+	private LogContext				_context	= LogContext.EMPTY;
+
+	private boolean					_started;
+
+	/**
+	 * Creates a decoder that writes the time in the default time zone.
+	 *
+	 * @param in
+	 *            The binary log to read. Must not be null.
+	 */
+	public BinaryLogDecoder(final InputStream in)
+	{
+		this(in, ZoneId.systemDefault());
+	}
+
+	/**
+	 * Creates a decoder.
+	 *
+	 * @param in
+	 *            The binary log to read. Must not be null.
+	 * @param zone
+	 *            The time zone the time is written in. Must not be null.
+	 */
+	public BinaryLogDecoder(final InputStream in, final ZoneId zone)
+	{
+		if (in == null)
+		{
+			throw (new IllegalArgumentException("The 'in' parameter must not be null."));
+		}
+		this._in = new DataInputStream(new BufferedInputStream(in));
+		this._layout = new SimpleLogLayout(zone);
+	}
+
+	/**
+	 * Decodes a file to standard output.
+	 *
+	 * @param args
+	 *            The path of the binary log and, optionally, the time zone id to write the time in.
+	 * @throws IOException
+	 *             If the file cannot be read or is not a binary log.
+	 */
+	public static void main(final String[] args) throws IOException
+	{
+		if ((args.length < 1) || (args.length > 2))
+		{
+			System.err.println("Usage: java -cp gab-logging.jar " + BinaryLogDecoder.class.getName()
+			        + " <file> [zone]");
+			System.exit(2);
+		}
+
+		final ZoneId zone = (args.length > 1) ? ZoneId.of(args[1]) : ZoneId.systemDefault();
+		try (InputStream in = Files.newInputStream(Paths.get(args[0])))
+		{
+			final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+			new BinaryLogDecoder(in, zone).decode(out);
+			out.flush();
+		}
+	}
+
+	/**
+	 * Decodes every remaining event.
+	 *
+	 * @param out
+	 *            Where the text is written.
+	 * @throws IOException
+	 *             If the log cannot be read or is not a binary log.
+	 */
+	public void decode(final Writer out) throws IOException
+	{
+		final StringBuilder builder = new StringBuilder(256);
+		while (next(builder))
+		{
+			out.append(builder);
+			builder.setLength(0);
+		}
+	}
+
+	/**
+	 * Decodes the next event.
+	 *
+	 * @param builder
+	 *            The buffer the text of the event is appended to.
+	 * @return True if an event was decoded, false at the end of the log.
+	 * @throws IOException
+	 *             If the log cannot be read or is not a binary log.
+	 */
+	public boolean next(final StringBuilder builder) throws IOException
+	{
+		while (true)
+		{
+			final int tag = this._in.read();
+			if (tag < 0)
+			{
+				return (false);
+			}
+			if ((tag == BinaryFileAppender.MAGIC[0]) || !this._started)
+			{
+				readHeader(tag);
+			}
+			else if (tag == BinaryFileAppender.STRING)
+			{
+				this._dictionary.add(readString());
+			}
+			else if (tag == BinaryFileAppender.EVENT)
+			{
+				readEvent(builder);
+				return (true);
+			}
+			else if (tag == BinaryFileAppender.CONTEXT)
+			{
+				readContext();
+			}
+			else
+			{
+				throw (new StreamCorruptedException("Unknown record tag " + tag + "."));
+			}
+		}
+	}
+
+	/*
+	 * Reads the header that starts a section, whose first byte was already read.
+	 */
+	private void readHeader(final int first) throws IOException
+	{
+		final byte[] magic = BinaryFileAppender.MAGIC;
+		boolean valid = (first == magic[0]);
+		for (int i = 1; i < magic.length; i++)
+		{
+			valid &= (this._in.readByte() == magic[i]);
+		}
+		if (!valid)
+		{
+			throw (new StreamCorruptedException("The stream is not a binary log."));
+		}
+		final byte version = this._in.readByte();
+		if ((version < 1) || (version > BinaryFileAppender.VERSION))
+		{
+			throw (new StreamCorruptedException("Unsupported binary log version " + version + "."));
+		}
+
+		this._lastMillis = this._in.readLong();
+		this._dictionary.clear();
+		this._context = LogContext.EMPTY;
+		this._started = true;
+	}
+
+	/*
+	 * Reads an event and writes its text.
+	 */
+	private void readEvent(final StringBuilder builder) throws IOException
+	{
+		final long delta = readVarLong();
+		this._lastMillis += (delta >>> 1) ^ -(delta & 1L);
+
+		final int levelIndex = this._in.readUnsignedByte();
+		final String levelName;
+		if (levelIndex < LogMetrics.LEVELS.length)
+		{
+			levelName = LogMetrics.LEVELS[levelIndex].getName();
+		}
+		else if (levelIndex == BinaryFileAppender.OTHER_LEVEL)
+		{
+			levelName = lookup(readVarLong());
+		}
+		else
+		{
+			throw (new StreamCorruptedException("Unknown level " + levelIndex + "."));
+		}
+
+		// the thread id is kept in the log but is not part of the text.
+		readVarLong();
+		final String className = lookup(readVarLong());
+		final String methodName = lookup(readVarLong());
+		final String message = readString();
+		final String stackTrace = readString();
+
+		this._layout.format(this._lastMillis, levelName, className, methodName, this._context, message,
+		        (stackTrace.length() == 0) ? null : stackTrace, builder);
+	}
+
+	/*
+	 * Reads the context of the events that follow.
+	 */
+	private void readContext() throws IOException
+	{
+		final long size = readVarLong();
+		if ((size < 0) || (size > BinaryFileAppender.MAX_DICTIONARY_SIZE))
+		{
+			throw (new StreamCorruptedException("Invalid context size " + size + "."));
+		}
+		if (size == 0)
+		{
+			this._context = LogContext.EMPTY;
+			return;
+		}
+
+		final String[] keys = new String[(int) size];
+		final String[] values = new String[(int) size];
+		for (int i = 0; i < keys.length; i++)
+		{
+			keys[i] = lookup(readVarLong());
+			values[i] = readString();
+		}
+		this._context = new LogContext(keys, values);
+	}
+
+	/*
+	 * Gets a name from the dictionary of the section.
+	 */
+	private String lookup(final long id) throws IOException
+	{
+		if ((id < 0) || (id >= this._dictionary.size()))
+		{
+			throw (new StreamCorruptedException("Unknown dictionary id " + id + "."));
+		}
+		return (this._dictionary.get((int) id));
+	}
+
+	/*
+	 * Reads a UTF-8 value written as its byte length and bytes.
+	 */
+	private String readString() throws IOException
+	{
+		final long length = readVarLong();
+		if ((length < 0) || (length > Integer.MAX_VALUE))
+		{
+			throw (new StreamCorruptedException("Invalid string length " + length + "."));
+		}
+		if (this._bytes.length < length)
+		{
+			this._bytes = new byte[Math.max((int) length, this._bytes.length * 2)];
+		}
+		this._in.readFully(this._bytes, 0, (int) length);
+		return (new String(this._bytes, 0, (int) length, StandardCharsets.UTF_8));
+	}
+
+	/*
+	 * Reads an unsigned varint.
+	 */
+	private long readVarLong() throws IOException
+	{
+		long value = 0L;
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			final int b = this._in.read();
+			if (b < 0)
+			{
+				throw (new EOFException("The binary log ends inside a record."));
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return (value);
+			}
+		}
+		throw (new StreamCorruptedException("A varint is longer than ten bytes."));
+	}
+}
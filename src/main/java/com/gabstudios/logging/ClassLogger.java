@@ -0,0 +1,1130 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A logger bound to a single class. It is created once per class by <code>LogService.forClass()</code> and keeps the
+ * validated class name and what the engine needs to check a level, so a log call does not look anything up. With the
+ * java logging engine the level check reads the effective level that the <code>Logger</code> caches and updates
+ * whenever its level or the level of a parent changes. Engines that keep their own levels store the lowest enabled
+ * level here. A <code>LogSampler</code> set for the class is asked right after the level check of the debug and
+ * configuration methods. When the service has a <code>FlightRecorder</code>, the debug and configuration events whose level
+ * is not enabled are still built, and are handed to the recorder instead of being written.
+ * <p>
+ * Keep it in a static field of the calling class:
+ *
+ * <pre>
+ * private static final ClassLogger LOG = LogProvider.getProvider().getService().forClass(MyClass.class);
+ * </pre>
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class ClassLogger
+{
+	private final AbstractLogService	_service;
+
+	private final Logger				_logger;
+
+	private final String				_className;
+
+	private final LongAdder				_eventCount	= new LongAdder();
+
+	private final MethodNameCache		_methodNames	= new MethodNameCache();
+
+	private volatile int				_threshold	= Level.INFO.intValue();
+
+	private volatile LogSampler			_sampler;
+
+	/**
+	 * Package scope. Should only be created by LogService.
+	 *
+	 * @param service
+	 *            The service that validates, sanitizes and logs the events.
+	 * @param className
+	 *            The validated name of the class.
+	 * @param logger
+	 *            The java logger whose level is checked, or null if the engine keeps its own levels.
+	 */
+	ClassLogger(final AbstractLogService service, final String className, final Logger logger)
+	{
+		assert (service != null) : "The parameter 'service' should not be null";
+		assert (className != null) : "The parameter 'className' should not be null";
+
+		this._service = service;
+		this._className = className;
+		this._logger = logger;
+	}
+
+	/**
+	 * Gets the name of the class this logger is bound to.
+	 *
+	 * @return The fully qualified class name.
+	 */
+	public String getClassName()
+	{
+		return (this._className);
+	}
+
+	/**
+	 * Gets the java logger this logger writes to.
+	 *
+	 * @return A <code>Logger</code> instance, or null if the engine does not use the java logging.
+	 */
+	Logger getLogger()
+	{
+		return (this._logger);
+	}
+
+	/**
+	 * Sets the lowest level logged when the engine keeps its own levels. Ignored when a java logger is used.
+	 *
+	 * @param level
+	 *            The lowest enabled level.
+	 */
+	void setLevel(final Level level)
+	{
+		this._threshold = level.intValue();
+	}
+
+	/**
+	 * Sets the sampler of the debug and configuration events.
+	 *
+	 * @param sampler
+	 *            The sampler, or null to write every event.
+	 */
+	void setSampler(final LogSampler sampler)
+	{
+		this._sampler = sampler;
+	}
+
+	/**
+	 * Gets the sampler of the debug and configuration events.
+	 *
+	 * @return A <code>LogSampler</code> instance, or null if every event is written.
+	 */
+	public LogSampler getSampler()
+	{
+		return (this._sampler);
+	}
+
+	/**
+	 * Gets how many events an event of the level stands for. Only events below <code>INFO</code> are sampled.
+	 *
+	 * @param level
+	 *            The level of the event.
+	 * @return The sample rate, one if the level is not sampled.
+	 */
+	double getSampleRate(final Level level)
+	{
+		final LogSampler sampler = this._sampler;
+		if ((sampler == null) || (level.intValue() >= Level.INFO.intValue()))
+		{
+			return (1d);
+		}
+		return (sampler.getSampleRate());
+	}
+
+	/**
+	 * Decides if a debug or configuration event is written. Made before the event is validated or built.
+	 *
+	 * @return True if the event is written, otherwise false.
+	 */
+	boolean sample()
+	{
+		final LogSampler sampler = this._sampler;
+		return ((sampler == null) || sampler.sample());
+	}
+
+	/**
+	 * Gets the validated and sanitized method names of this class.
+	 *
+	 * @return A <code>MethodNameCache</code> instance.
+	 */
+	MethodNameCache getMethodNames()
+	{
+		return (this._methodNames);
+	}
+
+	/**
+	 * Gets the number of events logged by this class while statistics were enabled.
+	 *
+	 * @return The event count.
+	 */
+	public long getEventCount()
+	{
+		return (this._eventCount.sum());
+	}
+
+	/**
+	 * Counts a logged event.
+	 */
+	void recordEvent()
+	{
+		this._eventCount.increment();
+	}
+
+	/**
+	 * Sets the event count back to zero.
+	 */
+	void resetEventCount()
+	{
+		this._eventCount.reset();
+	}
+
+	/**
+	 * Checks if an event of the level would be logged.
+	 *
+	 * @param level
+	 *            The level to check.
+	 * @return True if the level is enabled, otherwise false.
+	 */
+	public boolean isLoggable(final Level level)
+	{
+		final Logger logger = this._logger;
+		if (logger != null)
+		{
+			return (logger.isLoggable(level));
+		}
+		return (level.intValue() >= this._threshold);
+	}
+
+	/**
+	 * Checks if a debug or configuration event whose level is not enabled is kept by a flight recorder.
+	 *
+	 * @return True if the service has a flight recorder, otherwise false.
+	 */
+	boolean isRecorded()
+	{
+		return (this._service.getFlightRecorder() != null);
+	}
+
+	/**
+	 * Creates a batch that collects events of this class and logs them together on commit.
+	 *
+	 * @return A new <code>LogBatch</code> instance.
+	 */
+	public LogBatch batch()
+	{
+		return (new LogBatch(this._service, this));
+	}
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method.
+	 * @param message
+	 *            The message to send to the log.
+	 */
+	public void logConfiguration(final String methodName, final String message)
+	{
+		if ((isLoggable(Level.CONFIG) || isRecorded()) && sample())
+		{
+			this._service.log(this, Level.CONFIG, methodName, message, null);
+		}
+	}
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only built when the
+	 * level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logConfiguration(final String methodName, final Supplier<String> messageSupplier)
+	{
+		if ((isLoggable(Level.CONFIG) || isRecorded()) && sample())
+		{
+			this._service.logSupplied(this, Level.CONFIG, methodName, messageSupplier);
+		}
+	}
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only formatted when
+	 * the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logConfiguration(final String methodName, final String template, final Object arg)
+	{
+		if ((isLoggable(Level.CONFIG) || isRecorded()) && sample())
+		{
+			this._service.logTemplate(this, Level.CONFIG, methodName, template, new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only formatted when
+	 * the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logConfiguration(final String methodName, final String template, final Object arg1, final Object arg2)
+	{
+		if ((isLoggable(Level.CONFIG) || isRecorded()) && sample())
+		{
+			this._service.logTemplate(this, Level.CONFIG, methodName, template, new Object[] { arg1, arg2 });
+		}
+	}
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only formatted when
+	 * the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logConfiguration(final String methodName, final String template, final Object... args)
+	{
+		if ((isLoggable(Level.CONFIG) || isRecorded()) && sample())
+		{
+			this._service.logTemplate(this, Level.CONFIG, methodName, template, args);
+		}
+	}
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only formatted when
+	 * the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logConfiguration(final String methodName, final String template, final long arg)
+	{
+		if ((isLoggable(Level.CONFIG) || isRecorded()) && sample())
+		{
+			this._service.logTemplate(this, Level.CONFIG, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only formatted when
+	 * the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logConfiguration(final String methodName, final String template, final double arg)
+	{
+		if ((isLoggable(Level.CONFIG) || isRecorded()) && sample())
+		{
+			this._service.logTemplate(this, Level.CONFIG, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param message
+	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
+	 */
+	public void logDebug(final String methodName, final String message)
+	{
+		if ((isLoggable(Level.FINEST) || isRecorded()) && sample())
+		{
+			this._service.log(this, Level.FINEST, methodName, message, null);
+		}
+	}
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only built when the level is
+	 * enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logDebug(final String methodName, final Supplier<String> messageSupplier)
+	{
+		if ((isLoggable(Level.FINEST) || isRecorded()) && sample())
+		{
+			this._service.logSupplied(this, Level.FINEST, methodName, messageSupplier);
+		}
+	}
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only formatted when the
+	 * level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logDebug(final String methodName, final String template, final Object arg)
+	{
+		if ((isLoggable(Level.FINEST) || isRecorded()) && sample())
+		{
+			this._service.logTemplate(this, Level.FINEST, methodName, template, new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only formatted when the
+	 * level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logDebug(final String methodName, final String template, final Object arg1, final Object arg2)
+	{
+		if ((isLoggable(Level.FINEST) || isRecorded()) && sample())
+		{
+			this._service.logTemplate(this, Level.FINEST, methodName, template, new Object[] { arg1, arg2 });
+		}
+	}
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only formatted when the
+	 * level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logDebug(final String methodName, final String template, final Object... args)
+	{
+		if ((isLoggable(Level.FINEST) || isRecorded()) && sample())
+		{
+			this._service.logTemplate(this, Level.FINEST, methodName, template, args);
+		}
+	}
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only formatted when the
+	 * level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logDebug(final String methodName, final String template, final long arg)
+	{
+		if ((isLoggable(Level.FINEST) || isRecorded()) && sample())
+		{
+			this._service.logTemplate(this, Level.FINEST, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only formatted when the
+	 * level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logDebug(final String methodName, final String template, final double arg)
+	{
+		if ((isLoggable(Level.FINEST) || isRecorded()) && sample())
+		{
+			this._service.logTemplate(this, Level.FINEST, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log a failure message.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param message
+	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
+	 */
+	public void logFailure(final String methodName, final String message)
+	{
+		if (isLoggable(Level.SEVERE))
+		{
+			this._service.log(this, Level.SEVERE, methodName, message, null);
+		}
+	}
+
+	/**
+	 * Call when you want to log a failure message. The message is only built when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logFailure(final String methodName, final Supplier<String> messageSupplier)
+	{
+		if (isLoggable(Level.SEVERE))
+		{
+			this._service.logSupplied(this, Level.SEVERE, methodName, messageSupplier);
+		}
+	}
+
+	/**
+	 * Call when you want to log a failure message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logFailure(final String methodName, final String template, final Object arg)
+	{
+		if (isLoggable(Level.SEVERE))
+		{
+			this._service.logTemplate(this, Level.SEVERE, methodName, template, new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Call when you want to log a failure message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logFailure(final String methodName, final String template, final Object arg1, final Object arg2)
+	{
+		if (isLoggable(Level.SEVERE))
+		{
+			this._service.logTemplate(this, Level.SEVERE, methodName, template, new Object[] { arg1, arg2 });
+		}
+	}
+
+	/**
+	 * Call when you want to log a failure message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logFailure(final String methodName, final String template, final Object... args)
+	{
+		if (isLoggable(Level.SEVERE))
+		{
+			this._service.logTemplate(this, Level.SEVERE, methodName, template, args);
+		}
+	}
+
+	/**
+	 * Call when you want to log a failure message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logFailure(final String methodName, final String template, final long arg)
+	{
+		if (isLoggable(Level.SEVERE))
+		{
+			this._service.logTemplate(this, Level.SEVERE, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log a failure message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logFailure(final String methodName, final String template, final double arg)
+	{
+		if (isLoggable(Level.SEVERE))
+		{
+			this._service.logTemplate(this, Level.SEVERE, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log a failure with throwable details.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param message
+	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
+	 * @param thrown
+	 *            The throwable to log details about.
+	 */
+	public void logFailure(final String methodName, final String message, final Throwable thrown)
+	{
+		if (isLoggable(Level.SEVERE))
+		{
+			LogValidator.validateThrown(thrown);
+			this._service.log(this, Level.SEVERE, methodName, message, thrown);
+		}
+	}
+
+	/**
+	 * Call when you want to log standard messages.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param message
+	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
+	 */
+	public void logMessage(final String methodName, final String message)
+	{
+		if (isLoggable(Level.INFO))
+		{
+			this._service.log(this, Level.INFO, methodName, message, null);
+		}
+	}
+
+	/**
+	 * Call when you want to log standard messages. The message is only built when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logMessage(final String methodName, final Supplier<String> messageSupplier)
+	{
+		if (isLoggable(Level.INFO))
+		{
+			this._service.logSupplied(this, Level.INFO, methodName, messageSupplier);
+		}
+	}
+
+	/**
+	 * Call when you want to log standard messages. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logMessage(final String methodName, final String template, final Object arg)
+	{
+		if (isLoggable(Level.INFO))
+		{
+			this._service.logTemplate(this, Level.INFO, methodName, template, new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Call when you want to log standard messages. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logMessage(final String methodName, final String template, final Object arg1, final Object arg2)
+	{
+		if (isLoggable(Level.INFO))
+		{
+			this._service.logTemplate(this, Level.INFO, methodName, template, new Object[] { arg1, arg2 });
+		}
+	}
+
+	/**
+	 * Call when you want to log standard messages. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logMessage(final String methodName, final String template, final Object... args)
+	{
+		if (isLoggable(Level.INFO))
+		{
+			this._service.logTemplate(this, Level.INFO, methodName, template, args);
+		}
+	}
+
+	/**
+	 * Call when you want to log standard messages. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logMessage(final String methodName, final String template, final long arg)
+	{
+		if (isLoggable(Level.INFO))
+		{
+			this._service.logTemplate(this, Level.INFO, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log standard messages. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logMessage(final String methodName, final String template, final double arg)
+	{
+		if (isLoggable(Level.INFO))
+		{
+			this._service.logTemplate(this, Level.INFO, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log a security message.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param message
+	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
+	 */
+	public void logSecurity(final String methodName, final String message)
+	{
+		if (isLoggable(LogService.SecurityLevel.SECURITY))
+		{
+			this._service.log(this, LogService.SecurityLevel.SECURITY, methodName, message, null);
+		}
+	}
+
+	/**
+	 * Call when you want to log a security message. The message is only built when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logSecurity(final String methodName, final Supplier<String> messageSupplier)
+	{
+		if (isLoggable(LogService.SecurityLevel.SECURITY))
+		{
+			this._service.logSupplied(this, LogService.SecurityLevel.SECURITY, methodName, messageSupplier);
+		}
+	}
+
+	/**
+	 * Call when you want to log a security message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logSecurity(final String methodName, final String template, final Object arg)
+	{
+		if (isLoggable(LogService.SecurityLevel.SECURITY))
+		{
+			this._service.logTemplate(this, LogService.SecurityLevel.SECURITY, methodName, template,
+			        new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Call when you want to log a security message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logSecurity(final String methodName, final String template, final Object arg1, final Object arg2)
+	{
+		if (isLoggable(LogService.SecurityLevel.SECURITY))
+		{
+			this._service.logTemplate(this, LogService.SecurityLevel.SECURITY, methodName, template,
+			        new Object[] { arg1, arg2 });
+		}
+	}
+
+	/**
+	 * Call when you want to log a security message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logSecurity(final String methodName, final String template, final Object... args)
+	{
+		if (isLoggable(LogService.SecurityLevel.SECURITY))
+		{
+			this._service.logTemplate(this, LogService.SecurityLevel.SECURITY, methodName, template, args);
+		}
+	}
+
+	/**
+	 * Call when you want to log a security message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logSecurity(final String methodName, final String template, final long arg)
+	{
+		if (isLoggable(LogService.SecurityLevel.SECURITY))
+		{
+			this._service.logTemplate(this, LogService.SecurityLevel.SECURITY, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log a security message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logSecurity(final String methodName, final String template, final double arg)
+	{
+		if (isLoggable(LogService.SecurityLevel.SECURITY))
+		{
+			this._service.logTemplate(this, LogService.SecurityLevel.SECURITY, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log a security message with a throwable details.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param message
+	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
+	 * @param thrown
+	 *            The throwable to log details about.
+	 */
+	public void logSecurity(final String methodName, final String message, final Throwable thrown)
+	{
+		if (isLoggable(LogService.SecurityLevel.SECURITY))
+		{
+			LogValidator.validateThrown(thrown);
+			this._service.log(this, LogService.SecurityLevel.SECURITY, methodName, message, thrown);
+		}
+	}
+
+	/**
+	 * Call when you want to log a warning message.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param message
+	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
+	 */
+	public void logWarning(final String methodName, final String message)
+	{
+		if (isLoggable(Level.WARNING))
+		{
+			this._service.log(this, Level.WARNING, methodName, message, null);
+		}
+	}
+
+	/**
+	 * Call when you want to log a warning message. The message is only built when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logWarning(final String methodName, final Supplier<String> messageSupplier)
+	{
+		if (isLoggable(Level.WARNING))
+		{
+			this._service.logSupplied(this, Level.WARNING, methodName, messageSupplier);
+		}
+	}
+
+	/**
+	 * Call when you want to log a warning message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logWarning(final String methodName, final String template, final Object arg)
+	{
+		if (isLoggable(Level.WARNING))
+		{
+			this._service.logTemplate(this, Level.WARNING, methodName, template, new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Call when you want to log a warning message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logWarning(final String methodName, final String template, final Object arg1, final Object arg2)
+	{
+		if (isLoggable(Level.WARNING))
+		{
+			this._service.logTemplate(this, Level.WARNING, methodName, template, new Object[] { arg1, arg2 });
+		}
+	}
+
+	/**
+	 * Call when you want to log a warning message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logWarning(final String methodName, final String template, final Object... args)
+	{
+		if (isLoggable(Level.WARNING))
+		{
+			this._service.logTemplate(this, Level.WARNING, methodName, template, args);
+		}
+	}
+
+	/**
+	 * Call when you want to log a warning message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logWarning(final String methodName, final String template, final long arg)
+	{
+		if (isLoggable(Level.WARNING))
+		{
+			this._service.logTemplate(this, Level.WARNING, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log a warning message. The message is only formatted when the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logWarning(final String methodName, final String template, final double arg)
+	{
+		if (isLoggable(Level.WARNING))
+		{
+			this._service.logTemplate(this, Level.WARNING, methodName, template, arg);
+		}
+	}
+
+	/**
+	 * Call when you want to log a warning message with a throwable details.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param message
+	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
+	 * @param thrown
+	 *            The throwable to log details about.
+	 */
+	public void logWarning(final String methodName, final String message, final Throwable thrown)
+	{
+		if (isLoggable(Level.WARNING))
+		{
+			LogValidator.validateThrown(thrown);
+			this._service.log(this, Level.WARNING, methodName, message, thrown);
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return ("ClassLogger [" + this._className + "]");
+	}
+}
@@ -0,0 +1,715 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Formatter;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A drop-in replacement for the <code>SimpleFormatter</code> that takes the same format, with the same six arguments:
+ * <ol>
+ * <li>the time of the record,
+ * <li>the source, which is the class and method name, or the logger name,
+ * <li>the logger name,
+ * <li>the localized level name,
+ * <li>the message,
+ * <li>a line separator and the stack trace of the throwable, or nothing.
+ * </ol>
+ * It also takes a seventh argument the <code>SimpleFormatter</code> does not have, the diagnostic context of the
+ * event as <code>key=value</code> pairs separated by spaces, or nothing. The java logging engine only carries the
+ * context in a <code>ContextLogRecord</code>.
+ * The format is compiled once into a list of fields that append straight into a reused buffer. The time fields are
+ * rendered once a second and cached, except the milliseconds, nanoseconds and epoch milliseconds, which are written
+ * directly. A field the compiler does not handle itself is written with <code>String.format()</code>, so every format
+ * the <code>SimpleFormatter</code> takes is written the same way.
+ * <p>
+ * Set it in <code>logging.properties</code>:
+ *
+ * <pre>
+ * java.util.logging.ConsoleHandler.formatter=com.gabstudios.logging.CompiledFormatter
+ * com.gabstudios.logging.CompiledFormatter.format=%1$tF|%1$tT.%1$tL|%4$s|%3$s|%2$s|%5$s %6$s %n
+ * </pre>
+ *
+ * Without its own format it uses <code>java.util.logging.SimpleFormatter.format</code>, from the logging properties
+ * or the system properties, and then the default of the <code>SimpleFormatter</code>. It can also be used as the
+ * <code>LogLayout</code> of an appender, where the class name is the logger name.
+ * <p>
+ * Set <code>com.gabstudios.logging.CompiledFormatter.stackTraceCacheSize</code> to the number of fingerprints kept by
+ * a <code>StackTraceCache</code>, so a repeated stack trace is written as its fingerprint.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class CompiledFormatter extends Formatter implements LogLayout
+{
+
+	/**
+	 * The logging property that sets the format.
+	 */
+	public static final String				FORMAT_KEY			= "com.gabstudios.logging.CompiledFormatter.format";
+
+	/**
+	 * The logging property that sets the number of stack trace fingerprints kept. Zero or none writes every stack
+	 * trace in full.
+	 */
+	public static final String				STACK_TRACE_CACHE_KEY	= "com.gabstudios.logging.CompiledFormatter."
+	        + "stackTraceCacheSize";
+
+	/**
+	 * The default format of the <code>SimpleFormatter</code>.
+	 */
+	public static final String				DEFAULT_FORMAT		= "%1$tb %1$td, %1$tY %1$tl:%1$tM:%1$tS %1$Tp %2$s%n"
+	        + "%4$s: %5$s%6$s%n";
+
+	private static final String				SIMPLE_FORMAT_KEY	= "java.util.logging.SimpleFormatter.format";
+
+	/*
+	 * The same syntax as java.util.Formatter: %[index$][flags][width][.precision][t]conversion
+	 */
+	private static final Pattern			SPECIFIER			= Pattern
+	        .compile("%(\\d+\\$|<)?([-#+ 0,(]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])");
+
+	private static final String				LINE_SEPARATOR		= System.lineSeparator();
+
+	private static final int				TIME				= 1;
+
+	private static final int				SOURCE				= 2;
+
+	private static final int				LOGGER				= 3;
+
+	private static final int				LEVEL				= 4;
+
+	private static final int				MESSAGE				= 5;
+
+	private static final int				THROWN				= 6;
+
+	private static final int				CONTEXT				= 7;
+
+	/*
+	 * The values of the line being written. Kept per thread and reused.
+	 */
+	private static final class Line
+	{
+		final StringBuilder	_builder	= new StringBuilder(256);
+
+		long				_millis;
+
+		String				_className;
+
+		String				_methodName;
+
+		String				_loggerName;
+
+		String				_level;
+
+		String				_message;
+
+		Throwable			_thrown;
+
+		String				_stackTrace;
+
+		LogContext			_context;
+
+		void set(final long millis, final String className, final String methodName, final String loggerName,
+		        final String level, final String message, final Throwable thrown, final LogContext context)
+		{
+			this._millis = millis;
+			this._className = className;
+			this._methodName = methodName;
+			this._loggerName = loggerName;
+			this._level = level;
+			this._message = message;
+			this._thrown = thrown;
+			this._stackTrace = null;
+			this._context = context;
+		}
+
+		/*
+		 * Gets the sixth argument, printing the stack trace once per line.
+		 */
+		String thrown(final StackTraceCache stackTraces)
+		{
+			if (this._thrown == null)
+			{
+				return ("");
+			}
+			if ((this._stackTrace == null) && (stackTraces != null))
+			{
+				this._stackTrace = System.lineSeparator() + stackTraces.format(this._thrown);
+			}
+			else if (this._stackTrace == null)
+			{
+				final StringWriter writer = new StringWriter();
+				final PrintWriter printer = new PrintWriter(writer);
+				printer.println();
+				this._thrown.printStackTrace(printer);
+				printer.close();
+				this._stackTrace = writer.toString();
+			}
+			return (this._stackTrace);
+		}
+
+		/*
+		 * Appends the second argument without building it.
+		 */
+		void appendSource(final StringBuilder builder)
+		{
+			if (this._className == null)
+			{
+				builder.append(this._loggerName);
+				return;
+			}
+			builder.append(this._className);
+			if (this._methodName != null)
+			{
+				builder.append(' ').append(this._methodName);
+			}
+		}
+
+		/*
+		 * Gets the second argument as a string.
+		 */
+		String source()
+		{
+			final StringBuilder builder = new StringBuilder();
+			appendSource(builder);
+			return (builder.toString());
+		}
+	}
+
+	/*
+	 * The time fields rendered for one second.
+	 */
+	private static final class TimeCache
+	{
+		final long		_epochSecond;
+
+		final String[]	_rendered;
+
+		TimeCache(final long epochSecond, final String[] rendered)
+		{
+			this._epochSecond = epochSecond;
+			this._rendered = rendered;
+		}
+	}
+
+	/*
+	 * A compiled piece of the format.
+	 */
+	private abstract static class Field
+	{
+		abstract void append(CompiledFormatter formatter, Line line, StringBuilder builder);
+	}
+
+	/*
+	 * Text between the specifiers.
+	 */
+	private static final class LiteralField extends Field
+	{
+		private final String _text;
+
+		LiteralField(final String text)
+		{
+			this._text = text;
+		}
+
+		@Override
+		void append(final CompiledFormatter formatter, final Line line, final StringBuilder builder)
+		{
+			builder.append(this._text);
+		}
+	}
+
+	/*
+	 * A string argument with an optional width, precision and upper case.
+	 */
+	private static final class StringField extends Field
+	{
+		private final int		_index;
+
+		private final boolean	_leftJustify;
+
+		private final int		_width;
+
+		private final int		_precision;
+
+		private final boolean	_upperCase;
+
+		StringField(final int index, final boolean leftJustify, final int width, final int precision,
+		        final boolean upperCase)
+		{
+			this._index = index;
+			this._leftJustify = leftJustify;
+			this._width = width;
+			this._precision = precision;
+			this._upperCase = upperCase;
+		}
+
+		@Override
+		void append(final CompiledFormatter formatter, final Line line, final StringBuilder builder)
+		{
+			final int start = builder.length();
+			switch (this._index)
+			{
+				case SOURCE:
+					line.appendSource(builder);
+					break;
+				case LOGGER:
+					builder.append(line._loggerName);
+					break;
+				case LEVEL:
+					builder.append(line._level);
+					break;
+				case MESSAGE:
+					builder.append(line._message);
+					break;
+				case CONTEXT:
+					line._context.appendTo(builder);
+					break;
+				default:
+					builder.append(line.thrown(formatter._stackTraces));
+					break;
+			}
+
+			if ((this._precision >= 0) && ((builder.length() - start) > this._precision))
+			{
+				builder.setLength(start + this._precision);
+			}
+			if (this._upperCase)
+			{
+				for (int i = start; i < builder.length(); i++)
+				{
+					builder.setCharAt(i, Character.toUpperCase(builder.charAt(i)));
+				}
+			}
+			for (int pad = this._width - (builder.length() - start); pad > 0; pad--)
+			{
+				if (this._leftJustify)
+				{
+					builder.append(' ');
+				}
+				else
+				{
+					builder.insert(start, ' ');
+				}
+			}
+		}
+	}
+
+	/*
+	 * A time field that only changes once a second, read from the cache.
+	 */
+	private static final class CachedTimeField extends Field
+	{
+		private final int _slot;
+
+		CachedTimeField(final int slot)
+		{
+			this._slot = slot;
+		}
+
+		@Override
+		void append(final CompiledFormatter formatter, final Line line, final StringBuilder builder)
+		{
+			builder.append(formatter.timeCache(line._millis)._rendered[this._slot]);
+		}
+	}
+
+	/*
+	 * The milliseconds (L), nanoseconds (N) or epoch milliseconds (Q) of the time, written without a cache.
+	 */
+	private static final class SubSecondField extends Field
+	{
+		private final char _conversion;
+
+		SubSecondField(final char conversion)
+		{
+			this._conversion = conversion;
+		}
+
+		@Override
+		void append(final CompiledFormatter formatter, final Line line, final StringBuilder builder)
+		{
+			final int millis = (int) Math.floorMod(line._millis, 1000L);
+			switch (this._conversion)
+			{
+				case 'L':
+					SimpleLogLayout.appendPadded(builder, millis, 3);
+					break;
+				case 'N':
+					SimpleLogLayout.appendPadded(builder, millis, 3).append("000000");
+					break;
+				default:
+					builder.append(line._millis);
+					break;
+			}
+		}
+	}
+
+	/*
+	 * Any other specifier, written with String.format().
+	 */
+	private static final class FormatField extends Field
+	{
+		private final String	_specifier;
+
+		private final int		_index;
+
+		FormatField(final String specifier, final int index)
+		{
+			this._specifier = specifier;
+			this._index = index;
+		}
+
+		@Override
+		void append(final CompiledFormatter formatter, final Line line, final StringBuilder builder)
+		{
+			final Object arg;
+			switch (this._index)
+			{
+				case TIME:
+					arg = formatter.time(line._millis);
+					break;
+				case SOURCE:
+					arg = line.source();
+					break;
+				case LOGGER:
+					arg = line._loggerName;
+					break;
+				case LEVEL:
+					arg = line._level;
+					break;
+				case MESSAGE:
+					arg = line._message;
+					break;
+				case THROWN:
+					arg = line.thrown(formatter._stackTraces);
+					break;
+				case CONTEXT:
+					arg = line._context.toString();
+					break;
+				default:
+					arg = null;
+					break;
+			}
+			builder.append(String.format(this._specifier, arg));
+		}
+	}
+
+	private final ThreadLocal<Line>			_lines				= new ThreadLocal<Line>()
+	{
+		@Override
+		protected Line initialValue()
+		{
+			return (new Line());
+		}
+	};
+
+	private final String					_format;
+
+	private final ZoneId					_zone;
+
+	private final StackTraceCache			_stackTraces;
+
+	private final Field[]					_fields;
+
+	private final String[]					_timeSpecifiers;
+
+	private volatile TimeCache				_timeCache			= new TimeCache(Long.MIN_VALUE, new String[0]);
+
+	/**
+	 * Creates a formatter with the format and stack trace cache set in the logging or system properties, in the
+	 * default time zone. Called by the <code>LogManager</code> for the <code>formatter</code> property of a handler.
+	 */
+	public CompiledFormatter()
+	{
+		this(CompiledFormatter.configuredFormat(), ZoneId.systemDefault(),
+		        CompiledFormatter.configuredStackTraceCache());
+	}
+
+	/**
+	 * Creates a formatter.
+	 *
+	 * @param format
+	 *            The format, in the syntax of the <code>SimpleFormatter</code>. Must not be null.
+	 * @param zone
+	 *            The time zone the time is written in. Must not be null.
+	 */
+	public CompiledFormatter(final String format, final ZoneId zone)
+	{
+		this(format, zone, null);
+	}
+
+	/**
+	 * Creates a formatter.
+	 *
+	 * @param format
+	 *            The format, in the syntax of the <code>SimpleFormatter</code>. Must not be null.
+	 * @param zone
+	 *            The time zone the time is written in. Must not be null.
+	 * @param stackTraces
+	 *            The cache that writes a repeated stack trace as its fingerprint, or null to write every stack trace
+	 *            in full.
+	 */
+	public CompiledFormatter(final String format, final ZoneId zone, final StackTraceCache stackTraces)
+	{
+		if (format == null)
+		{
+			throw (new IllegalArgumentException("The 'format' parameter must not be null."));
+		}
+		if (zone == null)
+		{
+			throw (new IllegalArgumentException("The 'zone' parameter must not be null."));
+		}
+
+		// check the format the same way the SimpleFormatter does, so an invalid format fails here.
+		String.format(format, ZonedDateTime.now(zone), "", "", "", "", "", "");
+
+		this._format = format;
+		this._zone = zone;
+		this._stackTraces = stackTraces;
+
+		final List<Field> fields = new ArrayList<Field>();
+		final List<String> timeSpecifiers = new ArrayList<String>();
+		compile(format, fields, timeSpecifiers);
+		this._fields = fields.toArray(new Field[fields.size()]);
+		this._timeSpecifiers = timeSpecifiers.toArray(new String[timeSpecifiers.size()]);
+	}
+
+	/*
+	 * Reads the format from the logging properties, then the system properties.
+	 */
+	private static String configuredFormat()
+	{
+		final LogManager manager = LogManager.getLogManager();
+		String format = manager.getProperty(CompiledFormatter.FORMAT_KEY);
+		if (format == null)
+		{
+			format = manager.getProperty(CompiledFormatter.SIMPLE_FORMAT_KEY);
+		}
+		if (format == null)
+		{
+			format = System.getProperty(CompiledFormatter.SIMPLE_FORMAT_KEY);
+		}
+		return ((format == null) ? CompiledFormatter.DEFAULT_FORMAT : format);
+	}
+
+	/*
+	 * Creates the stack trace cache set in the logging properties, then the system properties.
+	 */
+	private static StackTraceCache configuredStackTraceCache()
+	{
+		String size = LogManager.getLogManager().getProperty(CompiledFormatter.STACK_TRACE_CACHE_KEY);
+		if (size == null)
+		{
+			size = System.getProperty(CompiledFormatter.STACK_TRACE_CACHE_KEY);
+		}
+		if (size == null)
+		{
+			return (null);
+		}
+		try
+		{
+			final int capacity = Integer.parseInt(size.trim());
+			return ((capacity > 0) ? new StackTraceCache(capacity) : null);
+		}
+		catch (final NumberFormatException e)
+		{
+			return (null);
+		}
+	}
+
+	/*
+	 * Turns the format into fields. Time fields that change once a second get a slot in the time cache.
+	 */
+	private static void compile(final String format, final List<Field> fields, final List<String> timeSpecifiers)
+	{
+		final Matcher matcher = CompiledFormatter.SPECIFIER.matcher(format);
+		final StringBuilder literal = new StringBuilder();
+		int position = 0;
+		int ordinaryIndex = 0;
+		int lastIndex = 0;
+		while (matcher.find())
+		{
+			literal.append(format, position, matcher.start());
+			position = matcher.end();
+
+			final String indexGroup = matcher.group(1);
+			final String flags = (matcher.group(2) == null) ? "" : matcher.group(2);
+			final String width = (matcher.group(3) == null) ? "" : matcher.group(3);
+			final String precision = (matcher.group(4) == null) ? "" : matcher.group(4);
+			final String time = matcher.group(5);
+			final char conversion = matcher.group(6).charAt(0);
+
+			if ((time == null) && (conversion == 'n'))
+			{
+				literal.append(CompiledFormatter.LINE_SEPARATOR);
+				continue;
+			}
+			if ((time == null) && (conversion == '%'))
+			{
+				literal.append('%');
+				continue;
+			}
+
+			final int index;
+			if (indexGroup == null)
+			{
+				index = ++ordinaryIndex;
+			}
+			else if ("<".equals(indexGroup))
+			{
+				index = lastIndex;
+			}
+			else
+			{
+				index = Integer.parseInt(indexGroup.substring(0, indexGroup.length() - 1));
+			}
+			lastIndex = index;
+
+			if (literal.length() > 0)
+			{
+				fields.add(new LiteralField(literal.toString()));
+				literal.setLength(0);
+			}
+
+			final boolean plain = (flags.length() == 0) && (width.length() == 0) && (precision.length() == 0);
+			if ((index == CompiledFormatter.TIME) && (time != null))
+			{
+				if (plain && (time.charAt(0) == 't') && ((conversion == 'L') || (conversion == 'N')
+				        || (conversion == 'Q')))
+				{
+					fields.add(new SubSecondField(conversion));
+				}
+				else if ((conversion == 'L') || (conversion == 'N') || (conversion == 'Q'))
+				{
+					fields.add(new FormatField("%" + flags + width + precision + time + conversion, index));
+				}
+				else
+				{
+					fields.add(new CachedTimeField(timeSpecifiers.size()));
+					timeSpecifiers.add("%" + flags + width + precision + time + conversion);
+				}
+			}
+			else if ((index > CompiledFormatter.TIME) && (index <= CompiledFormatter.CONTEXT) && (time == null)
+			        && ((conversion == 's') || (conversion == 'S')) && ("".equals(flags) || "-".equals(flags)))
+			{
+				fields.add(new StringField(index, "-".equals(flags), width.isEmpty() ? 0 : Integer.parseInt(width),
+				        precision.isEmpty() ? -1 : Integer.parseInt(precision.substring(1)), conversion == 'S'));
+			}
+			else
+			{
+				fields.add(new FormatField("%" + flags + width + precision + ((time == null) ? "" : time)
+				        + conversion, index));
+			}
+		}
+		literal.append(format, position, format.length());
+		if (literal.length() > 0)
+		{
+			fields.add(new LiteralField(literal.toString()));
+		}
+	}
+
+	/*
+	 * Gets the time of a record in the time zone.
+	 */
+	private ZonedDateTime time(final long millis)
+	{
+		return (ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), this._zone));
+	}
+
+	/*
+	 * Gets the time fields rendered for the second of the time, rendering them on the first call in that second.
+	 */
+	private TimeCache timeCache(final long millis)
+	{
+		final long epochSecond = Math.floorDiv(millis, 1000L);
+		final TimeCache cache = this._timeCache;
+		if (cache._epochSecond == epochSecond)
+		{
+			return (cache);
+		}
+
+		final ZonedDateTime time = time(millis);
+		final String[] rendered = new String[this._timeSpecifiers.length];
+		for (int i = 0; i < rendered.length; i++)
+		{
+			rendered[i] = String.format(Locale.getDefault(Locale.Category.FORMAT), this._timeSpecifiers[i], time);
+		}
+		final TimeCache next = new TimeCache(epochSecond, rendered);
+		this._timeCache = next;
+		return (next);
+	}
+
+	/**
+	 * Gets the format this formatter was compiled from.
+	 *
+	 * @return The format.
+	 */
+	public String getFormat()
+	{
+		return (this._format);
+	}
+
+	@Override
+	public String format(final LogRecord record)
+	{
+		final LogContext context = (record instanceof ContextLogRecord) ? ((ContextLogRecord) record).getContext()
+		        : LogContext.EMPTY;
+		final Line line = this._lines.get();
+		line.set(record.getMillis(), record.getSourceClassName(), record.getSourceMethodName(),
+		        record.getLoggerName(), record.getLevel().getLocalizedName(), formatMessage(record),
+		        record.getThrown(), context);
+
+		final StringBuilder builder = line._builder;
+		builder.setLength(0);
+		append(line, builder);
+		return (builder.toString());
+	}
+
+	@Override
+	public void format(final LogEvent event, final StringBuilder builder)
+	{
+		final Line line = this._lines.get();
+		line.set(event.getMillis(), event.getClassName(), event.getMethodName(), event.getClassName(),
+		        event.getLevel().getLocalizedName(), event.getMessage(), event.getThrown(), event.getContext());
+		append(line, builder);
+	}
+
+	/*
+	 * Appends every field of the line.
+	 */
+	private void append(final Line line, final StringBuilder builder)
+	{
+		for (final Field field : this._fields)
+		{
+			field.append(this, line, builder);
+		}
+		// the values are not kept past the line.
+		line.set(0L, null, null, null, null, null, null, null);
+	}
+}
@@ -0,0 +1,67 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * The record the java logging engine writes for an event logged with a diagnostic context. A formatter can check for
+ * it to write the context, as the <code>CompiledFormatter</code> does.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class ContextLogRecord extends LogRecord
+{
+
+	/**
+	 * Serialization
+	 */
+	private static final long			serialVersionUID	= -4306385226807451879L;
+
+	private final transient LogContext	_context;
+
+	/**
+	 * Creates the record.
+	 *
+	 * @param level
+	 *            The level of the event.
+	 * @param message
+	 *            The sanitized message.
+	 * @param context
+	 *            The diagnostic context of the event. Must not be null.
+	 */
+	public ContextLogRecord(final Level level, final String message, final LogContext context)
+	{
+		super(level, message);
+		if (context == null)
+		{
+			throw (new IllegalArgumentException("The 'context' parameter must not be null."));
+		}
+		this._context = context;
+	}
+
+	/**
+	 * Gets the diagnostic context of the event.
+	 *
+	 * @return A <code>LogContext</code> instance, <code>EMPTY</code> after the record is deserialized.
+	 */
+	public LogContext getContext()
+	{
+		return ((this._context == null) ? LogContext.EMPTY : this._context);
+	}
+}
@@ -0,0 +1,177 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * The built in sanitizer. It stops log injection and hides characters that change how a log line is displayed, in a
+ * single pass over the data:
+ * <ul>
+ * <li>carriage return, line feed and tab are written as <code>&#92;r</code>, <code>&#92;n</code> and
+ * <code>&#92;t</code>.
+ * <li>the other control characters (U+0000 to U+001F and U+007F to U+009F) are written as <code>&#92;uXXXX</code>.
+ * <li>the line and paragraph separators (U+2028, U+2029) and the Unicode bidirectional formatting characters (U+061C,
+ * U+200E, U+200F, U+202A to U+202E and U+2066 to U+2069) are written as <code>&#92;uXXXX</code>.
+ * </ul>
+ * Data that needs no change is returned as the same instance, so clean data is not copied or allocated. A backslash
+ * is not escaped, so an escape sequence in the log may also have been logged as text.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class DefaultLogSanitizer implements LogSanitizer
+{
+
+	/**
+	 * The shared instance. The sanitizer has no state.
+	 */
+	public static final DefaultLogSanitizer	INSTANCE	= new DefaultLogSanitizer();
+
+	private static final char[]				HEX_DIGITS	= "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * Use the shared instance.
+	 */
+	private DefaultLogSanitizer()
+	{
+		// void - stateless.
+	}
+
+	/**
+	 * Checks if a character must be escaped.
+	 *
+	 * @param c
+	 *            The character.
+	 * @return True if the character is escaped, otherwise false.
+	 */
+	static boolean isUnsafe(final char c)
+	{
+		if ((c >= 0x20) && (c < 0x7F))
+		{
+			// printable ascii, the common case.
+			return (false);
+		}
+		if (c < 0xA0)
+		{
+			return (true);
+		}
+		switch (c)
+		{
+			case '\u061C':
+			case '\u200E':
+			case '\u200F':
+			case '\u2028':
+			case '\u2029':
+			case '\u202A':
+			case '\u202B':
+			case '\u202C':
+			case '\u202D':
+			case '\u202E':
+			case '\u2066':
+			case '\u2067':
+			case '\u2068':
+			case '\u2069':
+				return (true);
+			default:
+				return (false);
+		}
+	}
+
+	@Override
+	public String sanitize(final String untrustedData)
+	{
+		if (untrustedData == null)
+		{
+			return (null);
+		}
+
+		final int length = untrustedData.length();
+		for (int i = 0; i < length; i++)
+		{
+			if (DefaultLogSanitizer.isUnsafe(untrustedData.charAt(i)))
+			{
+				final StringBuilder builder = new StringBuilder(length + 16);
+				builder.append(untrustedData, 0, i);
+				DefaultLogSanitizer.escape(untrustedData, i, builder);
+				return (builder.toString());
+			}
+		}
+		return (untrustedData);
+	}
+
+	@Override
+	public void sanitize(final CharSequence untrustedData, final StringBuilder builder)
+	{
+		if (untrustedData == null)
+		{
+			builder.append("null");
+			return;
+		}
+		DefaultLogSanitizer.escape(untrustedData, 0, builder);
+	}
+
+	/*
+	 * Appends the data from the start index, escaping the unsafe characters. Runs of safe characters are appended in
+	 * one call.
+	 */
+	private static void escape(final CharSequence data, final int start, final StringBuilder builder)
+	{
+		final int length = data.length();
+		int safeStart = start;
+		for (int i = start; i < length; i++)
+		{
+			final char c = data.charAt(i);
+			if (DefaultLogSanitizer.isUnsafe(c))
+			{
+				builder.append(data, safeStart, i);
+				DefaultLogSanitizer.escape(c, builder);
+				safeStart = i + 1;
+			}
+		}
+		builder.append(data, safeStart, length);
+	}
+
+	/*
+	 * Appends the escape sequence of one character.
+	 */
+	private static void escape(final char c, final StringBuilder builder)
+	{
+		switch (c)
+		{
+			case '\r':
+				builder.append('\\').append('r');
+				break;
+			case '\n':
+				builder.append('\\').append('n');
+				break;
+			case '\t':
+				builder.append('\\').append('t');
+				break;
+			default:
+				builder.append('\\').append('u');
+				builder.append(DefaultLogSanitizer.HEX_DIGITS[(c >> 12) & 0xF]);
+				builder.append(DefaultLogSanitizer.HEX_DIGITS[(c >> 8) & 0xF]);
+				builder.append(DefaultLogSanitizer.HEX_DIGITS[(c >> 4) & 0xF]);
+				builder.append(DefaultLogSanitizer.HEX_DIGITS[c & 0xF]);
+				break;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return ("DefaultLogSanitizer");
+	}
+}
@@ -0,0 +1,151 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * An engine that writes events straight to its own appenders. It does not create a <code>LogRecord</code>, take a
+ * sequence number or go through the <code>LogManager</code> and its handler locks, so the fixed cost of an event is
+ * the work of the appenders.
+ * <p>
+ * The levels are kept in the <code>LevelRegistry</code> of the service. The level of a class is the level set for its
+ * name or for the closest package above it, and otherwise the root level. The root level is read from the
+ * <code>com.gabstudios.logging.direct.level</code> system property and defaults to <code>INFO</code>. It is also used
+ * when a file read by the registry does not set the root level. By default
+ * events are written to <code>System.err</code> by a <code>StreamAppender</code>.
+ * <p>
+ * Select it by setting the <code>com.gabstudios.logging.LogProvider</code> system property to
+ * <code>com.gabstudios.logging.DirectLogService</code>.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class DirectLogService extends AbstractLogService
+{
+
+	/**
+	 * The system property that sets the root level.
+	 */
+	public static final String			LEVEL_KEY	= "com.gabstudios.logging.direct.level";
+
+	/**
+	 * The name that sets the root level.
+	 */
+	public static final String			ROOT		= LevelRegistry.ROOT;
+
+	private final AppenderLogDispatcher	_appenders;
+
+	private final Level					_defaultLevel;
+
+	/**
+	 * Creates the service. Called by <code>LogProvider</code> through the <code>ServiceLoader</code>.
+	 */
+	public DirectLogService()
+	{
+		this(new AppenderLogDispatcher());
+	}
+
+	/*
+	 * The dispatcher is created first so it can be passed to the super class and kept here.
+	 */
+	private DirectLogService(final AppenderLogDispatcher appenders)
+	{
+		super(appenders);
+		this._appenders = appenders;
+		this._defaultLevel = Level.parse(System.getProperty(DirectLogService.LEVEL_KEY, Level.INFO.getName()));
+		getLevelRegistry().setLevel(DirectLogService.ROOT, this._defaultLevel);
+		final StreamAppender appender = new StreamAppender();
+		appender.setMetrics(getMetrics());
+		this._appenders.addAppender(appender);
+	}
+
+	@Override
+	protected Level resolveLevel(final String className)
+	{
+		final Level level = getLevelRegistry().resolve(className);
+		return ((level == null) ? this._defaultLevel : level);
+	}
+
+	/**
+	 * Sets the level of a class or package. Every class logger is updated before this returns.
+	 *
+	 * @param name
+	 *            The fully qualified name of the class or package, or <code>ROOT</code>. Must not be null.
+	 * @param level
+	 *            The lowest level to log, or null to use the level of the package above. The root level must not be
+	 *            null.
+	 */
+	public void setLevel(final String name, final Level level)
+	{
+		if ((level == null) && DirectLogService.ROOT.equals(name))
+		{
+			throw (new IllegalArgumentException("The root level must not be null."));
+		}
+		getLevelRegistry().setLevel(name, level);
+	}
+
+	/**
+	 * Gets the level set for a class or package.
+	 *
+	 * @param name
+	 *            The fully qualified name of the class or package, or <code>ROOT</code>.
+	 * @return A <code>Level</code> instance, or null if no level is set for the name.
+	 */
+	public Level getLevel(final String name)
+	{
+		return (getLevelRegistry().getLevel(name));
+	}
+
+	/**
+	 * Adds an appender. Events are written to every appender in the order they were added.
+	 *
+	 * @param appender
+	 *            The appender to add. Must not be null.
+	 */
+	public void addAppender(final LogAppender appender)
+	{
+		if (appender == null)
+		{
+			throw (new IllegalArgumentException("The 'appender' parameter must not be null."));
+		}
+		appender.setMetrics(getMetrics());
+		this._appenders.addAppender(appender);
+	}
+
+	/**
+	 * Removes an appender. The appender is not closed.
+	 *
+	 * @param appender
+	 *            The appender to remove.
+	 * @return True if the appender was removed, otherwise false.
+	 */
+	public boolean removeAppender(final LogAppender appender)
+	{
+		return (this._appenders.removeAppender(appender));
+	}
+
+	/**
+	 * Gets the appenders.
+	 *
+	 * @return An unmodifiable list of the appenders.
+	 */
+	public List<LogAppender> getAppenders()
+	{
+		return (this._appenders.getAppenders());
+	}
+}
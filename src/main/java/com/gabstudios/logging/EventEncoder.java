@@ -0,0 +1,117 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The reused buffers an event is formatted and encoded to UTF-8 with. Not thread safe, each thread or stripe of the
+ * file appenders has its own.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+final class EventEncoder
+{
+	private final StringBuilder		_builder	= new StringBuilder(256);
+
+	private final CharsetEncoder	_encoder	= StandardCharsets.UTF_8.newEncoder()
+	        .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private CharBuffer				_chars		= CharBuffer.allocate(256);
+
+	private ByteBuffer				_bytes		= ByteBuffer.allocate(1024);
+
+	/**
+	 * Formats and encodes an event.
+	 *
+	 * @param event
+	 *            The event.
+	 * @param layout
+	 *            The layout that turns the event into text.
+	 * @return The encoded event, ready to be read. The buffer is reused by the next call.
+	 */
+	ByteBuffer encode(final LogEvent event, final LogLayout layout)
+	{
+		final StringBuilder builder = this._builder;
+		builder.setLength(0);
+		layout.format(event, builder);
+		return (encode(builder));
+	}
+
+	/**
+	 * Formats and encodes the events of a batch as one run of bytes.
+	 *
+	 * @param events
+	 *            The events.
+	 * @param count
+	 *            The number of events from the start of the array.
+	 * @param layout
+	 *            The layout that turns an event into text.
+	 * @return The encoded events, ready to be read. The buffer is reused by the next call.
+	 */
+	ByteBuffer encode(final LogEvent[] events, final int count, final LogLayout layout)
+	{
+		final StringBuilder builder = this._builder;
+		builder.setLength(0);
+		for (int i = 0; i < count; i++)
+		{
+			layout.format(events[i], builder);
+		}
+		return (encode(builder));
+	}
+
+	/*
+	 * Encodes the formatted text.
+	 */
+	private ByteBuffer encode(final StringBuilder builder)
+	{
+		final int length = builder.length();
+		if (this._chars.capacity() < length)
+		{
+			this._chars = CharBuffer.allocate(Math.max(length, this._chars.capacity() * 2));
+		}
+		builder.getChars(0, length, this._chars.array(), 0);
+
+		while (true)
+		{
+			final CharBuffer chars = this._chars;
+			chars.clear();
+			chars.limit(length);
+			final ByteBuffer bytes = this._bytes;
+			bytes.clear();
+
+			final CharsetEncoder encoder = this._encoder;
+			encoder.reset();
+			CoderResult result = encoder.encode(chars, bytes, true);
+			if (!result.isOverflow())
+			{
+				result = encoder.flush(bytes);
+			}
+			if (!result.isOverflow())
+			{
+				bytes.flip();
+				return (bytes);
+			}
+			this._bytes = ByteBuffer.allocate(bytes.capacity() * 2);
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fans events out to several sinks, such as the console and a file, that do not wait on each other.
+ * <p>
+ * An event is formatted and encoded to UTF-8 once, on the caller's thread, and the same bytes are queued to every
+ * sink. Each <code>LogSink</code> has its own bounded queue, consumer thread and overflow policy, so a blocked stdout
+ * pipe fills the queue of the console sink only: the file sink goes on writing, and the caller waits at most until the
+ * console sink is seen to be stalled. The health, backlog and drops of each sink are kept on the sink.
+ * <p>
+ * The sinks are drained when the appender is closed. A sink that does not drain in five seconds is reported and left
+ * behind. <code>LogProvider.shutdown()</code>, run when the JVM shuts down, closes the appenders after the queued
+ * events are dispatched to them.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class FanOutAppender implements LogAppender
+{
+	private static final long				CLOSE_TIMEOUT_NANOS	= TimeUnit.SECONDS.toNanos(5);
+
+	private final LogLayout					_layout;
+
+	private final LogSink[]					_sinks;
+
+	private final ThreadLocal<EventEncoder>	_encoders			= new ThreadLocal<EventEncoder>()
+	{
+		@Override
+		protected EventEncoder initialValue()
+		{
+			return (new EventEncoder());
+		}
+	};
+
+	private final ReentrantLock				_lock				= new ReentrantLock();
+
+	private volatile boolean				_closed;
+
+	/**
+	 * Creates the appender.
+	 *
+	 * @param layout
+	 *            The layout that turns an event into text. Must not be null.
+	 * @param sinks
+	 *            The sinks to write to. Must not be null or empty, or hold a null sink.
+	 */
+	public FanOutAppender(final LogLayout layout, final LogSink... sinks)
+	{
+		if (layout == null)
+		{
+			throw (new IllegalArgumentException("The 'layout' parameter must not be null."));
+		}
+		if ((sinks == null) || (sinks.length == 0))
+		{
+			throw (new IllegalArgumentException("The 'sinks' parameter must not be null or empty."));
+		}
+		for (final LogSink sink : sinks)
+		{
+			if (sink == null)
+			{
+				throw (new IllegalArgumentException("The 'sinks' parameter must not hold a null sink."));
+			}
+		}
+
+		this._layout = layout;
+		this._sinks = sinks.clone();
+	}
+
+	/**
+	 * Gets the sinks.
+	 *
+	 * @return An unmodifiable list of the sinks.
+	 */
+	public List<LogSink> getSinks()
+	{
+		return (Collections.unmodifiableList(Arrays.asList(this._sinks)));
+	}
+
+	/**
+	 * Passes the statistics to every sink, which reports the bytes it writes and the events it drops.
+	 */
+	@Override
+	public void setMetrics(final LogMetrics metrics)
+	{
+		for (final LogSink sink : this._sinks)
+		{
+			sink.setMetrics(metrics);
+		}
+	}
+
+	/**
+	 * Gets the number of encoded events dropped by all of the sinks.
+	 *
+	 * @return The dropped count.
+	 */
+	public long getDroppedCount()
+	{
+		long count = 0L;
+		for (final LogSink sink : this._sinks)
+		{
+			count += sink.getDroppedCount();
+		}
+		return (count);
+	}
+
+	@Override
+	public void append(final LogEvent event)
+	{
+		if (this._closed)
+		{
+			return;
+		}
+		offer(this._encoders.get().encode(event, this._layout));
+	}
+
+	/**
+	 * Encodes the events of a batch as one run of bytes, which is queued to each sink as one entry so it is written
+	 * together.
+	 */
+	@Override
+	public void append(final LogEvent[] events, final int count)
+	{
+		if (this._closed)
+		{
+			return;
+		}
+		offer(this._encoders.get().encode(events, count, this._layout));
+	}
+
+	/*
+	 * Copies the encoded bytes out of the reused buffer once and queues the copy to every sink.
+	 */
+	private void offer(final ByteBuffer buffer)
+	{
+		final byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		for (final LogSink sink : this._sinks)
+		{
+			sink.offer(bytes);
+		}
+	}
+
+	/**
+	 * Waits until the sinks have written the events appended before the call. A sink that is stalled or failed is not
+	 * waited for.
+	 */
+	@Override
+	public void flush()
+	{
+		final long deadline = System.nanoTime() + FanOutAppender.CLOSE_TIMEOUT_NANOS;
+		for (final LogSink sink : this._sinks)
+		{
+			sink.flush(deadline);
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+			this._closed = true;
+
+			// every sink drains at once, so a stalled one does not use up the time of the others.
+			for (final LogSink sink : this._sinks)
+			{
+				sink.stop();
+			}
+			final long deadline = System.nanoTime() + FanOutAppender.CLOSE_TIMEOUT_NANOS;
+			for (final LogSink sink : this._sinks)
+			{
+				sink.close(deadline);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+}
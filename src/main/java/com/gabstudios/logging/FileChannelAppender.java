@@ -0,0 +1,508 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+
+/**
+ * Appends events as UTF-8 text to a file in batches, so the cost of a write system call is shared by every event in
+ * the batch instead of being paid by each one.
+ * <p>
+ * Each thread formats and encodes its events into its own buffer without a lock. Only the copy into the batch is done
+ * under the lock. A batch is a set of direct <code>ByteBuffer</code> chunks. It is closed when it holds
+ * <code>batchSize</code> bytes or when the oldest event in it has waited <code>maxDelayMicros</code>. A writer thread
+ * then writes the whole batch with one gather <code>FileChannel.write()</code> call and, if configured, forces it to
+ * the storage device once for the batch. Two batches are kept, so callers fill one while the other is being written.
+ * They only wait when both are in use.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class FileChannelAppender implements LogAppender
+{
+
+	/**
+	 * The default number of bytes that closes a batch, 256 KB.
+	 */
+	public static final int				DEFAULT_BATCH_SIZE			= 256 * 1024;
+
+	/**
+	 * The default time an event waits for its batch to close, in microseconds.
+	 */
+	public static final long			DEFAULT_MAX_DELAY_MICROS	= 200L;
+
+	private static final int			CHUNK_SIZE					= 32 * 1024;
+
+	/*
+	 * A set of direct buffers filled one after the other and written with one gather call.
+	 */
+	private static final class Batch
+	{
+		private final ByteBuffer[]	_chunks;
+
+		private int					_current;
+
+		private long				_bytes;
+
+		private long				_deadline;
+
+		Batch(final int batchSize)
+		{
+			final int count = (batchSize + FileChannelAppender.CHUNK_SIZE - 1) / FileChannelAppender.CHUNK_SIZE;
+			this._chunks = new ByteBuffer[count];
+			for (int i = 0; i < count; i++)
+			{
+				this._chunks[i] = ByteBuffer.allocateDirect(FileChannelAppender.CHUNK_SIZE);
+			}
+		}
+
+		boolean isEmpty()
+		{
+			return (this._bytes == 0);
+		}
+
+		boolean isFull()
+		{
+			return ((this._current == (this._chunks.length - 1)) && !this._chunks[this._current].hasRemaining());
+		}
+
+		/*
+		 * Copies as many bytes as fit.
+		 */
+		void put(final ByteBuffer source)
+		{
+			while (source.hasRemaining() && !isFull())
+			{
+				ByteBuffer chunk = this._chunks[this._current];
+				if (!chunk.hasRemaining())
+				{
+					chunk = this._chunks[++this._current];
+				}
+				final int length = Math.min(chunk.remaining(), source.remaining());
+				final int limit = source.limit();
+				source.limit(source.position() + length);
+				chunk.put(source);
+				source.limit(limit);
+				this._bytes += length;
+			}
+		}
+
+		/*
+		 * Writes the batch with as few gather calls as the channel allows.
+		 */
+		void write(final FileChannel channel) throws IOException
+		{
+			final int count = this._current + 1;
+			for (int i = 0; i < count; i++)
+			{
+				this._chunks[i].flip();
+			}
+			long remaining = this._bytes;
+			while (remaining > 0)
+			{
+				remaining -= channel.write(this._chunks, 0, count);
+			}
+		}
+
+		void clear()
+		{
+			for (int i = 0; i <= this._current; i++)
+			{
+				this._chunks[i].clear();
+			}
+			this._current = 0;
+			this._bytes = 0;
+		}
+	}
+
+	private final FileChannel			_channel;
+
+	private final LogLayout				_layout;
+
+	private final int					_batchSize;
+
+	private final long					_maxDelayNanos;
+
+	private final boolean				_force;
+
+	private final ThreadLocal<EventEncoder>	_encoders				= new ThreadLocal<EventEncoder>()
+	{
+		@Override
+		protected EventEncoder initialValue()
+		{
+			return (new EventEncoder());
+		}
+	};
+
+	private final ReentrantLock			_lock						= new ReentrantLock();
+
+	private final Condition				_work						= this._lock.newCondition();
+
+	private final Condition				_written					= this._lock.newCondition();
+
+	private final AtomicLong			_batchCount					= new AtomicLong();
+
+	private final ErrorManager			_errorManager				= new ErrorManager();
+
+	private final Thread				_writer;
+
+	private Batch						_active;
+
+	private Batch						_spare;
+
+	private Batch						_sealed;
+
+	private long						_sealedCount;
+
+	private long						_writtenCount;
+
+	private int							_waiting;
+
+	private boolean						_closed;
+
+	private volatile LogMetrics			_metrics;
+
+	/**
+	 * Creates an appender with the default batch size and delay, the <code>SimpleLogLayout</code> and no forcing.
+	 *
+	 * @param file
+	 *            The file to append to. Created if it does not exist. Must not be null.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	public FileChannelAppender(final Path file) throws IOException
+	{
+		this(file, new SimpleLogLayout(), FileChannelAppender.DEFAULT_BATCH_SIZE,
+		        FileChannelAppender.DEFAULT_MAX_DELAY_MICROS, false);
+	}
+
+	/**
+	 * Creates an appender.
+	 *
+	 * @param file
+	 *            The file to append to. Created if it does not exist. Must not be null.
+	 * @param layout
+	 *            The layout that turns an event into text. Must not be null.
+	 * @param batchSize
+	 *            The number of bytes that closes a batch. Must be greater than zero.
+	 * @param maxDelayMicros
+	 *            The longest time an event waits for its batch to close, in microseconds. Must not be negative.
+	 * @param force
+	 *            True to force each batch to the storage device after it is written.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	public FileChannelAppender(final Path file, final LogLayout layout, final int batchSize,
+	        final long maxDelayMicros, final boolean force) throws IOException
+	{
+		if (file == null)
+		{
+			throw (new IllegalArgumentException("The 'file' parameter must not be null."));
+		}
+		if (layout == null)
+		{
+			throw (new IllegalArgumentException("The 'layout' parameter must not be null."));
+		}
+		if (batchSize <= 0)
+		{
+			throw (new IllegalArgumentException("The 'batchSize' parameter must be greater than zero."));
+		}
+		if (maxDelayMicros < 0)
+		{
+			throw (new IllegalArgumentException("The 'maxDelayMicros' parameter must not be negative."));
+		}
+
+		this._layout = layout;
+		this._batchSize = batchSize;
+		this._maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+		this._force = force;
+		this._active = new Batch(batchSize);
+		this._spare = new Batch(batchSize);
+		this._channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		        StandardOpenOption.APPEND);
+
+		this._writer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				writeBatches();
+			}
+		}, "gab-logging-file-writer");
+		this._writer.setDaemon(true);
+		this._writer.start();
+	}
+
+	/**
+	 * Gets the number of batches written.
+	 *
+	 * @return The batch count.
+	 */
+	public long getBatchCount()
+	{
+		return (this._batchCount.get());
+	}
+
+	@Override
+	public void setMetrics(final LogMetrics metrics)
+	{
+		this._metrics = metrics;
+	}
+
+	@Override
+	public void append(final LogEvent event)
+	{
+		put(this._encoders.get().encode(event, this._layout));
+	}
+
+	/**
+	 * Encodes the events of a batch as one run of bytes and copies it into the batch under one lock, so the events
+	 * are written together.
+	 */
+	@Override
+	public void append(final LogEvent[] events, final int count)
+	{
+		put(this._encoders.get().encode(events, count, this._layout));
+	}
+
+	/*
+	 * Copies encoded bytes into the active batch, sealing it when it is full.
+	 */
+	private void put(final ByteBuffer bytes)
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+			// an event that has started is finished, even if the appender is closed while it waits.
+			while (bytes.hasRemaining())
+			{
+				final Batch batch = this._active;
+				if (batch.isEmpty())
+				{
+					// the writer waits for the deadline of the first event.
+					batch._deadline = System.nanoTime() + this._maxDelayNanos;
+					this._work.signal();
+				}
+				batch.put(bytes);
+				if (batch.isFull() || (batch._bytes >= this._batchSize))
+				{
+					seal();
+				}
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * Hands the active batch to the writer and starts filling the spare. Waits while the writer still has the spare.
+	 * Called with the lock held.
+	 */
+	private void seal()
+	{
+		while (this._spare == null)
+		{
+			this._waiting++;
+			try
+			{
+				this._written.awaitUninterruptibly();
+			}
+			finally
+			{
+				this._waiting--;
+			}
+		}
+		this._sealed = this._active;
+		this._active = this._spare;
+		this._spare = null;
+		this._sealedCount++;
+		this._work.signal();
+	}
+
+	/*
+	 * The writer thread loop.
+	 */
+	private void writeBatches()
+	{
+		final ReentrantLock lock = this._lock;
+		while (true)
+		{
+			final Batch batch;
+			lock.lock();
+			try
+			{
+				while (this._sealed == null)
+				{
+					if (!this._active.isEmpty())
+					{
+						final long wait = this._active._deadline - System.nanoTime();
+						if ((wait <= 0) || this._closed)
+						{
+							seal();
+							break;
+						}
+						this._work.awaitNanos(wait);
+					}
+					else if (this._closed && (this._waiting == 0))
+					{
+						return;
+					}
+					else
+					{
+						this._work.awaitUninterruptibly();
+					}
+				}
+				batch = this._sealed;
+				this._sealed = null;
+			}
+			catch (final InterruptedException e)
+			{
+				// void - the deadline is checked again.
+				continue;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+
+			write(batch);
+
+			lock.lock();
+			try
+			{
+				batch.clear();
+				this._spare = batch;
+				this._writtenCount++;
+				this._written.signalAll();
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+	}
+
+	/*
+	 * Writes a batch outside the lock.
+	 */
+	private void write(final Batch batch)
+	{
+		try
+		{
+			final long bytes = batch._bytes;
+			batch.write(this._channel);
+			if (this._force)
+			{
+				this._channel.force(false);
+			}
+			this._batchCount.incrementAndGet();
+
+			final LogMetrics metrics = this._metrics;
+			if (metrics != null)
+			{
+				metrics.recordBytesWritten(bytes);
+			}
+		}
+		catch (final IOException e)
+		{
+			this._errorManager.error("Unable to write a batch of log events.", e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Closes the batch being filled and waits until every batch closed so far is written.
+	 */
+	@Override
+	public void flush()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (!this._active.isEmpty())
+			{
+				seal();
+			}
+			final long target = this._sealedCount;
+			while ((this._writtenCount < target) && this._writer.isAlive())
+			{
+				this._written.awaitUninterruptibly();
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+			this._closed = true;
+			this._work.signal();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		try
+		{
+			this._writer.join();
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		try
+		{
+			if (this._force)
+			{
+				this._channel.force(true);
+			}
+			this._channel.close();
+		}
+		catch (final IOException e)
+		{
+			this._errorManager.error("Unable to close the log file.", e, ErrorManager.CLOSE_FAILURE);
+		}
+	}
+}
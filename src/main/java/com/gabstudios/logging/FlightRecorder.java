@@ -0,0 +1,331 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Keeps the last debug and configuration events in memory, so the lead-up to a failure can be written without
+ * writing every debug event. An event below <code>INFO</code> whose level is not enabled for its class is recorded
+ * instead of being dropped. Nothing is written until the recorder is dumped, which happens when an event at the
+ * trigger level or above is logged, by default <code>SEVERE</code> and <code>SECURITY</code>, when
+ * <code>dump()</code> is called, or through JMX. The dumped events are written with their own time, level and thread
+ * to the dispatcher of the service, before the event that triggered the dump, and are marked with
+ * <code>LogEvent.isDumped()</code>. With the java logging engine only a dumped event passes over the level of its
+ * logger: the filter of the logger still applies, and it is handed to the handlers, whose own levels must let it
+ * through. Set the handlers to <code>ALL</code> and the loggers to the level written normally to see the dumps.
+ * <p>
+ * The events are kept in a fixed number of preallocated slots shared by every thread, and the oldest are overwritten
+ * when it is full. A recorded event is validated and sanitized like a written one, then stored by reference, so
+ * recording it takes a sequence number and a few field stores, and does no I/O. Every slot has a sequence number
+ * that is set to the position of its event once the event is stored, so a dump can skip a slot that is being written
+ * or was overwritten while it was copied.
+ * <p>
+ * Install it with <code>LogService.setFlightRecorder()</code> or <code>LogProvider.enableFlightRecorder()</code>. A
+ * recorder is used by one service at a time. Events added to a <code>LogBatch</code> are not recorded.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class FlightRecorder implements FlightRecorderMXBean
+{
+
+	/**
+	 * The name the MXBean is registered under.
+	 */
+	public static final String					OBJECT_NAME	= "com.gabstudios.logging:type=FlightRecorder";
+
+	/*
+	 * The sequence of a slot that has no event, or whose event is being written.
+	 */
+	private static final long					EMPTY		= -1L;
+
+	private static final long					BUSY		= -2L;
+
+	private final LogEvent[]					_slots;
+
+	private final AtomicLongArray				_sequences;
+
+	private final int							_mask;
+
+	private final Level							_triggerLevel;
+
+	private final AtomicLong					_next		= new AtomicLong();
+
+	private final LongAdder						_lostCount	= new LongAdder();
+
+	private final AtomicLong					_dumpCount	= new AtomicLong();
+
+	/*
+	 * The events copied out of the slots by a dump. Only used while the lock is held.
+	 */
+	private final LogEvent[]					_dumped;
+
+	private final ReentrantLock					_lock		= new ReentrantLock();
+
+	/*
+	 * The position of the first event that was not dumped. Only changed while the lock is held.
+	 */
+	private long								_start;
+
+	private volatile AbstractLogService			_service;
+
+	/**
+	 * Creates a recorder that is dumped by <code>SEVERE</code> and <code>SECURITY</code> events.
+	 *
+	 * @param capacity
+	 *            The number of events kept. Rounded up to a power of two.
+	 */
+	public FlightRecorder(final int capacity)
+	{
+		this(capacity, Level.SEVERE);
+	}
+
+	/**
+	 * Creates a recorder.
+	 *
+	 * @param capacity
+	 *            The number of events kept. Rounded up to a power of two.
+	 * @param triggerLevel
+	 *            The lowest level of an event that dumps the recorded events. Must be above <code>INFO</code>.
+	 */
+	public FlightRecorder(final int capacity, final Level triggerLevel)
+	{
+		if ((capacity < 1) || (capacity > (1 << 30)))
+		{
+			throw (new IllegalArgumentException("The 'capacity' parameter must be between 1 and 2^30."));
+		}
+		if ((triggerLevel == null) || (triggerLevel.intValue() <= Level.INFO.intValue()))
+		{
+			throw (new IllegalArgumentException("The 'triggerLevel' parameter must be above INFO."));
+		}
+
+		final int size = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this._mask = size - 1;
+		this._triggerLevel = triggerLevel;
+		this._slots = new LogEvent[size];
+		this._dumped = new LogEvent[size];
+		this._sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+		{
+			this._slots[i] = new LogEvent();
+			this._dumped[i] = new LogEvent();
+			this._sequences.set(i, FlightRecorder.EMPTY);
+		}
+	}
+
+	/**
+	 * Package scope. Starts dumping to a service. Called by AbstractLogService when the recorder is installed.
+	 *
+	 * @param service
+	 *            The service whose dispatcher writes the dumped events.
+	 */
+	synchronized void bind(final AbstractLogService service)
+	{
+		assert (service != null) : "The parameter 'service' should not be null";
+
+		if ((this._service != null) && (this._service != service))
+		{
+			throw (new IllegalStateException("The flight recorder is already used by another LogService."));
+		}
+		this._service = service;
+	}
+
+	/**
+	 * Package scope. Stops dumping to the service. Called by AbstractLogService when the recorder is replaced. The
+	 * recorded events are discarded.
+	 */
+	synchronized void unbind()
+	{
+		this._service = null;
+		clear();
+	}
+
+	@Override
+	public int getCapacity()
+	{
+		return (this._slots.length);
+	}
+
+	/**
+	 * Gets the lowest level of an event that dumps the recorded events.
+	 *
+	 * @return A <code>Level</code> instance.
+	 */
+	public Level getTriggerLevel()
+	{
+		return (this._triggerLevel);
+	}
+
+	@Override
+	public String getTriggerLevelName()
+	{
+		return (this._triggerLevel.getName());
+	}
+
+	@Override
+	public long getRecordedCount()
+	{
+		return (this._next.get() - this._lostCount.sum());
+	}
+
+	@Override
+	public long getDumpCount()
+	{
+		return (this._dumpCount.get());
+	}
+
+	/**
+	 * Package scope. Checks if an event dumps the recorded events.
+	 *
+	 * @param level
+	 *            The level of the event.
+	 * @return True if the level is the trigger level or above, otherwise false.
+	 */
+	boolean isTriggeredBy(final Level level)
+	{
+		return (level.intValue() >= this._triggerLevel.intValue());
+	}
+
+	/**
+	 * Package scope. Records an event logged by the calling thread at the current time.
+	 *
+	 * @param classLogger
+	 *            The logger of the class that logged the event.
+	 * @param level
+	 *            The level of the event.
+	 * @param methodName
+	 *            The sanitized method name.
+	 * @param message
+	 *            The sanitized message.
+	 * @param thrown
+	 *            The throwable, may be null.
+	 */
+	void record(final ClassLogger classLogger, final Level level, final String methodName, final String message,
+	        final Throwable thrown)
+	{
+		final long position = this._next.getAndIncrement();
+		final int index = (int) position & this._mask;
+		final long sequence = this._sequences.get(index);
+		if ((sequence == FlightRecorder.BUSY) || !this._sequences.compareAndSet(index, sequence, FlightRecorder.BUSY))
+		{
+			// the buffer wrapped while another thread was still writing this slot.
+			this._lostCount.increment();
+			return;
+		}
+
+		this._slots[index].set(classLogger, level, methodName, message, thrown, System.currentTimeMillis(),
+		        Thread.currentThread().getId(), LogContext.current());
+		this._sequences.set(index, position);
+	}
+
+	/**
+	 * Writes the recorded events that were not dumped yet to the dispatcher of the service, oldest first. Does
+	 * nothing if the recorder is not installed.
+	 *
+	 * @return The number of events written.
+	 */
+	@Override
+	public int dump()
+	{
+		final AbstractLogService service = this._service;
+		if (service == null)
+		{
+			return (0);
+		}
+
+		this._lock.lock();
+		try
+		{
+			final int count = copy();
+			if (count == 0)
+			{
+				return (0);
+			}
+
+			try
+			{
+				service.getDispatcher().dispatch(this._dumped, count);
+			}
+			finally
+			{
+				for (int i = 0; i < count; i++)
+				{
+					this._dumped[i].clear();
+				}
+			}
+			this._dumpCount.incrementAndGet();
+			return (count);
+		}
+		finally
+		{
+			this._lock.unlock();
+		}
+	}
+
+	/*
+	 * Copies the events that were not dumped yet out of their slots, and moves the start past them. Only called while
+	 * the lock is held.
+	 */
+	private int copy()
+	{
+		final long end = this._next.get();
+		final long start = Math.max(this._start, end - this._slots.length);
+		int count = 0;
+		for (long position = start; position < end; position++)
+		{
+			final int index = (int) position & this._mask;
+			if (this._sequences.get(index) != position)
+			{
+				// still being written, or already overwritten.
+				continue;
+			}
+			final LogEvent event = this._dumped[count];
+			event.copyFrom(this._slots[index]);
+			event.setDumped(true);
+			if (this._sequences.get(index) != position)
+			{
+				// overwritten while it was copied.
+				event.clear();
+				continue;
+			}
+			count++;
+		}
+		this._start = end;
+		return (count);
+	}
+
+	/**
+	 * Discards the recorded events without writing them.
+	 */
+	@Override
+	public void clear()
+	{
+		this._lock.lock();
+		try
+		{
+			this._start = this._next.get();
+		}
+		finally
+		{
+			this._lock.unlock();
+		}
+	}
+}
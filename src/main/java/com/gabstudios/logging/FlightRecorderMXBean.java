@@ -0,0 +1,67 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * The JMX view of the flight recorder. Registered as <code>com.gabstudios.logging:type=FlightRecorder</code> while a
+ * flight recorder is enabled through the <code>LogProvider</code>.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public interface FlightRecorderMXBean
+{
+
+	/**
+	 * Gets the number of events the recorder keeps.
+	 *
+	 * @return The capacity.
+	 */
+	public int getCapacity();
+
+	/**
+	 * Gets the name of the lowest level that dumps the recorded events.
+	 *
+	 * @return The name of the trigger level.
+	 */
+	public String getTriggerLevelName();
+
+	/**
+	 * Gets the number of events recorded since the recorder was created.
+	 *
+	 * @return The number of recorded events.
+	 */
+	public long getRecordedCount();
+
+	/**
+	 * Gets the number of times the recorded events were dumped.
+	 *
+	 * @return The number of dumps.
+	 */
+	public long getDumpCount();
+
+	/**
+	 * Writes the recorded events that were not dumped yet to the output of the service.
+	 *
+	 * @return The number of events written.
+	 */
+	public int dump();
+
+	/**
+	 * Discards the recorded events without writing them.
+	 */
+	public void clear();
+}
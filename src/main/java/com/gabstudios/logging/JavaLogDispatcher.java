@@ -0,0 +1,137 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.logging.Filter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * The dispatcher of the java logging engine. Runs the java logging handlers on the caller's thread.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+final class JavaLogDispatcher implements LogDispatcher
+{
+
+	static final JavaLogDispatcher INSTANCE = new JavaLogDispatcher();
+
+	/**
+	 * Use the shared instance.
+	 */
+	private JavaLogDispatcher()
+	{
+		// void - stateless.
+	}
+
+	@Override
+	public void dispatch(final ClassLogger classLogger, final Level level, final String methodName,
+	        final String message, final Throwable thrown)
+	{
+		final double sampleRate = classLogger.getSampleRate(level);
+		final LogContext context = LogContext.current();
+		if ((sampleRate == 1d) && context.isEmpty())
+		{
+			classLogger.getLogger().logp(level, classLogger.getClassName(), methodName, message, thrown);
+			return;
+		}
+
+		final LogRecord record = JavaLogDispatcher.createRecord(level, message, sampleRate, context);
+		record.setLoggerName(classLogger.getClassName());
+		record.setSourceClassName(classLogger.getClassName());
+		record.setSourceMethodName(methodName);
+		record.setThrown(thrown);
+		classLogger.getLogger().log(record);
+	}
+
+	@Override
+	public void dispatch(final LogEvent event)
+	{
+		final LogRecord record = JavaLogDispatcher.createRecord(event.getLevel(), event.getMessage(),
+		        event.getSampleRate(), event.getContext());
+		record.setLoggerName(event.getClassName());
+		record.setSourceClassName(event.getClassName());
+		record.setSourceMethodName(event.getMethodName());
+		record.setThrown(event.getThrown());
+		record.setMillis(event.getMillis());
+		record.setThreadID((int) event.getThreadId());
+
+		// an event that is no longer loggable, because the level was raised while it was queued, is dropped by the
+		// logger like any other.
+		final Logger logger = event.getClassLogger().getLogger();
+		if (!event.isDumped() || logger.isLoggable(record.getLevel()))
+		{
+			logger.log(record);
+			return;
+		}
+
+		// an event dumped by a flight recorder is below the level of its logger, so it is handed to the handlers. The
+		// filter of the logger still applies, and each handler checks its own level.
+		final Filter filter = logger.getFilter();
+		if ((filter != null) && !filter.isLoggable(record))
+		{
+			return;
+		}
+
+		Logger current = logger;
+		while (current != null)
+		{
+			for (final Handler handler : current.getHandlers())
+			{
+				handler.publish(record);
+			}
+			current = current.getUseParentHandlers() ? current.getParent() : null;
+		}
+	}
+
+	/*
+	 * Creates the record of an event, carrying the sample rate and context when there are any.
+	 */
+	private static LogRecord createRecord(final Level level, final String message, final double sampleRate,
+	        final LogContext context)
+	{
+		if (sampleRate != 1d)
+		{
+			return (new SampledLogRecord(level, message, sampleRate, context));
+		}
+		if (!context.isEmpty())
+		{
+			return (new ContextLogRecord(level, message, context));
+		}
+		return (new LogRecord(level, message));
+	}
+
+	@Override
+	public void flush()
+	{
+		// void - nothing is queued.
+	}
+
+	@Override
+	public void close()
+	{
+		// void - nothing to release.
+	}
+
+	@Override
+	public long getDroppedCount()
+	{
+		return (0L);
+	}
+}
@@ -0,0 +1,98 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The java logging engine, and the default. Events are written through the <code>Logger</code> of the class, so the
+ * levels, handlers and formatters are configured with the <code>LogManager</code> as usual.
+ * <p>
+ * A level set in the <code>LevelRegistry</code> is set on the <code>Logger</code> of the name, which updates the
+ * level cached by every logger below it. When the level is removed from the registry the logger gets back the level
+ * it had before.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class JavaLogService extends AbstractLogService
+{
+
+	/*
+	 * The loggers whose level was set by the registry, and the level each had before. The LogManager only keeps weak
+	 * references to the loggers, so they are kept here until their level is removed.
+	 */
+	private final Map<Logger, Level> _originalLevels = new HashMap<Logger, Level>();
+
+	/**
+	 * Creates the service. Called by <code>LogProvider</code> through the <code>ServiceLoader</code>.
+	 */
+	public JavaLogService()
+	{
+		super(JavaLogDispatcher.INSTANCE);
+	}
+
+	@Override
+	protected Logger resolveLogger(final String className)
+	{
+		return (Logger.getLogger(className));
+	}
+
+	/**
+	 * Gets the level of the closest logger in the hierarchy that has one.
+	 *
+	 * @param className
+	 *            The fully qualified class name.
+	 * @return A <code>Level</code> instance.
+	 */
+	@Override
+	protected Level resolveLevel(final String className)
+	{
+		for (Logger logger = Logger.getLogger(className); logger != null; logger = logger.getParent())
+		{
+			final Level level = logger.getLevel();
+			if (level != null)
+			{
+				return (level);
+			}
+		}
+		return (Level.INFO);
+	}
+
+	/*
+	 * Called by the registry while it holds its lock.
+	 */
+	@Override
+	protected void applyLevel(final String name, final Level level)
+	{
+		final Logger logger = Logger.getLogger(name);
+		if (level != null)
+		{
+			if (!this._originalLevels.containsKey(logger))
+			{
+				this._originalLevels.put(logger, logger.getLevel());
+			}
+			logger.setLevel(level);
+		}
+		else if (this._originalLevels.containsKey(logger))
+		{
+			logger.setLevel(this._originalLevels.remove(logger));
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * Defines what the <code>LogService</code> does with a method name or message that is longer than the allowed maximum
+ * length.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public enum LengthPolicy
+{
+	/**
+	 * Throw an <code>IllegalArgumentException</code>. This is the default.
+	 */
+	THROW,
+
+	/**
+	 * Cut the value down to the maximum length and log it.
+	 */
+	TRUNCATE,
+
+	/**
+	 * Silently discard the log event. <code>SECURITY</code> events are never discarded; they are truncated instead.
+	 */
+	DROP
+}
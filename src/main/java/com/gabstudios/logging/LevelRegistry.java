@@ -0,0 +1,398 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+
+/**
+ * The levels of the classes and packages of a service, which can be changed while it runs: through this class,
+ * through JMX as <code>com.gabstudios.logging:type=LevelRegistry</code>, or by editing a watched file. A class logs
+ * at the level set for its name or for the closest package above it, and otherwise at the root level.
+ * <p>
+ * Each <code>ClassLogger</code> keeps its threshold in a volatile field, so the level check is a single comparison.
+ * A change updates the threshold of every class logger before it returns. A file is read as a whole and replaces
+ * every level at once, so a class never sees half of an edit. With the java logging engine the levels are set on the
+ * <code>Logger</code> of the name, which keeps the effective level of its children cached the same way.
+ * <p>
+ * The watched file uses the syntax of <code>logging.properties</code>. Only the <code>.level</code> keys are read:
+ *
+ * <pre>
+ * .level=INFO
+ * com.acme.level=FINEST
+ * com.acme.Order.level=WARNING
+ * </pre>
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class LevelRegistry implements LevelRegistryMXBean
+{
+
+	/**
+	 * The name the MXBean is registered under.
+	 */
+	public static final String			OBJECT_NAME		= "com.gabstudios.logging:type=LevelRegistry";
+
+	/**
+	 * The name of the root level.
+	 */
+	public static final String			ROOT			= "";
+
+	private static final String			LEVEL_SUFFIX	= ".level";
+
+	private final AbstractLogService	_service;
+
+	private final Map<String, Level>	_levels			= new ConcurrentHashMap<String, Level>();
+
+	private final ErrorManager			_errorManager	= new ErrorManager();
+
+	private Path						_file;
+
+	private WatchService				_watchService;
+
+	/**
+	 * Package scope. Created by AbstractLogService.
+	 *
+	 * @param service
+	 *            The service whose class loggers are updated.
+	 */
+	LevelRegistry(final AbstractLogService service)
+	{
+		assert (service != null) : "The parameter 'service' should not be null";
+
+		this._service = service;
+	}
+
+	/**
+	 * Sets the level of a class or package.
+	 *
+	 * @param name
+	 *            The fully qualified name of the class or package, or <code>ROOT</code>. Must not be null.
+	 * @param level
+	 *            The lowest level to log, or null to use the level of the package above.
+	 */
+	public synchronized void setLevel(final String name, final Level level)
+	{
+		if (name == null)
+		{
+			throw (new IllegalArgumentException("The 'name' parameter must not be null."));
+		}
+		final Map<String, Level> levels = new HashMap<String, Level>(this._levels);
+		if (level == null)
+		{
+			levels.remove(name);
+		}
+		else
+		{
+			levels.put(name, level);
+		}
+		setLevels(levels);
+	}
+
+	/**
+	 * Replaces every level. The class loggers are updated once, after all of the levels are set.
+	 *
+	 * @param levels
+	 *            A map of class or package name to level. Must not be null.
+	 */
+	public synchronized void setLevels(final Map<String, Level> levels)
+	{
+		if (levels == null)
+		{
+			throw (new IllegalArgumentException("The 'levels' parameter must not be null."));
+		}
+
+		final Map<String, Level> previous = new HashMap<String, Level>(this._levels);
+		for (final Map.Entry<String, Level> entry : levels.entrySet())
+		{
+			if ((entry.getKey() == null) || (entry.getValue() == null))
+			{
+				throw (new IllegalArgumentException("The 'levels' parameter must not hold a null name or level."));
+			}
+		}
+
+		this._levels.keySet().retainAll(levels.keySet());
+		this._levels.putAll(levels);
+
+		for (final Map.Entry<String, Level> entry : previous.entrySet())
+		{
+			if (!levels.containsKey(entry.getKey()))
+			{
+				this._service.applyLevel(entry.getKey(), null);
+			}
+		}
+		for (final Map.Entry<String, Level> entry : levels.entrySet())
+		{
+			if (!entry.getValue().equals(previous.get(entry.getKey())))
+			{
+				this._service.applyLevel(entry.getKey(), entry.getValue());
+			}
+		}
+		this._service.refreshLevels();
+	}
+
+	/**
+	 * Gets the level set for a class or package.
+	 *
+	 * @param name
+	 *            The fully qualified name of the class or package, or <code>ROOT</code>.
+	 * @return A <code>Level</code> instance, or null if no level is set for the name.
+	 */
+	public Level getLevel(final String name)
+	{
+		return ((name == null) ? null : this._levels.get(name));
+	}
+
+	/**
+	 * Gets the levels set in the registry.
+	 *
+	 * @return An unmodifiable copy of the levels, ordered by name.
+	 */
+	public Map<String, Level> getLevels()
+	{
+		return (Collections.unmodifiableMap(new TreeMap<String, Level>(this._levels)));
+	}
+
+	/**
+	 * Gets the level set for a class or the closest package above it.
+	 *
+	 * @param className
+	 *            The fully qualified class name.
+	 * @return A <code>Level</code> instance, or null if neither the class, its packages nor the root have a level.
+	 */
+	Level resolve(final String className)
+	{
+		String name = className;
+		while (true)
+		{
+			final Level level = this._levels.get(name);
+			if (level != null)
+			{
+				return (level);
+			}
+			if (name.length() == 0)
+			{
+				return (null);
+			}
+			final int index = name.lastIndexOf('.');
+			name = (index < 0) ? LevelRegistry.ROOT : name.substring(0, index);
+		}
+	}
+
+	/**
+	 * Reads the levels from a file and replaces every level with them.
+	 *
+	 * @param file
+	 *            The file, in the syntax of <code>logging.properties</code>. Must not be null.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public void load(final Path file) throws IOException
+	{
+		if (file == null)
+		{
+			throw (new IllegalArgumentException("The 'file' parameter must not be null."));
+		}
+
+		final Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(file))
+		{
+			properties.load(in);
+		}
+
+		final Map<String, Level> levels = new HashMap<String, Level>();
+		for (final String key : properties.stringPropertyNames())
+		{
+			if (key.endsWith(LevelRegistry.LEVEL_SUFFIX))
+			{
+				final String name = key.substring(0, key.length() - LevelRegistry.LEVEL_SUFFIX.length());
+				levels.put(name, Level.parse(properties.getProperty(key).trim()));
+			}
+		}
+		setLevels(levels);
+	}
+
+	/**
+	 * Reads the levels from a file now and again every time it changes. Any file watched before is no longer
+	 * watched.
+	 *
+	 * @param file
+	 *            The file, in the syntax of <code>logging.properties</code>. Must not be null.
+	 * @throws IOException
+	 *             If the file cannot be read or watched.
+	 */
+	public synchronized void watch(final Path file) throws IOException
+	{
+		if (file == null)
+		{
+			throw (new IllegalArgumentException("The 'file' parameter must not be null."));
+		}
+
+		stopWatching();
+		final Path absolute = file.toAbsolutePath();
+		load(absolute);
+
+		final WatchService watchService = absolute.getFileSystem().newWatchService();
+		absolute.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+		        StandardWatchEventKinds.ENTRY_MODIFY);
+		this._file = absolute;
+		this._watchService = watchService;
+
+		final Thread watcher = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				watchFile(watchService, absolute);
+			}
+		}, "gab-logging-level-watcher");
+		watcher.setDaemon(true);
+		watcher.start();
+	}
+
+	/**
+	 * Stops watching the file.
+	 */
+	public synchronized void stopWatching()
+	{
+		if (this._watchService != null)
+		{
+			try
+			{
+				this._watchService.close();
+			}
+			catch (final IOException e)
+			{
+				this._errorManager.error("Unable to stop watching " + this._file, e, ErrorManager.CLOSE_FAILURE);
+			}
+			this._watchService = null;
+			this._file = null;
+		}
+	}
+
+	/*
+	 * Reads the file every time its directory reports a change to it, until the watch service is closed.
+	 */
+	private void watchFile(final WatchService watchService, final Path file)
+	{
+		final Path fileName = file.getFileName();
+		try
+		{
+			while (true)
+			{
+				final WatchKey key = watchService.take();
+				boolean changed = false;
+				for (final WatchEvent<?> event : key.pollEvents())
+				{
+					changed |= fileName.equals(event.context());
+				}
+				key.reset();
+				if (changed && Files.exists(file))
+				{
+					try
+					{
+						load(file);
+					}
+					catch (final IOException | IllegalArgumentException e)
+					{
+						// a file that is half written is read again on its next change.
+						this._errorManager.error("Unable to read the levels from " + file, e,
+						        ErrorManager.GENERIC_FAILURE);
+					}
+				}
+			}
+		}
+		catch (final ClosedWatchServiceException e)
+		{
+			// stopped.
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public Map<String, String> getLevelNames()
+	{
+		final Map<String, String> names = new TreeMap<String, String>();
+		for (final Map.Entry<String, Level> entry : this._levels.entrySet())
+		{
+			names.put(entry.getKey(), entry.getValue().getName());
+		}
+		return (names);
+	}
+
+	@Override
+	public void setLevelName(final String name, final String levelName)
+	{
+		final boolean remove = (levelName == null) || (levelName.trim().length() == 0);
+		setLevel(name, remove ? null : Level.parse(levelName.trim()));
+	}
+
+	@Override
+	public String getEffectiveLevelName(final String className)
+	{
+		if (className == null)
+		{
+			throw (new IllegalArgumentException("The 'className' parameter must not be null."));
+		}
+		return (this._service.resolveLevel(className).getName());
+	}
+
+	@Override
+	public synchronized String getWatchedFile()
+	{
+		return ((this._file == null) ? null : this._file.toString());
+	}
+
+	@Override
+	public void reload()
+	{
+		final Path file;
+		synchronized (this)
+		{
+			file = this._file;
+		}
+		if (file != null)
+		{
+			try
+			{
+				load(file);
+			}
+			catch (final IOException e)
+			{
+				throw (new LogProviderSysException("Unable to read the levels from " + file, e));
+			}
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the level registry. Registered as <code>com.gabstudios.logging:type=LevelRegistry</code>.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public interface LevelRegistryMXBean
+{
+
+	/**
+	 * Gets the levels set in the registry.
+	 *
+	 * @return A map of class or package name to level name. The root is the empty name.
+	 */
+	public Map<String, String> getLevelNames();
+
+	/**
+	 * Sets the level of a class or package.
+	 *
+	 * @param name
+	 *            The fully qualified name of the class or package, or an empty string for the root.
+	 * @param levelName
+	 *            The name or value of the level, or an empty string to remove the level.
+	 */
+	public void setLevelName(String name, String levelName);
+
+	/**
+	 * Gets the level a class logs at.
+	 *
+	 * @param className
+	 *            The fully qualified class name.
+	 * @return The name of the level.
+	 */
+	public String getEffectiveLevelName(String className);
+
+	/**
+	 * Gets the file the levels are read from.
+	 *
+	 * @return The path of the file, or null if no file is watched.
+	 */
+	public String getWatchedFile();
+
+	/**
+	 * Reads the watched file again.
+	 */
+	public void reload();
+}
@@ -0,0 +1,79 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * Writes events for the <code>DirectLogService</code>. The events are already validated and sanitized. An appender
+ * can be called by several threads at once and must be thread safe. The appenders here lock with a
+ * <code>ReentrantLock</code> rather than <code>synchronized</code>, so a virtual thread that waits for the lock or
+ * blocks in a write under it does not pin its carrier thread.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public interface LogAppender
+{
+
+	/**
+	 * Writes an event. The event is reused, so it must not be kept after the call returns.
+	 *
+	 * @param event
+	 *            The event to write.
+	 */
+	public void append(LogEvent event);
+
+	/**
+	 * Writes the events of a batch together, so the events of other threads are not written between them. The
+	 * appenders here override this to take their lock once for the batch. The events are reused, so they must not be
+	 * kept after the call returns.
+	 *
+	 * @param events
+	 *            The events to write.
+	 * @param count
+	 *            The number of events to write from the start of the array.
+	 */
+	public default void append(final LogEvent[] events, final int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			append(events[i]);
+		}
+	}
+
+	/**
+	 * Gives the appender the statistics of the service it is added to. Called by
+	 * <code>DirectLogService.addAppender()</code>. The appenders here report the bytes they write with
+	 * <code>recordBytesWritten()</code> and the events they drop with <code>recordDropped()</code>. The default
+	 * ignores the statistics.
+	 *
+	 * @param metrics
+	 *            The statistics to report to.
+	 */
+	public default void setMetrics(final LogMetrics metrics)
+	{
+		// nothing is reported by default.
+	}
+
+	/**
+	 * Writes anything that is buffered.
+	 */
+	public void flush();
+
+	/**
+	 * Flushes and releases any resources. Events appended after the appender is closed are discarded.
+	 */
+	public void close();
+}
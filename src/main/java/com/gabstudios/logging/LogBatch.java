@@ -0,0 +1,360 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+
+/**
+ * Collects the events of a unit of work and logs them together. The level is checked as each event is added, and the
+ * time and diagnostic context of the event are taken then. On <code>commit()</code> every event is validated, then
+ * every event is sanitized, and the events are handed to the dispatcher as one unit. An appender that writes a batch
+ * under one lock, such as the <code>StreamAppender</code>, keeps the events of the batch together in its output.
+ * <p>
+ * A batch is used by one thread and can be reused after it is committed. It commits when it is closed, so it can be
+ * used with try-with-resources:
+ *
+ * <pre>
+ * try (LogBatch batch = logService.batch(Order.class))
+ * {
+ * 	for (final Line line : order.getLines())
+ * 	{
+ * 		batch.logDebug("submit", "line " + line.getId());
+ * 	}
+ * }
+ * </pre>
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class LogBatch implements AutoCloseable
+{
+	private static final int			INITIAL_CAPACITY	= 16;
+
+	private final AbstractLogService	_service;
+
+	private final ClassLogger			_classLogger;
+
+	private Level[]						_levels				= new Level[LogBatch.INITIAL_CAPACITY];
+
+	private String[]					_methodNames		= new String[LogBatch.INITIAL_CAPACITY];
+
+	private String[]					_messages			= new String[LogBatch.INITIAL_CAPACITY];
+
+	private Throwable[]					_thrown				= new Throwable[LogBatch.INITIAL_CAPACITY];
+
+	private long[]						_millis				= new long[LogBatch.INITIAL_CAPACITY];
+
+	private LogContext[]				_contexts			= new LogContext[LogBatch.INITIAL_CAPACITY];
+
+	private LogEvent[]					_events				= new LogEvent[0];
+
+	private int							_count;
+
+	/**
+	 * Package scope. Created by ClassLogger.
+	 *
+	 * @param service
+	 *            The service that validates, sanitizes and logs the events.
+	 * @param classLogger
+	 *            The logger of the class the events are logged for.
+	 */
+	LogBatch(final AbstractLogService service, final ClassLogger classLogger)
+	{
+		assert (service != null) : "The parameter 'service' should not be null";
+		assert (classLogger != null) : "The parameter 'classLogger' should not be null";
+
+		this._service = service;
+		this._classLogger = classLogger;
+	}
+
+	/**
+	 * Gets the logger of the class the events are logged for.
+	 *
+	 * @return A <code>ClassLogger</code> instance.
+	 */
+	public ClassLogger getClassLogger()
+	{
+		return (this._classLogger);
+	}
+
+	/**
+	 * Gets the number of events added since the last commit.
+	 *
+	 * @return The number of pending events.
+	 */
+	public int size()
+	{
+		return (this._count);
+	}
+
+	/**
+	 * Adds a configuration event if the level is enabled and the sampler takes it.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method.
+	 * @param message
+	 *            The message to send to the log.
+	 * @return This batch.
+	 */
+	public LogBatch logConfiguration(final String methodName, final String message)
+	{
+		if (this._classLogger.isLoggable(Level.CONFIG) && this._classLogger.sample())
+		{
+			add(Level.CONFIG, methodName, message, null);
+		}
+		return (this);
+	}
+
+	/**
+	 * Adds a debug event if the level is enabled and the sampler takes it.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method.
+	 * @param message
+	 *            The message to send to the log.
+	 * @return This batch.
+	 */
+	public LogBatch logDebug(final String methodName, final String message)
+	{
+		if (this._classLogger.isLoggable(Level.FINEST) && this._classLogger.sample())
+		{
+			add(Level.FINEST, methodName, message, null);
+		}
+		return (this);
+	}
+
+	/**
+	 * Adds a standard event if the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method.
+	 * @param message
+	 *            The message to send to the log.
+	 * @return This batch.
+	 */
+	public LogBatch logMessage(final String methodName, final String message)
+	{
+		if (this._classLogger.isLoggable(Level.INFO))
+		{
+			add(Level.INFO, methodName, message, null);
+		}
+		return (this);
+	}
+
+	/**
+	 * Adds a warning event if the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method.
+	 * @param message
+	 *            The message to send to the log.
+	 * @return This batch.
+	 */
+	public LogBatch logWarning(final String methodName, final String message)
+	{
+		if (this._classLogger.isLoggable(Level.WARNING))
+		{
+			add(Level.WARNING, methodName, message, null);
+		}
+		return (this);
+	}
+
+	/**
+	 * Adds a failure event if the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method.
+	 * @param message
+	 *            The message to send to the log.
+	 * @return This batch.
+	 */
+	public LogBatch logFailure(final String methodName, final String message)
+	{
+		if (this._classLogger.isLoggable(Level.SEVERE))
+		{
+			add(Level.SEVERE, methodName, message, null);
+		}
+		return (this);
+	}
+
+	/**
+	 * Adds a failure event with throwable details if the level is enabled.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method.
+	 * @param message
+	 *            The message to send to the log.
+	 * @param thrown
+	 *            The throwable to log details about. Must not be null.
+	 * @return This batch.
+	 */
+	public LogBatch logFailure(final String methodName, final String message, final Throwable thrown)
+	{
+		if (this._classLogger.isLoggable(Level.SEVERE))
+		{
+			LogValidator.validateThrown(thrown);
+			add(Level.SEVERE, methodName, message, thrown);
+		}
+		return (this);
+	}
+
+	/**
+	 * Adds a security event if the level is enabled. When the service has a security lane the event is dispatched
+	 * through it on commit, apart from the rest of the batch.
+	 *
+	 * @param methodName
+	 *            The name of the class method that is calling this log method.
+	 * @param message
+	 *            The message to send to the log.
+	 * @return This batch.
+	 */
+	public LogBatch logSecurity(final String methodName, final String message)
+	{
+		if (this._classLogger.isLoggable(LogService.SecurityLevel.SECURITY))
+		{
+			add(LogService.SecurityLevel.SECURITY, methodName, message, null);
+		}
+		return (this);
+	}
+
+	/*
+	 * Keeps an event until the commit.
+	 */
+	private void add(final Level level, final String methodName, final String message, final Throwable thrown)
+	{
+		final int index = this._count;
+		if (index == this._levels.length)
+		{
+			final int capacity = index * 2;
+			this._levels = Arrays.copyOf(this._levels, capacity);
+			this._methodNames = Arrays.copyOf(this._methodNames, capacity);
+			this._messages = Arrays.copyOf(this._messages, capacity);
+			this._thrown = Arrays.copyOf(this._thrown, capacity);
+			this._millis = Arrays.copyOf(this._millis, capacity);
+			this._contexts = Arrays.copyOf(this._contexts, capacity);
+		}
+		this._levels[index] = level;
+		this._methodNames[index] = methodName;
+		this._messages[index] = message;
+		this._thrown[index] = thrown;
+		this._millis[index] = System.currentTimeMillis();
+		this._contexts[index] = LogContext.current();
+		this._count = index + 1;
+	}
+
+	/**
+	 * Validates, sanitizes and logs every pending event. Every event is validated before any is logged, so an invalid
+	 * event throws and none of the batch is logged. The batch is empty afterwards either way.
+	 */
+	public void commit()
+	{
+		if (this._count == 0)
+		{
+			return;
+		}
+		try
+		{
+			this._service.commit(this);
+		}
+		finally
+		{
+			discard();
+		}
+	}
+
+	/**
+	 * Drops every pending event without logging it.
+	 */
+	public void discard()
+	{
+		Arrays.fill(this._methodNames, 0, this._count, null);
+		Arrays.fill(this._messages, 0, this._count, null);
+		Arrays.fill(this._thrown, 0, this._count, null);
+		Arrays.fill(this._contexts, 0, this._count, null);
+		this._count = 0;
+	}
+
+	/**
+	 * Commits the pending events.
+	 */
+	@Override
+	public void close()
+	{
+		commit();
+	}
+
+	/*
+	 * The pending events, read by the service on commit.
+	 */
+
+	Level getLevel(final int index)
+	{
+		return (this._levels[index]);
+	}
+
+	String getMethodName(final int index)
+	{
+		return (this._methodNames[index]);
+	}
+
+	void setMethodName(final int index, final String methodName)
+	{
+		this._methodNames[index] = methodName;
+	}
+
+	String getMessage(final int index)
+	{
+		return (this._messages[index]);
+	}
+
+	void setMessage(final int index, final String message)
+	{
+		this._messages[index] = message;
+	}
+
+	Throwable getThrown(final int index)
+	{
+		return (this._thrown[index]);
+	}
+
+	long getMillis(final int index)
+	{
+		return (this._millis[index]);
+	}
+
+	LogContext getContext(final int index)
+	{
+		return (this._contexts[index]);
+	}
+
+	/*
+	 * Gets the reused events the batch is dispatched with, at least count of them.
+	 */
+	LogEvent[] events(final int count)
+	{
+		if (this._events.length < count)
+		{
+			final int start = this._events.length;
+			this._events = Arrays.copyOf(this._events, Math.max(count, this._levels.length));
+			for (int i = start; i < this._events.length; i++)
+			{
+				this._events[i] = new LogEvent();
+			}
+		}
+		return (this._events);
+	}
+}
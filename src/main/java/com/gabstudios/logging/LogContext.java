@@ -0,0 +1,373 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * The diagnostic context of a thread, such as a request id or tenant, written with every event the thread logs so it
+ * does not have to be added to each message.
+ * <p>
+ * A context is an immutable snapshot of keys and values. Changing the context of a thread replaces its snapshot with a
+ * new one, so an event only keeps a reference to the snapshot that was current when it was logged, and reading it
+ * takes no copy or lock. Handing the context to a task run by an executor captures the same reference:
+ *
+ * <pre>
+ * LogContext.put("requestId", request.getId());
+ * executor.execute(LogContext.wrap(task));
+ * </pre>
+ *
+ * The context is kept in a thread local, so every thread, virtual threads included, starts with an empty context.
+ * Keys and values are sanitized with the <code>DefaultLogSanitizer</code> when they are put, once rather than for
+ * every event. The layouts write a context that is not empty as <code>key=value</code> pairs separated by spaces.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class LogContext
+{
+
+	/**
+	 * The context of a thread that has none.
+	 */
+	public static final LogContext					EMPTY				= new LogContext(new String[0], new String[0]);
+
+	/**
+	 * The maximum number of characters in a key.
+	 */
+	public static final int							MAX_KEY_LENGTH		= 64;
+
+	/**
+	 * The maximum number of characters in a value.
+	 */
+	public static final int							MAX_VALUE_LENGTH	= 256;
+
+	private static final ThreadLocal<LogContext>	CURRENT				= new ThreadLocal<LogContext>();
+
+	private final String[]							_keys;
+
+	private final String[]							_values;
+
+	/**
+	 * Package scope. Keys and values are already validated and sanitized.
+	 *
+	 * @param keys
+	 *            The keys, without duplicates.
+	 * @param values
+	 *            The values, in the order of the keys.
+	 */
+	LogContext(final String[] keys, final String[] values)
+	{
+		assert (keys.length == values.length) : "The parameters 'keys' and 'values' should be the same length";
+
+		this._keys = keys;
+		this._values = values;
+	}
+
+	/**
+	 * Gets the context of the calling thread.
+	 *
+	 * @return A <code>LogContext</code> instance, <code>EMPTY</code> if the thread has none.
+	 */
+	public static LogContext current()
+	{
+		final LogContext context = LogContext.CURRENT.get();
+		return ((context == null) ? LogContext.EMPTY : context);
+	}
+
+	/**
+	 * Makes a context the context of the calling thread.
+	 *
+	 * @param context
+	 *            The context. Must not be null.
+	 * @return The context the thread had before, to restore with another call.
+	 */
+	public static LogContext attach(final LogContext context)
+	{
+		if (context == null)
+		{
+			throw (new IllegalArgumentException("The 'context' parameter must not be null."));
+		}
+		final LogContext previous = LogContext.current();
+		if (context == LogContext.EMPTY)
+		{
+			LogContext.CURRENT.remove();
+		}
+		else
+		{
+			LogContext.CURRENT.set(context);
+		}
+		return (previous);
+	}
+
+	/**
+	 * Sets a value in the context of the calling thread.
+	 *
+	 * @param key
+	 *            The key. Must not be null or empty or longer than <code>MAX_KEY_LENGTH</code>.
+	 * @param value
+	 *            The value. Must not be null or empty or longer than <code>MAX_VALUE_LENGTH</code>.
+	 */
+	public static void put(final String key, final String value)
+	{
+		LogContext.attach(LogContext.current().with(key, value));
+	}
+
+	/**
+	 * Removes a value from the context of the calling thread.
+	 *
+	 * @param key
+	 *            The key.
+	 */
+	public static void remove(final String key)
+	{
+		LogContext.attach(LogContext.current().without(key));
+	}
+
+	/**
+	 * Empties the context of the calling thread.
+	 */
+	public static void clear()
+	{
+		LogContext.CURRENT.remove();
+	}
+
+	/**
+	 * Wraps a task so it runs with the context the calling thread has now, and then restores the context of the
+	 * thread that runs it.
+	 *
+	 * @param task
+	 *            The task. Must not be null.
+	 * @return The wrapped task.
+	 */
+	public static Runnable wrap(final Runnable task)
+	{
+		if (task == null)
+		{
+			throw (new IllegalArgumentException("The 'task' parameter must not be null."));
+		}
+		final LogContext context = LogContext.current();
+		return (new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				final LogContext previous = LogContext.attach(context);
+				try
+				{
+					task.run();
+				}
+				finally
+				{
+					LogContext.attach(previous);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Wraps a task so it runs with the context the calling thread has now, and then restores the context of the
+	 * thread that runs it.
+	 *
+	 * @param <V>
+	 *            The result type of the task.
+	 * @param task
+	 *            The task. Must not be null.
+	 * @return The wrapped task.
+	 */
+	public static <V> Callable<V> wrap(final Callable<V> task)
+	{
+		if (task == null)
+		{
+			throw (new IllegalArgumentException("The 'task' parameter must not be null."));
+		}
+		final LogContext context = LogContext.current();
+		return (new Callable<V>()
+		{
+			@Override
+			public V call() throws Exception
+			{
+				final LogContext previous = LogContext.attach(context);
+				try
+				{
+					return (task.call());
+				}
+				finally
+				{
+					LogContext.attach(previous);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Creates a context with a value set. This context is not changed.
+	 *
+	 * @param key
+	 *            The key. Must not be null or empty or longer than <code>MAX_KEY_LENGTH</code>.
+	 * @param value
+	 *            The value. Must not be null or empty or longer than <code>MAX_VALUE_LENGTH</code>.
+	 * @return A new <code>LogContext</code> instance.
+	 */
+	public LogContext with(final String key, final String value)
+	{
+		final String sKey = DefaultLogSanitizer.INSTANCE.sanitize(
+		        LogValidator.validateString(key, "key", LogContext.MAX_KEY_LENGTH, LengthPolicy.THROW));
+		final String sValue = DefaultLogSanitizer.INSTANCE.sanitize(
+		        LogValidator.validateString(value, "value", LogContext.MAX_VALUE_LENGTH, LengthPolicy.THROW));
+
+		final int index = indexOf(sKey);
+		if (index >= 0)
+		{
+			final String[] values = this._values.clone();
+			values[index] = sValue;
+			return (new LogContext(this._keys, values));
+		}
+
+		final String[] keys = Arrays.copyOf(this._keys, this._keys.length + 1);
+		final String[] values = Arrays.copyOf(this._values, this._values.length + 1);
+		keys[this._keys.length] = sKey;
+		values[this._values.length] = sValue;
+		return (new LogContext(keys, values));
+	}
+
+	/**
+	 * Creates a context without a value. This context is not changed.
+	 *
+	 * @param key
+	 *            The key.
+	 * @return A new <code>LogContext</code> instance, or this one if it has no value for the key.
+	 */
+	public LogContext without(final String key)
+	{
+		final int index = indexOf(DefaultLogSanitizer.INSTANCE.sanitize(key));
+		if (index < 0)
+		{
+			return (this);
+		}
+		if (this._keys.length == 1)
+		{
+			return (LogContext.EMPTY);
+		}
+
+		final String[] keys = new String[this._keys.length - 1];
+		final String[] values = new String[this._values.length - 1];
+		System.arraycopy(this._keys, 0, keys, 0, index);
+		System.arraycopy(this._keys, index + 1, keys, index, keys.length - index);
+		System.arraycopy(this._values, 0, values, 0, index);
+		System.arraycopy(this._values, index + 1, values, index, values.length - index);
+		return (new LogContext(keys, values));
+	}
+
+	/*
+	 * Finds the position of a key. A context holds a few keys, so they are searched in order.
+	 */
+	private int indexOf(final String key)
+	{
+		for (int i = 0; i < this._keys.length; i++)
+		{
+			if (this._keys[i].equals(key))
+			{
+				return (i);
+			}
+		}
+		return (-1);
+	}
+
+	/**
+	 * Gets a value.
+	 *
+	 * @param key
+	 *            The key.
+	 * @return The sanitized value, or null if the context has none for the key.
+	 */
+	public String get(final String key)
+	{
+		final int index = indexOf(DefaultLogSanitizer.INSTANCE.sanitize(key));
+		return ((index < 0) ? null : this._values[index]);
+	}
+
+	/**
+	 * Gets the number of values.
+	 *
+	 * @return The number of keys.
+	 */
+	public int size()
+	{
+		return (this._keys.length);
+	}
+
+	/**
+	 * Checks if the context has no values.
+	 *
+	 * @return True if the context is empty, otherwise false.
+	 */
+	public boolean isEmpty()
+	{
+		return (this._keys.length == 0);
+	}
+
+	/**
+	 * Gets a key by position, in the order the keys were first set.
+	 *
+	 * @param index
+	 *            The position, from zero to <code>size() - 1</code>.
+	 * @return The sanitized key.
+	 */
+	public String getKey(final int index)
+	{
+		return (this._keys[index]);
+	}
+
+	/**
+	 * Gets a value by position, in the order the keys were first set.
+	 *
+	 * @param index
+	 *            The position, from zero to <code>size() - 1</code>.
+	 * @return The sanitized value.
+	 */
+	public String getValue(final int index)
+	{
+		return (this._values[index]);
+	}
+
+	/**
+	 * Appends the values as <code>key=value</code> pairs separated by spaces, the way the layouts write them.
+	 *
+	 * @param builder
+	 *            The buffer the pairs are appended to.
+	 * @return The buffer.
+	 */
+	public StringBuilder appendTo(final StringBuilder builder)
+	{
+		for (int i = 0; i < this._keys.length; i++)
+		{
+			if (i > 0)
+			{
+				builder.append(' ');
+			}
+			builder.append(this._keys[i]).append('=').append(this._values[i]);
+		}
+		return (builder);
+	}
+
+	@Override
+	public String toString()
+	{
+		return (appendTo(new StringBuilder()).toString());
+	}
+}
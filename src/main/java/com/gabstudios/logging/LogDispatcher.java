@@ -0,0 +1,90 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.logging.Level;
+
+/**
+ * Hands validated and sanitized log events to the engine. The <code>LogService</code> calls the dispatcher only for
+ * events whose level is enabled.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public interface LogDispatcher
+{
+
+	/**
+	 * Dispatches an event logged by the calling thread at the current time.
+	 *
+	 * @param classLogger
+	 *            The logger of the class that logged the event.
+	 * @param level
+	 *            The level of the event.
+	 * @param methodName
+	 *            The sanitized method name.
+	 * @param message
+	 *            The sanitized message.
+	 * @param thrown
+	 *            The throwable, may be null.
+	 */
+	public void dispatch(ClassLogger classLogger, Level level, String methodName, String message, Throwable thrown);
+
+	/**
+	 * Dispatches an event that already has its time and thread. Used to hand on an event that was queued by another
+	 * dispatcher. The event must not be kept after the call returns.
+	 *
+	 * @param event
+	 *            The event.
+	 */
+	public void dispatch(LogEvent event);
+
+	/**
+	 * Dispatches the events of a batch, which already have their time and thread. A dispatcher that can keep the
+	 * events together, such as one that writes to appenders, overrides this to hand them on as one unit. The events
+	 * must not be kept after the call returns.
+	 *
+	 * @param events
+	 *            The events.
+	 * @param count
+	 *            The number of events to dispatch from the start of the array.
+	 */
+	public default void dispatch(final LogEvent[] events, final int count)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			dispatch(events[i]);
+		}
+	}
+
+	/**
+	 * Waits until every event dispatched so far has been written.
+	 */
+	public void flush();
+
+	/**
+	 * Flushes and releases any resources. Events dispatched after an asynchronous dispatcher is closed are still
+	 * written, but on the caller's thread.
+	 */
+	public void close();
+
+	/**
+	 * Gets the number of events that were discarded because the dispatcher was full.
+	 *
+	 * @return The number of dropped events.
+	 */
+	public long getDroppedCount();
+}
@@ -0,0 +1,254 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.logging.Level;
+
+/**
+ * A validated and sanitized log event. Instances are preallocated and reused, so an event must not be kept after the
+ * call it was passed to returns. Use <code>copyFrom()</code> to keep the values.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class LogEvent
+{
+	private ClassLogger	_classLogger;
+
+	private Level		_level;
+
+	private String		_methodName;
+
+	private String		_message;
+
+	private Throwable	_thrown;
+
+	private long		_millis;
+
+	private long		_threadId;
+
+	private double		_sampleRate;
+
+	private LogContext	_context	= LogContext.EMPTY;
+
+	private boolean		_dumped;
+
+	/**
+	 * Creates an empty event.
+	 */
+	public LogEvent()
+	{
+		// void - filled in by set() or copyFrom().
+	}
+
+	/**
+	 * Sets all of the values of the event. The sample rate is read from the class logger.
+	 *
+	 * @param classLogger
+	 *            The logger of the class that logged the event.
+	 * @param level
+	 *            The level of the event.
+	 * @param methodName
+	 *            The sanitized method name.
+	 * @param message
+	 *            The sanitized message.
+	 * @param thrown
+	 *            The throwable, may be null.
+	 * @param millis
+	 *            The time of the event in milliseconds since the epoch.
+	 * @param threadId
+	 *            The id of the thread that logged the event.
+	 * @param context
+	 *            The diagnostic context of the thread that logged the event.
+	 */
+	void set(final ClassLogger classLogger, final Level level, final String methodName, final String message,
+	        final Throwable thrown, final long millis, final long threadId, final LogContext context)
+	{
+		this._classLogger = classLogger;
+		this._level = level;
+		this._methodName = methodName;
+		this._message = message;
+		this._thrown = thrown;
+		this._millis = millis;
+		this._threadId = threadId;
+		this._context = context;
+		this._sampleRate = (classLogger == null) ? 1d : classLogger.getSampleRate(level);
+		this._dumped = false;
+	}
+
+	/**
+	 * Copies the values of another event into this event.
+	 *
+	 * @param event
+	 *            The event to copy.
+	 */
+	public void copyFrom(final LogEvent event)
+	{
+		set(event._classLogger, event._level, event._methodName, event._message, event._thrown, event._millis,
+		        event._threadId, event._context);
+		this._sampleRate = event._sampleRate;
+		this._dumped = event._dumped;
+	}
+
+	/**
+	 * Sets how many events this event stands for, when it was read before the event was queued.
+	 *
+	 * @param sampleRate
+	 *            The sample rate.
+	 */
+	void setSampleRate(final double sampleRate)
+	{
+		this._sampleRate = sampleRate;
+	}
+
+	/**
+	 * Marks the event as written by a <code>FlightRecorder</code> dump.
+	 *
+	 * @param dumped
+	 *            True if the event was dumped.
+	 */
+	void setDumped(final boolean dumped)
+	{
+		this._dumped = dumped;
+	}
+
+	/**
+	 * Clears the references held by the event so they can be garbage collected.
+	 */
+	void clear()
+	{
+		set(null, null, null, null, null, 0L, 0L, LogContext.EMPTY);
+	}
+
+	/**
+	 * Gets the logger of the class that logged the event.
+	 *
+	 * @return A <code>ClassLogger</code> instance.
+	 */
+	ClassLogger getClassLogger()
+	{
+		return (this._classLogger);
+	}
+
+	/**
+	 * Gets the name of the class that logged the event.
+	 *
+	 * @return The fully qualified class name.
+	 */
+	public String getClassName()
+	{
+		return (this._classLogger.getClassName());
+	}
+
+	/**
+	 * Gets the level of the event.
+	 *
+	 * @return A <code>Level</code> instance.
+	 */
+	public Level getLevel()
+	{
+		return (this._level);
+	}
+
+	/**
+	 * Gets the sanitized name of the method that logged the event.
+	 *
+	 * @return The method name.
+	 */
+	public String getMethodName()
+	{
+		return (this._methodName);
+	}
+
+	/**
+	 * Gets the sanitized message.
+	 *
+	 * @return The message.
+	 */
+	public String getMessage()
+	{
+		return (this._message);
+	}
+
+	/**
+	 * Gets the throwable logged with the event.
+	 *
+	 * @return A <code>Throwable</code> instance or null.
+	 */
+	public Throwable getThrown()
+	{
+		return (this._thrown);
+	}
+
+	/**
+	 * Gets the time of the event.
+	 *
+	 * @return The time in milliseconds since the epoch.
+	 */
+	public long getMillis()
+	{
+		return (this._millis);
+	}
+
+	/**
+	 * Gets the id of the thread that logged the event.
+	 *
+	 * @return The thread id.
+	 */
+	public long getThreadId()
+	{
+		return (this._threadId);
+	}
+
+	/**
+	 * Gets the diagnostic context of the thread that logged the event.
+	 *
+	 * @return A <code>LogContext</code> instance, <code>EMPTY</code> if the thread had none.
+	 */
+	public LogContext getContext()
+	{
+		return (this._context);
+	}
+
+	/**
+	 * Gets how many events this event stands for. Debug and configuration events chosen by a <code>LogSampler</code>
+	 * stand for the events it skipped.
+	 *
+	 * @return The sample rate, one if the event was not sampled.
+	 */
+	public double getSampleRate()
+	{
+		return (this._sampleRate);
+	}
+
+	/**
+	 * Checks if the event was written by a <code>FlightRecorder</code> dump. A dumped event is below the level of its
+	 * class, and is written because a failure followed it.
+	 *
+	 * @return True if the event was dumped, otherwise false.
+	 */
+	public boolean isDumped()
+	{
+		return (this._dumped);
+	}
+
+	@Override
+	public String toString()
+	{
+		return ("LogEvent [" + this._level + " " + getClassName() + " " + this._methodName + " " + this._message
+		        + "]");
+	}
+}
@@ -0,0 +1,37 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * Turns an event into text for an appender. A layout can be called by several threads at once and must be thread
+ * safe.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public interface LogLayout
+{
+
+	/**
+	 * Formats an event, including the line separator.
+	 *
+	 * @param event
+	 *            The event to format.
+	 * @param builder
+	 *            The builder the text is appended to.
+	 */
+	public void format(LogEvent event, StringBuilder builder);
+}
@@ -0,0 +1,181 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * Builds a message from a template such as <code>"user {} took {} ms"</code>. Each <code>{}</code> is replaced by the
+ * next argument. Placeholders without an argument are left as they are and extra arguments are ignored.
+ * <p>
+ * The template is trusted, so only the arguments are sanitized. Numbers cannot carry log injection and are appended
+ * without being sanitized or boxed.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+final class LogMessageFormatter
+{
+
+	private static final String	PLACEHOLDER			= "{}";
+
+	private static final int	MAX_KEPT_CAPACITY	= 1024;
+
+	private static final ThreadLocal<Buffer> BUFFERS = new ThreadLocal<Buffer>()
+	{
+		@Override
+		protected Buffer initialValue()
+		{
+			return (new Buffer());
+		}
+	};
+
+	/*
+	 * The builder of a thread and whether a message is being built in it.
+	 */
+	private static final class Buffer
+	{
+		StringBuilder	_builder	= new StringBuilder(256);
+
+		boolean			_inUse;
+	}
+
+	/**
+	 * Static methods only.
+	 */
+	private LogMessageFormatter()
+	{
+		// void - static methods only.
+	}
+
+	/**
+	 * Formats a template with object arguments.
+	 *
+	 * @param template
+	 *            The message template.
+	 * @param args
+	 *            The arguments. A <code>CharSequence</code> is sanitized as it is, anything else is converted with
+	 *            <code>String.valueOf()</code> first.
+	 * @param sanitizer
+	 *            The sanitizer used on the arguments.
+	 * @return The formatted message.
+	 */
+	static String format(final String template, final Object[] args, final LogSanitizer sanitizer)
+	{
+		final StringBuilder builder = LogMessageFormatter.builder();
+		try
+		{
+			int start = 0;
+			int argIndex = 0;
+			int index;
+			while ((argIndex < args.length)
+			        && ((index = template.indexOf(LogMessageFormatter.PLACEHOLDER, start)) >= 0))
+			{
+				builder.append(template, start, index);
+				final Object arg = args[argIndex++];
+				sanitizer.sanitize((arg instanceof CharSequence) ? (CharSequence) arg : String.valueOf(arg), builder);
+				start = index + LogMessageFormatter.PLACEHOLDER.length();
+			}
+			builder.append(template, start, template.length());
+			return (builder.toString());
+		}
+		finally
+		{
+			LogMessageFormatter.release(builder);
+		}
+	}
+
+	/**
+	 * Formats a template with a single <code>long</code> argument.
+	 *
+	 * @param template
+	 *            The message template.
+	 * @param arg
+	 *            The argument.
+	 * @return The formatted message.
+	 */
+	static String format(final String template, final long arg)
+	{
+		final int index = template.indexOf(LogMessageFormatter.PLACEHOLDER);
+		if (index < 0)
+		{
+			return (template);
+		}
+
+		final StringBuilder builder = LogMessageFormatter.builder();
+		builder.append(template, 0, index).append(arg).append(template,
+		        index + LogMessageFormatter.PLACEHOLDER.length(), template.length());
+		final String result = builder.toString();
+		LogMessageFormatter.release(builder);
+		return (result);
+	}
+
+	/**
+	 * Formats a template with a single <code>double</code> argument.
+	 *
+	 * @param template
+	 *            The message template.
+	 * @param arg
+	 *            The argument.
+	 * @return The formatted message.
+	 */
+	static String format(final String template, final double arg)
+	{
+		final int index = template.indexOf(LogMessageFormatter.PLACEHOLDER);
+		if (index < 0)
+		{
+			return (template);
+		}
+
+		final StringBuilder builder = LogMessageFormatter.builder();
+		builder.append(template, 0, index).append(arg).append(template,
+		        index + LogMessageFormatter.PLACEHOLDER.length(), template.length());
+		final String result = builder.toString();
+		LogMessageFormatter.release(builder);
+		return (result);
+	}
+
+	/*
+	 * Gets the builder of the current thread, or a new builder if the thread is already building a message in it.
+	 */
+	private static StringBuilder builder()
+	{
+		final Buffer buffer = LogMessageFormatter.BUFFERS.get();
+		if (buffer._inUse)
+		{
+			// the toString() of an argument is logging, so the builder of this thread is in use.
+			return (new StringBuilder(256));
+		}
+		buffer._inUse = true;
+		final StringBuilder builder = buffer._builder;
+		builder.setLength(0);
+		return (builder);
+	}
+
+	/*
+	 * Gives the builder back and drops it if a large message made it grow.
+	 */
+	private static void release(final StringBuilder builder)
+	{
+		final Buffer buffer = LogMessageFormatter.BUFFERS.get();
+		if (buffer._builder == builder)
+		{
+			buffer._inUse = false;
+			if (builder.capacity() > LogMessageFormatter.MAX_KEPT_CAPACITY)
+			{
+				buffer._builder = new StringBuilder(256);
+			}
+		}
+	}
+}
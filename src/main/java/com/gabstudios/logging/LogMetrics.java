@@ -0,0 +1,380 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Records statistics about the cost of logging. Every counter is a <code>LongAdder</code>, so threads that log at the
+ * same time update separate cells instead of contending on one value. Nothing here takes a lock on the logging path.
+ * <p>
+ * Read the statistics with <code>snapshot()</code> or through JMX as
+ * <code>com.gabstudios.logging:type=LogMetrics</code>. Get the instance from <code>LogProvider.getMetrics()</code>.
+ * Recording can be turned off with <code>setEnabled(false)</code> or the <code>com.gabstudios.logging.metrics</code>
+ * system property.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class LogMetrics implements LogMetricsMXBean
+{
+
+	/**
+	 * The system property that turns recording off when set to <code>false</code>.
+	 */
+	public static final String				METRICS_KEY				= "com.gabstudios.logging.metrics";
+
+	/**
+	 * The name the MXBean is registered under.
+	 */
+	public static final String				OBJECT_NAME				= "com.gabstudios.logging:type=LogMetrics";
+
+	static final int						LATENCY_BUCKET_COUNT	= 22;
+
+	static final Level[]					LEVELS					= { Level.FINEST, Level.FINER, Level.FINE,
+	        Level.CONFIG, Level.INFO, Level.WARNING, Level.SEVERE, LogService.SecurityLevel.SECURITY };
+
+	/*
+	 * The number of level counters: one for each standard level and one shared by the others.
+	 */
+	static final int						LEVEL_COUNT				= LogMetrics.LEVELS.length + 1;
+
+	private static final String				OTHER_LEVEL				= "OTHER";
+
+	private final LongAdder[]				_levelCounts;
+
+	private final LongAdder[]				_latencyBuckets;
+
+	private final LongAdder					_messageCharacters		= new LongAdder();
+
+	private final LongAdder					_bytesWritten			= new LongAdder();
+
+	private final LongAdder					_droppedCount			= new LongAdder();
+
+	private final LongAdder					_suppressedCount		= new LongAdder();
+
+	private final LongAdder					_sanitizerNanos			= new LongAdder();
+
+	private final LongAdder					_methodNameHits			= new LongAdder();
+
+	private final LongAdder					_methodNameMisses		= new LongAdder();
+
+	private final AbstractLogService		_service;
+
+	private volatile boolean				_enabled;
+
+	/**
+	 * Package scope. Created by AbstractLogService.
+	 *
+	 * @param service
+	 *            The service whose class loggers and dispatcher drops are reported.
+	 */
+	LogMetrics(final AbstractLogService service)
+	{
+		assert (service != null) : "The parameter 'service' should not be null";
+
+		this._service = service;
+		this._levelCounts = LogMetrics.newAdders(LogMetrics.LEVEL_COUNT);
+		this._latencyBuckets = LogMetrics.newAdders(LogMetrics.LATENCY_BUCKET_COUNT);
+		this._enabled = !"false".equalsIgnoreCase(System.getProperty(LogMetrics.METRICS_KEY));
+	}
+
+	/*
+	 * Creates an array of counters.
+	 */
+	private static LongAdder[] newAdders(final int count)
+	{
+		final LongAdder[] adders = new LongAdder[count];
+		for (int i = 0; i < count; i++)
+		{
+			adders[i] = new LongAdder();
+		}
+		return (adders);
+	}
+
+	/*
+	 * Maps a level to its counter. Levels that are not standard share the last counter.
+	 */
+	static int levelIndex(final Level level)
+	{
+		final int value = level.intValue();
+		for (int i = 0; i < LogMetrics.LEVELS.length; i++)
+		{
+			if (LogMetrics.LEVELS[i].intValue() == value)
+			{
+				return (i);
+			}
+		}
+		return (LogMetrics.LEVELS.length);
+	}
+
+	/*
+	 * Maps a latency to its bucket. Bucket n holds latencies under 2^n microseconds.
+	 */
+	static int latencyBucket(final long nanos)
+	{
+		final long micros = nanos / 1000L;
+		final int bucket = 64 - Long.numberOfLeadingZeros(micros);
+		return (Math.min(bucket, LogMetrics.LATENCY_BUCKET_COUNT - 1));
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return (this._enabled);
+	}
+
+	@Override
+	public void setEnabled(final boolean enabled)
+	{
+		this._enabled = enabled;
+	}
+
+	/**
+	 * Records a logged event.
+	 *
+	 * @param classLogger
+	 *            The logger of the class that logged the event.
+	 * @param level
+	 *            The level of the event.
+	 * @param characters
+	 *            The number of characters in the message and method name.
+	 * @param dispatchNanos
+	 *            The time taken to hand the event to the dispatcher.
+	 */
+	void recordEvent(final ClassLogger classLogger, final Level level, final int characters,
+	        final long dispatchNanos)
+	{
+		if (this._enabled)
+		{
+			this._levelCounts[LogMetrics.levelIndex(level)].increment();
+			classLogger.recordEvent();
+			this._messageCharacters.add(characters);
+			this._latencyBuckets[LogMetrics.latencyBucket(dispatchNanos)].increment();
+		}
+	}
+
+	/**
+	 * Records time spent in the sanitizer.
+	 *
+	 * @param nanos
+	 *            The time in nanoseconds.
+	 */
+	void recordSanitizer(final long nanos)
+	{
+		if (this._enabled)
+		{
+			this._sanitizerNanos.add(nanos);
+		}
+	}
+
+	/**
+	 * Records a lookup in the method name cache of a class.
+	 *
+	 * @param hit
+	 *            True if the method name was cached.
+	 */
+	void recordMethodNameLookup(final boolean hit)
+	{
+		if (this._enabled)
+		{
+			(hit ? this._methodNameHits : this._methodNameMisses).increment();
+		}
+	}
+
+	/**
+	 * Records an enabled event that was deliberately not logged.
+	 */
+	void recordSuppressed()
+	{
+		if (this._enabled)
+		{
+			this._suppressedCount.increment();
+		}
+	}
+
+	/**
+	 * Records events dropped by an appender or a sink, because a queue was full or a write failed. Dispatcher drops
+	 * are read from the dispatcher and must not be recorded here.
+	 *
+	 * @param count
+	 *            The number of events dropped.
+	 */
+	public void recordDropped(final long count)
+	{
+		if (this._enabled)
+		{
+			this._droppedCount.add(count);
+		}
+	}
+
+	/**
+	 * Records bytes written by an appender or a sink.
+	 *
+	 * @param bytes
+	 *            The number of bytes written.
+	 */
+	public void recordBytesWritten(final long bytes)
+	{
+		if (this._enabled)
+		{
+			this._bytesWritten.add(bytes);
+		}
+	}
+
+	/**
+	 * Takes a copy of the statistics.
+	 *
+	 * @return A <code>LogMetricsSnapshot</code> instance.
+	 */
+	public LogMetricsSnapshot snapshot()
+	{
+		final Map<String, Long> byLevel = new LinkedHashMap<String, Long>();
+		for (int i = 0; i < LogMetrics.LEVELS.length; i++)
+		{
+			byLevel.put(LogMetrics.LEVELS[i].getName(), Long.valueOf(this._levelCounts[i].sum()));
+		}
+		byLevel.put(LogMetrics.OTHER_LEVEL, Long.valueOf(this._levelCounts[LogMetrics.LEVELS.length].sum()));
+
+		final Map<String, Long> byClass = new TreeMap<String, Long>();
+		for (final ClassLogger classLogger : this._service.getClassLoggers())
+		{
+			final long count = classLogger.getEventCount();
+			if (count > 0)
+			{
+				byClass.put(classLogger.getClassName(), Long.valueOf(count));
+			}
+		}
+
+		final long[] latencyBuckets = new long[LogMetrics.LATENCY_BUCKET_COUNT];
+		for (int i = 0; i < latencyBuckets.length; i++)
+		{
+			latencyBuckets[i] = this._latencyBuckets[i].sum();
+		}
+
+		final long droppedCount = this._droppedCount.sum() + this._service.getDispatcher().getDroppedCount();
+
+		return (new LogMetricsSnapshot(byLevel, byClass, this._messageCharacters.sum(), this._bytesWritten.sum(),
+		        droppedCount, this._suppressedCount.sum(), this._sanitizerNanos.sum(), this._methodNameHits.sum(),
+		        this._methodNameMisses.sum(), latencyBuckets));
+	}
+
+	@Override
+	public long getEventCount()
+	{
+		return (snapshot().getEventCount());
+	}
+
+	@Override
+	public Map<String, Long> getEventCountsByLevel()
+	{
+		return (snapshot().getEventCountsByLevel());
+	}
+
+	@Override
+	public Map<String, Long> getEventCountsByClass()
+	{
+		return (snapshot().getEventCountsByClass());
+	}
+
+	@Override
+	public long getMessageCharacters()
+	{
+		return (this._messageCharacters.sum());
+	}
+
+	@Override
+	public long getBytesWritten()
+	{
+		return (this._bytesWritten.sum());
+	}
+
+	@Override
+	public long getDroppedCount()
+	{
+		return (this._droppedCount.sum() + this._service.getDispatcher().getDroppedCount());
+	}
+
+	@Override
+	public long getSuppressedCount()
+	{
+		return (this._suppressedCount.sum());
+	}
+
+	@Override
+	public long getSanitizerNanos()
+	{
+		return (this._sanitizerNanos.sum());
+	}
+
+	@Override
+	public long getMethodNameCacheHits()
+	{
+		return (this._methodNameHits.sum());
+	}
+
+	@Override
+	public long getMethodNameCacheMisses()
+	{
+		return (this._methodNameMisses.sum());
+	}
+
+	@Override
+	public long getDispatchLatencyP50Micros()
+	{
+		return (snapshot().getLatencyPercentileMicros(50d));
+	}
+
+	@Override
+	public long getDispatchLatencyP99Micros()
+	{
+		return (snapshot().getLatencyPercentileMicros(99d));
+	}
+
+	@Override
+	public long[] getDispatchLatencyBuckets()
+	{
+		return (snapshot().getLatencyBuckets());
+	}
+
+	@Override
+	public void reset()
+	{
+		for (final LongAdder adder : this._levelCounts)
+		{
+			adder.reset();
+		}
+		for (final LongAdder adder : this._latencyBuckets)
+		{
+			adder.reset();
+		}
+		for (final ClassLogger classLogger : this._service.getClassLoggers())
+		{
+			classLogger.resetEventCount();
+		}
+		this._messageCharacters.reset();
+		this._bytesWritten.reset();
+		this._droppedCount.reset();
+		this._suppressedCount.reset();
+		this._sanitizerNanos.reset();
+		this._methodNameHits.reset();
+		this._methodNameMisses.reset();
+	}
+}
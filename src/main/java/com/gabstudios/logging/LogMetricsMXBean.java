@@ -0,0 +1,139 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the logging statistics. Registered as <code>com.gabstudios.logging:type=LogMetrics</code>.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public interface LogMetricsMXBean
+{
+
+	/**
+	 * Checks if statistics are being recorded.
+	 *
+	 * @return True if enabled, otherwise false.
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Turns the recording of statistics on or off.
+	 *
+	 * @param enabled
+	 *            True to record statistics.
+	 */
+	public void setEnabled(boolean enabled);
+
+	/**
+	 * Gets the number of events logged.
+	 *
+	 * @return The event count.
+	 */
+	public long getEventCount();
+
+	/**
+	 * Gets the number of events logged for each level.
+	 *
+	 * @return A map of level name to event count.
+	 */
+	public Map<String, Long> getEventCountsByLevel();
+
+	/**
+	 * Gets the number of events logged for each class.
+	 *
+	 * @return A map of class name to event count.
+	 */
+	public Map<String, Long> getEventCountsByClass();
+
+	/**
+	 * Gets the number of characters in the logged messages and method names.
+	 *
+	 * @return The character count.
+	 */
+	public long getMessageCharacters();
+
+	/**
+	 * Gets the number of bytes written by the sinks that report it.
+	 *
+	 * @return The byte count.
+	 */
+	public long getBytesWritten();
+
+	/**
+	 * Gets the number of events dropped because a queue was full.
+	 *
+	 * @return The dropped count.
+	 */
+	public long getDroppedCount();
+
+	/**
+	 * Gets the number of events that were enabled but deliberately not logged.
+	 *
+	 * @return The suppressed count.
+	 */
+	public long getSuppressedCount();
+
+	/**
+	 * Gets the total time spent in the sanitizer.
+	 *
+	 * @return The time in nanoseconds.
+	 */
+	public long getSanitizerNanos();
+
+	/**
+	 * Gets the number of method names found in the cache of their class.
+	 *
+	 * @return The hit count.
+	 */
+	public long getMethodNameCacheHits();
+
+	/**
+	 * Gets the number of method names that had to be validated and sanitized because they were not cached.
+	 *
+	 * @return The miss count.
+	 */
+	public long getMethodNameCacheMisses();
+
+	/**
+	 * Gets the median time taken to hand an event to the dispatcher.
+	 *
+	 * @return The upper bound of the bucket holding the median, in microseconds.
+	 */
+	public long getDispatchLatencyP50Micros();
+
+	/**
+	 * Gets the 99th percentile of the time taken to hand an event to the dispatcher.
+	 *
+	 * @return The upper bound of the bucket holding the percentile, in microseconds.
+	 */
+	public long getDispatchLatencyP99Micros();
+
+	/**
+	 * Gets the dispatch latency histogram.
+	 *
+	 * @return The count of each bucket. See <code>LogMetricsSnapshot.getLatencyBucketBoundMicros()</code>.
+	 */
+	public long[] getDispatchLatencyBuckets();
+
+	/**
+	 * Sets every statistic back to zero.
+	 */
+	public void reset();
+}
@@ -0,0 +1,243 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable copy of the logging statistics taken by <code>LogMetrics.snapshot()</code>. The counters are read one
+ * at a time while logging continues, so they are not an exact point in time.
+ * <p>
+ * Dispatch latency is kept in buckets whose upper bounds double from one microsecond: bucket 0 holds events under 1
+ * us, bucket 1 under 2 us, bucket 2 under 4 us and so on. The last bucket holds everything slower.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class LogMetricsSnapshot
+{
+	private final Map<String, Long>	_eventCountsByLevel;
+
+	private final Map<String, Long>	_eventCountsByClass;
+
+	private final long				_messageCharacters;
+
+	private final long				_bytesWritten;
+
+	private final long				_droppedCount;
+
+	private final long				_suppressedCount;
+
+	private final long				_sanitizerNanos;
+
+	private final long				_methodNameHits;
+
+	private final long				_methodNameMisses;
+
+	private final long[]			_latencyBuckets;
+
+	/**
+	 * Package scope. Created by LogMetrics.
+	 */
+	LogMetricsSnapshot(final Map<String, Long> eventCountsByLevel, final Map<String, Long> eventCountsByClass,
+	        final long messageCharacters, final long bytesWritten, final long droppedCount, final long suppressedCount,
+	        final long sanitizerNanos, final long methodNameHits, final long methodNameMisses,
+	        final long[] latencyBuckets)
+	{
+		this._eventCountsByLevel = Collections.unmodifiableMap(eventCountsByLevel);
+		this._eventCountsByClass = Collections.unmodifiableMap(eventCountsByClass);
+		this._messageCharacters = messageCharacters;
+		this._bytesWritten = bytesWritten;
+		this._droppedCount = droppedCount;
+		this._suppressedCount = suppressedCount;
+		this._sanitizerNanos = sanitizerNanos;
+		this._methodNameHits = methodNameHits;
+		this._methodNameMisses = methodNameMisses;
+		this._latencyBuckets = latencyBuckets;
+	}
+
+	/**
+	 * Gets the upper bound of a latency bucket.
+	 *
+	 * @param index
+	 *            The index of the bucket.
+	 * @return The upper bound in microseconds, or <code>Long.MAX_VALUE</code> for the last bucket.
+	 */
+	public static long getLatencyBucketBoundMicros(final int index)
+	{
+		if (index >= (LogMetrics.LATENCY_BUCKET_COUNT - 1))
+		{
+			return (Long.MAX_VALUE);
+		}
+		return (1L << index);
+	}
+
+	/**
+	 * Gets the number of events logged.
+	 *
+	 * @return The event count.
+	 */
+	public long getEventCount()
+	{
+		long count = 0;
+		for (final Long levelCount : this._eventCountsByLevel.values())
+		{
+			count += levelCount.longValue();
+		}
+		return (count);
+	}
+
+	/**
+	 * Gets the number of events logged for each level.
+	 *
+	 * @return An unmodifiable map of level name to event count, ordered from the lowest level.
+	 */
+	public Map<String, Long> getEventCountsByLevel()
+	{
+		return (this._eventCountsByLevel);
+	}
+
+	/**
+	 * Gets the number of events logged for each class.
+	 *
+	 * @return An unmodifiable map of class name to event count.
+	 */
+	public Map<String, Long> getEventCountsByClass()
+	{
+		return (this._eventCountsByClass);
+	}
+
+	/**
+	 * Gets the number of characters in the logged messages and method names.
+	 *
+	 * @return The character count.
+	 */
+	public long getMessageCharacters()
+	{
+		return (this._messageCharacters);
+	}
+
+	/**
+	 * Gets the number of bytes written by the sinks that report it.
+	 *
+	 * @return The byte count.
+	 */
+	public long getBytesWritten()
+	{
+		return (this._bytesWritten);
+	}
+
+	/**
+	 * Gets the number of events dropped because a queue was full.
+	 *
+	 * @return The dropped count.
+	 */
+	public long getDroppedCount()
+	{
+		return (this._droppedCount);
+	}
+
+	/**
+	 * Gets the number of events that were enabled but deliberately not logged.
+	 *
+	 * @return The suppressed count.
+	 */
+	public long getSuppressedCount()
+	{
+		return (this._suppressedCount);
+	}
+
+	/**
+	 * Gets the total time spent in the sanitizer.
+	 *
+	 * @return The time in nanoseconds.
+	 */
+	public long getSanitizerNanos()
+	{
+		return (this._sanitizerNanos);
+	}
+
+	/**
+	 * Gets the number of method names found in the cache of their class.
+	 *
+	 * @return The hit count.
+	 */
+	public long getMethodNameCacheHits()
+	{
+		return (this._methodNameHits);
+	}
+
+	/**
+	 * Gets the number of method names that had to be validated and sanitized because they were not cached.
+	 *
+	 * @return The miss count.
+	 */
+	public long getMethodNameCacheMisses()
+	{
+		return (this._methodNameMisses);
+	}
+
+	/**
+	 * Gets the dispatch latency histogram.
+	 *
+	 * @return A copy of the count of each bucket.
+	 */
+	public long[] getLatencyBuckets()
+	{
+		return (this._latencyBuckets.clone());
+	}
+
+	/**
+	 * Gets a percentile of the dispatch latency.
+	 *
+	 * @param percentile
+	 *            The percentile, from 0 to 100.
+	 * @return The upper bound in microseconds of the bucket holding the percentile, or 0 if nothing was recorded.
+	 */
+	public long getLatencyPercentileMicros(final double percentile)
+	{
+		long total = 0;
+		for (final long count : this._latencyBuckets)
+		{
+			total += count;
+		}
+		if (total == 0)
+		{
+			return (0L);
+		}
+
+		final long rank = (long) Math.ceil((percentile / 100d) * total);
+		long seen = 0;
+		for (int i = 0; i < this._latencyBuckets.length; i++)
+		{
+			seen += this._latencyBuckets[i];
+			if (seen >= rank)
+			{
+				return (LogMetricsSnapshot.getLatencyBucketBoundMicros(i));
+			}
+		}
+		return (Long.MAX_VALUE);
+	}
+
+	@Override
+	public String toString()
+	{
+		return ("LogMetricsSnapshot [events=" + getEventCount() + ", byLevel=" + this._eventCountsByLevel
+		        + ", dropped=" + this._droppedCount + ", suppressed=" + this._suppressedCount + ", p99Micros="
+		        + getLatencyPercentileMicros(99d) + "]");
+	}
+}
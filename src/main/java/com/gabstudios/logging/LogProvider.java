@@ -16,15 +16,146 @@
 
 package com.gabstudios.logging;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Provides the <code>LogService</code>.
+ * <p>
+ * The <code>com.gabstudios.logging.LogProvider</code> system property names the class of the service. It defaults to
+ * <code>com.gabstudios.logging.JavaLogService</code>, the java logging engine. Set it to
+ * <code>com.gabstudios.logging.DirectLogService</code> for the engine that writes straight to its own appenders.
+ * Implementations are looked up with the <code>ServiceLoader</code>, so another jar can provide one by listing it in
+ * <code>META-INF/services/com.gabstudios.logging.LogService</code>. A class that is not listed is created through its
+ * public no argument constructor.
+ * <p>
+ * Events are written on the caller's thread unless asynchronous dispatch is enabled,
+ * either by calling <code>enableAsync()</code> or by setting these system properties:
+ * <ul>
+ * <li><code>com.gabstudios.logging.async</code> - <code>true</code> to enable asynchronous dispatch.
+ * <li><code>com.gabstudios.logging.async.bufferSize</code> - the number of queued events, default 8192.
+ * <li><code>com.gabstudios.logging.async.overflowPolicy</code> - <code>BLOCK</code> (default),
+ * <code>DROP_OLDEST</code> or <code>DROP_NEWEST</code>.
+ * <li><code>com.gabstudios.logging.async.maxOffHeapBytes</code> - the most memory the queued events may use out of the
+ * heap, default 0, which keeps them in the heap.
+ * </ul>
+ * The <code>SECURITY</code> events can be given a lane of their own, which never drops an event and flushes the engine
+ * as a group, either by calling <code>enableSecurityLane()</code> or by setting these system properties:
+ * <ul>
+ * <li><code>com.gabstudios.logging.security</code> - <code>true</code> to enable the security lane.
+ * <li><code>com.gabstudios.logging.security.bufferSize</code> - the number of queued events, default 1024.
+ * <li><code>com.gabstudios.logging.security.syncEvents</code> - the events per flush, default 64.
+ * <li><code>com.gabstudios.logging.security.syncIntervalMillis</code> - the longest wait for a flush, default 100.
+ * </ul>
+ * The debug and configuration events whose level is not enabled can be kept in memory and written when a failure is
+ * logged, either by calling <code>enableFlightRecorder()</code> or by setting these system properties:
+ * <ul>
+ * <li><code>com.gabstudios.logging.flightRecorder</code> - <code>true</code> to enable the flight recorder.
+ * <li><code>com.gabstudios.logging.flightRecorder.size</code> - the number of kept events, default 1024.
+ * <li><code>com.gabstudios.logging.flightRecorder.triggerLevel</code> - the lowest level that writes them, default
+ * <code>SEVERE</code>.
+ * </ul>
+ * The levels can be changed while the application runs through the <code>LevelRegistry</code> of the service. Set the
+ * <code>com.gabstudios.logging.levels.file</code> system property to a file of levels that is read again every time
+ * it changes.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
 public class LogProvider
 {
 
 	// TODO
 	// add meta data?
-	// add statistics?
-	// allow different services to be loaded based on system properties
 
 
+	/**
+	 * The system property that names the <code>LogService</code> implementation.
+	 */
+	public static final String	FQCN						= "com.gabstudios.logging.LogProvider";
+
+	static final String			DEFAULT_LOG_FQCN			= "com.gabstudios.logging.JavaLogService";
+
+	/**
+	 * The system property that enables asynchronous dispatch.
+	 */
+	public static final String	ASYNC_KEY					= "com.gabstudios.logging.async";
+
+	/**
+	 * The system property that sets the asynchronous buffer size.
+	 */
+	public static final String	ASYNC_BUFFER_SIZE_KEY		= "com.gabstudios.logging.async.bufferSize";
+
+	/**
+	 * The system property that sets the asynchronous overflow policy.
+	 */
+	public static final String	ASYNC_OVERFLOW_POLICY_KEY	= "com.gabstudios.logging.async.overflowPolicy";
+
+	/**
+	 * The system property that sets the most memory the asynchronous queue may use out of the heap.
+	 */
+	public static final String	ASYNC_MAX_OFF_HEAP_KEY		= "com.gabstudios.logging.async.maxOffHeapBytes";
+
+	static final int			DEFAULT_ASYNC_BUFFER_SIZE	= 8192;
+
+	/**
+	 * The system property that enables the security lane.
+	 */
+	public static final String	SECURITY_KEY				= "com.gabstudios.logging.security";
+
+	/**
+	 * The system property that sets the security lane buffer size.
+	 */
+	public static final String	SECURITY_BUFFER_SIZE_KEY	= "com.gabstudios.logging.security.bufferSize";
+
+	/**
+	 * The system property that sets the number of security events per flush.
+	 */
+	public static final String	SECURITY_SYNC_EVENTS_KEY	= "com.gabstudios.logging.security.syncEvents";
+
+	/**
+	 * The system property that sets the longest time a security event waits for a flush.
+	 */
+	public static final String	SECURITY_SYNC_INTERVAL_KEY	= "com.gabstudios.logging.security.syncIntervalMillis";
+
+	static final int			DEFAULT_SECURITY_BUFFER		= 1024;
+
+	static final int			DEFAULT_SECURITY_EVENTS		= 64;
+
+	static final long			DEFAULT_SECURITY_INTERVAL	= 100L;
+
+	/**
+	 * The system property that enables the flight recorder.
+	 */
+	public static final String	FLIGHT_RECORDER_KEY			= "com.gabstudios.logging.flightRecorder";
+
+	/**
+	 * The system property that sets the number of events kept by the flight recorder.
+	 */
+	public static final String	FLIGHT_RECORDER_SIZE_KEY	= "com.gabstudios.logging.flightRecorder.size";
+
+	/**
+	 * The system property that sets the lowest level that writes the events kept by the flight recorder.
+	 */
+	public static final String	FLIGHT_RECORDER_TRIGGER_KEY	= "com.gabstudios.logging.flightRecorder.triggerLevel";
+
+	static final int			DEFAULT_FLIGHT_RECORDER_SIZE	= 1024;
+
+	/**
+	 * The system property that names the file of levels to watch.
+	 */
+	public static final String	LEVELS_FILE_KEY				= "com.gabstudios.logging.levels.file";
+
 	private static LogProvider LOG_PROVIDER;
 	private LogService _logService;
 
@@ -38,7 +169,65 @@ public class LogProvider
 	 */
 	protected LogProvider()
 	{
-		this._logService = new LogService();
+		this._logService = LogProvider.loadLogService(System.getProperty(LogProvider.FQCN));
+		LogProvider.registerMBean(this._logService.getMetrics(), LogMetrics.OBJECT_NAME);
+		LogProvider.registerMBean(this._logService.getLevelRegistry(), LevelRegistry.OBJECT_NAME);
+
+		final String levelsFile = System.getProperty(LogProvider.LEVELS_FILE_KEY);
+		if ((levelsFile != null) && (levelsFile.length() > 0))
+		{
+			try
+			{
+				this._logService.getLevelRegistry().watch(Paths.get(levelsFile));
+			}
+			catch (final IOException | IllegalArgumentException e)
+			{
+				new ErrorManager().error("Unable to watch the levels in " + levelsFile, e,
+				        ErrorManager.GENERIC_FAILURE);
+			}
+		}
+
+		if (Boolean.getBoolean(LogProvider.ASYNC_KEY))
+		{
+			final int bufferSize = Integer.getInteger(LogProvider.ASYNC_BUFFER_SIZE_KEY,
+			        LogProvider.DEFAULT_ASYNC_BUFFER_SIZE);
+			final OverflowPolicy overflowPolicy = OverflowPolicy
+			        .valueOf(System.getProperty(LogProvider.ASYNC_OVERFLOW_POLICY_KEY, OverflowPolicy.BLOCK.name()));
+			enableAsync(bufferSize, overflowPolicy, Long.getLong(LogProvider.ASYNC_MAX_OFF_HEAP_KEY, 0L));
+		}
+
+		if (Boolean.getBoolean(LogProvider.SECURITY_KEY))
+		{
+			enableSecurityLane(
+			        Integer.getInteger(LogProvider.SECURITY_BUFFER_SIZE_KEY, LogProvider.DEFAULT_SECURITY_BUFFER),
+			        Integer.getInteger(LogProvider.SECURITY_SYNC_EVENTS_KEY, LogProvider.DEFAULT_SECURITY_EVENTS),
+			        Long.getLong(LogProvider.SECURITY_SYNC_INTERVAL_KEY, LogProvider.DEFAULT_SECURITY_INTERVAL));
+		}
+
+		if (Boolean.getBoolean(LogProvider.FLIGHT_RECORDER_KEY))
+		{
+			try
+			{
+				enableFlightRecorder(
+				        Integer.getInteger(LogProvider.FLIGHT_RECORDER_SIZE_KEY,
+				                LogProvider.DEFAULT_FLIGHT_RECORDER_SIZE),
+				        Level.parse(System.getProperty(LogProvider.FLIGHT_RECORDER_TRIGGER_KEY, Level.SEVERE.getName())
+				                .trim()));
+			}
+			catch (final IllegalArgumentException e)
+			{
+				new ErrorManager().error("Unable to enable the flight recorder.", e, ErrorManager.GENERIC_FAILURE);
+			}
+		}
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				shutdown();
+			}
+		}, "gab-logging-shutdown"));
 	}
 
 
@@ -59,66 +248,282 @@ public class LogProvider
 
 	}
 
+	/**
+	 * Gets the statistics recorded by the Log service.
+	 *
+	 * @return A <code>LogMetrics</code> instance.
+	 */
+	public LogMetrics getMetrics()
+	{
+		return (this._logService.getMetrics());
+	}
 
+	/*
+	 * Registers an MXBean with the platform MBean server. A failure only means that it is not available through JMX.
+	 */
+	private static void registerMBean(final Object mbean, final String objectName)
+	{
+		try
+		{
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(objectName);
+			if (!server.isRegistered(name))
+			{
+				server.registerMBean(mbean, name);
+			}
+		}
+		catch (final JMException e)
+		{
+			new ErrorManager().error("Unable to register " + objectName, e, ErrorManager.GENERIC_FAILURE);
+		}
+	}
+
+	/*
+	 * Unregisters an MXBean from the platform MBean server, if it is registered.
+	 */
+	private static void unregisterMBean(final String objectName)
+	{
+		try
+		{
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(objectName);
+			if (server.isRegistered(name))
+			{
+				server.unregisterMBean(name);
+			}
+		}
+		catch (final JMException e)
+		{
+			new ErrorManager().error("Unable to unregister " + objectName, e, ErrorManager.GENERIC_FAILURE);
+		}
+	}
+
+	/**
+	 * Switches the service to asynchronous dispatch. Any previous asynchronous dispatcher is flushed and closed.
+	 *
+	 * @param bufferSize
+	 *            The number of events that can be queued. Rounded up to a power of two.
+	 * @param overflowPolicy
+	 *            What to do when the queue is full.
+	 * @return The new <code>AsyncLogDispatcher</code> instance.
+	 */
+	public synchronized AsyncLogDispatcher enableAsync(final int bufferSize, final OverflowPolicy overflowPolicy)
+	{
+		return (enableAsync(bufferSize, overflowPolicy, 0L));
+	}
+
+	/**
+	 * Switches the service to asynchronous dispatch, keeping the queued events out of the heap. Any previous
+	 * asynchronous dispatcher is flushed and closed.
+	 *
+	 * @param bufferSize
+	 *            The number of events that can be queued. Rounded up to a power of two.
+	 * @param overflowPolicy
+	 *            What to do when the queue is full.
+	 * @param maxOffHeapBytes
+	 *            The most memory the queued events may use out of the heap, or zero to keep them in the heap.
+	 * @return The new <code>AsyncLogDispatcher</code> instance.
+	 */
+	public synchronized AsyncLogDispatcher enableAsync(final int bufferSize, final OverflowPolicy overflowPolicy,
+	        final long maxOffHeapBytes)
+	{
+		final LogDispatcher previous = this._logService.getDispatcher();
+		final LogDispatcher delegate = (previous instanceof AsyncLogDispatcher)
+		        ? ((AsyncLogDispatcher) previous).getDelegate() : previous;
+		final AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(bufferSize, overflowPolicy, delegate,
+		        maxOffHeapBytes);
+		this._logService.setDispatcher(dispatcher);
+		if (previous != delegate)
+		{
+			previous.close();
+		}
+		return (dispatcher);
+	}
+
+	/**
+	 * Switches the service back to dispatching on the caller's thread. Any queued events are flushed first. Call this
+	 * before the application exits to be sure that every event is written.
+	 */
+	public synchronized void disableAsync()
+	{
+		final LogDispatcher previous = this._logService.getDispatcher();
+		if (previous instanceof AsyncLogDispatcher)
+		{
+			this._logService.setDispatcher(((AsyncLogDispatcher) previous).getDelegate());
+			previous.close();
+		}
+	}
+
+	/**
+	 * Gives the <code>SECURITY</code> events a lane of their own, with its own queue and thread, in front of the
+	 * dispatcher that writes to the engine. Any previous security lane is flushed and closed.
+	 *
+	 * @param bufferSize
+	 *            The number of events that can be queued. Rounded up to a power of two.
+	 * @param syncEvents
+	 *            The number of events after which the engine is flushed.
+	 * @param syncIntervalMillis
+	 *            The longest time an event waits for the engine to be flushed.
+	 * @return The new <code>SecurityLogDispatcher</code> instance.
+	 */
+	public synchronized SecurityLogDispatcher enableSecurityLane(final int bufferSize, final int syncEvents,
+	        final long syncIntervalMillis)
+	{
+		final LogDispatcher dispatcher = this._logService.getDispatcher();
+		final LogDispatcher delegate = (dispatcher instanceof AsyncLogDispatcher)
+		        ? ((AsyncLogDispatcher) dispatcher).getDelegate() : dispatcher;
+		final SecurityLogDispatcher lane = new SecurityLogDispatcher(bufferSize, syncEvents, syncIntervalMillis,
+		        delegate);
+		final LogDispatcher previous = this._logService.getSecurityDispatcher();
+		this._logService.setSecurityDispatcher(lane);
+		if (previous != null)
+		{
+			previous.close();
+		}
+		return (lane);
+	}
+
+	/**
+	 * Dispatches the <code>SECURITY</code> events with the other events again. The queued security events are written
+	 * first.
+	 */
+	public synchronized void disableSecurityLane()
+	{
+		final LogDispatcher previous = this._logService.getSecurityDispatcher();
+		if (previous != null)
+		{
+			this._logService.setSecurityDispatcher(null);
+			previous.close();
+		}
+	}
+
+	/**
+	 * Keeps the debug and configuration events whose level is not enabled in a <code>FlightRecorder</code>, which
+	 * writes them when an event at the trigger level is logged. The recorder is registered with JMX. Any previous
+	 * recorder discards its events.
+	 *
+	 * @param capacity
+	 *            The number of events kept. Rounded up to a power of two.
+	 * @param triggerLevel
+	 *            The lowest level of an event that writes the kept events. Must be above <code>INFO</code>.
+	 * @return The new <code>FlightRecorder</code> instance.
+	 */
+	public synchronized FlightRecorder enableFlightRecorder(final int capacity, final Level triggerLevel)
+	{
+		final FlightRecorder flightRecorder = new FlightRecorder(capacity, triggerLevel);
+		this._logService.setFlightRecorder(flightRecorder);
+		LogProvider.unregisterMBean(FlightRecorder.OBJECT_NAME);
+		LogProvider.registerMBean(flightRecorder, FlightRecorder.OBJECT_NAME);
+		return (flightRecorder);
+	}
 
-	// /**
-	//  * Gets the current log provider. A provider can be based on a type of service. Checks the System properties using
-	//  * key - "com.gabstudios.logging.LogProvider" If not empty or null, then will use class
-	//  * "com.gabstudios.logging.impl.JavaLogProviderImpl" implementation.
-	//  *
-	//  * @return A <code>LogProvider</code> instance.
-	//  */
-	// public static final LogService getService()
-	// {
-	// 	String logProviderFQCN = System.getProperty(LogProvider.FQCN);
-	// 	if ((logProviderFQCN == null) || (logProviderFQCN.length() == 0))
-	// 	{
-	// 		logProviderFQCN = LogProvider.DEFAULT_LOG_FQCN;
-	// 	}
-
-	// 	LogProvider logProvider = LogProvider.LOG_PROVIDER_MAP.get(logProviderFQCN);
-	// 	if (logProvider == null)
-	// 	{
-	// 		logProvider = LogProvider.loadLogProvider(logProviderFQCN);
-	// 		LogProvider.LOG_PROVIDER_MAP.put(logProviderFQCN, logProvider);
-	// 	}
-
-	// 	return (logProvider);
-	// }
-
-	// /*
-	//  * Dynamically loads a LogService implementation.
-	//  */
-	// protected final static LogService loadLogService(final String className)
-	// {
-	// 	assert (className != null) : "loadLogProvider() - the parameter 'className' should not be null or empty";
-
-	// 	try
-	// 	{
-	// 		final LogProvider logProvider = (LogProvider) Class.forName(className).getDeclaredConstructor()
-	// 		        .newInstance();
-	// 		return (LogService);
-	// 	}
-	// 	catch (final IllegalAccessException e)
-	// 	{
-	// 		throw (new LogProviderSysException("Illegal access to class name - " + className, e));
-	// 	}
-	// 	catch (final ClassNotFoundException e)
-	// 	{
-	// 		throw (new LogProviderSysException("Unable to locate the class name - " + className, e));
-	// 	}
-	// 	catch (final InstantiationException e)
-	// 	{
-	// 		throw (new LogProviderSysException("Unable to instantiate the class name - " + className, e));
-	// 	}
-	// 	catch (final InvocationTargetException e)
-	// 	{
-	// 		throw (new LogProviderSysException("Unable to instantiate the class name - " + className, e));
-	// 	}
-	// 	catch (final NoSuchMethodException e)
-	// 	{
-	// 		throw (new LogProviderSysException("Unable to instantiate the class name - " + className, e));
-	// 	}
-
-	// }
+	/**
+	 * Drops the debug and configuration events whose level is not enabled again. The kept events are discarded.
+	 */
+	public synchronized void disableFlightRecorder()
+	{
+		this._logService.setFlightRecorder(null);
+		LogProvider.unregisterMBean(FlightRecorder.OBJECT_NAME);
+	}
+
+	/**
+	 * Checks if events are dispatched on a background thread.
+	 *
+	 * @return True if asynchronous dispatch is enabled, otherwise false.
+	 */
+	public boolean isAsync()
+	{
+		return (this._logService.getDispatcher() instanceof AsyncLogDispatcher);
+	}
+
+	/**
+	 * Writes the last suppression summaries and every queued event, then closes the dispatchers and appenders of the
+	 * service. Called when the JVM shuts down. The queue is drained before the appenders are closed, so no event is
+	 * lost between them. Events logged afterwards are discarded by the closed appenders.
+	 */
+	public synchronized void shutdown()
+	{
+		final LogSuppressor suppressor = this._logService.getSuppressor();
+		if (suppressor != null)
+		{
+			suppressor.summarize();
+		}
+		this._logService.getLevelRegistry().stopWatching();
+
+		// the audit records are written before the engine is closed.
+		final LogDispatcher securityDispatcher = this._logService.getSecurityDispatcher();
+		if (securityDispatcher != null)
+		{
+			securityDispatcher.close();
+		}
+
+		final LogDispatcher dispatcher = this._logService.getDispatcher();
+		dispatcher.close();
+		if (dispatcher instanceof AsyncLogDispatcher)
+		{
+			((AsyncLogDispatcher) dispatcher).getDelegate().close();
+		}
+	}
+
+	/*
+	 * Loads the LogService implementation. The ServiceLoader is searched first, so that implementations in other jars
+	 * are created by their own class loader. Otherwise the class is created through its no argument constructor.
+	 */
+	static LogService loadLogService(final String className)
+	{
+		final String logServiceFQCN = ((className == null) || (className.length() == 0))
+		        ? LogProvider.DEFAULT_LOG_FQCN : className;
+
+		final Iterator<LogService> iterator = ServiceLoader.load(LogService.class).iterator();
+		while (true)
+		{
+			try
+			{
+				if (!iterator.hasNext())
+				{
+					break;
+				}
+				final LogService logService = iterator.next();
+				if (logService.getClass().getName().equals(logServiceFQCN))
+				{
+					return (logService);
+				}
+			}
+			catch (final ServiceConfigurationError e)
+			{
+				// a broken provider must not hide the others.
+				new ErrorManager().error("Unable to load a LogService provider.",
+				        new LogProviderSysException(e.getMessage(), e), ErrorManager.GENERIC_FAILURE);
+			}
+		}
+
+		try
+		{
+			return ((LogService) Class.forName(logServiceFQCN).getDeclaredConstructor().newInstance());
+		}
+		catch (final ClassCastException e)
+		{
+			throw (new LogProviderSysException("The class is not a LogService - " + logServiceFQCN, e));
+		}
+		catch (final IllegalAccessException e)
+		{
+			throw (new LogProviderSysException("Illegal access to class name - " + logServiceFQCN, e));
+		}
+		catch (final ClassNotFoundException e)
+		{
+			throw (new LogProviderSysException("Unable to locate the class name - " + logServiceFQCN, e));
+		}
+		catch (final InstantiationException e)
+		{
+			throw (new LogProviderSysException("Unable to instantiate the class name - " + logServiceFQCN, e));
+		}
+		catch (final InvocationTargetException e)
+		{
+			throw (new LogProviderSysException("Unable to instantiate the class name - " + logServiceFQCN, e));
+		}
+		catch (final NoSuchMethodException e)
+		{
+			throw (new LogProviderSysException("Unable to instantiate the class name - " + logServiceFQCN, e));
+		}
+	}
 }
@@ -0,0 +1,45 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * Thrown when the <code>LogService</code> named by the <code>com.gabstudios.logging.LogProvider</code> system
+ * property cannot be loaded.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class LogProviderSysException extends RuntimeException
+{
+
+	/**
+	 * Serialization
+	 */
+	private static final long serialVersionUID = 2934756512387001245L;
+
+	/**
+	 * Creates the exception.
+	 *
+	 * @param message
+	 *            The reason the service could not be loaded.
+	 * @param cause
+	 *            The underlying exception.
+	 */
+	public LogProviderSysException(final String message, final Throwable cause)
+	{
+		super(message, cause);
+	}
+}
@@ -0,0 +1,324 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+
+/**
+ * A bounded, lock-free queue of preallocated log events. Any number of threads can add and take events.
+ * <p>
+ * Every slot has a sequence number. A slot can be claimed by a producer when its sequence equals the position being
+ * claimed, and it can be taken by a consumer when its sequence is one past the position. Taking a slot moves its
+ * sequence a full lap ahead so it can be claimed again.
+ <p>
+ * The events are kept in <code>LogEvent</code> slots, or in an <code>OffHeapEventStore</code>, which copies the
+ * values of an event out of the heap when it is set and decodes them when it is taken.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+final class LogRingBuffer
+{
+	private final LogEvent[]		_events;
+
+	private final OffHeapEventStore	_offHeap;
+
+	private final AtomicLongArray	_sequences;
+
+	private final int				_mask;
+
+	private final AtomicLong		_tail	= new AtomicLong();
+
+	private final AtomicLong		_head	= new AtomicLong();
+
+	/**
+	 * Creates a ring buffer.
+	 *
+	 * @param capacity
+	 *            The number of slots. Rounded up to a power of two.
+	 */
+	LogRingBuffer(final int capacity)
+	{
+		this(capacity, false);
+	}
+
+	/**
+	 * Creates a ring buffer.
+	 *
+	 * @param capacity
+	 *            The number of slots. Rounded up to a power of two.
+	 * @param offHeap
+	 *            True to keep the events in an <code>OffHeapEventStore</code>, false to keep them in
+	 *            <code>LogEvent</code> instances.
+	 */
+	LogRingBuffer(final int capacity, final boolean offHeap)
+	{
+		if ((capacity < 1) || (capacity > (1 << 30)))
+		{
+			throw (new IllegalArgumentException("The 'capacity' parameter must be between 1 and 2^30."));
+		}
+
+		final int size = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this._mask = size - 1;
+		this._sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+		{
+			this._sequences.set(i, i);
+		}
+		if (offHeap)
+		{
+			this._events = null;
+			this._offHeap = new OffHeapEventStore(size);
+		}
+		else
+		{
+			this._events = new LogEvent[size];
+			this._offHeap = null;
+			for (int i = 0; i < size; i++)
+			{
+				this._events[i] = new LogEvent();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of slots.
+	 *
+	 * @return The capacity.
+	 */
+	int capacity()
+	{
+		return (this._mask + 1);
+	}
+
+	/**
+	 * Gets the number of bytes the slots keep out of the heap.
+	 *
+	 * @return The number of bytes, zero if the events are kept in the heap.
+	 */
+	long offHeapSize()
+	{
+		return ((this._offHeap == null) ? 0L : this._offHeap.memorySize());
+	}
+
+	/**
+	 * Drops the memory kept out of the heap. Called once the buffer is drained and no longer used.
+	 */
+	void release()
+	{
+		if (this._offHeap != null)
+		{
+			this._offHeap.release();
+		}
+	}
+
+	/**
+	 * Claims the next free slot.
+	 *
+	 * @return The position of the claimed slot or -1 if the buffer is full.
+	 */
+	long claim()
+	{
+		for (;;)
+		{
+			final long position = this._tail.get();
+			final long sequence = this._sequences.get((int) position & this._mask);
+			if (sequence == position)
+			{
+				if (this._tail.compareAndSet(position, position + 1))
+				{
+					return (position);
+				}
+			}
+			else if (sequence < position)
+			{
+				return (-1L);
+			}
+		}
+	}
+
+	/**
+	 * Claims a run of consecutive free slots, so no other producer's events are queued between them.
+	 *
+	 * @param count
+	 *            The number of slots. Must be between 1 and the capacity.
+	 * @return The position of the first claimed slot or -1 if there are not that many free slots.
+	 */
+	long claim(final int count)
+	{
+		assert ((count > 0) && (count <= capacity())) : "The parameter 'count' is out of range";
+
+		retry: for (;;)
+		{
+			final long position = this._tail.get();
+			for (long next = position; next < (position + count); next++)
+			{
+				final long sequence = this._sequences.get((int) next & this._mask);
+				if (sequence < next)
+				{
+					return (-1L);
+				}
+				if (sequence > next)
+				{
+					// another producer claimed the slot first.
+					continue retry;
+				}
+			}
+			if (this._tail.compareAndSet(position, position + count))
+			{
+				return (position);
+			}
+		}
+	}
+
+	/**
+	 * Fills in a claimed slot. The sample rate is read from the class logger.
+	 *
+	 * @param position
+	 *            The position returned by <code>claim()</code>.
+	 * @param classLogger
+	 *            The logger of the class that logged the event.
+	 * @param level
+	 *            The level of the event.
+	 * @param methodName
+	 *            The sanitized method name.
+	 * @param message
+	 *            The sanitized message.
+	 * @param thrown
+	 *            The throwable, may be null.
+	 * @param millis
+	 *            The time of the event in milliseconds since the epoch.
+	 * @param threadId
+	 *            The id of the thread that logged the event.
+	 * @param context
+	 *            The diagnostic context of the thread that logged the event.
+	 */
+	void set(final long position, final ClassLogger classLogger, final Level level, final String methodName,
+	        final String message, final Throwable thrown, final long millis, final long threadId,
+	        final LogContext context)
+	{
+		final int index = (int) position & this._mask;
+		if (this._offHeap != null)
+		{
+			this._offHeap.set(index, classLogger, level, methodName, message, thrown, millis, threadId,
+			        classLogger.getSampleRate(level), context);
+		}
+		else
+		{
+			this._events[index].set(classLogger, level, methodName, message, thrown, millis, threadId, context);
+		}
+	}
+
+	/**
+	 * Fills in a claimed slot with a copy of an event.
+	 *
+	 * @param position
+	 *            The position returned by <code>claim()</code>.
+	 * @param event
+	 *            The event.
+	 */
+	void set(final long position, final LogEvent event)
+	{
+		final int index = (int) position & this._mask;
+		if (this._offHeap != null)
+		{
+			this._offHeap.set(index, event);
+		}
+		else
+		{
+			this._events[index].copyFrom(event);
+		}
+	}
+
+	/**
+	 * Makes a claimed and filled in slot visible to the consumers.
+	 *
+	 * @param position
+	 *            The position returned by <code>claim()</code>.
+	 */
+	void publish(final long position)
+	{
+		this._sequences.set((int) position & this._mask, position + 1);
+	}
+
+	/**
+	 * Takes the oldest published event.
+	 *
+	 * @param target
+	 *            The event the values are copied into. May be null to discard the event.
+	 * @return True if an event was taken, false if there was none.
+	 */
+	boolean take(final LogEvent target)
+	{
+		for (;;)
+		{
+			final long position = this._head.get();
+			final int index = (int) position & this._mask;
+			final long sequence = this._sequences.get(index);
+			if (sequence == (position + 1))
+			{
+				if (this._head.compareAndSet(position, position + 1))
+				{
+					if (this._offHeap != null)
+					{
+						if (target != null)
+						{
+							this._offHeap.get(index, target);
+						}
+						this._offHeap.clear(index);
+					}
+					else
+					{
+						final LogEvent event = this._events[index];
+						if (target != null)
+						{
+							target.copyFrom(event);
+						}
+						event.clear();
+					}
+					this._sequences.lazySet(index, position + capacity());
+					return (true);
+				}
+			}
+			else if (sequence < (position + 1))
+			{
+				return (false);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of slots claimed since the buffer was created.
+	 *
+	 * @return The number of claimed slots.
+	 */
+	long claimedCount()
+	{
+		return (this._tail.get());
+	}
+
+	/**
+	 * Gets the number of events in the buffer, including claimed slots that are not yet published.
+	 *
+	 * @return The number of events.
+	 */
+	int size()
+	{
+		return ((int) Math.max(0L, this._tail.get() - this._head.get()));
+	}
+}
@@ -0,0 +1,233 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Decides which <code>logDebug()</code> and <code>logConfiguration()</code> events are written, so they can be left
+ * partly on without paying for every event. Set a sampler for a class or package with
+ * <code>LogService.setSampler()</code>. The decision is made right after the level check, before the event is
+ * validated, sanitized or built into a record.
+ * <p>
+ * Each written event carries the sample rate, which is how many events it stands for. Multiply the counts of sampled
+ * events by it to estimate the real counts. See <code>LogEvent.getSampleRate()</code> and
+ * <code>SampledLogRecord</code>.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public abstract class LogSampler
+{
+
+	/*
+	 * Writes one event in every n of each thread. Each thread counts its own events, so threads logging from the same
+	 * class do not contend on one counter. The count of a thread starts at a random phase, so the threads that log
+	 * only a few events are not all sampled on their first one.
+	 */
+	private static final class EveryNth extends LogSampler
+	{
+		private final int					_n;
+
+		private final ThreadLocal<int[]>	_counts	= new ThreadLocal<int[]>()
+		{
+			@Override
+			protected int[] initialValue()
+			{
+				return (new int[] { ThreadLocalRandom.current().nextInt(EveryNth.this._n) });
+			}
+		};
+
+		EveryNth(final int n)
+		{
+			this._n = n;
+		}
+
+		@Override
+		public boolean sample()
+		{
+			final int[] count = this._counts.get();
+			final int current = count[0];
+			count[0] = ((current + 1) == this._n) ? 0 : (current + 1);
+			return (current == 0);
+		}
+
+		@Override
+		public double getSampleRate()
+		{
+			return (this._n);
+		}
+	}
+
+	/*
+	 * Writes each event with a fixed probability.
+	 */
+	private static final class Probability extends LogSampler
+	{
+		private final double	_probability;
+
+		Probability(final double probability)
+		{
+			this._probability = probability;
+		}
+
+		@Override
+		public boolean sample()
+		{
+			return (ThreadLocalRandom.current().nextDouble() < this._probability);
+		}
+
+		@Override
+		public double getSampleRate()
+		{
+			return (1d / this._probability);
+		}
+	}
+
+	/*
+	 * Writes the first k events of each second.
+	 */
+	private static final class FirstPerSecond extends LogSampler
+	{
+		private static final long				SECOND	= TimeUnit.SECONDS.toNanos(1L);
+
+		/*
+		 * One second of events. The sample rate is estimated from the second before it.
+		 */
+		private static final class Window
+		{
+			final long			_startNanos;
+
+			final double		_sampleRate;
+
+			final AtomicLong	_count	= new AtomicLong();
+
+			Window(final long startNanos, final double sampleRate)
+			{
+				this._startNanos = startNanos;
+				this._sampleRate = sampleRate;
+			}
+		}
+
+		private final int						_k;
+
+		private final AtomicReference<Window>	_window;
+
+		FirstPerSecond(final int k)
+		{
+			this._k = k;
+			this._window = new AtomicReference<Window>(new Window(System.nanoTime(), 1d));
+		}
+
+		@Override
+		public boolean sample()
+		{
+			final long now = System.nanoTime();
+			Window window = this._window.get();
+			if ((now - window._startNanos) >= FirstPerSecond.SECOND)
+			{
+				final long seen = window._count.get();
+				final double sampleRate = (seen > this._k) ? ((double) seen / this._k) : 1d;
+				// only one thread starts the next second, the others use it.
+				this._window.compareAndSet(window, new Window(now, sampleRate));
+				window = this._window.get();
+			}
+			return (window._count.incrementAndGet() <= this._k);
+		}
+
+		@Override
+		public double getSampleRate()
+		{
+			return (this._window.get()._sampleRate);
+		}
+	}
+
+	/**
+	 * For subclasses.
+	 */
+	protected LogSampler()
+	{
+		// void - stateless.
+	}
+
+	/**
+	 * Creates a sampler that writes one event in every <code>n</code>. Each thread counts its own events from a random
+	 * phase.
+	 *
+	 * @param n
+	 *            The number of events each written event stands for. Must be greater than zero.
+	 * @return A <code>LogSampler</code> instance.
+	 */
+	public static LogSampler everyNth(final int n)
+	{
+		if (n <= 0)
+		{
+			throw (new IllegalArgumentException("The 'n' parameter must be greater than zero."));
+		}
+		return (new EveryNth(n));
+	}
+
+	/**
+	 * Creates a sampler that writes each event with a probability, decided with the random generator of the thread.
+	 *
+	 * @param probability
+	 *            The chance of writing an event. Must be greater than zero and no more than one.
+	 * @return A <code>LogSampler</code> instance.
+	 */
+	public static LogSampler probability(final double probability)
+	{
+		if (!((probability > 0d) && (probability <= 1d)))
+		{
+			throw (new IllegalArgumentException(
+			        "The 'probability' parameter must be greater than zero and no more than one."));
+		}
+		return (new Probability(probability));
+	}
+
+	/**
+	 * Creates a sampler that writes the first <code>k</code> events of each second. The sample rate of an event is
+	 * estimated from the number of events in the second before.
+	 *
+	 * @param k
+	 *            The number of events written each second. Must be greater than zero.
+	 * @return A <code>LogSampler</code> instance.
+	 */
+	public static LogSampler firstPerSecond(final int k)
+	{
+		if (k <= 0)
+		{
+			throw (new IllegalArgumentException("The 'k' parameter must be greater than zero."));
+		}
+		return (new FirstPerSecond(k));
+	}
+
+	/**
+	 * Decides if an event is written. Called on the logging thread, so it must be cheap and thread-safe.
+	 *
+	 * @return True to write the event, false to skip it.
+	 */
+	public abstract boolean sample();
+
+	/**
+	 * Gets how many events a written event stands for.
+	 *
+	 * @return The sample rate, one or more.
+	 */
+	public abstract double getSampleRate();
+}
@@ -17,7 +17,8 @@
 package com.gabstudios.logging;
 
 /**
- * Used as a callback to sanitize String content before it is logged.
+ * Used as a callback to sanitize String content before it is logged. <code>DefaultLogSanitizer</code> is used unless
+ * another sanitizer is set on the <code>LogService</code>.
  */
 public interface LogSanitizer {
     
@@ -28,4 +29,16 @@ public interface LogSanitizer {
      */
     public String sanitize( String untrustedData );
 
+    /**
+     * Call to sanitize untrusted data into an output buffer, so no intermediate String is created. Used for template
+     * arguments. The default converts the data to a String and calls <code>sanitize(String)</code>, so override it to
+     * avoid the copy.
+     * @param untrustedData - Untrusted data to sanitize, appended as "null" if null
+     * @param builder - The buffer the sanitized data is appended to
+     */
+    public default void sanitize( CharSequence untrustedData, StringBuilder builder )
+    {
+        builder.append( sanitize( String.valueOf( untrustedData ) ) );
+    }
+
 }
@@ -16,18 +16,24 @@
 
 package com.gabstudios.logging;
 
+import java.util.function.Supplier;
 import java.util.logging.Level;
-import java.util.logging.Logger;
-
-import com.gabstudios.validate.Validate;
 
 /**
- * A service to handle logging. This uses the java logging.
+ * A service to handle logging. Get the service from <code>LogProvider.getProvider().getService()</code>.
+ * <p>
+ * Two engines are provided. <code>JavaLogService</code>, the default, writes through the java logging.
+ * <code>DirectLogService</code> writes to its own appenders without creating a <code>LogRecord</code> or going
+ * through the <code>LogManager</code>. Other engines can be added with the <code>ServiceLoader</code>, see
+ * <code>LogProvider</code>.
+ * <p>
+ * Each log method checks whether the level is enabled before it does anything else, so a call for a disabled level
+ * returns without validating, sanitizing or allocating.
  *
  *
  * @author Gregory Brown (sysdevone)
  */
-public class LogService
+public interface LogService
 {
 	/**
 	 * The SecurityLevel class defines a security logging level that can be used to control logging output by
@@ -78,41 +84,149 @@ public class LogService
 
 	}
 
-	private static final int	MESSAGE_NAME_MAX_LENGTH	= 256;
+	/**
+	 * Sets the sanitizer used to clean the method names, messages and template arguments before they are logged. The
+	 * default is <code>DefaultLogSanitizer.INSTANCE</code>.
+	 *
+	 * @param sanitizer
+	 *            The sanitizer to use. Must not be null.
+	 */
+	public void setSanitizer(LogSanitizer sanitizer);
 
-	private static final int	METHOD_NAME_MAX_LENGTH	= 64;
+	/**
+	 * Sets what to do with a method name or message that is longer than the maximum length. The default is
+	 * <code>LengthPolicy.THROW</code>.
+	 *
+	 * @param lengthPolicy
+	 *            The policy to use. Must not be null.
+	 */
+	public void setLengthPolicy(LengthPolicy lengthPolicy);
 
-	private LogSanitizer _sanitizer;
+	/**
+	 * Gets what is done with a method name or message that is longer than the maximum length.
+	 *
+	 * @return A <code>LengthPolicy</code> instance.
+	 */
+	public LengthPolicy getLengthPolicy();
 
-	{
-		// create default does nothing sanitizer.  Just provides fall through.
-		this._sanitizer = new LogSanitizer() 
-		{
-			public String sanitize( String untrustedData )
-			{
-				return( untrustedData );
-			}
-		};
-	}
+	/**
+	 * Sets the dispatcher that hands events to the engine. The previous dispatcher is not closed.
+	 *
+	 * @param dispatcher
+	 *            The dispatcher to use. Must not be null.
+	 */
+	public void setDispatcher(LogDispatcher dispatcher);
 
+	/**
+	 * Gets the dispatcher that hands events to the engine. By default events are written on the caller's thread.
+	 *
+	 * @return A <code>LogDispatcher</code> instance.
+	 */
+	public LogDispatcher getDispatcher();
 
 	/**
-	 * Protected class. Should only be created by LogProvider.
+	 * Sets the dispatcher of the <code>SECURITY</code> events, so they do not share a queue with the other events. The
+	 * previous dispatcher is not closed.
+	 *
+	 * @param dispatcher
+	 *            The dispatcher to use, or null to dispatch the security events with the other events.
 	 */
-	protected LogService()
-	{
-		// void - protectes class scope.
-	}
+	public void setSecurityDispatcher(LogDispatcher dispatcher);
 
-	public void setSanitizer( LogSanitizer sanitizer )
-	{
-		this._sanitizer = sanitizer;
-	}
+	/**
+	 * Gets the dispatcher of the <code>SECURITY</code> events.
+	 *
+	 * @return A <code>LogDispatcher</code> instance, or null if they are dispatched with the other events.
+	 */
+	public LogDispatcher getSecurityDispatcher();
 
-	private LogSanitizer getSanitizer()
-	{
-		return(this._sanitizer);
-	}
+	/**
+	 * Sets the suppressor that rate limits each call site and collapses repeated messages. <code>SECURITY</code>
+	 * events are never suppressed. The previous suppressor writes its last summaries and stops. The default is none.
+	 *
+	 * @param suppressor
+	 *            The suppressor to use, or null to write every event.
+	 */
+	public void setSuppressor(LogSuppressor suppressor);
+
+	/**
+	 * Gets the suppressor that rate limits each call site and collapses repeated messages.
+	 *
+	 * @return A <code>LogSuppressor</code> instance, or null if events are not suppressed.
+	 */
+	public LogSuppressor getSuppressor();
+
+	/**
+	 * Sets the flight recorder that keeps the debug and configuration events whose level is not enabled, and writes
+	 * them when an event at its trigger level is logged. The previous recorder discards its events. The default is
+	 * none.
+	 *
+	 * @param flightRecorder
+	 *            The recorder to use, or null to drop the events whose level is not enabled.
+	 */
+	public void setFlightRecorder(FlightRecorder flightRecorder);
+
+	/**
+	 * Gets the flight recorder that keeps the debug and configuration events whose level is not enabled.
+	 *
+	 * @return A <code>FlightRecorder</code> instance, or null if the events are dropped.
+	 */
+	public FlightRecorder getFlightRecorder();
+
+	/**
+	 * Sets the sampler of the debug and configuration events of a class or package. A class uses the sampler set for
+	 * its name or for the closest package above it. Every class logger is updated before this returns.
+	 *
+	 * @param name
+	 *            The fully qualified name of the class or package, or an empty string for every class. Must not be
+	 *            null.
+	 * @param sampler
+	 *            The sampler to use, or null to use the sampler of the package above.
+	 */
+	public void setSampler(String name, LogSampler sampler);
+
+	/**
+	 * Gets the sampler set for a class or package.
+	 *
+	 * @param name
+	 *            The fully qualified name of the class or package, or an empty string for every class.
+	 * @return A <code>LogSampler</code> instance, or null if no sampler is set for the name.
+	 */
+	public LogSampler getSampler(String name);
+
+	/**
+	 * Gets the levels of the classes and packages, which can be changed while the application runs.
+	 *
+	 * @return A <code>LevelRegistry</code> instance.
+	 */
+	public LevelRegistry getLevelRegistry();
+
+	/**
+	 * Gets the statistics recorded by this service.
+	 *
+	 * @return A <code>LogMetrics</code> instance.
+	 */
+	public LogMetrics getMetrics();
+
+	/**
+	 * Gets the logger bound to the class. The same instance is returned for every call with the same class, so it
+	 * can be kept in a static field and used without looking the class up again.
+	 *
+	 * @param clazz
+	 *            The class that will call the log methods. Must not be null.
+	 * @return A <code>ClassLogger</code> instance.
+	 */
+	public ClassLogger forClass(Class<?> clazz);
+
+	/**
+	 * Creates a batch that collects events of the class and logs them together on commit. The events are validated
+	 * and sanitized in one pass and handed to the dispatcher as one unit, so an appender writes them together.
+	 *
+	 * @param clazz
+	 *            The class that will call the log methods of the batch. Must not be null.
+	 * @return A new <code>LogBatch</code> instance.
+	 */
+	public LogBatch batch(Class<?> clazz);
 
 	/**
 	 * Call when you want to log configuration information for debugging or tracing.
@@ -124,25 +238,109 @@ public class LogService
 	 * @param message
 	 *            The message to send to the log.
 	 */
-	public final void logConfiguration(final Class<?> clazz, final String methodName, final String message)
-	{
-		Validate.defineString(clazz.getName()).testNotNullEmpty().throwValidationExceptionOnFail().validate();
-		Validate.defineString(methodName).testNotNullEmpty().testMaxLength(LogService.METHOD_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineString(message).testNotNullEmpty().testMaxLength(LogService.MESSAGE_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-
-		final String fqcn = clazz.getName();
-		final Logger logger = Logger.getLogger(fqcn);
-		if (logger.isLoggable(Level.CONFIG))
-		{
-			final LogSanitizer sanitizer = getSanitizer();
-			final String sMethodName = sanitizer.sanitize(methodName);
-			final String sMessage = sanitizer.sanitize(message);
+	public void logConfiguration(Class<?> clazz, String methodName, String message);
 
-			logger.logp(Level.CONFIG, fqcn, sMethodName, sMessage);
-		}
-	}
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only built when the
+	 * level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logConfiguration(Class<?> clazz, String methodName, Supplier<String> messageSupplier);
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only formatted when
+	 * the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logConfiguration(Class<?> clazz, String methodName, String template, Object arg);
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only formatted when
+	 * the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logConfiguration(Class<?> clazz, String methodName, String template, Object arg1, Object arg2);
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only formatted when
+	 * the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logConfiguration(Class<?> clazz, String methodName, String template, Object... args);
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only formatted when
+	 * the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logConfiguration(Class<?> clazz, String methodName, String template, long arg);
+
+	/**
+	 * Call when you want to log configuration information for debugging or tracing. The message is only formatted when
+	 * the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logConfiguration(Class<?> clazz, String methodName, String template, double arg);
 
 	/**
 	 * Call when you want to log debug information for debugging or tracing.
@@ -155,25 +353,109 @@ public class LogService
 	 * @param message
 	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
 	 */
-	public final void logDebug(final Class<?> clazz, final String methodName, final String message)
-	{
-		Validate.defineString(clazz.getName()).testNotNullEmpty().throwValidationExceptionOnFail().validate();
-		Validate.defineString(methodName).testNotNullEmpty().testMaxLength(LogService.METHOD_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineString(message).testNotNullEmpty().testMaxLength(LogService.MESSAGE_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-
-		final String fqcn = clazz.getName();
-		final Logger logger = Logger.getLogger(fqcn);
-		if (logger.isLoggable(Level.FINEST))
-		{
-			final LogSanitizer sanitizer = getSanitizer();
-			final String sMethodName = sanitizer.sanitize(methodName);
-			final String sMessage = sanitizer.sanitize(message);
+	public void logDebug(Class<?> clazz, String methodName, String message);
 
-			logger.logp(Level.FINEST, fqcn, sMethodName, sMessage);
-		}
-	}
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only built when the level is
+	 * enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logDebug(Class<?> clazz, String methodName, Supplier<String> messageSupplier);
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only formatted when the
+	 * level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logDebug(Class<?> clazz, String methodName, String template, Object arg);
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only formatted when the
+	 * level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logDebug(Class<?> clazz, String methodName, String template, Object arg1, Object arg2);
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only formatted when the
+	 * level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logDebug(Class<?> clazz, String methodName, String template, Object... args);
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only formatted when the
+	 * level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logDebug(Class<?> clazz, String methodName, String template, long arg);
+
+	/**
+	 * Call when you want to log debug information for debugging or tracing. The message is only formatted when the
+	 * level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logDebug(Class<?> clazz, String methodName, String template, double arg);
 
 	/**
 	 * Call when you want to log a failure message.
@@ -186,26 +468,103 @@ public class LogService
 	 * @param message
 	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
 	 */
-	public final void logFailure(final Class<?> clazz, final String methodName, final String message)
-	{
+	public void logFailure(Class<?> clazz, String methodName, String message);
 
-		Validate.defineString(clazz.getName()).testNotNullEmpty().throwValidationExceptionOnFail().validate();
-		Validate.defineString(methodName).testNotNullEmpty().testMaxLength(LogService.METHOD_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineString(message).testNotNullEmpty().testMaxLength(LogService.MESSAGE_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
+	/**
+	 * Call when you want to log a failure message. The message is only built when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logFailure(Class<?> clazz, String methodName, Supplier<String> messageSupplier);
 
-		final String fqcn = clazz.getName();
-		final Logger logger = Logger.getLogger(fqcn);
-		if (logger.isLoggable(Level.SEVERE))
-		{
-			final LogSanitizer sanitizer = getSanitizer();
-			final String sMethodName = sanitizer.sanitize(methodName);
-			final String sMessage = sanitizer.sanitize(message);
+	/**
+	 * Call when you want to log a failure message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logFailure(Class<?> clazz, String methodName, String template, Object arg);
 
-			logger.logp(Level.SEVERE, fqcn, sMethodName, sMessage);
-		}
-	}
+	/**
+	 * Call when you want to log a failure message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logFailure(Class<?> clazz, String methodName, String template, Object arg1, Object arg2);
+
+	/**
+	 * Call when you want to log a failure message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logFailure(Class<?> clazz, String methodName, String template, Object... args);
+
+	/**
+	 * Call when you want to log a failure message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logFailure(Class<?> clazz, String methodName, String template, long arg);
+
+	/**
+	 * Call when you want to log a failure message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logFailure(Class<?> clazz, String methodName, String template, double arg);
 
 	/**
 	 * Call when you want to log a failure with throwable details.
@@ -220,27 +579,7 @@ public class LogService
 	 * @param thrown
 	 *            The throwable to log details about.
 	 */
-	public final void logFailure(final Class<?> clazz, final String methodName, final String message,
-	        final Throwable thrown)
-	{
-		Validate.defineString(clazz.getName()).testNotNullEmpty().throwValidationExceptionOnFail().validate();
-		Validate.defineString(methodName).testNotNullEmpty().testMaxLength(LogService.METHOD_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineString(message).testNotNullEmpty().testMaxLength(LogService.MESSAGE_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineObject(thrown).testNotNull().throwValidationExceptionOnFail().validate();
-
-		final String fqcn = clazz.getName();
-		final Logger logger = Logger.getLogger(fqcn);
-		if (logger.isLoggable(Level.SEVERE))
-		{
-			final LogSanitizer sanitizer = getSanitizer();
-			final String sMethodName = sanitizer.sanitize(methodName);
-			final String sMessage = sanitizer.sanitize(message);
-
-			logger.logp(Level.SEVERE, fqcn, sMethodName, sMessage, thrown);
-		}
-	}
+	public void logFailure(Class<?> clazz, String methodName, String message, Throwable thrown);
 
 	/**
 	 * Call when you want to log standard messages.
@@ -253,26 +592,103 @@ public class LogService
 	 * @param message
 	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
 	 */
-	public final void logMessage(final Class<?> clazz, final String methodName, final String message)
-	{
-		Validate.defineString(clazz.getName()).testNotNullEmpty().throwValidationExceptionOnFail().validate();
-		Validate.defineString(methodName).testNotNullEmpty().testMaxLength(LogService.METHOD_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineString(message).testNotNullEmpty().testMaxLength(LogService.MESSAGE_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-
-		final String fqcn = clazz.getName();
-		final Logger logger = Logger.getLogger(fqcn);
-		if (logger.isLoggable(Level.INFO))
-		{
+	public void logMessage(Class<?> clazz, String methodName, String message);
+
+	/**
+	 * Call when you want to log standard messages. The message is only built when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logMessage(Class<?> clazz, String methodName, Supplier<String> messageSupplier);
 
-			final LogSanitizer sanitizer = getSanitizer();
-			final String sMethodName = sanitizer.sanitize(methodName);
-			final String sMessage = sanitizer.sanitize(message);
+	/**
+	 * Call when you want to log standard messages. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logMessage(Class<?> clazz, String methodName, String template, Object arg);
 
-			logger.logp(Level.INFO, fqcn, sMethodName, sMessage);
-		}
-	}
+	/**
+	 * Call when you want to log standard messages. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logMessage(Class<?> clazz, String methodName, String template, Object arg1, Object arg2);
+
+	/**
+	 * Call when you want to log standard messages. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logMessage(Class<?> clazz, String methodName, String template, Object... args);
+
+	/**
+	 * Call when you want to log standard messages. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logMessage(Class<?> clazz, String methodName, String template, long arg);
+
+	/**
+	 * Call when you want to log standard messages. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logMessage(Class<?> clazz, String methodName, String template, double arg);
 
 	/**
 	 * Call when you want to log a security message.
@@ -285,26 +701,103 @@ public class LogService
 	 * @param message
 	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
 	 */
-	public final void logSecurity(final Class<?> clazz, final String methodName, final String message)
-	{
+	public void logSecurity(Class<?> clazz, String methodName, String message);
 
-		Validate.defineString(clazz.getName()).testNotNullEmpty().throwValidationExceptionOnFail().validate();
-		Validate.defineString(methodName).testNotNullEmpty().testMaxLength(LogService.METHOD_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineString(message).testNotNullEmpty().testMaxLength(LogService.MESSAGE_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
+	/**
+	 * Call when you want to log a security message. The message is only built when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logSecurity(Class<?> clazz, String methodName, Supplier<String> messageSupplier);
 
-		final String fqcn = clazz.getName();
-		final Logger logger = Logger.getLogger(fqcn);
-		if (logger.isLoggable(Level.WARNING))
-		{
-			final LogSanitizer sanitizer = getSanitizer();
-			final String sMethodName = sanitizer.sanitize(methodName);
-			final String sMessage = sanitizer.sanitize(message);
+	/**
+	 * Call when you want to log a security message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logSecurity(Class<?> clazz, String methodName, String template, Object arg);
 
-			logger.logp(SecurityLevel.SECURITY, fqcn, sMethodName, sMessage);
-		}
-	}
+	/**
+	 * Call when you want to log a security message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logSecurity(Class<?> clazz, String methodName, String template, Object arg1, Object arg2);
+
+	/**
+	 * Call when you want to log a security message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logSecurity(Class<?> clazz, String methodName, String template, Object... args);
+
+	/**
+	 * Call when you want to log a security message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logSecurity(Class<?> clazz, String methodName, String template, long arg);
+
+	/**
+	 * Call when you want to log a security message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logSecurity(Class<?> clazz, String methodName, String template, double arg);
 
 	/**
 	 * Call when you want to log a security message with a throwable details.
@@ -319,28 +812,7 @@ public class LogService
 	 * @param thrown
 	 *            The throwable to log details about.
 	 */
-	public final void logSecurity(final Class<?> clazz, final String methodName, final String message,
-	        final Throwable thrown)
-	{
-
-		Validate.defineString(clazz.getName()).testNotNullEmpty().throwValidationExceptionOnFail().validate();
-		Validate.defineString(methodName).testNotNullEmpty().testMaxLength(LogService.METHOD_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineString(message).testNotNullEmpty().testMaxLength(LogService.MESSAGE_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineObject(thrown).testNotNull().throwValidationExceptionOnFail().validate();
-
-		final String fqcn = clazz.getName();
-		final Logger logger = Logger.getLogger(fqcn);
-		if (logger.isLoggable(Level.WARNING))
-		{
-			final LogSanitizer sanitizer = getSanitizer();
-			final String sMethodName = sanitizer.sanitize(methodName);
-			final String sMessage = sanitizer.sanitize(message);
-
-			logger.logp(SecurityLevel.SECURITY, fqcn, sMethodName, sMessage, thrown);
-		}
-	}
+	public void logSecurity(Class<?> clazz, String methodName, String message, Throwable thrown);
 
 	/**
 	 * Call when you want to log a warning message.
@@ -353,27 +825,103 @@ public class LogService
 	 * @param message
 	 *            The message to send to the log. The length must not be null or empty and less than 256 chars
 	 */
-	public final void logWarning(final Class<?> clazz, final String methodName, final String message)
-	{
+	public void logWarning(Class<?> clazz, String methodName, String message);
+
+	/**
+	 * Call when you want to log a warning message. The message is only built when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param messageSupplier
+	 *            Builds the message to send to the log. Only called when the level is enabled. The message must not be
+	 *            null or empty and less than 256 chars
+	 */
+	public void logWarning(Class<?> clazz, String methodName, Supplier<String> messageSupplier);
 
-		Validate.defineString(clazz.getName()).testNotNullEmpty().throwValidationExceptionOnFail().validate();
-		Validate.defineString(methodName).testNotNullEmpty().testMaxLength(LogService.METHOD_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineString(message).testNotNullEmpty().testMaxLength(LogService.MESSAGE_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
+	/**
+	 * Call when you want to log a warning message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. It is sanitized before it is substituted.
+	 */
+	public void logWarning(Class<?> clazz, String methodName, String template, Object arg);
 
-		final String fqcn = clazz.getName();
-		final Logger logger = Logger.getLogger(fqcn);
-		if (logger.isLoggable(Level.WARNING))
-		{
-			final LogSanitizer sanitizer = getSanitizer();
-			final String sMethodName = sanitizer.sanitize(methodName);
-			final String sMessage = sanitizer.sanitize(message);
+	/**
+	 * Call when you want to log a warning message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg1
+	 *            The first argument. It is sanitized before it is substituted.
+	 * @param arg2
+	 *            The second argument. It is sanitized before it is substituted.
+	 */
+	public void logWarning(Class<?> clazz, String methodName, String template, Object arg1, Object arg2);
 
-			logger.logp(Level.WARNING, fqcn, sMethodName, sMessage);
+	/**
+	 * Call when you want to log a warning message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param args
+	 *            The arguments. Each is sanitized before it is substituted.
+	 */
+	public void logWarning(Class<?> clazz, String methodName, String template, Object... args);
 
-		}
-	}
+	/**
+	 * Call when you want to log a warning message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>int</code> values, which are not boxed.
+	 */
+	public void logWarning(Class<?> clazz, String methodName, String template, long arg);
+
+	/**
+	 * Call when you want to log a warning message. The message is only formatted when the level is enabled.
+	 *
+	 * @param clazz
+	 *            The class that is calling this log method.
+	 * @param methodName
+	 *            The name of the class method that is calling this log method. The length must not be null or empty and
+	 *            less than 64
+	 * @param template
+	 *            The message template. Each <code>{}</code> is replaced by the next argument. The formatted message
+	 *            must not be empty and less than 256 chars
+	 * @param arg
+	 *            The argument. Also used for <code>float</code> values, which are not boxed.
+	 */
+	public void logWarning(Class<?> clazz, String methodName, String template, double arg);
 
 	/**
 	 * Call when you want to log a warning message with a throwable details.
@@ -388,27 +936,5 @@ public class LogService
 	 * @param thrown
 	 *            The throwable to log details about.
 	 */
-	public final void logWarning(final Class<?> clazz, final String methodName, final String message,
-	        final Throwable thrown)
-	{
-
-		Validate.defineString(clazz.getName()).testNotNullEmpty().throwValidationExceptionOnFail().validate();
-		Validate.defineString(methodName).testNotNullEmpty().testMaxLength(LogService.METHOD_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineString(message).testNotNullEmpty().testMaxLength(LogService.MESSAGE_NAME_MAX_LENGTH)
-		        .throwValidationExceptionOnFail().validate();
-		Validate.defineObject(thrown).testNotNull().throwValidationExceptionOnFail().validate();
-
-		final String fqcn = clazz.getName();
-		final Logger logger = Logger.getLogger(fqcn);
-		if (logger.isLoggable(Level.WARNING))
-		{
-			final LogSanitizer sanitizer = getSanitizer();
-			final String sMethodName = sanitizer.sanitize(methodName);
-			final String sMessage = sanitizer.sanitize(message);
-
-			logger.logp(Level.WARNING, fqcn, sMethodName, sMessage, thrown);
-		}
-	}
-
+	public void logWarning(Class<?> clazz, String methodName, String message, Throwable thrown);
 }
@@ -0,0 +1,501 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+
+/**
+ * A destination of a <code>FanOutAppender</code> with its own bounded queue, consumer thread and overflow policy. The
+ * queue holds events already encoded by the appender, and the consumer writes them to the stream a batch at a time
+ * and flushes it after each batch.
+ * <p>
+ * A sink whose write has not returned for a second, or whose last write failed, is isolated: the caller never waits
+ * for it, even with the <code>BLOCK</code> policy, and its events are dropped until it recovers. The other sinks of
+ * the appender are not affected. The health, backlog and drops of the sink can be read while it runs.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class LogSink
+{
+
+	private static final int			BATCH_SIZE			= 256;
+
+	private static final long			IDLE_POLL_MILLIS	= 10L;
+
+	private static final long			BLOCK_WAIT_MILLIS	= 1L;
+
+	private static final long			STALL_NANOS			= TimeUnit.SECONDS.toNanos(1);
+
+	private static final long			RETRY_NANOS			= TimeUnit.MILLISECONDS.toNanos(100);
+
+	private static final long			FLUSH_PARK_NANOS	= TimeUnit.MICROSECONDS.toNanos(50);
+
+	private final String				_name;
+
+	private final OutputStream			_out;
+
+	private final OverflowPolicy		_overflowPolicy;
+
+	private final int					_capacity;
+
+	private final int					_slowSize;
+
+	private final BlockingQueue<byte[]>	_queue;
+
+	private final AtomicLong			_queuedCount		= new AtomicLong();
+
+	private final AtomicLong			_completedCount		= new AtomicLong();
+
+	private final AtomicLong			_writtenCount		= new AtomicLong();
+
+	private final AtomicLong			_droppedCount		= new AtomicLong();
+
+	private final AtomicLong			_failureCount		= new AtomicLong();
+
+	private final Thread				_consumer;
+
+	private final ErrorManager			_errorManager		= new ErrorManager();
+
+	private final ReentrantLock			_closeLock			= new ReentrantLock();
+
+	private volatile boolean			_writing;
+
+	private volatile long				_writeStartNanos;
+
+	private volatile boolean			_failed;
+
+	private volatile boolean			_closed;
+
+	private boolean						_streamClosed;
+
+	private volatile LogMetrics			_metrics;
+
+	/**
+	 * Creates the sink and starts its consumer thread.
+	 *
+	 * @param name
+	 *            The name of the sink, used for its thread and in error reports. Must not be null.
+	 * @param out
+	 *            The stream to write to. Must not be null. It is closed with the sink unless it is
+	 *            <code>System.out</code> or <code>System.err</code>.
+	 * @param capacity
+	 *            The number of encoded events the queue holds. Must be greater than zero.
+	 * @param overflowPolicy
+	 *            What to do when the queue is full. Must not be null.
+	 */
+	public LogSink(final String name, final OutputStream out, final int capacity, final OverflowPolicy overflowPolicy)
+	{
+		if (name == null)
+		{
+			throw (new IllegalArgumentException("The 'name' parameter must not be null."));
+		}
+		if (out == null)
+		{
+			throw (new IllegalArgumentException("The 'out' parameter must not be null."));
+		}
+		if (capacity <= 0)
+		{
+			throw (new IllegalArgumentException("The 'capacity' parameter must be greater than zero."));
+		}
+		if (overflowPolicy == null)
+		{
+			throw (new IllegalArgumentException("The 'overflowPolicy' parameter must not be null."));
+		}
+
+		this._name = name;
+		this._out = out;
+		this._capacity = capacity;
+		this._slowSize = Math.max(1, capacity - (capacity / 4));
+		this._overflowPolicy = overflowPolicy;
+		this._queue = new ArrayBlockingQueue<byte[]>(capacity);
+
+		this._consumer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				consume();
+			}
+		}, "gab-logging-sink-" + name);
+		this._consumer.setDaemon(true);
+		this._consumer.start();
+	}
+
+	/**
+	 * Gets the name of the sink.
+	 *
+	 * @return The name.
+	 */
+	public String getName()
+	{
+		return (this._name);
+	}
+
+	/**
+	 * Gets the number of encoded events the queue holds.
+	 *
+	 * @return The capacity.
+	 */
+	public int getCapacity()
+	{
+		return (this._capacity);
+	}
+
+	/**
+	 * Gets what is done when the queue is full.
+	 *
+	 * @return An <code>OverflowPolicy</code> instance.
+	 */
+	public OverflowPolicy getOverflowPolicy()
+	{
+		return (this._overflowPolicy);
+	}
+
+	/**
+	 * Gets the health of the sink.
+	 *
+	 * @return <code>FAILED</code> if the last write failed, <code>SLOW</code> if the queue is three quarters full or
+	 *         a write has not returned for a second, otherwise <code>HEALTHY</code>.
+	 */
+	public SinkHealth getHealth()
+	{
+		if (this._failed)
+		{
+			return (SinkHealth.FAILED);
+		}
+		if (isStalled() || (this._queue.size() >= this._slowSize))
+		{
+			return (SinkHealth.SLOW);
+		}
+		return (SinkHealth.HEALTHY);
+	}
+
+	/**
+	 * Gets the number of encoded events waiting in the queue. A batch appended together counts as one.
+	 *
+	 * @return The backlog.
+	 */
+	public int getQueuedCount()
+	{
+		return (this._queue.size());
+	}
+
+	/**
+	 * Gets the number of encoded events written to the stream.
+	 *
+	 * @return The written count.
+	 */
+	public long getWrittenCount()
+	{
+		return (this._writtenCount.get());
+	}
+
+	/**
+	 * Gets the number of encoded events dropped by the overflow policy, while the sink was isolated, or by a failed
+	 * write.
+	 *
+	 * @return The dropped count.
+	 */
+	public long getDroppedCount()
+	{
+		return (this._droppedCount.get());
+	}
+
+	/**
+	 * Gets the number of writes that failed.
+	 *
+	 * @return The failure count.
+	 */
+	public long getFailureCount()
+	{
+		return (this._failureCount.get());
+	}
+
+	/**
+	 * Package scope. Sets the statistics the sink reports the bytes it writes and the events it drops to.
+	 *
+	 * @param metrics
+	 *            The statistics, or null to report nothing.
+	 */
+	void setMetrics(final LogMetrics metrics)
+	{
+		this._metrics = metrics;
+	}
+
+	/**
+	 * Package scope. Queues an encoded event, applying the overflow policy while the queue is full. The bytes are
+	 * shared with the other sinks and must not be changed.
+	 *
+	 * @param bytes
+	 *            The encoded event.
+	 */
+	void offer(final byte[] bytes)
+	{
+		if (this._closed)
+		{
+			return;
+		}
+
+		boolean queued = this._queue.offer(bytes);
+		while (!queued)
+		{
+			switch (this._overflowPolicy)
+			{
+				case DROP_NEWEST:
+					drop(1L);
+					return;
+				case DROP_OLDEST:
+					if (this._queue.poll() != null)
+					{
+						drop(1L);
+						this._completedCount.incrementAndGet();
+					}
+					queued = this._queue.offer(bytes);
+					break;
+				default:
+					if (this._closed || isIsolated())
+					{
+						drop(1L);
+						return;
+					}
+					try
+					{
+						queued = this._queue.offer(bytes, LogSink.BLOCK_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+					}
+					catch (final InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+						drop(1L);
+						return;
+					}
+					break;
+			}
+		}
+		this._queuedCount.incrementAndGet();
+	}
+
+	/**
+	 * Package scope. Waits until the events queued before the call are written, the sink is isolated or the deadline
+	 * passes.
+	 *
+	 * @param deadlineNanos
+	 *            The <code>System.nanoTime()</code> to give up at.
+	 */
+	void flush(final long deadlineNanos)
+	{
+		if (Thread.currentThread() == this._consumer)
+		{
+			return;
+		}
+
+		final long target = this._queuedCount.get();
+		while ((this._completedCount.get() < target) && this._consumer.isAlive() && !isIsolated()
+		        && ((deadlineNanos - System.nanoTime()) > 0L))
+		{
+			LockSupport.parkNanos(this, LogSink.FLUSH_PARK_NANOS);
+		}
+	}
+
+	/**
+	 * Package scope. Stops taking events. The consumer goes on until the queue is written.
+	 */
+	void stop()
+	{
+		this._closed = true;
+	}
+
+	/**
+	 * Package scope. Stops taking events, waits until the queue is written or the deadline passes and closes the
+	 * stream.
+	 *
+	 * @param deadlineNanos
+	 *            The <code>System.nanoTime()</code> to give up at.
+	 */
+	void close(final long deadlineNanos)
+	{
+		final ReentrantLock lock = this._closeLock;
+		lock.lock();
+		try
+		{
+			if (this._streamClosed)
+			{
+				return;
+			}
+			this._streamClosed = true;
+			this._closed = true;
+
+			if (Thread.currentThread() != this._consumer)
+			{
+				try
+				{
+					final long millis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+					this._consumer.join(Math.max(1L, millis));
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (this._consumer.isAlive())
+			{
+				this._errorManager.error("The log sink " + this._name + " was closed with " + this._queue.size()
+				        + " events not written.", null, ErrorManager.CLOSE_FAILURE);
+			}
+
+			if ((this._out != System.err) && (this._out != System.out))
+			{
+				try
+				{
+					this._out.close();
+				}
+				catch (final IOException e)
+				{
+					this._errorManager.error("Unable to close the log sink " + this._name + ".", e,
+					        ErrorManager.CLOSE_FAILURE);
+				}
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * True if a write has not returned within the stall time.
+	 */
+	private boolean isStalled()
+	{
+		return (this._writing && ((System.nanoTime() - this._writeStartNanos) > LogSink.STALL_NANOS));
+	}
+
+	/*
+	 * True if the caller must not wait for the sink.
+	 */
+	private boolean isIsolated()
+	{
+		return (this._failed || isStalled());
+	}
+
+	/*
+	 * The consumer thread loop. Ends once the sink is closed and the queue is empty.
+	 */
+	private void consume()
+	{
+		final List<byte[]> batch = new ArrayList<byte[]>(LogSink.BATCH_SIZE);
+		while (true)
+		{
+			byte[] bytes = null;
+			try
+			{
+				bytes = this._queue.poll(LogSink.IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+			}
+			catch (final InterruptedException e)
+			{
+				// void - the closed flag is checked below.
+			}
+
+			if (bytes == null)
+			{
+				if (this._closed)
+				{
+					return;
+				}
+				continue;
+			}
+
+			batch.add(bytes);
+			this._queue.drainTo(batch, LogSink.BATCH_SIZE - 1);
+			write(batch);
+			batch.clear();
+		}
+	}
+
+	/*
+	 * Counts dropped events, on the sink and in the statistics it reports to.
+	 */
+	private void drop(final long count)
+	{
+		this._droppedCount.addAndGet(count);
+		final LogMetrics metrics = this._metrics;
+		if (metrics != null)
+		{
+			metrics.recordDropped(count);
+		}
+	}
+
+	/*
+	 * Writes a batch and flushes the stream. A failed batch is dropped and the next one is tried after a pause.
+	 */
+	private void write(final List<byte[]> batch)
+	{
+		final int count = batch.size();
+		this._writeStartNanos = System.nanoTime();
+		this._writing = true;
+		try
+		{
+			long written = 0L;
+			for (int i = 0; i < count; i++)
+			{
+				final byte[] bytes = batch.get(i);
+				this._out.write(bytes, 0, bytes.length);
+				written += bytes.length;
+			}
+			this._out.flush();
+			this._writtenCount.addAndGet(count);
+			this._failed = false;
+
+			final LogMetrics metrics = this._metrics;
+			if (metrics != null)
+			{
+				metrics.recordBytesWritten(written);
+			}
+		}
+		catch (final IOException | RuntimeException e)
+		{
+			drop(count);
+			this._failureCount.incrementAndGet();
+			if (!this._failed)
+			{
+				// reported once when the sink fails, not for every batch until it recovers.
+				this._failed = true;
+				this._errorManager.error("Unable to write to the log sink " + this._name + ".", e,
+				        ErrorManager.WRITE_FAILURE);
+			}
+		}
+		finally
+		{
+			this._writing = false;
+			this._completedCount.addAndGet(count);
+		}
+
+		if (this._failed && !this._closed)
+		{
+			LockSupport.parkNanos(this, LogSink.RETRY_NANOS);
+		}
+	}
+}
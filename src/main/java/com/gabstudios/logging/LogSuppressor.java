@@ -0,0 +1,467 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+
+/**
+ * Stops a log storm from making an outage worse. Each call site, which is the class, the method name and the level of
+ * an event, gets a token bucket that lets through a steady rate of events and a short burst. An event that repeats the
+ * last message of its call site within the duplicate window is counted instead of written.
+ * <p>
+ * Every summary interval a summary event is written for each call site that held events back, saying how many repeats
+ * and how many events over the rate were suppressed. <code>SECURITY</code> events are never suppressed.
+ * <p>
+ * The state of a call site is updated with compare and set, so threads logging from the same call site do not take a
+ * lock. Install it with <code>LogService.setSuppressor()</code>. A suppressor is used by one service at a time.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class LogSuppressor
+{
+
+	/**
+	 * The default time between summary events, in milliseconds.
+	 */
+	public static final long											DEFAULT_SUMMARY_INTERVAL_MILLIS	= 10000L;
+
+	/*
+	 * The number of characters of the repeated message quoted in a summary, so the summary stays under the message
+	 * length limit.
+	 */
+	private static final int											SUMMARY_QUOTE_LENGTH			= 128;
+
+	/*
+	 * The last message let through by a call site and when it was let through.
+	 */
+	private static final class Last
+	{
+		final String	_message;
+
+		final long		_nanos;
+
+		Last(final String message, final long nanos)
+		{
+			this._message = message;
+			this._nanos = nanos;
+		}
+	}
+
+	/*
+	 * The state of one class, method name and level.
+	 */
+	private static final class CallSite
+	{
+		/*
+		 * The theoretical arrival time of the next event. A token bucket kept as a single value: an event is let
+		 * through while this is no more than the burst ahead of now, and each event moves it on by one interval.
+		 */
+		final AtomicLong				_nextNanos;
+
+		final Level						_level;
+
+		final AtomicReference<Last>		_last		= new AtomicReference<Last>();
+
+		final AtomicLong				_repeated	= new AtomicLong();
+
+		final AtomicLong				_limited	= new AtomicLong();
+
+		CallSite(final Level level, final long nowNanos)
+		{
+			this._level = level;
+			this._nextNanos = new AtomicLong(nowNanos);
+		}
+	}
+
+	private final long													_intervalNanos;
+
+	private final long													_burstNanos;
+
+	private final long													_windowNanos;
+
+	private final long													_summaryIntervalMillis;
+
+	/*
+	 * The call sites of each class by method name, with one slot for each level counted by LogMetrics. Call sites that
+	 * have gone idle are removed when the summaries are written.
+	 */
+	private final Map<ClassLogger, Map<String, AtomicReferenceArray<CallSite>>>	_callSites	= new ConcurrentHashMap<>();
+
+	private volatile AbstractLogService									_service;
+
+	private ScheduledExecutorService									_timer;
+
+	/**
+	 * Creates a suppressor that writes a summary every <code>DEFAULT_SUMMARY_INTERVAL_MILLIS</code>.
+	 *
+	 * @param eventsPerSecond
+	 *            The steady number of events a call site may write each second. Must be greater than zero.
+	 * @param burst
+	 *            The number of events a quiet call site may write at once. Must be greater than zero.
+	 * @param duplicateWindowMillis
+	 *            How long a repeated message is collapsed after it was written, in milliseconds. Zero turns collapsing
+	 *            off. Must not be negative.
+	 */
+	public LogSuppressor(final int eventsPerSecond, final int burst, final long duplicateWindowMillis)
+	{
+		this(eventsPerSecond, burst, duplicateWindowMillis, LogSuppressor.DEFAULT_SUMMARY_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Creates a suppressor.
+	 *
+	 * @param eventsPerSecond
+	 *            The steady number of events a call site may write each second. Must be greater than zero.
+	 * @param burst
+	 *            The number of events a quiet call site may write at once. Must be greater than zero.
+	 * @param duplicateWindowMillis
+	 *            How long a repeated message is collapsed after it was written, in milliseconds. Zero turns collapsing
+	 *            off. Must not be negative.
+	 * @param summaryIntervalMillis
+	 *            The time between summary events, in milliseconds. Must be greater than zero.
+	 */
+	public LogSuppressor(final int eventsPerSecond, final int burst, final long duplicateWindowMillis,
+	        final long summaryIntervalMillis)
+	{
+		if (eventsPerSecond <= 0)
+		{
+			throw (new IllegalArgumentException("The 'eventsPerSecond' parameter must be greater than zero."));
+		}
+		if (burst <= 0)
+		{
+			throw (new IllegalArgumentException("The 'burst' parameter must be greater than zero."));
+		}
+		if (duplicateWindowMillis < 0)
+		{
+			throw (new IllegalArgumentException("The 'duplicateWindowMillis' parameter must not be negative."));
+		}
+		if (summaryIntervalMillis <= 0)
+		{
+			throw (new IllegalArgumentException("The 'summaryIntervalMillis' parameter must be greater than zero."));
+		}
+
+		this._intervalNanos = TimeUnit.SECONDS.toNanos(1L) / eventsPerSecond;
+		this._burstNanos = (burst - 1) * this._intervalNanos;
+		this._windowNanos = TimeUnit.MILLISECONDS.toNanos(duplicateWindowMillis);
+		this._summaryIntervalMillis = summaryIntervalMillis;
+	}
+
+	/**
+	 * Package scope. Starts writing summaries to a service. Called by AbstractLogService when the suppressor is
+	 * installed.
+	 *
+	 * @param service
+	 *            The service that writes the summary events.
+	 */
+	synchronized void bind(final AbstractLogService service)
+	{
+		assert (service != null) : "The parameter 'service' should not be null";
+
+		if (this._service == service)
+		{
+			return;
+		}
+		if (this._service != null)
+		{
+			throw (new IllegalStateException("The suppressor is already used by another LogService."));
+		}
+
+		this._service = service;
+		this._timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(final Runnable runnable)
+			{
+				final Thread thread = new Thread(runnable, "gab-logging-suppressor");
+				thread.setDaemon(true);
+				return (thread);
+			}
+		});
+		this._timer.scheduleWithFixedDelay(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				summarize();
+			}
+		}, this._summaryIntervalMillis, this._summaryIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Package scope. Writes the last summaries and stops the timer. Called by AbstractLogService when the suppressor
+	 * is replaced.
+	 */
+	synchronized void unbind()
+	{
+		if (this._service != null)
+		{
+			summarize();
+			this._timer.shutdown();
+			this._timer = null;
+			this._service = null;
+		}
+	}
+
+	/**
+	 * Package scope. Decides if an event is written, using the current time.
+	 *
+	 * @param classLogger
+	 *            The logger of the class that logged the event.
+	 * @param level
+	 *            The level of the event.
+	 * @param methodName
+	 *            The sanitized method name.
+	 * @param message
+	 *            The validated message.
+	 * @return True to write the event, false if it was suppressed.
+	 */
+	boolean admit(final ClassLogger classLogger, final Level level, final String methodName, final String message)
+	{
+		return (admit(classLogger, level, methodName, message, System.nanoTime()));
+	}
+
+	/**
+	 * Package scope. Decides if an event is written.
+	 *
+	 * @param classLogger
+	 *            The logger of the class that logged the event.
+	 * @param level
+	 *            The level of the event.
+	 * @param methodName
+	 *            The sanitized method name.
+	 * @param message
+	 *            The validated message.
+	 * @param nowNanos
+	 *            The current value of <code>System.nanoTime()</code>.
+	 * @return True to write the event, false if it was suppressed.
+	 */
+	boolean admit(final ClassLogger classLogger, final Level level, final String methodName, final String message,
+	        final long nowNanos)
+	{
+		final CallSite callSite = callSite(classLogger, level, methodName, nowNanos);
+
+		final boolean collapse = this._windowNanos > 0;
+		if (collapse)
+		{
+			final Last last = callSite._last.get();
+			if ((last != null) && ((nowNanos - last._nanos) < this._windowNanos) && last._message.equals(message))
+			{
+				callSite._repeated.incrementAndGet();
+				return (false);
+			}
+		}
+
+		if (!acquire(callSite, nowNanos))
+		{
+			callSite._limited.incrementAndGet();
+			return (false);
+		}
+
+		if (collapse)
+		{
+			callSite._last.set(new Last(message, nowNanos));
+		}
+		return (true);
+	}
+
+	/*
+	 * Takes a token from the bucket of a call site.
+	 */
+	private boolean acquire(final CallSite callSite, final long nowNanos)
+	{
+		final AtomicLong nextNanos = callSite._nextNanos;
+		while (true)
+		{
+			final long next = nextNanos.get();
+			final long start = ((next - nowNanos) > 0L) ? next : nowNanos;
+			if ((start - nowNanos) > this._burstNanos)
+			{
+				return (false);
+			}
+			if (nextNanos.compareAndSet(next, start + this._intervalNanos))
+			{
+				return (true);
+			}
+		}
+	}
+
+	/*
+	 * Gets or creates the state of a call site.
+	 */
+	private CallSite callSite(final ClassLogger classLogger, final Level level, final String methodName,
+	        final long nowNanos)
+	{
+		Map<String, AtomicReferenceArray<CallSite>> byMethod = this._callSites.get(classLogger);
+		if (byMethod == null)
+		{
+			byMethod = this._callSites.computeIfAbsent(classLogger,
+			        key -> new ConcurrentHashMap<String, AtomicReferenceArray<CallSite>>());
+		}
+
+		AtomicReferenceArray<CallSite> byLevel = byMethod.get(methodName);
+		if (byLevel == null)
+		{
+			byLevel = byMethod.computeIfAbsent(methodName,
+			        key -> new AtomicReferenceArray<CallSite>(LogMetrics.LEVEL_COUNT));
+		}
+
+		final int index = LogMetrics.levelIndex(level);
+		final CallSite callSite = byLevel.get(index);
+		if (callSite != null)
+		{
+			return (callSite);
+		}
+		byLevel.compareAndSet(index, null, new CallSite(level, nowNanos));
+		return (byLevel.get(index));
+	}
+
+	/**
+	 * Writes a summary event for each call site that suppressed events since the last summary. Called by the timer
+	 * and when the suppressor is replaced or the provider shuts down.
+	 */
+	public void summarize()
+	{
+		summarize(System.nanoTime());
+	}
+
+	/**
+	 * Package scope. Writes the summaries and removes the call sites that are idle: nothing to summarize, a full
+	 * bucket and no message inside the duplicate window. An idle call site is in the same state as a new one, so
+	 * removing it only frees its memory. A thread still holding a removed call site finishes its event with it.
+	 *
+	 * @param nowNanos
+	 *            The current value of <code>System.nanoTime()</code>.
+	 */
+	void summarize(final long nowNanos)
+	{
+		final AbstractLogService service = this._service;
+		if (service == null)
+		{
+			return;
+		}
+
+		for (final Map.Entry<ClassLogger, Map<String, AtomicReferenceArray<CallSite>>> byClass : this._callSites
+		        .entrySet())
+		{
+			final Map<String, AtomicReferenceArray<CallSite>> methods = byClass.getValue();
+			for (final Map.Entry<String, AtomicReferenceArray<CallSite>> byMethod : methods.entrySet())
+			{
+				final AtomicReferenceArray<CallSite> byLevel = byMethod.getValue();
+				boolean empty = true;
+				for (int i = 0; i < byLevel.length(); i++)
+				{
+					final CallSite callSite = byLevel.get(i);
+					if (callSite != null)
+					{
+						final boolean summarized = summarize(service, byClass.getKey(), byMethod.getKey(), callSite);
+						if (summarized || !isIdle(callSite, nowNanos) || !byLevel.compareAndSet(i, callSite, null))
+						{
+							empty = false;
+						}
+					}
+				}
+				if (empty)
+				{
+					methods.remove(byMethod.getKey(), byLevel);
+				}
+			}
+			if (methods.isEmpty())
+			{
+				this._callSites.remove(byClass.getKey(), methods);
+			}
+		}
+	}
+
+	/*
+	 * True if a call site is in the same state as a new one.
+	 */
+	private boolean isIdle(final CallSite callSite, final long nowNanos)
+	{
+		if ((callSite._nextNanos.get() - nowNanos) > 0L)
+		{
+			return (false);
+		}
+		final Last last = callSite._last.get();
+		return ((last == null) || ((nowNanos - last._nanos) >= this._windowNanos));
+	}
+
+	/**
+	 * Package scope. Gets the number of call sites held.
+	 *
+	 * @return The call site count.
+	 */
+	int getCallSiteCount()
+	{
+		int count = 0;
+		for (final Map<String, AtomicReferenceArray<CallSite>> methods : this._callSites.values())
+		{
+			for (final AtomicReferenceArray<CallSite> byLevel : methods.values())
+			{
+				for (int i = 0; i < byLevel.length(); i++)
+				{
+					if (byLevel.get(i) != null)
+					{
+						count++;
+					}
+				}
+			}
+		}
+		return (count);
+	}
+
+	/*
+	 * Writes the summary of one call site if it suppressed anything. Returns true if a summary was written.
+	 */
+	private static boolean summarize(final AbstractLogService service, final ClassLogger classLogger,
+	        final String methodName, final CallSite callSite)
+	{
+		final long repeated = callSite._repeated.getAndSet(0L);
+		final long limited = callSite._limited.getAndSet(0L);
+		if ((repeated == 0L) && (limited == 0L))
+		{
+			return (false);
+		}
+
+		final StringBuilder builder = new StringBuilder(256);
+		builder.append("Suppressed ").append(limited).append(" events over the rate limit");
+		final Last last = callSite._last.get();
+		if ((repeated > 0L) && (last != null))
+		{
+			final String message = last._message;
+			builder.append(" and ").append(repeated).append(" repeats of: ");
+			if (message.length() > LogSuppressor.SUMMARY_QUOTE_LENGTH)
+			{
+				builder.append(message, 0, LogSuppressor.SUMMARY_QUOTE_LENGTH).append("...");
+			}
+			else
+			{
+				builder.append(message);
+			}
+		}
+		service.logSummary(classLogger, callSite._level, methodName, builder.toString());
+		return (true);
+	}
+}
@@ -0,0 +1,134 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * Validates the parameters passed to the <code>LogService</code>. Unlike a builder based validator nothing is allocated
+ * unless a check fails.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+final class LogValidator
+{
+
+	/**
+	 * Static methods only.
+	 */
+	private LogValidator()
+	{
+		// void - static methods only.
+	}
+
+	/**
+	 * Tests that the class is not null and has a name.
+	 *
+	 * @param clazz
+	 *            The class to test.
+	 * @return The name of the class.
+	 * @throws IllegalArgumentException
+	 *             When the class is null or the name is empty.
+	 */
+	static String validateClass(final Class<?> clazz)
+	{
+		if (clazz == null)
+		{
+			throw (new IllegalArgumentException("The 'clazz' parameter must not be null."));
+		}
+
+		final String name = clazz.getName();
+		if ((name == null) || (name.length() == 0))
+		{
+			throw (new IllegalArgumentException("The 'clazz' parameter must have a name."));
+		}
+		return (name);
+	}
+
+	/**
+	 * Tests that the value is not null or empty and is not longer than the maximum length.
+	 *
+	 * @param value
+	 *            The value to test.
+	 * @param name
+	 *            The name of the parameter, used in the exception message.
+	 * @param maxLength
+	 *            The maximum number of characters allowed.
+	 * @param policy
+	 *            What to do when the value is longer than the maximum length.
+	 * @return The value, the value truncated to the maximum length or <code>null</code> when the policy is
+	 *         <code>DROP</code> and the value is too long.
+	 * @throws IllegalArgumentException
+	 *             When the value is null or empty, or when it is too long and the policy is <code>THROW</code>.
+	 */
+	static String validateString(final String value, final String name, final int maxLength,
+	        final LengthPolicy policy)
+	{
+		if ((value == null) || (value.length() == 0))
+		{
+			throw (new IllegalArgumentException("The '" + name + "' parameter must not be null or empty."));
+		}
+
+		if (value.length() <= maxLength)
+		{
+			return (value);
+		}
+
+		switch (policy)
+		{
+			case TRUNCATE:
+				return (value.substring(0, maxLength));
+			case DROP:
+				return (null);
+			default:
+				throw (new IllegalArgumentException(
+				        "The '" + name + "' parameter must not be longer than " + maxLength + " characters."));
+		}
+	}
+
+	/**
+	 * Tests that the value is not null or empty.
+	 *
+	 * @param value
+	 *            The value to test.
+	 * @param name
+	 *            The name of the parameter, used in the exception message.
+	 * @throws IllegalArgumentException
+	 *             When the value is null or empty.
+	 */
+	static void validateNotEmpty(final String value, final String name)
+	{
+		if ((value == null) || (value.length() == 0))
+		{
+			throw (new IllegalArgumentException("The '" + name + "' parameter must not be null or empty."));
+		}
+	}
+
+	/**
+	 * Tests that the throwable is not null.
+	 *
+	 * @param thrown
+	 *            The throwable to test.
+	 * @throws IllegalArgumentException
+	 *             When the throwable is null.
+	 */
+	static void validateThrown(final Throwable thrown)
+	{
+		if (thrown == null)
+		{
+			throw (new IllegalArgumentException("The 'thrown' parameter must not be null."));
+		}
+	}
+}
@@ -0,0 +1,507 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+
+/**
+ * Writes events as UTF-8 text into memory mapped segments of a log file. Each segment is mapped at its full size when
+ * it is opened, so writing an event encodes it straight into the mapped memory instead of making a write system call.
+ * The operating system writes the pages to disk in the background.
+ * <p>
+ * The segments are named <code>baseName-000001.log</code>, <code>baseName-000002.log</code> and so on. The appender
+ * rolls to the next segment when the next event does not fit or when the roll interval has passed. A segment is
+ * truncated to the bytes written when it is rolled or the appender is closed. If the process stops without closing
+ * the appender the written events are still in the file, followed by the unused zero bytes of the segment. Those are
+ * trimmed the next time an appender is created for the same base name.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class MappedFileAppender implements LogAppender
+{
+
+	/**
+	 * The default size of a segment, 64 MB.
+	 */
+	public static final int			DEFAULT_SEGMENT_SIZE	= 64 * 1024 * 1024;
+
+	/**
+	 * The smallest size of a segment, 1 KB.
+	 */
+	public static final int			MIN_SEGMENT_SIZE		= 1024;
+
+	private static final String		SUFFIX					= ".log";
+
+	private static final int		MAX_BYTES_PER_CHAR		= 3;
+
+	private static final int		TRIM_BUFFER_SIZE		= 8192;
+
+	private final Path				_directory;
+
+	private final String			_baseName;
+
+	private final int				_segmentSize;
+
+	private final long				_rollIntervalMillis;
+
+	private final LogLayout			_layout;
+
+	private final StringBuilder		_builder				= new StringBuilder(256);
+
+	private final CharsetEncoder	_encoder				= StandardCharsets.UTF_8.newEncoder()
+	        .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private final ErrorManager		_errorManager			= new ErrorManager();
+
+	private final ReentrantLock		_lock					= new ReentrantLock();
+
+	private CharBuffer				_chars					= CharBuffer.allocate(256);
+
+	private long					_sequence;
+
+	private Path					_segment;
+
+	private FileChannel				_channel;
+
+	private MappedByteBuffer		_region;
+
+	private long					_rollAt;
+
+	private boolean					_closed;
+
+	private volatile LogMetrics		_metrics;
+
+	/**
+	 * Creates an appender that rolls on size only, with the default segment size and the <code>SimpleLogLayout</code>.
+	 *
+	 * @param directory
+	 *            The directory the segments are written to. Created if it does not exist. Must not be null.
+	 * @param baseName
+	 *            The start of the segment file names. Must not be null or empty.
+	 * @throws IOException
+	 *             If the first segment cannot be created.
+	 */
+	public MappedFileAppender(final Path directory, final String baseName) throws IOException
+	{
+		this(directory, baseName, MappedFileAppender.DEFAULT_SEGMENT_SIZE, 0L, new SimpleLogLayout());
+	}
+
+	/**
+	 * Creates an appender.
+	 *
+	 * @param directory
+	 *            The directory the segments are written to. Created if it does not exist. Must not be null.
+	 * @param baseName
+	 *            The start of the segment file names. Must not be null or empty.
+	 * @param segmentSize
+	 *            The size a segment is mapped at, in bytes. Must be at least <code>MIN_SEGMENT_SIZE</code>.
+	 * @param rollIntervalMillis
+	 *            The time after which the next event starts a new segment, or zero to roll on size only.
+	 * @param layout
+	 *            The layout that turns an event into text. Must not be null.
+	 * @throws IOException
+	 *             If the first segment cannot be created.
+	 */
+	public MappedFileAppender(final Path directory, final String baseName, final int segmentSize,
+	        final long rollIntervalMillis, final LogLayout layout) throws IOException
+	{
+		if (directory == null)
+		{
+			throw (new IllegalArgumentException("The 'directory' parameter must not be null."));
+		}
+		LogValidator.validateNotEmpty(baseName, "baseName");
+		if (segmentSize < MappedFileAppender.MIN_SEGMENT_SIZE)
+		{
+			throw (new IllegalArgumentException("The 'segmentSize' parameter must be at least "
+			        + MappedFileAppender.MIN_SEGMENT_SIZE + "."));
+		}
+		if (rollIntervalMillis < 0)
+		{
+			throw (new IllegalArgumentException("The 'rollIntervalMillis' parameter must not be negative."));
+		}
+		if (layout == null)
+		{
+			throw (new IllegalArgumentException("The 'layout' parameter must not be null."));
+		}
+
+		this._directory = directory;
+		this._baseName = baseName;
+		this._segmentSize = segmentSize;
+		this._rollIntervalMillis = rollIntervalMillis;
+		this._layout = layout;
+
+		Files.createDirectories(directory);
+		this._sequence = recover();
+		openSegment(System.currentTimeMillis());
+	}
+
+	/**
+	 * Gets the segment events are being written to.
+	 *
+	 * @return The path of the segment, or null once the appender is closed.
+	 */
+	public Path getSegment()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			return (this._closed ? null : this._segment);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void setMetrics(final LogMetrics metrics)
+	{
+		this._metrics = metrics;
+	}
+
+	/**
+	 * Writes the events of a batch under one hold of the lock, so the events of other threads are not written between
+	 * them.
+	 */
+	@Override
+	public void append(final LogEvent[] events, final int count)
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			for (int i = 0; i < count; i++)
+			{
+				append(events[i]);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void append(final LogEvent event)
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+
+			final StringBuilder builder = this._builder;
+			builder.setLength(0);
+			this._layout.format(event, builder);
+
+			try
+			{
+				final long millis = event.getMillis();
+				if (this._region == null)
+				{
+					// the last roll failed.
+					openSegment(millis);
+				}
+				final int maxBytes = builder.length() * MappedFileAppender.MAX_BYTES_PER_CHAR;
+				if (((this._rollAt > 0) && (millis >= this._rollAt))
+				        || ((this._region.remaining() < maxBytes) && (this._region.position() > 0)))
+				{
+					roll(millis);
+				}
+				write(builder, millis);
+			}
+			catch (final IOException e)
+			{
+				this._errorManager.error("Unable to write a log event to " + this._segment, e,
+				        ErrorManager.WRITE_FAILURE);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * Encodes the text straight into the mapped region. An event larger than a whole segment is split across
+	 * segments.
+	 */
+	private void write(final StringBuilder builder, final long millis) throws IOException
+	{
+		final int length = builder.length();
+		if (this._chars.capacity() < length)
+		{
+			this._chars = CharBuffer.allocate(Math.max(length, this._chars.capacity() * 2));
+		}
+		final CharBuffer chars = this._chars;
+		chars.clear();
+		builder.getChars(0, length, chars.array(), 0);
+		chars.limit(length);
+
+		final CharsetEncoder encoder = this._encoder;
+		encoder.reset();
+		long bytes = 0L;
+		int start = this._region.position();
+		CoderResult result = encoder.encode(chars, this._region, true);
+		while (result.isOverflow())
+		{
+			bytes += this._region.position() - start;
+			roll(millis);
+			start = this._region.position();
+			result = encoder.encode(chars, this._region, true);
+		}
+		result = encoder.flush(this._region);
+		while (result.isOverflow())
+		{
+			bytes += this._region.position() - start;
+			roll(millis);
+			start = this._region.position();
+			result = encoder.flush(this._region);
+		}
+		bytes += this._region.position() - start;
+
+		final LogMetrics metrics = this._metrics;
+		if (metrics != null)
+		{
+			metrics.recordBytesWritten(bytes);
+		}
+	}
+
+	/*
+	 * Finishes the current segment and opens the next one.
+	 */
+	private void roll(final long millis) throws IOException
+	{
+		closeSegment();
+		openSegment(millis);
+	}
+
+	/*
+	 * Creates the next segment and maps it.
+	 */
+	private void openSegment(final long millis) throws IOException
+	{
+		this._sequence++;
+		this._segment = this._directory.resolve(segmentName(this._sequence));
+		final FileChannel channel = FileChannel.open(this._segment, StandardOpenOption.CREATE_NEW,
+		        StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			this._region = channel.map(FileChannel.MapMode.READ_WRITE, 0L, this._segmentSize);
+		}
+		catch (final IOException e)
+		{
+			channel.close();
+			throw (e);
+		}
+		this._channel = channel;
+		this._rollAt = (this._rollIntervalMillis > 0) ? (millis + this._rollIntervalMillis) : 0L;
+	}
+
+	/*
+	 * Unmaps the current segment, then truncates it to the bytes written and closes it. A file cannot be truncated
+	 * below a region that is still mapped on every platform, and the mapping would otherwise stay until the buffer
+	 * is garbage collected.
+	 */
+	private void closeSegment() throws IOException
+	{
+		final MappedByteBuffer region = this._region;
+		final FileChannel channel = this._channel;
+		final int written = region.position();
+		this._region = null;
+		this._channel = null;
+		OffHeapEventStore.free(region);
+		try
+		{
+			channel.truncate(written);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	/*
+	 * Finds the last segment left by an earlier appender and trims the unused bytes a process that stopped without
+	 * closing the appender leaves behind.
+	 */
+	private long recover() throws IOException
+	{
+		long lastSequence = 0L;
+		Path lastSegment = null;
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(this._directory,
+		        this._baseName + "-*" + MappedFileAppender.SUFFIX))
+		{
+			for (final Path path : stream)
+			{
+				final long sequence = parseSequence(path.getFileName().toString());
+				if (sequence > lastSequence)
+				{
+					lastSequence = sequence;
+					lastSegment = path;
+				}
+			}
+		}
+		if (lastSegment != null)
+		{
+			MappedFileAppender.trim(lastSegment);
+		}
+		return (lastSequence);
+	}
+
+	/*
+	 * Gets the sequence number of a segment, or zero if the name is not a segment name.
+	 */
+	private long parseSequence(final String fileName)
+	{
+		final int start = this._baseName.length() + 1;
+		final int end = fileName.length() - MappedFileAppender.SUFFIX.length();
+		if (end <= start)
+		{
+			return (0L);
+		}
+		long sequence = 0L;
+		for (int i = start; i < end; i++)
+		{
+			final char c = fileName.charAt(i);
+			if ((c < '0') || (c > '9'))
+			{
+				return (0L);
+			}
+			sequence = (sequence * 10) + (c - '0');
+		}
+		return (sequence);
+	}
+
+	/*
+	 * Builds the file name of a segment.
+	 */
+	private String segmentName(final long sequence)
+	{
+		final String number = Long.toString(sequence);
+		final StringBuilder name = new StringBuilder(this._baseName).append('-');
+		for (int i = number.length(); i < 6; i++)
+		{
+			name.append('0');
+		}
+		return (name.append(number).append(MappedFileAppender.SUFFIX).toString());
+	}
+
+	/*
+	 * Truncates a file after its last byte that is not zero.
+	 */
+	static void trim(final Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			final ByteBuffer buffer = ByteBuffer.allocate(MappedFileAppender.TRIM_BUFFER_SIZE);
+			long end = channel.size();
+			while (end > 0)
+			{
+				final int length = (int) Math.min(buffer.capacity(), end);
+				final long start = end - length;
+				buffer.clear();
+				buffer.limit(length);
+				while (buffer.hasRemaining() && (channel.read(buffer, start + buffer.position()) >= 0))
+				{
+					// void - read until the buffer is full.
+				}
+				for (int i = length - 1; i >= 0; i--)
+				{
+					if (buffer.get(i) != 0)
+					{
+						channel.truncate(start + i + 1);
+						return;
+					}
+				}
+				end = start;
+			}
+			channel.truncate(0L);
+		}
+	}
+
+	/**
+	 * Forces the written events to the storage device.
+	 */
+	@Override
+	public void flush()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (!this._closed && (this._region != null))
+			{
+				this._region.force();
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+			this._closed = true;
+			if (this._region == null)
+			{
+				return;
+			}
+			try
+			{
+				this._region.force();
+				closeSegment();
+			}
+			catch (final IOException e)
+			{
+				this._errorManager.error("Unable to close " + this._segment, e, ErrorManager.CLOSE_FAILURE);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+}
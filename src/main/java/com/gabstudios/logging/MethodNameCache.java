@@ -0,0 +1,130 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * Remembers the validated and sanitized form of the method names a class logs with, so the same literal is not
+ * validated and sanitized again on every call. Each class has its own cache, so the class and the method name
+ * together are the key without building a key object.
+ * <p>
+ * The cache is a fixed array of slots chosen by the hash of the method name, so its size is bounded however many
+ * different names a caller passes. A new name replaces the entry in its slot. Entries are immutable and published
+ * through final fields, so a lookup takes no lock. Each entry keeps the generation of the sanitizer and length policy
+ * it was made with. Changing either starts a new generation, which makes every older entry a miss.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+final class MethodNameCache
+{
+
+	static final int	SIZE	= 64;
+
+	private static final int	MASK	= MethodNameCache.SIZE - 1;
+
+	/*
+	 * An immutable cache entry.
+	 */
+	private static final class Entry
+	{
+		final String	_methodName;
+
+		final String	_value;
+
+		final int		_generation;
+
+		Entry(final String methodName, final String value, final int generation)
+		{
+			this._methodName = methodName;
+			this._value = value;
+			this._generation = generation;
+		}
+	}
+
+	private final Entry[] _entries = new Entry[MethodNameCache.SIZE];
+
+	/**
+	 * Package scope. Created by ClassLogger.
+	 */
+	MethodNameCache()
+	{
+		// void - the slots start empty.
+	}
+
+	/*
+	 * Spreads the hash so names that differ only in their last characters use different slots.
+	 */
+	private static int slot(final String methodName)
+	{
+		final int hash = methodName.hashCode();
+		return ((hash ^ (hash >>> 16)) & MethodNameCache.MASK);
+	}
+
+	/**
+	 * Gets the cached form of a method name.
+	 *
+	 * @param methodName
+	 *            The method name as it was passed to the log method. Must not be null.
+	 * @param generation
+	 *            The current generation.
+	 * @return The validated and sanitized method name, or null if it is not cached.
+	 */
+	String get(final String methodName, final int generation)
+	{
+		final Entry entry = this._entries[MethodNameCache.slot(methodName)];
+		if ((entry != null) && (entry._generation == generation)
+		        && ((entry._methodName == methodName) || entry._methodName.equals(methodName)))
+		{
+			return (entry._value);
+		}
+		return (null);
+	}
+
+	/**
+	 * Caches the form of a method name.
+	 *
+	 * @param methodName
+	 *            The method name as it was passed to the log method. Must not be null.
+	 * @param value
+	 *            The validated and sanitized method name.
+	 * @param generation
+	 *            The generation the value was made with.
+	 */
+	void put(final String methodName, final String value, final int generation)
+	{
+		this._entries[MethodNameCache.slot(methodName)] = new Entry(methodName, value, generation);
+	}
+
+	/**
+	 * Gets the number of entries made with a generation.
+	 *
+	 * @param generation
+	 *            The generation.
+	 * @return The number of entries.
+	 */
+	int size(final int generation)
+	{
+		int size = 0;
+		for (final Entry entry : this._entries)
+		{
+			if ((entry != null) && (entry._generation == generation))
+			{
+				size++;
+			}
+		}
+		return (size);
+	}
+}
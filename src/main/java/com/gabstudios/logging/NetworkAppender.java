@@ -0,0 +1,853 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+
+/**
+ * Sends events to a log collector over TCP or UDP, as syslog messages or length-prefixed frames.
+ * <p>
+ * An event is formatted and encoded on the caller's thread and copied into a bounded buffer under a short lock. The
+ * caller never waits for the network: when the buffer is full the event is dropped and counted. A single sender
+ * thread takes everything in the buffer as one batch and sends it, over TCP in one write and over UDP a datagram to a
+ * frame, while the callers fill the other buffer.
+ * <p>
+ * While the collector cannot be reached the events are kept in the buffer, up to its size, and the sender connects
+ * again after a delay that starts at 100 milliseconds and doubles, with jitter, up to 30 seconds. A failed write counts
+ * as a failed attempt, and only a write that succeeds starts the delay again at 100 milliseconds, so a collector that
+ * accepts connections and then resets them is not retried in a loop. An outage is reported once. A TCP batch cut by a
+ * dropped connection is sent again whole on the next connection, so the collector can receive some events twice rather
+ * than lose them. Events the kernel accepted before the drop was seen can still be lost.
+ * <p>
+ * The buffer is sent when the appender is closed, for at most five seconds. <code>LogProvider.shutdown()</code>, run
+ * when the JVM shuts down, closes the appenders after the queued events are dispatched to them.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class NetworkAppender implements LogAppender
+{
+
+	/**
+	 * The default size of the buffer, 1 MB.
+	 */
+	public static final int					DEFAULT_BUFFER_SIZE		= 1024 * 1024;
+
+	private static final int				MAX_DATAGRAM_SIZE		= 65507;
+
+	private static final int				LENGTH_SIZE				= 4;
+
+	private static final int				CONNECT_TIMEOUT_MILLIS	= 5000;
+
+	private static final long				INITIAL_BACKOFF_NANOS	= TimeUnit.MILLISECONDS.toNanos(100);
+
+	private static final long				MAX_BACKOFF_NANOS		= TimeUnit.SECONDS.toNanos(30);
+
+	private static final long				IDLE_PARK_NANOS			= TimeUnit.MILLISECONDS.toNanos(10);
+
+	private static final long				FLUSH_PARK_NANOS		= TimeUnit.MICROSECONDS.toNanos(50);
+
+	private static final long				CLOSE_TIMEOUT_MILLIS	= 5000L;
+
+	private final String					_host;
+
+	private final int						_port;
+
+	private final NetworkProtocol			_protocol;
+
+	private final NetworkFraming			_framing;
+
+	private final LogLayout					_layout;
+
+	private final int						_maxFrameSize;
+
+	private final ThreadLocal<EventEncoder>	_encoders				= new ThreadLocal<EventEncoder>()
+	{
+		@Override
+		protected EventEncoder initialValue()
+		{
+			return (new EventEncoder());
+		}
+	};
+
+	private final ReentrantLock				_lock					= new ReentrantLock();
+
+	private final ReentrantLock				_closeLock				= new ReentrantLock();
+
+	private final AtomicLong				_queuedCount			= new AtomicLong();
+
+	private final AtomicLong				_completedCount			= new AtomicLong();
+
+	private final AtomicLong				_sentCount				= new AtomicLong();
+
+	private final AtomicLong				_droppedCount			= new AtomicLong();
+
+	private final AtomicLong				_connectCount			= new AtomicLong();
+
+	private final ErrorManager				_errorManager			= new ErrorManager();
+
+	private final Thread					_sender;
+
+	/*
+	 * The buffer the callers append frames to, guarded by the lock. A frame is held as its length and its bytes.
+	 */
+	private ByteBuffer						_pending;
+
+	/*
+	 * The frames being sent. Only used by the sender thread.
+	 */
+	private ByteBuffer						_batch;
+
+	/*
+	 * The bytes of a TCP batch as they go on the wire. Only used by the sender thread.
+	 */
+	private ByteBuffer						_wire					= ByteBuffer.allocate(0);
+
+	private int								_wireCount;
+
+	private volatile ByteChannel			_channel;
+
+	private volatile boolean				_reachable				= true;
+
+	private volatile boolean				_sleeping;
+
+	private volatile boolean				_closed;
+
+	private volatile boolean				_abandoned;
+
+	private volatile LogMetrics				_metrics;
+
+	/**
+	 * Creates the appender and starts its sender thread. The first connection is made by the sender, so the
+	 * collector does not need to be up yet.
+	 *
+	 * @param host
+	 *            The host name or address of the collector. Must not be null.
+	 * @param port
+	 *            The port of the collector, from 1 to 65535.
+	 * @param protocol
+	 *            The transport. Must not be null.
+	 * @param framing
+	 *            How each message is marked. Must not be null.
+	 * @param layout
+	 *            The layout that turns an event into a message, such as the <code>SyslogLayout</code>. Must not be
+	 *            null.
+	 * @param bufferSize
+	 *            The number of bytes of frames held while they wait to be sent. The batch being sent holds up to as
+	 *            many again. Must be greater than zero.
+	 */
+	public NetworkAppender(final String host, final int port, final NetworkProtocol protocol,
+	        final NetworkFraming framing, final LogLayout layout, final int bufferSize)
+	{
+		if (host == null)
+		{
+			throw (new IllegalArgumentException("The 'host' parameter must not be null."));
+		}
+		if ((port < 1) || (port > 65535))
+		{
+			throw (new IllegalArgumentException("The 'port' parameter must be from 1 to 65535."));
+		}
+		if (protocol == null)
+		{
+			throw (new IllegalArgumentException("The 'protocol' parameter must not be null."));
+		}
+		if (framing == null)
+		{
+			throw (new IllegalArgumentException("The 'framing' parameter must not be null."));
+		}
+		if (layout == null)
+		{
+			throw (new IllegalArgumentException("The 'layout' parameter must not be null."));
+		}
+		if (bufferSize <= 0)
+		{
+			throw (new IllegalArgumentException("The 'bufferSize' parameter must be greater than zero."));
+		}
+
+		this._host = host;
+		this._port = port;
+		this._protocol = protocol;
+		this._framing = framing;
+		this._layout = layout;
+		this._pending = ByteBuffer.allocate(bufferSize);
+		this._batch = ByteBuffer.allocate(bufferSize);
+		this._batch.flip();
+
+		int maxFrameSize = bufferSize - NetworkAppender.LENGTH_SIZE;
+		if (protocol == NetworkProtocol.UDP)
+		{
+			final int header = (framing == NetworkFraming.LENGTH_PREFIXED) ? NetworkAppender.LENGTH_SIZE : 0;
+			maxFrameSize = Math.min(maxFrameSize, NetworkAppender.MAX_DATAGRAM_SIZE - header);
+		}
+		this._maxFrameSize = maxFrameSize;
+
+		this._sender = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				send();
+			}
+		}, "gab-logging-network");
+		this._sender.setDaemon(true);
+		this._sender.start();
+	}
+
+	/**
+	 * Gets the transport.
+	 *
+	 * @return A <code>NetworkProtocol</code> instance.
+	 */
+	public NetworkProtocol getProtocol()
+	{
+		return (this._protocol);
+	}
+
+	/**
+	 * Gets how each message is marked.
+	 *
+	 * @return A <code>NetworkFraming</code> instance.
+	 */
+	public NetworkFraming getFraming()
+	{
+		return (this._framing);
+	}
+
+	/**
+	 * Checks if the appender has a connection to the collector. A UDP appender is connected once its channel is open.
+	 *
+	 * @return True if connected, otherwise false.
+	 */
+	public boolean isConnected()
+	{
+		return (this._channel != null);
+	}
+
+	/**
+	 * Gets the number of events sent.
+	 *
+	 * @return The sent count.
+	 */
+	public long getSentCount()
+	{
+		return (this._sentCount.get());
+	}
+
+	/**
+	 * Gets the number of events dropped because the buffer was full, the message did not fit in a datagram, or the
+	 * appender was closed before they could be sent.
+	 *
+	 * @return The dropped count.
+	 */
+	public long getDroppedCount()
+	{
+		return (this._droppedCount.get());
+	}
+
+	/**
+	 * Gets the number of connections made to the collector, the first one included.
+	 *
+	 * @return The connect count.
+	 */
+	public long getConnectCount()
+	{
+		return (this._connectCount.get());
+	}
+
+	/**
+	 * Gets the number of bytes of frames waiting to be sent, not counting the batch being sent.
+	 *
+	 * @return The number of bytes.
+	 */
+	public int getBufferedSize()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			return (this._pending.position());
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void setMetrics(final LogMetrics metrics)
+	{
+		this._metrics = metrics;
+	}
+
+	@Override
+	public void append(final LogEvent event)
+	{
+		if (this._closed)
+		{
+			return;
+		}
+
+		final ByteBuffer bytes = this._encoders.get().encode(event, this._layout);
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			put(bytes);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		wakeSender();
+	}
+
+	/**
+	 * Copies the events of a batch into the buffer under one lock, so they are sent together and in order.
+	 */
+	@Override
+	public void append(final LogEvent[] events, final int count)
+	{
+		if (this._closed)
+		{
+			return;
+		}
+
+		final EventEncoder encoder = this._encoders.get();
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			for (int i = 0; i < count; i++)
+			{
+				put(encoder.encode(events[i], this._layout));
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+		wakeSender();
+	}
+
+	/*
+	 * Copies an encoded message into the buffer as a frame, or drops it if it does not fit. Called under the lock.
+	 */
+	private void put(final ByteBuffer bytes)
+	{
+		final int length = bytes.remaining();
+		final ByteBuffer pending = this._pending;
+		if ((length > this._maxFrameSize) || (pending.remaining() < (NetworkAppender.LENGTH_SIZE + length)))
+		{
+			drop(1L);
+			return;
+		}
+		pending.putInt(length).put(bytes);
+		this._queuedCount.incrementAndGet();
+	}
+
+	/*
+	 * Wakes the sender if it is waiting for events.
+	 */
+	private void wakeSender()
+	{
+		if (this._sleeping)
+		{
+			LockSupport.unpark(this._sender);
+		}
+	}
+
+	/**
+	 * Waits until the events appended before the call are sent. Returns at once while the collector cannot be
+	 * reached, and after five seconds at most.
+	 */
+	@Override
+	public void flush()
+	{
+		if (Thread.currentThread() == this._sender)
+		{
+			return;
+		}
+
+		final long target = this._queuedCount.get();
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(NetworkAppender.CLOSE_TIMEOUT_MILLIS);
+		while ((this._completedCount.get() < target) && this._reachable && this._sender.isAlive()
+		        && ((deadline - System.nanoTime()) > 0L))
+		{
+			LockSupport.unpark(this._sender);
+			LockSupport.parkNanos(this, NetworkAppender.FLUSH_PARK_NANOS);
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		final ReentrantLock lock = this._closeLock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+			this._closed = true;
+
+			final Thread thread = Thread.currentThread();
+			if (thread != this._sender)
+			{
+				LockSupport.unpark(this._sender);
+				join(NetworkAppender.CLOSE_TIMEOUT_MILLIS);
+				if (this._sender.isAlive())
+				{
+					// the collector is down or not reading; closing the channel ends a write that is stuck.
+					this._abandoned = true;
+					disconnect();
+					LockSupport.unpark(this._sender);
+					join(NetworkAppender.CLOSE_TIMEOUT_MILLIS);
+				}
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * Waits for the sender thread to end.
+	 */
+	private void join(final long millis)
+	{
+		try
+		{
+			this._sender.join(millis);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*
+	 * The sender thread loop. Ends once the appender is closed and every frame is sent, or it is abandoned.
+	 */
+	private void send()
+	{
+		long backoffNanos = NetworkAppender.INITIAL_BACKOFF_NANOS;
+		long nextConnectNanos = System.nanoTime();
+		boolean reported = false;
+
+		while (!this._abandoned)
+		{
+			if (!isSending() && !takeBatch())
+			{
+				if (this._closed)
+				{
+					break;
+				}
+				this._sleeping = true;
+				if (!isPending() && !this._closed)
+				{
+					LockSupport.parkNanos(this, NetworkAppender.IDLE_PARK_NANOS);
+				}
+				this._sleeping = false;
+				continue;
+			}
+
+			if (this._channel == null)
+			{
+				final long waitNanos = nextConnectNanos - System.nanoTime();
+				if (waitNanos > 0L)
+				{
+					LockSupport.parkNanos(this, waitNanos);
+					continue;
+				}
+				try
+				{
+					this._channel = connect();
+					this._connectCount.incrementAndGet();
+					this._reachable = true;
+				}
+				catch (final IOException | RuntimeException e)
+				{
+					this._reachable = false;
+					if (!reported)
+					{
+						// reported once when the collector goes away, not for every attempt until it is back.
+						reported = true;
+						this._errorManager.error("Unable to connect to " + this._host + ":" + this._port + ".", e,
+						        ErrorManager.OPEN_FAILURE);
+					}
+					final long jitter = ThreadLocalRandom.current().nextLong((backoffNanos / 2) + 1);
+					nextConnectNanos = System.nanoTime() + (backoffNanos / 2) + jitter;
+					backoffNanos = Math.min(backoffNanos * 2, NetworkAppender.MAX_BACKOFF_NANOS);
+					continue;
+				}
+			}
+
+			try
+			{
+				if (this._protocol == NetworkProtocol.TCP)
+				{
+					writeStream();
+				}
+				else
+				{
+					writeDatagrams();
+				}
+				// the backoff is reset by a write, not a connect, since a collector that refuses datagrams or resets
+				// every connection it accepts can still be connected to.
+				backoffNanos = NetworkAppender.INITIAL_BACKOFF_NANOS;
+				reported = false;
+			}
+			catch (final IOException | RuntimeException e)
+			{
+				this._reachable = false;
+				if (!reported && !this._abandoned)
+				{
+					reported = true;
+					this._errorManager.error("Lost the connection to " + this._host + ":" + this._port + ".", e,
+					        ErrorManager.WRITE_FAILURE);
+				}
+				disconnect();
+				final long jitter = ThreadLocalRandom.current().nextLong((backoffNanos / 2) + 1);
+				nextConnectNanos = System.nanoTime() + (backoffNanos / 2) + jitter;
+				backoffNanos = Math.min(backoffNanos * 2, NetworkAppender.MAX_BACKOFF_NANOS);
+			}
+		}
+
+		disconnect();
+		dropUnsent();
+	}
+
+	/*
+	 * True if a batch is being sent.
+	 */
+	private boolean isSending()
+	{
+		return ((this._protocol == NetworkProtocol.TCP) ? this._wire.hasRemaining() : this._batch.hasRemaining());
+	}
+
+	/*
+	 * True if frames are waiting in the buffer.
+	 */
+	private boolean isPending()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			return (this._pending.position() > 0);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * Swaps the buffer the callers fill with the empty batch buffer. For TCP the frames are then laid out as they go
+	 * on the wire. Returns false if no frames are waiting.
+	 */
+	private boolean takeBatch()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._pending.position() == 0)
+			{
+				return (false);
+			}
+			final ByteBuffer batch = this._pending;
+			this._pending = this._batch;
+			this._pending.clear();
+			this._batch = batch;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		this._batch.flip();
+		if (this._protocol == NetworkProtocol.TCP)
+		{
+			frameStream();
+		}
+		return (true);
+	}
+
+	/*
+	 * Lays out the frames of the batch in the wire buffer, growing it when needed.
+	 */
+	private void frameStream()
+	{
+		final ByteBuffer batch = this._batch;
+		ByteBuffer wire = this._wire;
+		wire.clear();
+		int count = 0;
+		while (batch.hasRemaining())
+		{
+			final int length = batch.getInt();
+			final boolean syslog = (this._framing == NetworkFraming.SYSLOG);
+			final int size = length + (syslog ? (NetworkAppender.digits(length) + 1) : NetworkAppender.LENGTH_SIZE);
+			if (wire.remaining() < size)
+			{
+				final ByteBuffer grown = ByteBuffer.allocate(Math.max(wire.capacity() * 2, wire.position() + size));
+				wire.flip();
+				grown.put(wire);
+				wire = grown;
+			}
+
+			if (syslog)
+			{
+				NetworkAppender.putDecimal(wire, length);
+				wire.put((byte) ' ');
+			}
+			else
+			{
+				wire.putInt(length);
+			}
+			final int limit = batch.limit();
+			batch.limit(batch.position() + length);
+			wire.put(batch);
+			batch.limit(limit);
+			count++;
+		}
+		wire.flip();
+		this._wire = wire;
+		this._wireCount = count;
+	}
+
+	/*
+	 * Counts the decimal digits of a length.
+	 */
+	private static int digits(final int value)
+	{
+		int count = 1;
+		for (int bound = 10; (value >= bound) && (count < 10); bound *= 10)
+		{
+			count++;
+		}
+		return (count);
+	}
+
+	/*
+	 * Writes a length as ASCII decimal digits.
+	 */
+	private static void putDecimal(final ByteBuffer buffer, final int value)
+	{
+		final int end = buffer.position() + NetworkAppender.digits(value);
+		int remaining = value;
+		for (int i = end - 1; i >= buffer.position(); i--)
+		{
+			buffer.put(i, (byte) ('0' + (remaining % 10)));
+			remaining /= 10;
+		}
+		buffer.position(end);
+	}
+
+	/*
+	 * Writes the TCP batch. A batch cut by an error is rewound so it is sent again whole on the next connection.
+	 */
+	private void writeStream() throws IOException
+	{
+		final ByteBuffer wire = this._wire;
+		try
+		{
+			while (wire.hasRemaining())
+			{
+				this._channel.write(wire);
+			}
+		}
+		catch (final IOException | RuntimeException e)
+		{
+			wire.rewind();
+			throw (e);
+		}
+		this._sentCount.addAndGet(this._wireCount);
+		this._completedCount.addAndGet(this._wireCount);
+		this._wireCount = 0;
+		recordBytesWritten(wire.limit());
+	}
+
+	/*
+	 * Sends the frames of the batch a datagram at a time. A frame that fails is sent again on the next connection.
+	 */
+	private void writeDatagrams() throws IOException
+	{
+		final ByteBuffer batch = this._batch;
+		final int limit = batch.limit();
+		final boolean prefixed = (this._framing == NetworkFraming.LENGTH_PREFIXED);
+		while (batch.hasRemaining())
+		{
+			final int start = batch.position();
+			final int end = start + NetworkAppender.LENGTH_SIZE + batch.getInt(start);
+			batch.position(prefixed ? start : (start + NetworkAppender.LENGTH_SIZE));
+			batch.limit(end);
+			final int written;
+			try
+			{
+				written = this._channel.write(batch);
+			}
+			catch (final IOException | RuntimeException e)
+			{
+				batch.limit(limit);
+				batch.position(start);
+				throw (e);
+			}
+			batch.limit(limit);
+			batch.position(end);
+			this._sentCount.incrementAndGet();
+			this._completedCount.incrementAndGet();
+			recordBytesWritten(written);
+		}
+	}
+
+	/*
+	 * Counts dropped events, here and in the statistics the appender reports to.
+	 */
+	private void drop(final long count)
+	{
+		this._droppedCount.addAndGet(count);
+		final LogMetrics metrics = this._metrics;
+		if (metrics != null)
+		{
+			metrics.recordDropped(count);
+		}
+	}
+
+	/*
+	 * Reports bytes sent to the collector.
+	 */
+	private void recordBytesWritten(final long bytes)
+	{
+		final LogMetrics metrics = this._metrics;
+		if (metrics != null)
+		{
+			metrics.recordBytesWritten(bytes);
+		}
+	}
+
+	/*
+	 * Opens a channel to the collector.
+	 */
+	private ByteChannel connect() throws IOException
+	{
+		final InetSocketAddress address = new InetSocketAddress(this._host, this._port);
+		if (this._protocol == NetworkProtocol.TCP)
+		{
+			final SocketChannel channel = SocketChannel.open();
+			try
+			{
+				channel.socket().connect(address, NetworkAppender.CONNECT_TIMEOUT_MILLIS);
+			}
+			catch (final IOException | RuntimeException e)
+			{
+				channel.close();
+				throw (e);
+			}
+			return (channel);
+		}
+
+		final DatagramChannel channel = DatagramChannel.open();
+		try
+		{
+			channel.connect(address);
+		}
+		catch (final IOException | RuntimeException e)
+		{
+			channel.close();
+			throw (e);
+		}
+		return (channel);
+	}
+
+	/*
+	 * Closes the channel, if one is open.
+	 */
+	private void disconnect()
+	{
+		final ByteChannel channel = this._channel;
+		this._channel = null;
+		if (channel != null)
+		{
+			try
+			{
+				channel.close();
+			}
+			catch (final IOException e)
+			{
+				this._errorManager.error("Unable to close the connection to " + this._host + ":" + this._port + ".",
+				        e, ErrorManager.CLOSE_FAILURE);
+			}
+		}
+	}
+
+	/*
+	 * Counts the frames that were never sent as dropped, when the sender ends.
+	 */
+	private void dropUnsent()
+	{
+		int count = (this._protocol == NetworkProtocol.TCP) ? this._wireCount : NetworkAppender.countFrames(this._batch);
+		this._wireCount = 0;
+
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			final ByteBuffer pending = this._pending;
+			pending.flip();
+			count += NetworkAppender.countFrames(pending);
+			pending.clear();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		if (count > 0)
+		{
+			drop(count);
+			this._completedCount.addAndGet(count);
+			this._errorManager.error("Closed with " + count + " events not sent to " + this._host + ":" + this._port
+			        + ".", null, ErrorManager.CLOSE_FAILURE);
+		}
+	}
+
+	/*
+	 * Counts the frames from the position of a buffer to its limit.
+	 */
+	private static int countFrames(final ByteBuffer buffer)
+	{
+		int count = 0;
+		for (int position = buffer.position(); position < buffer.limit(); count++)
+		{
+			position += NetworkAppender.LENGTH_SIZE + buffer.getInt(position);
+		}
+		return (count);
+	}
+}
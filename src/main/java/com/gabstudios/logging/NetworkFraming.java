@@ -0,0 +1,37 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * Defines how a <code>NetworkAppender</code> marks where each message ends.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public enum NetworkFraming
+{
+	/**
+	 * Syslog framing. Over TCP each message is preceded by its length in bytes as decimal digits and a space, the
+	 * octet counting of RFC 6587. Over UDP each datagram holds one message as it is, as in RFC 5426. Use it with the
+	 * <code>SyslogLayout</code>.
+	 */
+	SYSLOG,
+
+	/**
+	 * Each message is preceded by its length in bytes as a four byte big-endian integer, over TCP and UDP alike.
+	 */
+	LENGTH_PREFIXED
+}
@@ -0,0 +1,35 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * Defines the transport a <code>NetworkAppender</code> sends over.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public enum NetworkProtocol
+{
+	/**
+	 * A TCP connection. The frames of a batch are sent in one write, and the connection is made again when it drops.
+	 */
+	TCP,
+
+	/**
+	 * UDP datagrams, one frame to a datagram. A frame that does not fit in a datagram is dropped.
+	 */
+	UDP
+}
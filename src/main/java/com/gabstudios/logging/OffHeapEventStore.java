@@ -0,0 +1,332 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.logging.Level;
+
+/**
+ * The slots of a <code>LogRingBuffer</code> kept in a direct buffer, so the values of a queued event are not objects
+ * the garbage collector has to trace or promote while the consumer falls behind.
+ * <p>
+ * Each slot is a fixed number of bytes holding the time, the thread id, the sample rate, the dumped mark and the
+ * characters of the message, which are copied in when the event is published and decoded into a <code>LogEvent</code>
+ * when it is taken. The class logger, level and cached method name are shared by every event of a call site and the
+ * context by every event of a thread, so the slot keeps references to them in preallocated arrays instead of copying
+ * them. So does a throwable, and a message longer than a slot holds, which does not pass the validation of the service.
+ * <p>
+ * Only the values that are new for every event are copied out of the heap. The references that stay in the heap point
+ * at objects that live as long as their call site or thread, and are not garbage the queue creates. The throwable and
+ * a message too long for a slot are the exceptions; they are rare, and copying them would mean serializing them.
+ * <p>
+ * The memory is allocated once and reused slot by slot. <code>release()</code> frees it when the queue is closed,
+ * without waiting for the garbage collector, so a dispatcher that is closed and created again does not hold twice the
+ * native memory. No thread may use the store once it is released.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+final class OffHeapEventStore
+{
+
+	/**
+	 * The most characters of a message kept in a slot.
+	 */
+	static final int					MAX_MESSAGE_LENGTH	= 256;
+
+	private static final int			MILLIS				= 0;
+
+	private static final int			THREAD_ID			= 8;
+
+	private static final int			SAMPLE_RATE			= 16;
+
+	private static final int			MESSAGE_LENGTH		= 24;
+
+	private static final int			DUMPED				= 28;
+
+	private static final int			MESSAGE				= 32;
+
+	/**
+	 * The number of bytes of a slot.
+	 */
+	static final int					SLOT_SIZE			= OffHeapEventStore.MESSAGE
+	        + (2 * OffHeapEventStore.MAX_MESSAGE_LENGTH);
+
+	/*
+	 * The message length of a slot whose message is kept in the overflow array.
+	 */
+	private static final int			OVERFLOW			= -1;
+
+	/*
+	 * The characters of a message being decoded, kept per thread and reused.
+	 */
+	private static final ThreadLocal<char[]>	CHARS		= new ThreadLocal<char[]>()
+	{
+		@Override
+		protected char[] initialValue()
+		{
+			return (new char[OffHeapEventStore.MAX_MESSAGE_LENGTH]);
+		}
+	};
+
+	private volatile ByteBuffer			_memory;
+
+	private final ClassLogger[]			_classLoggers;
+
+	private final Level[]				_levels;
+
+	private final String[]				_methodNames;
+
+	private final Throwable[]			_thrown;
+
+	private final LogContext[]			_contexts;
+
+	private final String[]				_overflow;
+
+	/**
+	 * Allocates the slots.
+	 *
+	 * @param size
+	 *            The number of slots.
+	 */
+	OffHeapEventStore(final int size)
+	{
+		this._memory = ByteBuffer.allocateDirect(size * OffHeapEventStore.SLOT_SIZE).order(ByteOrder.nativeOrder());
+		this._classLoggers = new ClassLogger[size];
+		this._levels = new Level[size];
+		this._methodNames = new String[size];
+		this._thrown = new Throwable[size];
+		this._contexts = new LogContext[size];
+		this._overflow = new String[size];
+	}
+
+	/**
+	 * Gets the number of bytes allocated for the slots.
+	 *
+	 * @return The number of bytes, zero once released.
+	 */
+	long memorySize()
+	{
+		final ByteBuffer memory = this._memory;
+		return ((memory == null) ? 0L : memory.capacity());
+	}
+
+	/**
+	 * Stores an event in a slot.
+	 *
+	 * @param index
+	 *            The index of the slot.
+	 * @param classLogger
+	 *            The logger of the class that logged the event.
+	 * @param level
+	 *            The level of the event.
+	 * @param methodName
+	 *            The sanitized method name.
+	 * @param message
+	 *            The sanitized message.
+	 * @param thrown
+	 *            The throwable, may be null.
+	 * @param millis
+	 *            The time of the event in milliseconds since the epoch.
+	 * @param threadId
+	 *            The id of the thread that logged the event.
+	 * @param sampleRate
+	 *            How many events the event stands for.
+	 * @param context
+	 *            The diagnostic context of the thread that logged the event.
+	 */
+	void set(final int index, final ClassLogger classLogger, final Level level, final String methodName,
+	        final String message, final Throwable thrown, final long millis, final long threadId,
+	        final double sampleRate, final LogContext context)
+	{
+		this._classLoggers[index] = classLogger;
+		this._levels[index] = level;
+		this._methodNames[index] = methodName;
+		this._thrown[index] = thrown;
+		this._contexts[index] = context;
+
+		final ByteBuffer memory = this._memory;
+		if (memory == null)
+		{
+			// released, so the event is lost with the queue.
+			return;
+		}
+
+		final int offset = index * OffHeapEventStore.SLOT_SIZE;
+		memory.putLong(offset + OffHeapEventStore.MILLIS, millis);
+		memory.putLong(offset + OffHeapEventStore.THREAD_ID, threadId);
+		memory.putDouble(offset + OffHeapEventStore.SAMPLE_RATE, sampleRate);
+		memory.put(offset + OffHeapEventStore.DUMPED, (byte) 0);
+
+		final int length = message.length();
+		if (length > OffHeapEventStore.MAX_MESSAGE_LENGTH)
+		{
+			memory.putInt(offset + OffHeapEventStore.MESSAGE_LENGTH, OffHeapEventStore.OVERFLOW);
+			this._overflow[index] = message;
+			return;
+		}
+		memory.putInt(offset + OffHeapEventStore.MESSAGE_LENGTH, length);
+		int position = offset + OffHeapEventStore.MESSAGE;
+		for (int i = 0; i < length; i++)
+		{
+			memory.putChar(position, message.charAt(i));
+			position += 2;
+		}
+	}
+
+	/**
+	 * Stores a copy of an event in a slot.
+	 *
+	 * @param index
+	 *            The index of the slot.
+	 * @param event
+	 *            The event.
+	 */
+	void set(final int index, final LogEvent event)
+	{
+		set(index, event.getClassLogger(), event.getLevel(), event.getMethodName(), event.getMessage(),
+		        event.getThrown(), event.getMillis(), event.getThreadId(), event.getSampleRate(), event.getContext());
+
+		final ByteBuffer memory = this._memory;
+		if ((memory != null) && event.isDumped())
+		{
+			memory.put((index * OffHeapEventStore.SLOT_SIZE) + OffHeapEventStore.DUMPED, (byte) 1);
+		}
+	}
+
+	/**
+	 * Decodes the event of a slot.
+	 *
+	 * @param index
+	 *            The index of the slot.
+	 * @param target
+	 *            The event the values are decoded into.
+	 */
+	void get(final int index, final LogEvent target)
+	{
+		final ByteBuffer memory = this._memory;
+		if (memory == null)
+		{
+			target.clear();
+			return;
+		}
+
+		final int offset = index * OffHeapEventStore.SLOT_SIZE;
+		final int length = memory.getInt(offset + OffHeapEventStore.MESSAGE_LENGTH);
+		final String message;
+		if (length == OffHeapEventStore.OVERFLOW)
+		{
+			message = this._overflow[index];
+		}
+		else
+		{
+			final char[] chars = OffHeapEventStore.CHARS.get();
+			int position = offset + OffHeapEventStore.MESSAGE;
+			for (int i = 0; i < length; i++)
+			{
+				chars[i] = memory.getChar(position);
+				position += 2;
+			}
+			message = new String(chars, 0, length);
+		}
+
+		target.set(this._classLoggers[index], this._levels[index], this._methodNames[index], message,
+		        this._thrown[index], memory.getLong(offset + OffHeapEventStore.MILLIS),
+		        memory.getLong(offset + OffHeapEventStore.THREAD_ID), this._contexts[index]);
+		target.setSampleRate(memory.getDouble(offset + OffHeapEventStore.SAMPLE_RATE));
+		target.setDumped(memory.get(offset + OffHeapEventStore.DUMPED) != 0);
+	}
+
+	/**
+	 * Drops the references of a slot once its event is taken.
+	 *
+	 * @param index
+	 *            The index of the slot.
+	 */
+	void clear(final int index)
+	{
+		this._classLoggers[index] = null;
+		this._levels[index] = null;
+		this._methodNames[index] = null;
+		this._thrown[index] = null;
+		this._contexts[index] = null;
+		this._overflow[index] = null;
+	}
+
+	/**
+	 * Frees the memory of the slots. An event stored afterwards is lost.
+	 */
+	void release()
+	{
+		final ByteBuffer memory = this._memory;
+		this._memory = null;
+		if (memory != null)
+		{
+			OffHeapEventStore.free(memory);
+		}
+	}
+
+	/**
+	 * Runs the cleaner of a direct or mapped buffer now. Java 9 and later have Unsafe.invokeCleaner(), Java 8 has a
+	 * cleaner() method on the buffer. If neither can be reached the memory is left to the garbage collector. The
+	 * buffer must not be used afterwards.
+	 * <p>
+	 * Package scope.
+	 *
+	 * @param buffer
+	 *            The buffer to free.
+	 */
+	static void free(final ByteBuffer buffer)
+	{
+		try
+		{
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = null;
+			try
+			{
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			}
+			catch (final NoSuchMethodException e)
+			{
+				// void - Java 8.
+			}
+
+			if (invokeCleaner != null)
+			{
+				final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				invokeCleaner.invoke(theUnsafe.get(null), buffer);
+			}
+			else
+			{
+				final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				final Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null)
+				{
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		}
+		catch (final ReflectiveOperationException | RuntimeException e)
+		{
+			// void - the memory is freed by the garbage collector instead.
+		}
+	}
+}
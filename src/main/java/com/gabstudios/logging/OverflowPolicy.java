@@ -0,0 +1,40 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * Defines what a bounded queue of log events does when it is full.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public enum OverflowPolicy
+{
+	/**
+	 * Wait until there is room. No event is lost but the caller can be delayed.
+	 */
+	BLOCK,
+
+	/**
+	 * Discard the oldest queued event to make room for the new one.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Discard the new event.
+	 */
+	DROP_NEWEST
+}
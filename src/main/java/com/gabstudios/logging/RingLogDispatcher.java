@@ -0,0 +1,491 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+
+/**
+ * A dispatcher that queues events in a bounded ring buffer and hands them to a delegate on its own consumer thread.
+ * Callers publish events without taking a lock. The consumer drains the buffer in batches, and the buffer is drained
+ * when the dispatcher is closed and when the JVM shuts down.
+ * <p>
+ * A subclass decides what is done while the buffer is full and what the consumer does between batches. It calls
+ * <code>start()</code> at the end of its constructor.
+ * <p>
+ * Package scope.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+abstract class RingLogDispatcher implements LogDispatcher
+{
+
+	/**
+	 * The time the consumer waits for an event when the buffer is empty.
+	 */
+	static final long					IDLE_PARK_NANOS		= TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * Returned by <code>overflow()</code> when the events are dropped.
+	 */
+	static final long					DROPPED				= -2L;
+
+	private static final long			BLOCK_PARK_NANOS	= TimeUnit.MICROSECONDS.toNanos(50);
+
+	private static final long			CLOSED				= -3L;
+
+	private final LogRingBuffer			_ringBuffer;
+
+	private final LogDispatcher			_delegate;
+
+	private final int					_batchSize;
+
+	private final AtomicLong			_completedCount		= new AtomicLong();
+
+	private final AtomicInteger			_producerCount		= new AtomicInteger();
+
+	private final Thread				_consumer;
+
+	private final Thread				_shutdownHook;
+
+	private final ErrorManager			_errorManager		= new ErrorManager();
+
+	private volatile boolean			_sleeping;
+
+	private volatile boolean			_closed;
+
+	/**
+	 * Creates the dispatcher. The consumer thread is not started.
+	 *
+	 * @param name
+	 *            The name of the consumer thread.
+	 * @param ringBuffer
+	 *            The buffer the events are queued in.
+	 * @param delegate
+	 *            The dispatcher that writes the events on the consumer thread. Must not be null.
+	 * @param batchSize
+	 *            The number of events the consumer drains between two calls to <code>drained()</code>.
+	 */
+	RingLogDispatcher(final String name, final LogRingBuffer ringBuffer, final LogDispatcher delegate,
+	        final int batchSize)
+	{
+		if (delegate == null)
+		{
+			throw (new IllegalArgumentException("The 'delegate' parameter must not be null."));
+		}
+
+		this._ringBuffer = ringBuffer;
+		this._delegate = delegate;
+		this._batchSize = batchSize;
+
+		this._consumer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				consume();
+			}
+		}, name);
+		this._consumer.setDaemon(true);
+
+		this._shutdownHook = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				close();
+			}
+		}, name + "-shutdown");
+	}
+
+	/*
+	 * Starts the consumer thread once the subclass is constructed, since the consumer calls its methods.
+	 */
+	final void start()
+	{
+		this._consumer.start();
+		Runtime.getRuntime().addShutdownHook(this._shutdownHook);
+	}
+
+	/**
+	 * Gets the number of events the ring buffer holds.
+	 *
+	 * @return The buffer size.
+	 */
+	public int getBufferSize()
+	{
+		return (this._ringBuffer.capacity());
+	}
+
+	/**
+	 * Gets the dispatcher that writes the events.
+	 *
+	 * @return A <code>LogDispatcher</code> instance.
+	 */
+	public LogDispatcher getDelegate()
+	{
+		return (this._delegate);
+	}
+
+	/**
+	 * Gets the number of events waiting in the ring buffer.
+	 *
+	 * @return The number of queued events.
+	 */
+	public int getQueuedCount()
+	{
+		return (this._ringBuffer.size());
+	}
+
+	/*
+	 * Gets the buffer the events are queued in.
+	 */
+	final LogRingBuffer ringBuffer()
+	{
+		return (this._ringBuffer);
+	}
+
+	@Override
+	public void dispatch(final ClassLogger classLogger, final Level level, final String methodName,
+	        final String message, final Throwable thrown)
+	{
+		final Thread thread = Thread.currentThread();
+		final long millis = System.currentTimeMillis();
+		final long position = (thread == this._consumer) ? RingLogDispatcher.CLOSED : enter(1);
+		if (position == RingLogDispatcher.CLOSED)
+		{
+			// a handler that logs would otherwise wait on itself.
+			this._delegate.dispatch(classLogger, level, methodName, message, thrown);
+			return;
+		}
+		if (position == RingLogDispatcher.DROPPED)
+		{
+			return;
+		}
+
+		try
+		{
+			this._ringBuffer.set(position, classLogger, level, methodName, message, thrown, millis, thread.getId(),
+			        LogContext.current());
+			this._ringBuffer.publish(position);
+		}
+		finally
+		{
+			exit();
+		}
+	}
+
+	/**
+	 * Queues a copy of the event, which keeps the time, thread and context it was created with.
+	 */
+	@Override
+	public void dispatch(final LogEvent event)
+	{
+		final long position = (Thread.currentThread() == this._consumer) ? RingLogDispatcher.CLOSED : enter(1);
+		if (position == RingLogDispatcher.CLOSED)
+		{
+			this._delegate.dispatch(event);
+			return;
+		}
+		if (position == RingLogDispatcher.DROPPED)
+		{
+			return;
+		}
+
+		try
+		{
+			this._ringBuffer.set(position, event);
+			this._ringBuffer.publish(position);
+		}
+		finally
+		{
+			exit();
+		}
+	}
+
+	/**
+	 * Queues the events of a batch in consecutive slots, so they reach the delegate together. A batch larger than the
+	 * ring buffer is queued in parts.
+	 */
+	@Override
+	public void dispatch(final LogEvent[] events, final int count)
+	{
+		final boolean consumer = (Thread.currentThread() == this._consumer);
+		for (int start = 0; start < count; start += this._ringBuffer.capacity())
+		{
+			final int partCount = Math.min(count - start, this._ringBuffer.capacity());
+			final long position = consumer ? RingLogDispatcher.CLOSED : enter(partCount);
+			if (position == RingLogDispatcher.CLOSED)
+			{
+				if (start == 0)
+				{
+					this._delegate.dispatch(events, count);
+					return;
+				}
+				for (int i = start; i < count; i++)
+				{
+					this._delegate.dispatch(events[i]);
+				}
+				return;
+			}
+			if (position == RingLogDispatcher.DROPPED)
+			{
+				continue;
+			}
+
+			try
+			{
+				for (int i = 0; i < partCount; i++)
+				{
+					this._ringBuffer.set(position + i, events[start + i]);
+				}
+				for (int i = 0; i < partCount; i++)
+				{
+					this._ringBuffer.publish(position + i);
+				}
+			}
+			finally
+			{
+				exit();
+			}
+		}
+	}
+
+	/*
+	 * Claims consecutive slots, calling overflow() while the buffer is full. The caller is counted as a producer until
+	 * it calls exit(), so close() does not drain and release the ring buffer while an event is being published.
+	 * Returns DROPPED if the events were dropped or CLOSED if the dispatcher is closed, in which cases the caller is
+	 * not counted.
+	 */
+	private long enter(final int count)
+	{
+		this._producerCount.incrementAndGet();
+		long position = this._closed ? RingLogDispatcher.CLOSED : this._ringBuffer.claim(count);
+		while (position == -1L)
+		{
+			position = this._closed ? RingLogDispatcher.CLOSED : overflow(count);
+		}
+		if (position < 0)
+		{
+			this._producerCount.decrementAndGet();
+		}
+		return (position);
+	}
+
+	/*
+	 * Ends a publish started by enter() and wakes the consumer if it is waiting.
+	 */
+	private void exit()
+	{
+		this._producerCount.decrementAndGet();
+		if (this._sleeping)
+		{
+			LockSupport.unpark(this._consumer);
+		}
+	}
+
+	/**
+	 * Called by a producer while the ring buffer is full. Waits for the consumer and claims the slots again.
+	 * <p>
+	 * Package scope.
+	 *
+	 * @param count
+	 *            The number of slots the producer claims.
+	 * @return The position of the claimed slots, -1 to call again or <code>DROPPED</code> if the events are dropped.
+	 */
+	long overflow(final int count)
+	{
+		LockSupport.unpark(this._consumer);
+		LockSupport.parkNanos(this, RingLogDispatcher.BLOCK_PARK_NANOS);
+		return (this._ringBuffer.claim(count));
+	}
+
+	/**
+	 * Discards the oldest queued event without handing it to the delegate.
+	 * <p>
+	 * Package scope.
+	 *
+	 * @return True if an event was discarded, false if the ring buffer is empty.
+	 */
+	final boolean discardOldest()
+	{
+		if (this._ringBuffer.take(null))
+		{
+			this._completedCount.incrementAndGet();
+			return (true);
+		}
+		return (false);
+	}
+
+	/**
+	 * Called on the consumer thread after each batch.
+	 * <p>
+	 * Package scope.
+	 *
+	 * @param count
+	 *            The number of events handed to the delegate, zero if the ring buffer was empty.
+	 * @return The longest time to wait for an event, or zero to drain the next batch at once.
+	 */
+	long drained(final int count)
+	{
+		return ((count == 0) ? RingLogDispatcher.IDLE_PARK_NANOS : 0L);
+	}
+
+	/**
+	 * Called once the consumer has stopped and the ring buffer has been drained for the last time, on the consumer
+	 * thread and again by <code>close()</code>.
+	 * <p>
+	 * Package scope.
+	 *
+	 * @param count
+	 *            The number of events handed to the delegate by the last drain.
+	 */
+	void stopped(final int count)
+	{
+		// void
+	}
+
+	/**
+	 * Writes the queued events, waiting for the consumer thread, and flushes the delegate.
+	 */
+	@Override
+	public void flush()
+	{
+		if (Thread.currentThread() == this._consumer)
+		{
+			return;
+		}
+
+		final long target = this._ringBuffer.claimedCount();
+		while ((this._completedCount.get() < target) && this._consumer.isAlive())
+		{
+			LockSupport.unpark(this._consumer);
+			LockSupport.parkNanos(this, RingLogDispatcher.BLOCK_PARK_NANOS);
+		}
+
+		if (this._completedCount.get() < target)
+		{
+			// the consumer has stopped, so drain what is left on this thread, but not while close() releases the buffer.
+			synchronized (this)
+			{
+				drain(new LogEvent(), Integer.MAX_VALUE);
+			}
+		}
+		this._delegate.flush();
+	}
+
+	/**
+	 * Writes every queued event and stops the consumer thread. The delegate is not closed.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		if (this._closed)
+		{
+			return;
+		}
+		this._closed = true;
+
+		final Thread thread = Thread.currentThread();
+		if (thread != this._consumer)
+		{
+			LockSupport.unpark(this._consumer);
+			try
+			{
+				this._consumer.join();
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		// catch any event published while the consumer was stopping. A producer that saw the dispatcher open is
+		// waited for, since its event would otherwise be lost with the ring buffer.
+		while (this._producerCount.get() > 0)
+		{
+			LockSupport.parkNanos(this, RingLogDispatcher.BLOCK_PARK_NANOS);
+		}
+		stopped(drain(new LogEvent(), Integer.MAX_VALUE));
+		this._ringBuffer.release();
+
+		if (thread != this._shutdownHook)
+		{
+			try
+			{
+				Runtime.getRuntime().removeShutdownHook(this._shutdownHook);
+			}
+			catch (final IllegalStateException e)
+			{
+				// void - the JVM is already shutting down.
+			}
+		}
+	}
+
+	/*
+	 * The consumer thread loop.
+	 */
+	private void consume()
+	{
+		final LogEvent event = new LogEvent();
+		while (!this._closed)
+		{
+			final long parkNanos = drained(drain(event, this._batchSize));
+			if (parkNanos > 0L)
+			{
+				this._sleeping = true;
+				if ((this._ringBuffer.size() == 0) && !this._closed)
+				{
+					LockSupport.parkNanos(this, parkNanos);
+				}
+				this._sleeping = false;
+			}
+		}
+		stopped(drain(event, Integer.MAX_VALUE));
+	}
+
+	/*
+	 * Hands up to maxCount events to the delegate.
+	 */
+	private int drain(final LogEvent event, final int maxCount)
+	{
+		int count = 0;
+		while ((count < maxCount) && this._ringBuffer.take(event))
+		{
+			try
+			{
+				this._delegate.dispatch(event);
+			}
+			catch (final RuntimeException e)
+			{
+				// a broken handler must not stop the consumer.
+				this._errorManager.error("Unable to dispatch a log event.", e, ErrorManager.WRITE_FAILURE);
+			}
+			finally
+			{
+				event.clear();
+				this._completedCount.incrementAndGet();
+			}
+			count++;
+		}
+		return (count);
+	}
+}
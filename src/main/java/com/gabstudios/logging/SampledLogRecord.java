@@ -0,0 +1,80 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.logging.Level;
+
+/**
+ * The record the java logging engine writes for an event that was chosen by a <code>LogSampler</code>. A handler can
+ * check for it to scale its counts back up.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class SampledLogRecord extends ContextLogRecord
+{
+
+	/**
+	 * Serialization
+	 */
+	private static final long	serialVersionUID	= 3871295045372961530L;
+
+	private final double		_sampleRate;
+
+	/**
+	 * Creates the record.
+	 *
+	 * @param level
+	 *            The level of the event.
+	 * @param message
+	 *            The sanitized message.
+	 * @param sampleRate
+	 *            How many events the record stands for.
+	 */
+	public SampledLogRecord(final Level level, final String message, final double sampleRate)
+	{
+		this(level, message, sampleRate, LogContext.EMPTY);
+	}
+
+	/**
+	 * Creates the record of an event logged with a diagnostic context.
+	 *
+	 * @param level
+	 *            The level of the event.
+	 * @param message
+	 *            The sanitized message.
+	 * @param sampleRate
+	 *            How many events the record stands for.
+	 * @param context
+	 *            The diagnostic context of the event. Must not be null.
+	 */
+	public SampledLogRecord(final Level level, final String message, final double sampleRate,
+	        final LogContext context)
+	{
+		super(level, message, context);
+		this._sampleRate = sampleRate;
+	}
+
+	/**
+	 * Gets how many events the record stands for.
+	 *
+	 * @return The sample rate, one or more.
+	 */
+	public double getSampleRate()
+	{
+		return (this._sampleRate);
+	}
+}
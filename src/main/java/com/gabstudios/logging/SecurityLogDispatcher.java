@@ -0,0 +1,161 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+
+/**
+ * The lane of the <code>SECURITY</code> events. It has its own bounded ring buffer and consumer thread, so a burst of
+ * ordinary events in the other dispatcher can never delay or evict an audit record.
+ * <p>
+ * An event is never dropped. When the ring buffer is full the caller waits for the consumer. The events are written
+ * to the delegate in batches and committed as a group: the delegate is flushed once after a number of events, or once
+ * the oldest event that is not flushed has waited for an interval, whichever comes first. An appender that forces its
+ * file on <code>flush()</code>, such as the <code>MappedFileAppender</code>, then syncs the audit records without
+ * syncing on every ordinary event.
+ * <p>
+ * Enable it with <code>LogProvider.enableSecurityLane()</code> or the <code>com.gabstudios.logging.security</code>
+ * system property.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class SecurityLogDispatcher extends RingLogDispatcher
+{
+
+	private static final int		BATCH_SIZE			= 64;
+
+	private final int				_syncEvents;
+
+	private final long				_syncIntervalNanos;
+
+	private final AtomicLong		_syncCount			= new AtomicLong();
+
+	private final ErrorManager		_errorManager		= new ErrorManager();
+
+	private int						_unsynced;
+
+	private long					_oldestNanos;
+
+	/**
+	 * Creates the dispatcher and starts its consumer thread.
+	 *
+	 * @param bufferSize
+	 *            The number of events the ring buffer holds. Rounded up to a power of two.
+	 * @param syncEvents
+	 *            The number of events after which the delegate is flushed. Must be greater than zero.
+	 * @param syncIntervalMillis
+	 *            The longest time an event waits for the delegate to be flushed. Must be greater than zero.
+	 * @param delegate
+	 *            The dispatcher that writes the events on the consumer thread. Must not be null.
+	 */
+	public SecurityLogDispatcher(final int bufferSize, final int syncEvents, final long syncIntervalMillis,
+	        final LogDispatcher delegate)
+	{
+		super("gab-logging-security", new LogRingBuffer(bufferSize), delegate, SecurityLogDispatcher.BATCH_SIZE);
+
+		if (syncEvents < 1)
+		{
+			throw (new IllegalArgumentException("The 'syncEvents' parameter must be greater than zero."));
+		}
+		if (syncIntervalMillis < 1)
+		{
+			throw (new IllegalArgumentException("The 'syncIntervalMillis' parameter must be greater than zero."));
+		}
+
+		this._syncEvents = syncEvents;
+		this._syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+		start();
+	}
+
+	/**
+	 * Gets the number of times the delegate was flushed by the consumer.
+	 *
+	 * @return The number of group commits.
+	 */
+	public long getSyncCount()
+	{
+		return (this._syncCount.get());
+	}
+
+	/**
+	 * Always zero, the lane never drops an event.
+	 *
+	 * @return Zero.
+	 */
+	@Override
+	public long getDroppedCount()
+	{
+		return (0L);
+	}
+
+	/**
+	 * Flushes the delegate after <code>syncEvents</code> events, or when the oldest unflushed event has waited for the
+	 * sync interval.
+	 */
+	@Override
+	long drained(final int count)
+	{
+		if ((count > 0) && (this._unsynced == 0))
+		{
+			this._oldestNanos = System.nanoTime();
+		}
+		this._unsynced += count;
+
+		final long waited = System.nanoTime() - this._oldestNanos;
+		if ((this._unsynced > 0) && ((this._unsynced >= this._syncEvents) || (waited >= this._syncIntervalNanos)))
+		{
+			sync();
+			return (0L);
+		}
+		if (count > 0)
+		{
+			return (0L);
+		}
+		return ((this._unsynced > 0) ? (this._syncIntervalNanos - waited) : RingLogDispatcher.IDLE_PARK_NANOS);
+	}
+
+	/**
+	 * Flushes the delegate if any event was written since it was last flushed.
+	 */
+	@Override
+	void stopped(final int count)
+	{
+		if ((count > 0) || (this._unsynced > 0))
+		{
+			sync();
+		}
+	}
+
+	/*
+	 * Commits the events written so far.
+	 */
+	private void sync()
+	{
+		try
+		{
+			getDelegate().flush();
+		}
+		catch (final RuntimeException e)
+		{
+			this._errorManager.error("Unable to flush the security events.", e, ErrorManager.FLUSH_FAILURE);
+		}
+		this._unsynced = 0;
+		this._syncCount.incrementAndGet();
+	}
+}
@@ -0,0 +1,181 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * The default layout. Writes the same line as the <code>SimpleFormatter</code> format in the sample
+ * <code>logging.properties</code>:
+ *
+ * <pre>
+ * 2018-01-31|13:45:10.250|INFO|com.acme.Order|com.acme.Order submit|order placed
+ * </pre>
+ *
+ * The stack trace of a throwable follows on the next lines. A layout given a <code>StackTraceCache</code> writes a
+ * stack trace in full only the first time it is seen. When the thread had a diagnostic context, its values are
+ * written as a field before the message:
+ *
+ * <pre>
+ * 2018-01-31|13:45:10.250|INFO|com.acme.Order|com.acme.Order submit|requestId=42 tenant=acme|order placed
+ * </pre>
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class SimpleLogLayout implements LogLayout
+{
+	private static final String	LINE_SEPARATOR	= System.lineSeparator();
+
+	private static final char	SEPARATOR		= '|';
+
+	private final ZoneId			_zone;
+
+	private final StackTraceCache	_stackTraces;
+
+	/**
+	 * Creates a layout that writes the time in the default time zone.
+	 */
+	public SimpleLogLayout()
+	{
+		this(ZoneId.systemDefault());
+	}
+
+	/**
+	 * Creates a layout that writes every stack trace in full.
+	 *
+	 * @param zone
+	 *            The time zone the time is written in. Must not be null.
+	 */
+	public SimpleLogLayout(final ZoneId zone)
+	{
+		this(zone, null);
+	}
+
+	/**
+	 * Creates a layout.
+	 *
+	 * @param zone
+	 *            The time zone the time is written in. Must not be null.
+	 * @param stackTraces
+	 *            The cache that writes a repeated stack trace as its fingerprint, or null to write every stack trace
+	 *            in full.
+	 */
+	public SimpleLogLayout(final ZoneId zone, final StackTraceCache stackTraces)
+	{
+		if (zone == null)
+		{
+			throw (new IllegalArgumentException("The 'zone' parameter must not be null."));
+		}
+		this._zone = zone;
+		this._stackTraces = stackTraces;
+	}
+
+	@Override
+	public void format(final LogEvent event, final StringBuilder builder)
+	{
+		String stackTrace = null;
+		final Throwable thrown = event.getThrown();
+		if ((thrown != null) && (this._stackTraces != null))
+		{
+			stackTrace = this._stackTraces.format(thrown);
+		}
+		else if (thrown != null)
+		{
+			final StringWriter writer = new StringWriter();
+			thrown.printStackTrace(new PrintWriter(writer));
+			stackTrace = writer.toString();
+		}
+		format(event.getMillis(), event.getLevel().getName(), event.getClassName(), event.getMethodName(),
+		        event.getContext(), event.getMessage(), stackTrace, builder);
+	}
+
+	/**
+	 * Writes the line of an event from its values. Used by <code>BinaryLogDecoder</code> to write the same text as
+	 * this layout.
+	 *
+	 * @param millis
+	 *            The time of the event in milliseconds since the epoch.
+	 * @param levelName
+	 *            The name of the level.
+	 * @param className
+	 *            The fully qualified class name.
+	 * @param methodName
+	 *            The method name.
+	 * @param context
+	 *            The diagnostic context.
+	 * @param message
+	 *            The message.
+	 * @param stackTrace
+	 *            The printed stack trace, or null if no throwable was logged.
+	 * @param builder
+	 *            The buffer the line is appended to.
+	 */
+	void format(final long millis, final String levelName, final String className, final String methodName,
+	        final LogContext context, final String message, final String stackTrace, final StringBuilder builder)
+	{
+		final LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), this._zone);
+		SimpleLogLayout.appendPadded(builder, time.getYear(), 4).append('-');
+		SimpleLogLayout.appendPadded(builder, time.getMonthValue(), 2).append('-');
+		SimpleLogLayout.appendPadded(builder, time.getDayOfMonth(), 2).append(SimpleLogLayout.SEPARATOR);
+		SimpleLogLayout.appendPadded(builder, time.getHour(), 2).append(':');
+		SimpleLogLayout.appendPadded(builder, time.getMinute(), 2).append(':');
+		SimpleLogLayout.appendPadded(builder, time.getSecond(), 2).append('.');
+		SimpleLogLayout.appendPadded(builder, time.getNano() / 1000000, 3).append(SimpleLogLayout.SEPARATOR);
+
+		builder.append(levelName).append(SimpleLogLayout.SEPARATOR);
+		builder.append(className).append(SimpleLogLayout.SEPARATOR);
+		builder.append(className).append(' ').append(methodName).append(SimpleLogLayout.SEPARATOR);
+		if (!context.isEmpty())
+		{
+			context.appendTo(builder).append(SimpleLogLayout.SEPARATOR);
+		}
+		builder.append(message).append(SimpleLogLayout.LINE_SEPARATOR);
+		if (stackTrace != null)
+		{
+			builder.append(stackTrace);
+		}
+	}
+
+	/**
+	 * Appends a number with leading zeros. Shared by the layouts and formatters that write times.
+	 * <p>
+	 * Package scope.
+	 *
+	 * @param builder
+	 *            The builder the number is appended to.
+	 * @param value
+	 *            The number, zero or greater.
+	 * @param width
+	 *            The least number of digits.
+	 * @return The builder.
+	 */
+	static StringBuilder appendPadded(final StringBuilder builder, final int value, final int width)
+	{
+		for (int bound = 10, i = 1; i < width; bound *= 10, i++)
+		{
+			if (value < bound)
+			{
+				builder.append('0');
+			}
+		}
+		return (builder.append(value));
+	}
+}
@@ -0,0 +1,40 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+/**
+ * The health of a <code>LogSink</code>.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public enum SinkHealth
+{
+	/**
+	 * The sink keeps up with the events given to it.
+	 */
+	HEALTHY,
+
+	/**
+	 * The sink is falling behind: its queue is mostly full or a write has not returned for a while.
+	 */
+	SLOW,
+
+	/**
+	 * The last write to the sink failed. Its events are dropped until a write succeeds again.
+	 */
+	FAILED
+}
@@ -0,0 +1,278 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the stack trace of a throwable in full only the first time it is seen. A layout that is given a cache
+ * writes a repeated stack trace as its fingerprint, the number of times it was seen and the first line of the
+ * throwable:
+ *
+ * <pre>
+ * [trace 5f1c0e2a9b7d4c31] java.lang.IllegalStateException: connection refused
+ * 	at com.acme.Order.submit(Order.java:42)
+ * 	...
+ * [trace 5f1c0e2a9b7d4c31 seen 2 times] java.lang.IllegalStateException: connection refused
+ * </pre>
+ *
+ * The fingerprint is a 64-bit FNV-1a hash of the class names of the throwable and its causes and of the class,
+ * method and line of every frame. Messages are left out, so the same failure with a different id in its message has
+ * the same fingerprint. It is computed from the characters of the names, not from object hash codes, so it is the
+ * same in every run of the same code and can be used to match the logs of different runs.
+ * <p>
+ * The cache keeps the counts of a bounded number of fingerprints and evicts the least recently seen. A stack trace
+ * whose fingerprint was evicted is written in full again.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public final class StackTraceCache
+{
+
+	/**
+	 * The default number of fingerprints kept.
+	 */
+	public static final int					DEFAULT_CAPACITY	= 1024;
+
+	private static final String				LINE_SEPARATOR		= System.lineSeparator();
+
+	private static final long				FNV_OFFSET			= 0xcbf29ce484222325L;
+
+	private static final long				FNV_PRIME			= 0x100000001b3L;
+
+	/*
+	 * The most causes hashed, so a cause chain with a loop ends.
+	 */
+	private static final int				MAX_CAUSES			= 64;
+
+	/*
+	 * The number of times a fingerprint was seen.
+	 */
+	private static final class Fingerprint
+	{
+		long	_count;
+	}
+
+	private final int						_capacity;
+
+	private final Map<Long, Fingerprint>	_entries;
+
+	private final ReentrantLock				_lock				= new ReentrantLock();
+
+	/**
+	 * Creates a cache that keeps <code>DEFAULT_CAPACITY</code> fingerprints.
+	 */
+	public StackTraceCache()
+	{
+		this(StackTraceCache.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param capacity
+	 *            The number of fingerprints kept. Must be greater than zero.
+	 */
+	public StackTraceCache(final int capacity)
+	{
+		if (capacity < 1)
+		{
+			throw (new IllegalArgumentException("The 'capacity' parameter must be greater than zero."));
+		}
+		this._capacity = capacity;
+		this._entries = new LinkedHashMap<Long, Fingerprint>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, Fingerprint> eldest)
+			{
+				return (size() > StackTraceCache.this._capacity);
+			}
+		};
+	}
+
+	/**
+	 * Gets the number of fingerprints kept.
+	 *
+	 * @return The capacity.
+	 */
+	public int getCapacity()
+	{
+		return (this._capacity);
+	}
+
+	/**
+	 * Gets the number of fingerprints in the cache.
+	 *
+	 * @return The number of fingerprints.
+	 */
+	public int size()
+	{
+		this._lock.lock();
+		try
+		{
+			return (this._entries.size());
+		}
+		finally
+		{
+			this._lock.unlock();
+		}
+	}
+
+	/**
+	 * Forgets every fingerprint, so every stack trace is written in full again.
+	 */
+	public void clear()
+	{
+		this._lock.lock();
+		try
+		{
+			this._entries.clear();
+		}
+		finally
+		{
+			this._lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the text written for a throwable and counts it. The stack trace is written in full the first time its
+	 * fingerprint is seen, and as the fingerprint, the count and the first line of the throwable afterwards. The text
+	 * ends with a line separator.
+	 *
+	 * @param thrown
+	 *            The throwable. Must not be null.
+	 * @return The text of the stack trace.
+	 */
+	public String format(final Throwable thrown)
+	{
+		final long fingerprint = StackTraceCache.fingerprint(thrown);
+		final long count;
+		this._lock.lock();
+		try
+		{
+			final Long key = Long.valueOf(fingerprint);
+			Fingerprint entry = this._entries.get(key);
+			if (entry == null)
+			{
+				entry = new Fingerprint();
+				this._entries.put(key, entry);
+			}
+			count = ++entry._count;
+		}
+		finally
+		{
+			this._lock.unlock();
+		}
+
+		final StringBuilder builder = new StringBuilder("[trace ");
+		StackTraceCache.appendId(builder, fingerprint);
+		if (count == 1)
+		{
+			final StringWriter writer = new StringWriter();
+			thrown.printStackTrace(new PrintWriter(writer));
+			return (builder.append("] ").append(writer.toString()).toString());
+		}
+		builder.append(" seen ").append(count).append(" times] ").append(thrown);
+		return (builder.append(StackTraceCache.LINE_SEPARATOR).toString());
+	}
+
+	/**
+	 * Gets the fingerprint of the stack trace of a throwable and its causes.
+	 *
+	 * @param thrown
+	 *            The throwable. Must not be null.
+	 * @return The fingerprint.
+	 */
+	public static long fingerprint(final Throwable thrown)
+	{
+		if (thrown == null)
+		{
+			throw (new IllegalArgumentException("The 'thrown' parameter must not be null."));
+		}
+
+		long hash = StackTraceCache.FNV_OFFSET;
+		Throwable current = thrown;
+		for (int i = 0; (current != null) && (i < StackTraceCache.MAX_CAUSES); i++)
+		{
+			hash = StackTraceCache.hash(hash, current.getClass().getName());
+			for (final StackTraceElement frame : current.getStackTrace())
+			{
+				hash = StackTraceCache.hash(hash, frame.getClassName());
+				hash = StackTraceCache.hash(hash, frame.getMethodName());
+				hash = StackTraceCache.hash(hash, frame.getLineNumber());
+			}
+			current = current.getCause();
+		}
+		return (hash);
+	}
+
+	/**
+	 * Gets the fingerprint of a throwable as the 16 hexadecimal digits it is written with.
+	 *
+	 * @param thrown
+	 *            The throwable. Must not be null.
+	 * @return The fingerprint id.
+	 */
+	public static String fingerprintId(final Throwable thrown)
+	{
+		return (StackTraceCache.appendId(new StringBuilder(16), StackTraceCache.fingerprint(thrown)).toString());
+	}
+
+	/*
+	 * Hashes the characters of a name, followed by a separator so adjacent names cannot run together.
+	 */
+	private static long hash(final long hash, final String value)
+	{
+		long result = hash;
+		for (int i = 0; i < value.length(); i++)
+		{
+			result = (result ^ value.charAt(i)) * StackTraceCache.FNV_PRIME;
+		}
+		return ((result ^ 0xffffL) * StackTraceCache.FNV_PRIME);
+	}
+
+	/*
+	 * Hashes the four bytes of a number.
+	 */
+	private static long hash(final long hash, final int value)
+	{
+		long result = hash;
+		for (int shift = 0; shift < 32; shift += 8)
+		{
+			result = (result ^ ((value >>> shift) & 0xff)) * StackTraceCache.FNV_PRIME;
+		}
+		return (result);
+	}
+
+	/*
+	 * Appends a fingerprint as 16 hexadecimal digits.
+	 */
+	private static StringBuilder appendId(final StringBuilder builder, final long fingerprint)
+	{
+		for (int shift = 60; shift >= 0; shift -= 4)
+		{
+			builder.append(Character.forDigit((int) (fingerprint >>> shift) & 0xf, 16));
+		}
+		return (builder);
+	}
+}
@@ -0,0 +1,295 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+
+/**
+ * Writes events as UTF-8 text to an <code>OutputStream</code>, by default <code>System.err</code> like the
+ * <code>ConsoleHandler</code>. The text, character and byte buffers are kept between events, so writing an event does
+ * not allocate once the buffers have grown to fit.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class StreamAppender implements LogAppender
+{
+	private static final int		BYTE_BUFFER_SIZE	= 8192;
+
+	private final OutputStream		_out;
+
+	private final LogLayout			_layout;
+
+	private final boolean			_autoFlush;
+
+	private final StringBuilder		_builder			= new StringBuilder(256);
+
+	private final CharsetEncoder	_encoder			= StandardCharsets.UTF_8.newEncoder()
+	        .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private final ByteBuffer		_bytes				= ByteBuffer.allocate(StreamAppender.BYTE_BUFFER_SIZE);
+
+	private final ErrorManager		_errorManager		= new ErrorManager();
+
+	private final ReentrantLock		_lock				= new ReentrantLock();
+
+	private CharBuffer				_chars				= CharBuffer.allocate(256);
+
+	private boolean					_closed;
+
+	private volatile LogMetrics		_metrics;
+
+	/**
+	 * Creates an appender that writes to <code>System.err</code> with the <code>SimpleLogLayout</code> and flushes
+	 * every event.
+	 */
+	public StreamAppender()
+	{
+		this(System.err, new SimpleLogLayout(), true);
+	}
+
+	/**
+	 * Creates an appender.
+	 *
+	 * @param out
+	 *            The stream to write to. Must not be null.
+	 * @param layout
+	 *            The layout that turns an event into text. Must not be null.
+	 * @param autoFlush
+	 *            True to flush the stream after every event.
+	 */
+	public StreamAppender(final OutputStream out, final LogLayout layout, final boolean autoFlush)
+	{
+		if (out == null)
+		{
+			throw (new IllegalArgumentException("The 'out' parameter must not be null."));
+		}
+		if (layout == null)
+		{
+			throw (new IllegalArgumentException("The 'layout' parameter must not be null."));
+		}
+		this._out = out;
+		this._layout = layout;
+		this._autoFlush = autoFlush;
+	}
+
+	@Override
+	public void append(final LogEvent event)
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+
+			final StringBuilder builder = this._builder;
+			builder.setLength(0);
+			this._layout.format(event, builder);
+
+			try
+			{
+				write(builder);
+				if (this._autoFlush)
+				{
+					this._out.flush();
+				}
+			}
+			catch (final IOException e)
+			{
+				this._errorManager.error("Unable to write a log event.", e, ErrorManager.WRITE_FAILURE);
+				recordDropped(1L);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Formats the events of a batch into one text, and writes and flushes it once under the lock.
+	 */
+	@Override
+	public void append(final LogEvent[] events, final int count)
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+
+			final StringBuilder builder = this._builder;
+			builder.setLength(0);
+			for (int i = 0; i < count; i++)
+			{
+				this._layout.format(events[i], builder);
+			}
+
+			try
+			{
+				write(builder);
+				if (this._autoFlush)
+				{
+					this._out.flush();
+				}
+			}
+			catch (final IOException e)
+			{
+				this._errorManager.error("Unable to write a batch of log events.", e, ErrorManager.WRITE_FAILURE);
+				recordDropped(count);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * Encodes the text into the byte buffer and writes it out, a buffer at a time.
+	 */
+	private void write(final StringBuilder builder) throws IOException
+	{
+		final int length = builder.length();
+		if (this._chars.capacity() < length)
+		{
+			this._chars = CharBuffer.allocate(Math.max(length, this._chars.capacity() * 2));
+		}
+		final CharBuffer chars = this._chars;
+		chars.clear();
+		builder.getChars(0, length, chars.array(), 0);
+		chars.limit(length);
+
+		final ByteBuffer bytes = this._bytes;
+		final CharsetEncoder encoder = this._encoder;
+		encoder.reset();
+		CoderResult result = encoder.encode(chars, bytes, true);
+		while (result.isOverflow())
+		{
+			drain(bytes);
+			result = encoder.encode(chars, bytes, true);
+		}
+		result = encoder.flush(bytes);
+		while (result.isOverflow())
+		{
+			drain(bytes);
+			result = encoder.flush(bytes);
+		}
+		drain(bytes);
+	}
+
+	/*
+	 * Writes the encoded bytes to the stream and empties the buffer.
+	 */
+	private void drain(final ByteBuffer bytes) throws IOException
+	{
+		final int length = bytes.position();
+		this._out.write(bytes.array(), 0, length);
+		bytes.clear();
+
+		final LogMetrics metrics = this._metrics;
+		if (metrics != null)
+		{
+			metrics.recordBytesWritten(length);
+		}
+	}
+
+	/*
+	 * Reports events lost to a failed write.
+	 */
+	private void recordDropped(final long count)
+	{
+		final LogMetrics metrics = this._metrics;
+		if (metrics != null)
+		{
+			metrics.recordDropped(count);
+		}
+	}
+
+	@Override
+	public void setMetrics(final LogMetrics metrics)
+	{
+		this._metrics = metrics;
+	}
+
+	@Override
+	public void flush()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			try
+			{
+				this._out.flush();
+			}
+			catch (final IOException e)
+			{
+				this._errorManager.error("Unable to flush the log stream.", e, ErrorManager.FLUSH_FAILURE);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+			this._closed = true;
+			flush();
+			if ((this._out != System.err) && (this._out != System.out))
+			{
+				try
+				{
+					this._out.close();
+				}
+				catch (final IOException e)
+				{
+					this._errorManager.error("Unable to close the log stream.", e, ErrorManager.CLOSE_FAILURE);
+				}
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+}
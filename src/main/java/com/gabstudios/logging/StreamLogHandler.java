@@ -0,0 +1,240 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * A java logging handler that writes records as UTF-8 text to an <code>OutputStream</code>, by default
+ * <code>System.err</code> like the <code>ConsoleHandler</code>.
+ * <p>
+ * The <code>StreamHandler</code> formats and writes every record inside a <code>synchronized</code> method, so a
+ * virtual thread that logs holds its carrier thread for the whole write and every other thread waits behind it. This
+ * handler formats and encodes a record on the caller's thread without a lock, and only holds a
+ * <code>ReentrantLock</code> for the write to the stream. Use a formatter that is safe to call from several threads at
+ * once, such as the <code>CompiledFormatter</code>, which is the default.
+ * <p>
+ * Set it in <code>logging.properties</code>:
+ *
+ * <pre>
+ * handlers=com.gabstudios.logging.StreamLogHandler
+ * com.gabstudios.logging.StreamLogHandler.level=ALL
+ * com.gabstudios.logging.StreamLogHandler.formatter=com.gabstudios.logging.CompiledFormatter
+ * </pre>
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class StreamLogHandler extends Handler
+{
+
+	private final OutputStream	_out;
+
+	private final boolean		_autoFlush;
+
+	private final ReentrantLock	_lock	= new ReentrantLock();
+
+	private boolean				_headWritten;
+
+	private boolean				_closed;
+
+	/**
+	 * Creates a handler that writes to <code>System.err</code> and flushes every record. The level and formatter are
+	 * read from the <code>LogManager</code> properties of the class name, and default to <code>INFO</code> and the
+	 * <code>CompiledFormatter</code>. Called by the <code>LogManager</code> for the <code>handlers</code> property.
+	 */
+	public StreamLogHandler()
+	{
+		this(System.err, StreamLogHandler.configuredFormatter(), true);
+
+		final String level = LogManager.getLogManager().getProperty(StreamLogHandler.class.getName() + ".level");
+		setLevel((level == null) ? Level.INFO : Level.parse(level.trim()));
+	}
+
+	/**
+	 * Creates a handler that logs every level.
+	 *
+	 * @param out
+	 *            The stream to write to. Must not be null.
+	 * @param formatter
+	 *            The formatter that turns a record into text. Must not be null.
+	 * @param autoFlush
+	 *            True to flush the stream after every record.
+	 */
+	public StreamLogHandler(final OutputStream out, final Formatter formatter, final boolean autoFlush)
+	{
+		if (out == null)
+		{
+			throw (new IllegalArgumentException("The 'out' parameter must not be null."));
+		}
+		if (formatter == null)
+		{
+			throw (new IllegalArgumentException("The 'formatter' parameter must not be null."));
+		}
+		this._out = out;
+		this._autoFlush = autoFlush;
+		setFormatter(formatter);
+	}
+
+	/*
+	 * Creates the formatter named in the logging properties, or the CompiledFormatter.
+	 */
+	private static Formatter configuredFormatter()
+	{
+		final String className = LogManager.getLogManager()
+		        .getProperty(StreamLogHandler.class.getName() + ".formatter");
+		if (className == null)
+		{
+			return (new CompiledFormatter());
+		}
+		try
+		{
+			return ((Formatter) ClassLoader.getSystemClassLoader().loadClass(className.trim())
+			        .getDeclaredConstructor().newInstance());
+		}
+		catch (final ReflectiveOperationException | ClassCastException e)
+		{
+			new ErrorManager().error("Unable to create the formatter " + className, e, ErrorManager.OPEN_FAILURE);
+			return (new CompiledFormatter());
+		}
+	}
+
+	@Override
+	public void publish(final LogRecord record)
+	{
+		if (!isLoggable(record))
+		{
+			return;
+		}
+
+		final byte[] bytes;
+		try
+		{
+			bytes = getFormatter().format(record).getBytes(StandardCharsets.UTF_8);
+		}
+		catch (final RuntimeException e)
+		{
+			reportError(null, e, ErrorManager.FORMAT_FAILURE);
+			return;
+		}
+
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+			writeHead();
+			this._out.write(bytes);
+			if (this._autoFlush)
+			{
+				this._out.flush();
+			}
+		}
+		catch (final IOException e)
+		{
+			reportError(null, e, ErrorManager.WRITE_FAILURE);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * Writes the head of the formatter before the first record. Called with the lock held.
+	 */
+	private void writeHead() throws IOException
+	{
+		if (!this._headWritten)
+		{
+			this._headWritten = true;
+			final String head = getFormatter().getHead(this);
+			if ((head != null) && (head.length() > 0))
+			{
+				this._out.write(head.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	@Override
+	public void flush()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			this._out.flush();
+		}
+		catch (final IOException e)
+		{
+			reportError(null, e, ErrorManager.FLUSH_FAILURE);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the tail of the formatter and flushes the stream. The stream is closed unless it is
+	 * <code>System.err</code> or <code>System.out</code>.
+	 */
+	@Override
+	public void close()
+	{
+		final ReentrantLock lock = this._lock;
+		lock.lock();
+		try
+		{
+			if (this._closed)
+			{
+				return;
+			}
+			this._closed = true;
+			writeHead();
+			final String tail = getFormatter().getTail(this);
+			if ((tail != null) && (tail.length() > 0))
+			{
+				this._out.write(tail.getBytes(StandardCharsets.UTF_8));
+			}
+			this._out.flush();
+			if ((this._out != System.err) && (this._out != System.out))
+			{
+				this._out.close();
+			}
+		}
+		catch (final IOException e)
+		{
+			reportError(null, e, ErrorManager.CLOSE_FAILURE);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,515 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+
+/**
+ * Appends events as UTF-8 text to a file without a lock shared by every event.
+ * <p>
+ * The threads are spread over stripes by their id. Each stripe has its own lock, encoder and staging buffer, so a
+ * thread only contends with the few threads of its stripe. An event is formatted and encoded into the staging buffer
+ * of its stripe. A full buffer is handed to a single writer thread as a whole, through a lock-free queue, and the
+ * stripe goes on with a buffer from a pool. The writer also collects the buffers that are not full once they have
+ * waited for the flush interval, so an idle thread's events are not held back.
+ * <p>
+ * The events of a thread are written in the order they were appended, since a thread always uses the same stripe and
+ * the buffers of a stripe are queued under its lock. The buffers of different stripes are written in the order they
+ * were handed over, so the lines of different threads are interleaved a buffer at a time rather than by time. Use a
+ * layout that writes the time to the millisecond, such as the <code>SimpleLogLayout</code>, and sort on it to merge
+ * them.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class StripedFileAppender implements LogAppender
+{
+
+	/**
+	 * The default size of a staging buffer, 64 KB.
+	 */
+	public static final int			DEFAULT_BUFFER_SIZE				= 64 * 1024;
+
+	/**
+	 * The default longest time an event waits in a staging buffer, in milliseconds.
+	 */
+	public static final long		DEFAULT_FLUSH_INTERVAL_MILLIS	= 100L;
+
+	/*
+	 * The buffers per stripe, beyond which a stripe waits for the writer.
+	 */
+	private static final int		BUFFERS_PER_STRIPE				= 4;
+
+	/*
+	 * The most buffers written with one gather call.
+	 */
+	private static final int		GATHER_SIZE						= 16;
+
+	private static final long		PARK_NANOS						= TimeUnit.MICROSECONDS.toNanos(50);
+
+	/*
+	 * The staging buffer and encoder shared by the threads of a stripe.
+	 */
+	private static final class Stripe
+	{
+		final ReentrantLock	_lock		= new ReentrantLock();
+
+		final EventEncoder	_encoder	= new EventEncoder();
+
+		ByteBuffer			_buffer;
+
+		long				_firstNanos;
+	}
+
+	private final FileChannel		_channel;
+
+	private final LogLayout			_layout;
+
+	private final int				_bufferSize;
+
+	private final long				_flushIntervalNanos;
+
+	private final Stripe[]			_stripes;
+
+	private final int				_maxBuffers;
+
+	private final Queue<ByteBuffer>	_filled							= new ConcurrentLinkedQueue<ByteBuffer>();
+
+	private final Queue<ByteBuffer>	_free							= new ConcurrentLinkedQueue<ByteBuffer>();
+
+	private final AtomicInteger		_allocated						= new AtomicInteger();
+
+	private final AtomicLong		_handedOffCount					= new AtomicLong();
+
+	private final AtomicLong		_writtenCount					= new AtomicLong();
+
+	private final ErrorManager		_errorManager					= new ErrorManager();
+
+	private final Thread			_writer;
+
+	private volatile boolean		_closed;
+
+	private volatile LogMetrics		_metrics;
+
+	/**
+	 * Creates an appender with the <code>SimpleLogLayout</code>, two stripes per processor and the default buffer size
+	 * and flush interval.
+	 *
+	 * @param file
+	 *            The file to append to. Created if it does not exist. Must not be null.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	public StripedFileAppender(final Path file) throws IOException
+	{
+		this(file, new SimpleLogLayout(), 2 * Runtime.getRuntime().availableProcessors(),
+		        StripedFileAppender.DEFAULT_BUFFER_SIZE, StripedFileAppender.DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * Creates an appender.
+	 *
+	 * @param file
+	 *            The file to append to. Created if it does not exist. Must not be null.
+	 * @param layout
+	 *            The layout that turns an event into text. Must not be null.
+	 * @param stripes
+	 *            The number of stripes. Rounded up to a power of two. Must be greater than zero.
+	 * @param bufferSize
+	 *            The size of a staging buffer in bytes. Must be greater than zero.
+	 * @param flushIntervalMillis
+	 *            The longest time an event waits in a staging buffer, in milliseconds. Must be greater than zero.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	public StripedFileAppender(final Path file, final LogLayout layout, final int stripes, final int bufferSize,
+	        final long flushIntervalMillis) throws IOException
+	{
+		if (file == null)
+		{
+			throw (new IllegalArgumentException("The 'file' parameter must not be null."));
+		}
+		if (layout == null)
+		{
+			throw (new IllegalArgumentException("The 'layout' parameter must not be null."));
+		}
+		if ((stripes < 1) || (stripes > (1 << 16)))
+		{
+			throw (new IllegalArgumentException("The 'stripes' parameter must be between 1 and 2^16."));
+		}
+		if (bufferSize <= 0)
+		{
+			throw (new IllegalArgumentException("The 'bufferSize' parameter must be greater than zero."));
+		}
+		if (flushIntervalMillis <= 0)
+		{
+			throw (new IllegalArgumentException("The 'flushIntervalMillis' parameter must be greater than zero."));
+		}
+
+		this._layout = layout;
+		this._bufferSize = bufferSize;
+		this._flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+		this._stripes = new Stripe[(stripes == 1) ? 1 : Integer.highestOneBit(stripes - 1) << 1];
+		for (int i = 0; i < this._stripes.length; i++)
+		{
+			this._stripes[i] = new Stripe();
+		}
+		this._maxBuffers = this._stripes.length * StripedFileAppender.BUFFERS_PER_STRIPE;
+		this._channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		        StandardOpenOption.APPEND);
+
+		this._writer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				writeBuffers();
+			}
+		}, "gab-logging-striped-writer");
+		this._writer.setDaemon(true);
+		this._writer.start();
+	}
+
+	/**
+	 * Gets the number of stripes.
+	 *
+	 * @return The stripe count.
+	 */
+	public int getStripeCount()
+	{
+		return (this._stripes.length);
+	}
+
+	/**
+	 * Gets the number of buffers written to the file.
+	 *
+	 * @return The buffer count.
+	 */
+	public long getWrittenBufferCount()
+	{
+		return (this._writtenCount.get());
+	}
+
+	/*
+	 * Gets the stripe of a thread. The id is mixed so that threads created one after the other are spread out.
+	 */
+	private Stripe stripe(final long threadId)
+	{
+		final int hash = (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32);
+		return (this._stripes[hash & (this._stripes.length - 1)]);
+	}
+
+	@Override
+	public void setMetrics(final LogMetrics metrics)
+	{
+		this._metrics = metrics;
+	}
+
+	@Override
+	public void append(final LogEvent event)
+	{
+		if (this._closed)
+		{
+			return;
+		}
+
+		final Stripe stripe = stripe(event.getThreadId());
+		final ReentrantLock lock = stripe._lock;
+		lock.lock();
+		try
+		{
+			stage(stripe, stripe._encoder.encode(event, this._layout));
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Encodes the events of a batch as one run of bytes and stages it as one piece, so the events are written
+	 * together. The stripe is chosen by the thread of the first event.
+	 */
+	@Override
+	public void append(final LogEvent[] events, final int count)
+	{
+		if (this._closed || (count == 0))
+		{
+			return;
+		}
+
+		final Stripe stripe = stripe(events[0].getThreadId());
+		final ReentrantLock lock = stripe._lock;
+		lock.lock();
+		try
+		{
+			stage(stripe, stripe._encoder.encode(events, count, this._layout));
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * Copies encoded bytes into the staging buffer of a stripe, handing the buffer over first if they do not fit.
+	 * Called with the lock of the stripe held.
+	 */
+	private void stage(final Stripe stripe, final ByteBuffer bytes)
+	{
+		ByteBuffer buffer = stripe._buffer;
+		if ((buffer != null) && (buffer.remaining() < bytes.remaining()))
+		{
+			handOff(stripe);
+			buffer = null;
+		}
+
+		if (bytes.remaining() > this._bufferSize)
+		{
+			// an event or batch larger than a buffer is handed over on its own.
+			final ByteBuffer large = ByteBuffer.allocate(bytes.remaining());
+			large.put(bytes);
+			large.flip();
+			this._handedOffCount.incrementAndGet();
+			this._filled.add(large);
+			LockSupport.unpark(this._writer);
+			return;
+		}
+
+		if (buffer == null)
+		{
+			buffer = takeFreeBuffer();
+			stripe._buffer = buffer;
+			stripe._firstNanos = System.nanoTime();
+		}
+		buffer.put(bytes);
+	}
+
+	/*
+	 * Queues the staging buffer of a stripe for the writer. Called with the lock of the stripe held, so the buffers
+	 * of a stripe are queued in order.
+	 */
+	private void handOff(final Stripe stripe)
+	{
+		final ByteBuffer buffer = stripe._buffer;
+		stripe._buffer = null;
+		buffer.flip();
+		this._handedOffCount.incrementAndGet();
+		this._filled.add(buffer);
+		LockSupport.unpark(this._writer);
+	}
+
+	/*
+	 * Takes a buffer from the pool, allocates one while there are fewer than the maximum, or waits for the writer to
+	 * return one.
+	 */
+	private ByteBuffer takeFreeBuffer()
+	{
+		while (true)
+		{
+			final ByteBuffer buffer = this._free.poll();
+			if (buffer != null)
+			{
+				return (buffer);
+			}
+			final int allocated = this._allocated.get();
+			if ((allocated < this._maxBuffers) && this._allocated.compareAndSet(allocated, allocated + 1))
+			{
+				return (ByteBuffer.allocateDirect(this._bufferSize));
+			}
+			if (!this._writer.isAlive())
+			{
+				return (ByteBuffer.allocateDirect(this._bufferSize));
+			}
+			LockSupport.unpark(this._writer);
+			LockSupport.parkNanos(this, StripedFileAppender.PARK_NANOS);
+		}
+	}
+
+	/*
+	 * Hands over every staging buffer that holds events. When all is false, only those that have waited for the
+	 * flush interval.
+	 */
+	private void sweep(final boolean all)
+	{
+		final long now = System.nanoTime();
+		for (final Stripe stripe : this._stripes)
+		{
+			final ReentrantLock lock = stripe._lock;
+			lock.lock();
+			try
+			{
+				final ByteBuffer buffer = stripe._buffer;
+				if ((buffer != null) && (buffer.position() > 0)
+				        && (all || ((now - stripe._firstNanos) >= this._flushIntervalNanos)))
+				{
+					handOff(stripe);
+				}
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+	}
+
+	/*
+	 * The writer thread loop. Writes the handed over buffers and sweeps the stripes once per flush interval.
+	 */
+	private void writeBuffers()
+	{
+		final ByteBuffer[] gather = new ByteBuffer[StripedFileAppender.GATHER_SIZE];
+		final long sweepNanos = Math.max(1L, this._flushIntervalNanos / 2);
+		long nextSweep = System.nanoTime() + sweepNanos;
+		while (true)
+		{
+			int count = 0;
+			ByteBuffer buffer;
+			while ((count < gather.length) && ((buffer = this._filled.poll()) != null))
+			{
+				gather[count++] = buffer;
+			}
+
+			if (count > 0)
+			{
+				write(gather, count);
+				continue;
+			}
+			if (this._closed)
+			{
+				return;
+			}
+
+			final long wait = nextSweep - System.nanoTime();
+			if (wait <= 0)
+			{
+				sweep(false);
+				nextSweep = System.nanoTime() + sweepNanos;
+			}
+			else
+			{
+				LockSupport.parkNanos(this, wait);
+			}
+		}
+	}
+
+	/*
+	 * Writes buffers with one gather call and returns them to the pool.
+	 */
+	private void write(final ByteBuffer[] gather, final int count)
+	{
+		try
+		{
+			long remaining = 0L;
+			for (int i = 0; i < count; i++)
+			{
+				remaining += gather[i].remaining();
+			}
+			final long bytes = remaining;
+			while (remaining > 0)
+			{
+				remaining -= this._channel.write(gather, 0, count);
+			}
+
+			final LogMetrics metrics = this._metrics;
+			if (metrics != null)
+			{
+				metrics.recordBytesWritten(bytes);
+			}
+		}
+		catch (final IOException e)
+		{
+			this._errorManager.error("Unable to write the log buffers.", e, ErrorManager.WRITE_FAILURE);
+		}
+
+		for (int i = 0; i < count; i++)
+		{
+			final ByteBuffer buffer = gather[i];
+			gather[i] = null;
+			if (buffer.capacity() == this._bufferSize)
+			{
+				buffer.clear();
+				this._free.add(buffer);
+			}
+		}
+		this._writtenCount.addAndGet(count);
+	}
+
+	/**
+	 * Hands over every staging buffer and waits until every buffer handed over so far is written.
+	 */
+	@Override
+	public void flush()
+	{
+		sweep(true);
+		final long target = this._handedOffCount.get();
+		while ((this._writtenCount.get() < target) && this._writer.isAlive())
+		{
+			LockSupport.unpark(this._writer);
+			LockSupport.parkNanos(this, StripedFileAppender.PARK_NANOS);
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		if (this._closed)
+		{
+			return;
+		}
+		flush();
+		this._closed = true;
+
+		LockSupport.unpark(this._writer);
+		try
+		{
+			this._writer.join();
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		// write any event appended while the writer was stopping.
+		sweep(true);
+		final ByteBuffer[] gather = new ByteBuffer[1];
+		while ((gather[0] = this._filled.poll()) != null)
+		{
+			write(gather, 1);
+		}
+
+		try
+		{
+			this._channel.close();
+		}
+		catch (final IOException e)
+		{
+			this._errorManager.error("Unable to close the log file.", e, ErrorManager.CLOSE_FAILURE);
+		}
+	}
+}
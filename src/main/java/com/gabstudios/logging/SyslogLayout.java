@@ -0,0 +1,298 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.logging.Level;
+
+/**
+ * Writes an event as an RFC 5424 syslog message, for a <code>NetworkAppender</code>:
+ *
+ * <pre>
+ * &lt;14&gt;1 2018-01-31T13:45:10.250Z host.acme.com orders 4242 INFO [context@32473 requestId="42"] com.acme.Order submit: order placed
+ * </pre>
+ *
+ * The time is written in UTC to the millisecond and the level name is the message id. The diagnostic context, when
+ * the thread had one, is written as the structured data element <code>context@32473</code>. The message is the class,
+ * method and message of the event, followed on the next lines by the stack trace of a throwable. The severity is
+ * taken from the level:
+ *
+ * <pre>
+ * SECURITY         2 critical
+ * SEVERE           3 error
+ * WARNING          4 warning
+ * INFO             6 informational
+ * CONFIG and below 7 debug
+ * </pre>
+ *
+ * No line separator is written after the message, since the framing of the appender marks where it ends.
+ *
+ * @author Gregory Brown (sysdevone)
+ */
+public class SyslogLayout implements LogLayout
+{
+
+	/**
+	 * The facility of user-level messages.
+	 */
+	public static final int			USER_FACILITY		= 1;
+
+	/**
+	 * The id of the structured data element the diagnostic context is written to.
+	 */
+	public static final String		CONTEXT_SD_ID		= "context@32473";
+
+	private static final String		NIL					= "-";
+
+	private static final int		MAX_HOST_NAME		= 255;
+
+	private static final int		MAX_APP_NAME		= 48;
+
+	private static final int		MAX_PROC_ID			= 128;
+
+	private static final int		MAX_MSG_ID			= 32;
+
+	private static final int		MAX_SD_NAME			= 32;
+
+	private static final String		LINE_SEPARATOR		= System.lineSeparator();
+
+	private final int				_facility;
+
+	private final String			_header;
+
+	private final StackTraceCache	_stackTraces;
+
+	/**
+	 * Creates a layout for user-level messages from this host and process.
+	 *
+	 * @param appName
+	 *            The name of the application. Must not be null.
+	 */
+	public SyslogLayout(final String appName)
+	{
+		this(SyslogLayout.USER_FACILITY, SyslogLayout.localHostName(), appName, null);
+	}
+
+	/**
+	 * Creates a layout.
+	 *
+	 * @param facility
+	 *            The facility, from 0 to 23.
+	 * @param hostName
+	 *            The name of the host, or null to write none. Characters that syslog does not allow in a header are
+	 *            replaced.
+	 * @param appName
+	 *            The name of the application. Must not be null.
+	 * @param stackTraces
+	 *            The cache that writes a repeated stack trace as its fingerprint, or null to write every stack trace
+	 *            in full.
+	 */
+	public SyslogLayout(final int facility, final String hostName, final String appName,
+	        final StackTraceCache stackTraces)
+	{
+		if ((facility < 0) || (facility > 23))
+		{
+			throw (new IllegalArgumentException("The 'facility' parameter must be from 0 to 23."));
+		}
+		if (appName == null)
+		{
+			throw (new IllegalArgumentException("The 'appName' parameter must not be null."));
+		}
+
+		this._facility = facility;
+		this._stackTraces = stackTraces;
+
+		// the host, application and process do not change, so their part of the header is built once.
+		final StringBuilder header = new StringBuilder();
+		SyslogLayout.appendHeaderField(header, hostName, SyslogLayout.MAX_HOST_NAME).append(' ');
+		SyslogLayout.appendHeaderField(header, appName, SyslogLayout.MAX_APP_NAME).append(' ');
+		SyslogLayout.appendHeaderField(header, SyslogLayout.processId(), SyslogLayout.MAX_PROC_ID).append(' ');
+		this._header = header.toString();
+	}
+
+	/**
+	 * Gets the facility.
+	 *
+	 * @return The facility, from 0 to 23.
+	 */
+	public int getFacility()
+	{
+		return (this._facility);
+	}
+
+	@Override
+	public void format(final LogEvent event, final StringBuilder builder)
+	{
+		builder.append('<').append((this._facility * 8) + SyslogLayout.severity(event.getLevel())).append(">1 ");
+
+		final LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(event.getMillis()), ZoneOffset.UTC);
+		SimpleLogLayout.appendPadded(builder, time.getYear(), 4).append('-');
+		SimpleLogLayout.appendPadded(builder, time.getMonthValue(), 2).append('-');
+		SimpleLogLayout.appendPadded(builder, time.getDayOfMonth(), 2).append('T');
+		SimpleLogLayout.appendPadded(builder, time.getHour(), 2).append(':');
+		SimpleLogLayout.appendPadded(builder, time.getMinute(), 2).append(':');
+		SimpleLogLayout.appendPadded(builder, time.getSecond(), 2).append('.');
+		SimpleLogLayout.appendPadded(builder, time.getNano() / 1000000, 3).append("Z ");
+
+		builder.append(this._header);
+		SyslogLayout.appendHeaderField(builder, event.getLevel().getName(), SyslogLayout.MAX_MSG_ID).append(' ');
+
+		final LogContext context = event.getContext();
+		if (context.isEmpty())
+		{
+			builder.append(SyslogLayout.NIL);
+		}
+		else
+		{
+			builder.append('[').append(SyslogLayout.CONTEXT_SD_ID);
+			for (int i = 0; i < context.size(); i++)
+			{
+				builder.append(' ');
+				SyslogLayout.appendSdName(builder, context.getKey(i));
+				builder.append("=\"");
+				SyslogLayout.appendSdValue(builder, context.getValue(i));
+				builder.append('"');
+			}
+			builder.append(']');
+		}
+
+		builder.append(' ').append(event.getClassName()).append(' ').append(event.getMethodName()).append(": ")
+		        .append(event.getMessage());
+
+		final Throwable thrown = event.getThrown();
+		if ((thrown != null) && (this._stackTraces != null))
+		{
+			builder.append(SyslogLayout.LINE_SEPARATOR).append(this._stackTraces.format(thrown));
+		}
+		else if (thrown != null)
+		{
+			final StringWriter writer = new StringWriter();
+			thrown.printStackTrace(new PrintWriter(writer));
+			builder.append(SyslogLayout.LINE_SEPARATOR).append(writer.toString());
+		}
+	}
+
+	/*
+	 * Maps a level to a syslog severity.
+	 */
+	private static int severity(final Level level)
+	{
+		final int value = level.intValue();
+		if (value >= LogService.SecurityLevel.SECURITY.intValue())
+		{
+			return (2);
+		}
+		if (value >= Level.SEVERE.intValue())
+		{
+			return (3);
+		}
+		if (value >= Level.WARNING.intValue())
+		{
+			return (4);
+		}
+		if (value >= Level.INFO.intValue())
+		{
+			return (6);
+		}
+		return (7);
+	}
+
+	/*
+	 * Appends a header field: printable US-ASCII without spaces, at most maxLength characters, or the nil value.
+	 */
+	private static StringBuilder appendHeaderField(final StringBuilder builder, final String value,
+	        final int maxLength)
+	{
+		if ((value == null) || (value.length() == 0))
+		{
+			return (builder.append(SyslogLayout.NIL));
+		}
+		final int length = Math.min(value.length(), maxLength);
+		for (int i = 0; i < length; i++)
+		{
+			final char c = value.charAt(i);
+			builder.append(((c > ' ') && (c < 127)) ? c : '_');
+		}
+		return (builder);
+	}
+
+	/*
+	 * Appends a structured data parameter name, which must not hold '=', ']' or '"' either.
+	 */
+	private static void appendSdName(final StringBuilder builder, final String name)
+	{
+		final int length = Math.min(name.length(), SyslogLayout.MAX_SD_NAME);
+		for (int i = 0; i < length; i++)
+		{
+			final char c = name.charAt(i);
+			final boolean valid = (c > ' ') && (c < 127) && (c != '=') && (c != ']') && (c != '"');
+			builder.append(valid ? c : '_');
+		}
+		if (length == 0)
+		{
+			builder.append('_');
+		}
+	}
+
+	/*
+	 * Appends a structured data parameter value, escaping '"', '\' and ']'.
+	 */
+	private static void appendSdValue(final StringBuilder builder, final String value)
+	{
+		for (int i = 0; i < value.length(); i++)
+		{
+			final char c = value.charAt(i);
+			if ((c == '"') || (c == '\\') || (c == ']'))
+			{
+				builder.append('\\');
+			}
+			builder.append(c);
+		}
+	}
+
+	/*
+	 * Gets the name of this host, or null if it cannot be found.
+	 */
+	private static String localHostName()
+	{
+		try
+		{
+			return (InetAddress.getLocalHost().getHostName());
+		}
+		catch (final UnknownHostException e)
+		{
+			return (null);
+		}
+	}
+
+	/*
+	 * Gets the id of this process from the name of the runtime, which is pid@host on the common JVMs.
+	 */
+	private static String processId()
+	{
+		final String name = ManagementFactory.getRuntimeMXBean().getName();
+		final int index = name.indexOf('@');
+		return ((index > 0) ? name.substring(0, index) : null);
+	}
+}
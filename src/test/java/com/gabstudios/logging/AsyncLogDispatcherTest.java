@@ -0,0 +1,402 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class AsyncLogDispatcherTest
+{
+	/*
+	 * Collects the records it is given. Can be made to wait before the first record is handled.
+	 */
+	static class CaptureHandler extends Handler
+	{
+		final List<LogRecord>	_records	= new ArrayList<LogRecord>();
+
+		final CountDownLatch	_started	= new CountDownLatch(1);
+
+		volatile CountDownLatch	_gate;
+
+		@Override
+		public void publish(final LogRecord record)
+		{
+			this._started.countDown();
+			final CountDownLatch gate = this._gate;
+			if (gate != null)
+			{
+				try
+				{
+					gate.await();
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+			synchronized (this._records)
+			{
+				this._records.add(record);
+			}
+		}
+
+		@Override
+		public void flush()
+		{
+			// void - does nothing.
+		}
+
+		@Override
+		public void close()
+		{
+			// void - does nothing.
+		}
+
+		List<LogRecord> getRecords()
+		{
+			synchronized (this._records)
+			{
+				return (new ArrayList<LogRecord>(this._records));
+			}
+		}
+	}
+
+	private Logger				_logger;
+
+	private CaptureHandler		_handler;
+
+	private ClassLogger			_classLogger;
+
+	private AsyncLogDispatcher	_dispatcher;
+
+	@Test
+	public void deliversEveryEventInOrder() throws Exception
+	{
+		this._dispatcher = new AsyncLogDispatcher(64, OverflowPolicy.BLOCK, JavaLogDispatcher.INSTANCE);
+
+		final int threadCount = 4;
+		final int eventCount = 5000;
+		final Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++)
+		{
+			final int threadIndex = t;
+			threads[t] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for (int i = 0; i < eventCount; i++)
+					{
+						AsyncLogDispatcherTest.this._dispatcher.dispatch(AsyncLogDispatcherTest.this._classLogger,
+						        Level.INFO, "thread" + threadIndex, Integer.toString(i), null);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+		this._dispatcher.flush();
+
+		final List<LogRecord> records = this._handler.getRecords();
+		Assert.assertEquals(threadCount * eventCount, records.size());
+		Assert.assertEquals(0L, this._dispatcher.getDroppedCount());
+
+		final int[] next = new int[threadCount];
+		for (final LogRecord record : records)
+		{
+			final int threadIndex = Integer.parseInt(record.getSourceMethodName().substring("thread".length()));
+			Assert.assertEquals(next[threadIndex], Integer.parseInt(record.getMessage()));
+			Assert.assertEquals(AsyncLogDispatcherTest.class.getName(), record.getSourceClassName());
+			next[threadIndex]++;
+		}
+	}
+
+	@Test
+	public void dropNewestCountsDrops() throws Exception
+	{
+		this._dispatcher = new AsyncLogDispatcher(4, OverflowPolicy.DROP_NEWEST, JavaLogDispatcher.INSTANCE);
+		fillWhileBlocked(20);
+
+		Assert.assertEquals(20, this._handler.getRecords().size() + this._dispatcher.getDroppedCount());
+		Assert.assertTrue(this._dispatcher.getDroppedCount() > 0);
+		Assert.assertEquals("0", this._handler.getRecords().get(0).getMessage());
+	}
+
+	@Test
+	public void dropOldestKeepsNewest() throws Exception
+	{
+		this._dispatcher = new AsyncLogDispatcher(4, OverflowPolicy.DROP_OLDEST, JavaLogDispatcher.INSTANCE);
+		fillWhileBlocked(20);
+
+		final List<LogRecord> records = this._handler.getRecords();
+		Assert.assertEquals(20, records.size() + this._dispatcher.getDroppedCount());
+		Assert.assertTrue(this._dispatcher.getDroppedCount() > 0);
+		Assert.assertEquals("19", records.get(records.size() - 1).getMessage());
+	}
+
+	@Test
+	public void closeDrainsQueuedEvents()
+	{
+		this._dispatcher = new AsyncLogDispatcher(1024, OverflowPolicy.BLOCK, JavaLogDispatcher.INSTANCE);
+		for (int i = 0; i < 500; i++)
+		{
+			this._dispatcher.dispatch(this._classLogger, Level.INFO, "closeDrainsQueuedEvents", "event " + i, null);
+		}
+		this._dispatcher.close();
+		Assert.assertEquals(500, this._handler.getRecords().size());
+
+		// logged on the caller's thread once closed.
+		this._dispatcher.dispatch(this._classLogger, Level.INFO, "closeDrainsQueuedEvents", "after close", null);
+		Assert.assertEquals(501, this._handler.getRecords().size());
+	}
+
+	@Test
+	public void recordKeepsCallerDetails()
+	{
+		this._dispatcher = new AsyncLogDispatcher(16, OverflowPolicy.BLOCK, JavaLogDispatcher.INSTANCE);
+		final Exception thrown = new Exception("recordKeepsCallerDetails Exception");
+		final long before = System.currentTimeMillis();
+		this._dispatcher.dispatch(this._classLogger, Level.WARNING, "recordKeepsCallerDetails", "message", thrown);
+		this._dispatcher.flush();
+
+		final LogRecord record = this._handler.getRecords().get(0);
+		Assert.assertEquals(Level.WARNING, record.getLevel());
+		Assert.assertSame(thrown, record.getThrown());
+		Assert.assertEquals((int) Thread.currentThread().getId(), record.getThreadID());
+		Assert.assertTrue(record.getMillis() >= before);
+	}
+
+	@Test
+	public void eventKeepsItsDetails()
+	{
+		this._dispatcher = new AsyncLogDispatcher(16, OverflowPolicy.BLOCK, JavaLogDispatcher.INSTANCE);
+		final LogEvent event = new LogEvent();
+		event.set(this._classLogger, Level.INFO, "eventKeepsItsDetails", "message", null, 1000L, 42L,
+		        LogContext.EMPTY.with("requestId", "7"));
+		this._dispatcher.dispatch(event);
+		this._dispatcher.flush();
+
+		final LogRecord record = this._handler.getRecords().get(0);
+		Assert.assertEquals(1000L, record.getMillis());
+		Assert.assertEquals(42, record.getThreadID());
+		Assert.assertEquals("7", ((ContextLogRecord) record).getContext().get("requestId"));
+	}
+
+	@Test
+	public void closeKeepsEveryEvent() throws InterruptedException
+	{
+		this._dispatcher = new AsyncLogDispatcher(8, OverflowPolicy.BLOCK, JavaLogDispatcher.INSTANCE,
+		        8L * AsyncLogDispatcher.OFF_HEAP_EVENT_SIZE);
+
+		final int threadCount = 4;
+		final int eventCount = 2000;
+		final CountDownLatch started = new CountDownLatch(threadCount);
+		final Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++)
+		{
+			threads[t] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					started.countDown();
+					for (int i = 0; i < eventCount; i++)
+					{
+						AsyncLogDispatcherTest.this._dispatcher.dispatch(AsyncLogDispatcherTest.this._classLogger,
+						        Level.INFO, "closeKeepsEveryEvent", Integer.toString(i), null);
+					}
+				}
+			});
+			threads[t].start();
+		}
+
+		// events published while the dispatcher closes are drained, and the later ones go straight to the delegate.
+		started.await();
+		this._dispatcher.close();
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+		Assert.assertEquals(threadCount * eventCount, this._handler.getRecords().size());
+		Assert.assertEquals(0L, this._dispatcher.getDroppedCount());
+	}
+
+	@Test
+	public void offHeapKeepsEventDetails()
+	{
+		this._dispatcher = new AsyncLogDispatcher(16, OverflowPolicy.BLOCK, JavaLogDispatcher.INSTANCE,
+		        16L * AsyncLogDispatcher.OFF_HEAP_EVENT_SIZE);
+		Assert.assertEquals(16L * AsyncLogDispatcher.OFF_HEAP_EVENT_SIZE, this._dispatcher.getOffHeapSize());
+
+		final Exception thrown = new Exception("offHeapKeepsEventDetails Exception");
+		final long before = System.currentTimeMillis();
+		this._dispatcher.dispatch(this._classLogger, Level.WARNING, "offHeapKeepsEventDetails",
+		        "message \u00e9\u4e2d", thrown);
+		final StringBuilder longMessage = new StringBuilder();
+		for (int i = 0; i < 300; i++)
+		{
+			longMessage.append('x');
+		}
+		this._dispatcher.dispatch(this._classLogger, Level.INFO, "offHeapKeepsEventDetails", longMessage.toString(),
+		        null);
+		this._dispatcher.flush();
+
+		final List<LogRecord> records = this._handler.getRecords();
+		Assert.assertEquals(2, records.size());
+		Assert.assertEquals(Level.WARNING, records.get(0).getLevel());
+		Assert.assertEquals("offHeapKeepsEventDetails", records.get(0).getSourceMethodName());
+		Assert.assertEquals("message \u00e9\u4e2d", records.get(0).getMessage());
+		Assert.assertSame(thrown, records.get(0).getThrown());
+		Assert.assertEquals((int) Thread.currentThread().getId(), records.get(0).getThreadID());
+		Assert.assertTrue(records.get(0).getMillis() >= before);
+		Assert.assertEquals(longMessage.toString(), records.get(1).getMessage());
+
+		// the memory is freed once the queue is closed, without waiting for a collection.
+		final long used = AsyncLogDispatcherTest.directMemoryUsed();
+		this._dispatcher.close();
+		Assert.assertEquals(0L, this._dispatcher.getOffHeapSize());
+		Assert.assertEquals(used - (16L * AsyncLogDispatcher.OFF_HEAP_EVENT_SIZE),
+		        AsyncLogDispatcherTest.directMemoryUsed());
+	}
+
+	@Test
+	public void keepsDumpedMark()
+	{
+		for (final long maxOffHeapBytes : new long[] { 0L, 16L * AsyncLogDispatcher.OFF_HEAP_EVENT_SIZE })
+		{
+			final AppenderLogDispatcher delegate = new AppenderLogDispatcher();
+			final DirectLogServiceTest.CaptureAppender appender = new DirectLogServiceTest.CaptureAppender();
+			delegate.addAppender(appender);
+			this._dispatcher = new AsyncLogDispatcher(16, OverflowPolicy.BLOCK, delegate, maxOffHeapBytes);
+
+			final LogEvent event = new LogEvent();
+			event.set(this._classLogger, Level.FINEST, "keepsDumpedMark", "dumped", null, System.currentTimeMillis(),
+			        Thread.currentThread().getId(), LogContext.EMPTY);
+			event.setDumped(true);
+			this._dispatcher.dispatch(event);
+			event.set(this._classLogger, Level.WARNING, "keepsDumpedMark", "logged", null,
+			        System.currentTimeMillis(), Thread.currentThread().getId(), LogContext.EMPTY);
+			this._dispatcher.dispatch(event);
+			this._dispatcher.close();
+
+			Assert.assertEquals(2, appender._events.size());
+			Assert.assertTrue(appender._events.get(0).isDumped());
+			Assert.assertFalse(appender._events.get(1).isDumped());
+		}
+	}
+
+	@Test
+	public void offHeapCapLimitsBuffer()
+	{
+		this._dispatcher = new AsyncLogDispatcher(1024, OverflowPolicy.BLOCK, JavaLogDispatcher.INSTANCE,
+		        (100L * AsyncLogDispatcher.OFF_HEAP_EVENT_SIZE) + 1);
+		Assert.assertEquals(64, this._dispatcher.getBufferSize());
+		Assert.assertTrue(this._dispatcher.getOffHeapSize() <= (100L * AsyncLogDispatcher.OFF_HEAP_EVENT_SIZE));
+
+		for (int i = 0; i < 500; i++)
+		{
+			this._dispatcher.dispatch(this._classLogger, Level.INFO, "offHeapCapLimitsBuffer", "event " + i, null);
+		}
+		this._dispatcher.flush();
+		Assert.assertEquals(500, this._handler.getRecords().size());
+		Assert.assertEquals("event 499", this._handler.getRecords().get(499).getMessage());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void offHeapCapTooSmall()
+	{
+		new AsyncLogDispatcher(16, OverflowPolicy.BLOCK, JavaLogDispatcher.INSTANCE, 1L);
+	}
+
+	/*
+	 * Gets the number of bytes used by direct buffers.
+	 */
+	private static long directMemoryUsed()
+	{
+		for (final BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+		{
+			if (pool.getName().equals("direct"))
+			{
+				return (pool.getMemoryUsed());
+			}
+		}
+		return (-1L);
+	}
+
+	/*
+	 * Holds the consumer on the first event while count events are dispatched, then lets it drain.
+	 */
+	private void fillWhileBlocked(final int count) throws InterruptedException
+	{
+		final CountDownLatch gate = new CountDownLatch(1);
+		this._handler._gate = gate;
+
+		this._dispatcher.dispatch(this._classLogger, Level.INFO, "fillWhileBlocked", "0", null);
+		Assert.assertTrue(this._handler._started.await(5, TimeUnit.SECONDS));
+		for (int i = 1; i < count; i++)
+		{
+			this._dispatcher.dispatch(this._classLogger, Level.INFO, "fillWhileBlocked", Integer.toString(i), null);
+		}
+
+		gate.countDown();
+		this._dispatcher.flush();
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._classLogger = LogProvider.getProvider().getService().forClass(AsyncLogDispatcherTest.class);
+		this._logger = this._classLogger.getLogger();
+		this._handler = new CaptureHandler();
+		this._logger.setUseParentHandlers(false);
+		this._logger.addHandler(this._handler);
+	}
+
+	@After
+	public void tearDown()
+	{
+		if (this._dispatcher != null)
+		{
+			this._dispatcher.close();
+		}
+		this._logger.removeHandler(this._handler);
+		this._logger.setUseParentHandlers(true);
+	}
+
+}
@@ -0,0 +1,188 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.logging.Level;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class BinaryFileAppenderTest
+{
+	@Rule
+	public TemporaryFolder			_folder	= new TemporaryFolder();
+
+	private DirectLogService		_service;
+
+	private ByteArrayOutputStream	_text;
+
+	private Path					_file;
+
+	/*
+	 * Decodes the binary log as UTC text.
+	 */
+	private String decode() throws IOException
+	{
+		final StringWriter out = new StringWriter();
+		try (InputStream in = Files.newInputStream(this._file))
+		{
+			new BinaryLogDecoder(in, ZoneOffset.UTC).decode(out);
+		}
+		return (out.toString());
+	}
+
+	@Test
+	public void decodesToText() throws IOException
+	{
+		this._service.setLevel(DirectLogService.ROOT, Level.FINEST);
+		this._service.logMessage(BinaryFileAppenderTest.class, "decodesToText", "first message");
+		this._service.logDebug(BinaryFileAppenderTest.class, "otherMethod", "second message \u00e9\u4e2d");
+		this._service.logSecurity(BinaryFileAppenderTest.class, "decodesToText", "third message");
+		this._service.logFailure(BinaryFileAppenderTest.class, "decodesToText", "failed",
+		        new IllegalStateException("testing"));
+		this._service.getDispatcher().close();
+
+		final String expected = new String(this._text.toByteArray(), StandardCharsets.UTF_8);
+		Assert.assertTrue(expected.contains("IllegalStateException"));
+		Assert.assertEquals(expected, decode());
+	}
+
+	@Test
+	public void context() throws IOException
+	{
+		this._service.logMessage(BinaryFileAppenderTest.class, "context", "no context");
+		LogContext.put("requestId", "42");
+		this._service.logMessage(BinaryFileAppenderTest.class, "context", "with context");
+		this._service.logMessage(BinaryFileAppenderTest.class, "context", "same context");
+		LogContext.put("tenant", "acme");
+		this._service.logMessage(BinaryFileAppenderTest.class, "context", "changed context");
+		LogContext.clear();
+		this._service.logMessage(BinaryFileAppenderTest.class, "context", "cleared context");
+		this._service.getDispatcher().close();
+
+		final String expected = new String(this._text.toByteArray(), StandardCharsets.UTF_8);
+		Assert.assertTrue(expected.contains(" context|requestId=42 tenant=acme|changed context"));
+		Assert.assertEquals(expected, decode());
+	}
+
+	@Test
+	public void appendsSections() throws IOException
+	{
+		this._service.logMessage(BinaryFileAppenderTest.class, "appendsSections", "first run");
+		this._service.getDispatcher().close();
+
+		// a second run appends a new section with its own dictionary.
+		final BinaryFileAppender appender = new BinaryFileAppender(this._file);
+		final DirectLogService service = new DirectLogService();
+		service.removeAppender(service.getAppenders().get(0));
+		service.addAppender(appender);
+		service.logWarning(BinaryFileAppenderTest.class, "secondRun", "second run");
+		service.getDispatcher().close();
+
+		final String text = decode();
+		Assert.assertTrue(text.contains("|INFO|" + BinaryFileAppenderTest.class.getName()));
+		Assert.assertTrue(text.endsWith(BinaryFileAppenderTest.class.getName() + " secondRun|second run"
+		        + System.lineSeparator()));
+	}
+
+	@Test
+	public void internsNames() throws IOException
+	{
+		for (int i = 0; i < 100; i++)
+		{
+			this._service.logMessage(BinaryFileAppenderTest.class, "internsNames", "message");
+		}
+		this._service.getDispatcher().close();
+
+		// the class name is written once, not once per event.
+		final long size = Files.size(this._file);
+		Assert.assertTrue(size < (100 * BinaryFileAppenderTest.class.getName().length()));
+	}
+
+	@Test
+	public void varints()
+	{
+		final ByteBuffer buffer = ByteBuffer.allocate(32);
+		BinaryFileAppender.putVarLong(buffer, 127L);
+		Assert.assertEquals(1, buffer.position());
+		BinaryFileAppender.putVarLong(buffer, 128L);
+		Assert.assertEquals(3, buffer.position());
+		BinaryFileAppender.putVarLong(buffer, -1L);
+		Assert.assertEquals(13, buffer.position());
+
+		Assert.assertEquals(1L, BinaryFileAppender.zigzag(-1L));
+		Assert.assertEquals(2L, BinaryFileAppender.zigzag(1L));
+	}
+
+	@Test
+	public void notBinaryLog() throws IOException
+	{
+		final byte[] text = "2018-01-31|13:45:10.250|INFO".getBytes(StandardCharsets.UTF_8);
+		try
+		{
+			new BinaryLogDecoder(new ByteArrayInputStream(text)).decode(new StringWriter());
+			Assert.fail("Expected a StreamCorruptedException.");
+		}
+		catch (final StreamCorruptedException e)
+		{
+			Assert.assertEquals("The stream is not a binary log.", e.getMessage());
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException
+	{
+		this._file = this._folder.getRoot().toPath().resolve("app.bin");
+		this._text = new ByteArrayOutputStream();
+		this._service = new DirectLogService();
+		for (final LogAppender appender : this._service.getAppenders())
+		{
+			this._service.removeAppender(appender);
+		}
+		this._service.addAppender(new BinaryFileAppender(this._file, false));
+		this._service.addAppender(new StreamAppender(this._text, new SimpleLogLayout(ZoneOffset.UTC), false));
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.getDispatcher().close();
+		LogContext.clear();
+	}
+
+}
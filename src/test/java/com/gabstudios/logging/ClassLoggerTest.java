@@ -0,0 +1,111 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class ClassLoggerTest
+{
+	ClassLogger _classLogger;
+
+	@Test
+	public void forClassReturnsSameInstance()
+	{
+		final LogService logService = LogProvider.getProvider().getService();
+
+		Assert.assertSame(this._classLogger, logService.forClass(ClassLoggerTest.class));
+		Assert.assertEquals(ClassLoggerTest.class.getName(), this._classLogger.getClassName());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void forClassNull()
+	{
+		LogProvider.getProvider().getService().forClass(null);
+	}
+
+	@Test
+	public void isLoggableFollowsLevelChanges()
+	{
+		final Logger logger = Logger.getLogger(ClassLoggerTest.class.getName());
+		try
+		{
+			logger.setLevel(Level.INFO);
+			Assert.assertFalse(this._classLogger.isLoggable(Level.FINEST));
+			Assert.assertTrue(this._classLogger.isLoggable(Level.INFO));
+
+			logger.setLevel(Level.ALL);
+			Assert.assertTrue(this._classLogger.isLoggable(Level.FINEST));
+		}
+		finally
+		{
+			logger.setLevel(null);
+		}
+	}
+
+	@Test
+	public void logMessages()
+	{
+		try
+		{
+			this._classLogger.logConfiguration("logMessages", "testing logConfiguration");
+			this._classLogger.logDebug("logMessages", "testing logDebug");
+			this._classLogger.logMessage("logMessages", "testing logMessage");
+			this._classLogger.logWarning("logMessages", "testing logWarning");
+			this._classLogger.logFailure("logMessages", "testing logFailure");
+			this._classLogger.logSecurity("logMessages", "testing logSecurity");
+			this._classLogger.logFailure("logMessages", "testing logFailure with Throwable",
+			        new Exception("logMessages Exception"));
+
+			Assert.assertTrue(true);
+		}
+		catch (final Exception e)
+		{
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void logWarningNullThrown()
+	{
+		this._classLogger.logWarning("logWarningNullThrown", "testing logWarning", (Throwable) null);
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._classLogger = LogProvider.getProvider().getService().forClass(ClassLoggerTest.class);
+	}
+
+	@After
+	public void tearDown()
+	{
+		// void - does nothing
+	}
+
+}
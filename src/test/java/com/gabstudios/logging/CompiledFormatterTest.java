@@ -0,0 +1,180 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class CompiledFormatterTest
+{
+	/*
+	 * The format in src/test/resources/logging.properties.
+	 */
+	private static final String	PROPERTIES_FORMAT	= "%1$tY-%1$tm-%1$td|%1$tH:%1$tM:%1$tS.%1$tL|%4$s|%3$s|%2$s"
+	        + "|%5$s %6$s %n";
+
+	private static final ZoneId	ZONE				= ZoneId.of("America/New_York");
+
+	/*
+	 * Writes a record the way the SimpleFormatter does.
+	 */
+	private static String simpleFormat(final String format, final LogRecord record)
+	{
+		final String source = (record.getSourceClassName() == null) ? record.getLoggerName()
+		        : (record.getSourceClassName() + " " + record.getSourceMethodName());
+		String thrown = "";
+		if (record.getThrown() != null)
+		{
+			final StringWriter writer = new StringWriter();
+			final PrintWriter printer = new PrintWriter(writer);
+			printer.println();
+			record.getThrown().printStackTrace(printer);
+			printer.close();
+			thrown = writer.toString();
+		}
+		final ZonedDateTime time = ZonedDateTime.ofInstant(Instant.ofEpochMilli(record.getMillis()),
+		        CompiledFormatterTest.ZONE);
+		return (String.format(format, time, source, record.getLoggerName(), record.getLevel().getLocalizedName(),
+		        record.getMessage(), thrown));
+	}
+
+	/*
+	 * Creates a record at a fixed time.
+	 */
+	private static LogRecord record(final long millis)
+	{
+		final LogRecord record = new LogRecord(Level.WARNING, "testing the formatter");
+		record.setMillis(millis);
+		record.setLoggerName("com.acme.Order");
+		record.setSourceClassName("com.acme.Order");
+		record.setSourceMethodName("submit");
+		return (record);
+	}
+
+	/*
+	 * Checks that a format writes what the SimpleFormatter writes.
+	 */
+	private static void assertSameAsSimpleFormatter(final String format, final LogRecord record)
+	{
+		final CompiledFormatter formatter = new CompiledFormatter(format, CompiledFormatterTest.ZONE);
+		Assert.assertEquals(CompiledFormatterTest.simpleFormat(format, record), formatter.format(record));
+	}
+
+	@Test
+	public void propertiesFormat()
+	{
+		final LogRecord record = CompiledFormatterTest.record(1517424310250L);
+		CompiledFormatterTest.assertSameAsSimpleFormatter(CompiledFormatterTest.PROPERTIES_FORMAT, record);
+
+		record.setThrown(new IllegalStateException("testing"));
+		CompiledFormatterTest.assertSameAsSimpleFormatter(CompiledFormatterTest.PROPERTIES_FORMAT, record);
+	}
+
+	@Test
+	public void defaultFormat()
+	{
+		CompiledFormatterTest.assertSameAsSimpleFormatter(CompiledFormatter.DEFAULT_FORMAT,
+		        CompiledFormatterTest.record(1517424310250L));
+	}
+
+	@Test
+	public void otherSpecifiers()
+	{
+		final LogRecord record = CompiledFormatterTest.record(1517424310007L);
+		CompiledFormatterTest.assertSameAsSimpleFormatter("%1$tc %1$tN %1$tQ %1$tF %1$tT %4$-9s|%2$.9s|%5$S%%%n",
+		        record);
+		CompiledFormatterTest.assertSameAsSimpleFormatter("%s %s %<s %10s %1$TB %1$10tH %5$h%n", record);
+
+		record.setSourceClassName(null);
+		CompiledFormatterTest.assertSameAsSimpleFormatter("%2$s|%3$s", record);
+	}
+
+	@Test
+	public void cachedTime()
+	{
+		final CompiledFormatter formatter = new CompiledFormatter(CompiledFormatterTest.PROPERTIES_FORMAT,
+		        CompiledFormatterTest.ZONE);
+		final long second = 1517424310000L;
+
+		// the second is cached, but the milliseconds change with every record.
+		Assert.assertTrue(formatter.format(CompiledFormatterTest.record(second + 1)).contains(":10.001|"));
+		Assert.assertTrue(formatter.format(CompiledFormatterTest.record(second + 999)).contains(":10.999|"));
+		Assert.assertTrue(formatter.format(CompiledFormatterTest.record(second + 1000)).contains(":11.000|"));
+		Assert.assertTrue(formatter.format(CompiledFormatterTest.record(second - 1)).contains(":09.999|"));
+	}
+
+	@Test
+	public void asLayout()
+	{
+		final DirectLogService service = new DirectLogService();
+		service.removeAppender(service.getAppenders().get(0));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.addAppender(new StreamAppender(out,
+		        new CompiledFormatter("%4$s|%3$s|%2$s|%5$s%n", CompiledFormatterTest.ZONE), false));
+
+		service.logWarning(CompiledFormatterTest.class, "asLayout", "testing the layout");
+		service.getDispatcher().close();
+
+		final String name = CompiledFormatterTest.class.getName();
+		Assert.assertEquals("WARNING|" + name + "|" + name + " asLayout|testing the layout" + System.lineSeparator(),
+		        new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void context()
+	{
+		final CompiledFormatter formatter = new CompiledFormatter("%5$s|%7$s|%7$10.4s|%n", CompiledFormatterTest.ZONE);
+		final LogRecord record = new ContextLogRecord(Level.INFO, "message",
+		        LogContext.EMPTY.with("requestId", "42").with("tenant", "acme"));
+		Assert.assertEquals("message|requestId=42 tenant=acme|      requ|" + System.lineSeparator(),
+		        formatter.format(record));
+
+		// a record without a context writes nothing.
+		Assert.assertEquals("message||          |" + System.lineSeparator(),
+		        formatter.format(new LogRecord(Level.INFO, "message")));
+	}
+
+	@Test
+	public void invalidFormat()
+	{
+		try
+		{
+			new CompiledFormatter("%8$s", CompiledFormatterTest.ZONE);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected - there are only seven arguments.
+		}
+	}
+}
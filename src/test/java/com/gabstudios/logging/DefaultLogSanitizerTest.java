@@ -0,0 +1,121 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class DefaultLogSanitizerTest
+{
+	private static final LogSanitizer SANITIZER = DefaultLogSanitizer.INSTANCE;
+
+	@Test
+	public void cleanReturnsSameInstance()
+	{
+		final String clean = "user bob logged in from 10.0.0.1 (café, 東京)";
+
+		Assert.assertSame(clean, DefaultLogSanitizerTest.SANITIZER.sanitize(clean));
+		Assert.assertSame("", DefaultLogSanitizerTest.SANITIZER.sanitize(""));
+		Assert.assertNull(DefaultLogSanitizerTest.SANITIZER.sanitize((String) null));
+	}
+
+	@Test
+	public void lineBreaks()
+	{
+		Assert.assertEquals("bob\\r\\nINFO forged entry\\tx",
+		        DefaultLogSanitizerTest.SANITIZER.sanitize("bob\r\nINFO forged entry\tx"));
+	}
+
+	@Test
+	public void controlCharacters()
+	{
+		Assert.assertEquals("a\\u0000b\\u001Bc\\u007Fd\\u0085e",
+		        DefaultLogSanitizerTest.SANITIZER.sanitize("a\u0000b\u001Bc\u007Fd\u0085e"));
+	}
+
+	@Test
+	public void bidiAndSeparators()
+	{
+		Assert.assertEquals("x\\u202Ey\\u2066z\\u2028w\\u2029v\\u061C",
+		        DefaultLogSanitizerTest.SANITIZER.sanitize("x\u202Ey\u2066z\u2028w\u2029v\u061C"));
+	}
+
+	@Test
+	public void sanitizeIntoBuilder()
+	{
+		final StringBuilder builder = new StringBuilder("prefix ");
+		DefaultLogSanitizerTest.SANITIZER.sanitize(new StringBuilder("a\nb"), builder);
+		DefaultLogSanitizerTest.SANITIZER.sanitize((CharSequence) null, builder);
+
+		Assert.assertEquals("prefix a\\nbnull", builder.toString());
+	}
+
+	@Test
+	public void defaultSanitizeIntoBuilder()
+	{
+		final LogSanitizer upperCase = new LogSanitizer()
+		{
+			@Override
+			public String sanitize(final String untrustedData)
+			{
+				return (untrustedData.toUpperCase());
+			}
+		};
+		final StringBuilder builder = new StringBuilder();
+		upperCase.sanitize(new StringBuilder("abc"), builder);
+
+		Assert.assertEquals("ABC", builder.toString());
+	}
+
+	@Test
+	public void serviceDefault()
+	{
+		final DirectLogService service = new DirectLogService();
+		final DirectLogServiceTest.CaptureAppender appender = new DirectLogServiceTest.CaptureAppender();
+		for (final LogAppender existing : service.getAppenders())
+		{
+			service.removeAppender(existing);
+		}
+		service.addAppender(appender);
+
+		service.logMessage(DefaultLogSanitizerTest.class, "serviceDefault", "line1\nline2");
+		service.logMessage(DefaultLogSanitizerTest.class, "serviceDefault", "user {} failed", "bob\r\nforged");
+
+		Assert.assertEquals("line1\\nline2", appender._events.get(0).getMessage());
+		Assert.assertEquals("user bob\\r\\nforged failed", appender._events.get(1).getMessage());
+	}
+
+	@Test
+	public void setSanitizerNull()
+	{
+		try
+		{
+			new DirectLogService().setSanitizer(null);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertTrue(true);
+		}
+	}
+}
@@ -0,0 +1,343 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class DirectLogServiceTest
+{
+	/*
+	 * Keeps a copy of every event it is given.
+	 */
+	static class CaptureAppender implements LogAppender
+	{
+		final List<LogEvent> _events = new ArrayList<LogEvent>();
+
+		@Override
+		public synchronized void append(final LogEvent event)
+		{
+			final LogEvent copy = new LogEvent();
+			copy.copyFrom(event);
+			this._events.add(copy);
+		}
+
+		@Override
+		public void flush()
+		{
+			// void - does nothing.
+		}
+
+		@Override
+		public void close()
+		{
+			// void - does nothing.
+		}
+	}
+
+	/*
+	 * Counts the records that reach the java logging.
+	 */
+	static class CountHandler extends Handler
+	{
+		volatile int _count;
+
+		@Override
+		public void publish(final LogRecord record)
+		{
+			this._count++;
+		}
+
+		@Override
+		public void flush()
+		{
+			// void - does nothing.
+		}
+
+		@Override
+		public void close()
+		{
+			// void - does nothing.
+		}
+	}
+
+	private DirectLogService	_service;
+
+	private CaptureAppender		_appender;
+
+	@Test
+	public void defaultAppender()
+	{
+		final List<LogAppender> appenders = new DirectLogService().getAppenders();
+
+		Assert.assertEquals(1, appenders.size());
+		Assert.assertTrue(appenders.get(0) instanceof StreamAppender);
+	}
+
+	@Test
+	public void logMessage()
+	{
+		this._service.logMessage(DirectLogServiceTest.class, "logMessage", "testing logMessage");
+
+		Assert.assertEquals(1, this._appender._events.size());
+		final LogEvent event = this._appender._events.get(0);
+		Assert.assertEquals(Level.INFO, event.getLevel());
+		Assert.assertEquals(DirectLogServiceTest.class.getName(), event.getClassName());
+		Assert.assertEquals("logMessage", event.getMethodName());
+		Assert.assertEquals("testing logMessage", event.getMessage());
+		Assert.assertEquals(Thread.currentThread().getId(), event.getThreadId());
+		Assert.assertTrue(event.getMillis() > 0);
+	}
+
+	@Test
+	public void bypassesJavaLogging()
+	{
+		final Logger logger = Logger.getLogger(DirectLogServiceTest.class.getName());
+		final CountHandler handler = new CountHandler();
+		logger.addHandler(handler);
+		try
+		{
+			this._service.logWarning(DirectLogServiceTest.class, "bypassesJavaLogging", "testing logWarning");
+		}
+		finally
+		{
+			logger.removeHandler(handler);
+		}
+
+		Assert.assertEquals(1, this._appender._events.size());
+		Assert.assertEquals(0, handler._count);
+	}
+
+	@Test
+	public void rootLevel()
+	{
+		final ClassLogger classLogger = this._service.forClass(DirectLogServiceTest.class);
+
+		Assert.assertTrue(classLogger.isLoggable(Level.INFO));
+		Assert.assertFalse(classLogger.isLoggable(Level.CONFIG));
+
+		this._service.logDebug(DirectLogServiceTest.class, "rootLevel", "testing logDebug");
+		Assert.assertEquals(0, this._appender._events.size());
+	}
+
+	@Test
+	public void oneLoggerPerClass() throws InterruptedException
+	{
+		final int threadCount = 8;
+		final ClassLogger[] classLoggers = new ClassLogger[threadCount];
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++)
+		{
+			final int index = t;
+			threads[t] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+					}
+					catch (final InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+					}
+					classLoggers[index] = DirectLogServiceTest.this._service.forClass(DirectLogServiceTest.class);
+				}
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		// the logger in use is the one levels are applied to.
+		for (final ClassLogger classLogger : classLoggers)
+		{
+			Assert.assertSame(classLoggers[0], classLogger);
+		}
+		Assert.assertEquals(1, this._service.getClassLoggers().size());
+		Assert.assertSame(classLoggers[0], this._service.getClassLoggers().iterator().next());
+	}
+
+	@Test
+	public void packageLevel()
+	{
+		final ClassLogger classLogger = this._service.forClass(DirectLogServiceTest.class);
+		this._service.setLevel("com.gabstudios", Level.FINEST);
+
+		Assert.assertTrue(classLogger.isLoggable(Level.FINEST));
+		this._service.logDebug(DirectLogServiceTest.class, "packageLevel", "testing logDebug");
+		Assert.assertEquals(1, this._appender._events.size());
+
+		this._service.setLevel(DirectLogServiceTest.class.getName(), Level.SEVERE);
+		Assert.assertFalse(classLogger.isLoggable(Level.WARNING));
+
+		this._service.setLevel(DirectLogServiceTest.class.getName(), null);
+		this._service.setLevel("com.gabstudios", null);
+		Assert.assertFalse(classLogger.isLoggable(Level.FINEST));
+		Assert.assertNull(this._service.getLevel("com.gabstudios"));
+	}
+
+	@Test
+	public void rootLevelNull()
+	{
+		try
+		{
+			this._service.setLevel(DirectLogService.ROOT, null);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertEquals(Level.INFO, this._service.getLevel(DirectLogService.ROOT));
+		}
+	}
+
+	@Test
+	public void logOff()
+	{
+		this._service.setLevel(DirectLogService.ROOT, Level.OFF);
+		this._service.logSecurity(DirectLogServiceTest.class, "logOff", "testing logSecurity");
+
+		Assert.assertEquals(0, this._appender._events.size());
+	}
+
+	@Test
+	public void removeAppender()
+	{
+		Assert.assertTrue(this._service.removeAppender(this._appender));
+		Assert.assertFalse(this._service.removeAppender(this._appender));
+
+		this._service.logMessage(DirectLogServiceTest.class, "removeAppender", "testing logMessage");
+		Assert.assertEquals(0, this._appender._events.size());
+	}
+
+	@Test
+	public void async()
+	{
+		final AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(16, OverflowPolicy.BLOCK,
+		        this._service.getDispatcher());
+		this._service.setDispatcher(dispatcher);
+		try
+		{
+			this._service.logMessage(DirectLogServiceTest.class, "async", "testing async");
+			dispatcher.flush();
+		}
+		finally
+		{
+			dispatcher.close();
+		}
+
+		Assert.assertEquals(1, this._appender._events.size());
+		Assert.assertEquals(Thread.currentThread().getId(), this._appender._events.get(0).getThreadId());
+	}
+
+	@Test
+	public void streamAppender()
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this._service.addAppender(new StreamAppender(out, new SimpleLogLayout(ZoneOffset.UTC), false));
+
+		this._service.logMessage(DirectLogServiceTest.class, "streamAppender", "café");
+
+		final String line = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		final String className = DirectLogServiceTest.class.getName();
+		Assert.assertTrue(line,
+		        line.matches("\\d{4}-\\d{2}-\\d{2}\\|\\d{2}:\\d{2}:\\d{2}\\.\\d{3}\\|INFO\\|.*\\R"));
+		Assert.assertTrue(line, line.contains("|" + className + "|" + className + " streamAppender|café"));
+	}
+
+	@Test
+	public void streamAppenderThrown()
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this._service.addAppender(new StreamAppender(out, new SimpleLogLayout(ZoneOffset.UTC), false));
+
+		this._service.logFailure(DirectLogServiceTest.class, "streamAppenderThrown", "testing logFailure",
+		        new IllegalStateException("broken"));
+
+		final String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		Assert.assertTrue(text, text.contains("testing logFailure" + System.lineSeparator()
+		        + "java.lang.IllegalStateException: broken"));
+	}
+
+	@Test
+	public void lengthPolicyDropTruncatesSecurity()
+	{
+		final String methodName = new String(new char[65]).replace('\0', 'm');
+		final String message = new String(new char[257]).replace('\0', 'x');
+		this._service.setLengthPolicy(LengthPolicy.DROP);
+
+		this._service.logWarning(DirectLogServiceTest.class, methodName, message);
+		this._service.logSecurity(DirectLogServiceTest.class, methodName, message);
+		final LogBatch batch = this._service.batch(DirectLogServiceTest.class);
+		batch.logWarning(methodName, message);
+		batch.logSecurity(methodName, message);
+		batch.commit();
+		// the name truncated for the SECURITY events is not reused for the others.
+		this._service.logWarning(DirectLogServiceTest.class, methodName, "short");
+
+		Assert.assertEquals(2, this._appender._events.size());
+		for (final LogEvent event : this._appender._events)
+		{
+			Assert.assertEquals(LogService.SecurityLevel.SECURITY, event.getLevel());
+			Assert.assertEquals(64, event.getMethodName().length());
+			Assert.assertEquals(256, event.getMessage().length());
+		}
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._service = new DirectLogService();
+		for (final LogAppender appender : this._service.getAppenders())
+		{
+			this._service.removeAppender(appender);
+		}
+		this._appender = new CaptureAppender();
+		this._service.addAppender(this._appender);
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.getDispatcher().close();
+	}
+
+}
@@ -0,0 +1,238 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class FanOutAppenderTest
+{
+	/*
+	 * Writes only the message, so the output can be checked line by line.
+	 */
+	private static final LogLayout	MESSAGE_LAYOUT	= new LogLayout()
+	{
+		@Override
+		public void format(final LogEvent event, final StringBuilder builder)
+		{
+			builder.append(event.getMessage()).append('\n');
+		}
+	};
+
+	/*
+	 * A stream whose writes wait until it is released, like a pipe nobody reads.
+	 */
+	private static final class BlockedStream extends OutputStream
+	{
+		final CountDownLatch _entered = new CountDownLatch(1);
+
+		final CountDownLatch _release = new CountDownLatch(1);
+
+		@Override
+		public void write(final int b) throws IOException
+		{
+			this._entered.countDown();
+			try
+			{
+				this._release.await();
+			}
+			catch (final InterruptedException e)
+			{
+				throw (new IOException(e));
+			}
+		}
+	}
+
+	/*
+	 * A stream whose writes fail.
+	 */
+	private static final class BrokenStream extends OutputStream
+	{
+		@Override
+		public void write(final int b) throws IOException
+		{
+			throw (new IOException("broken"));
+		}
+	}
+
+	private DirectLogService		_service;
+
+	/*
+	 * Waits up to five seconds for a sink to reach a health.
+	 */
+	private static void awaitHealth(final LogSink sink, final SinkHealth health) throws InterruptedException
+	{
+		final long end = System.currentTimeMillis() + 5000L;
+		while ((sink.getHealth() != health) && (System.currentTimeMillis() < end))
+		{
+			Thread.sleep(1);
+		}
+		Assert.assertEquals(health, sink.getHealth());
+	}
+
+	@Test
+	public void writesEverySink()
+	{
+		final ByteArrayOutputStream console = new ByteArrayOutputStream();
+		final ByteArrayOutputStream file = new ByteArrayOutputStream();
+		final LogSink consoleSink = new LogSink("console", console, 16, OverflowPolicy.BLOCK);
+		final LogSink fileSink = new LogSink("file", file, 16, OverflowPolicy.BLOCK);
+		final FanOutAppender appender = new FanOutAppender(FanOutAppenderTest.MESSAGE_LAYOUT, consoleSink, fileSink);
+		this._service.addAppender(appender);
+
+		for (int i = 0; i < 100; i++)
+		{
+			this._service.logMessage(FanOutAppenderTest.class, "writesEverySink", "event " + i + " é");
+		}
+		appender.flush();
+
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++)
+		{
+			expected.append("event ").append(i).append(" é\n");
+		}
+		Assert.assertEquals(expected.toString(), new String(console.toByteArray(), StandardCharsets.UTF_8));
+		Assert.assertEquals(expected.toString(), new String(file.toByteArray(), StandardCharsets.UTF_8));
+		Assert.assertEquals(100L, consoleSink.getWrittenCount());
+		Assert.assertEquals(SinkHealth.HEALTHY, fileSink.getHealth());
+		Assert.assertEquals(0L, appender.getDroppedCount());
+	}
+
+	@Test
+	public void slowSinkIsolated() throws InterruptedException
+	{
+		final BlockedStream console = new BlockedStream();
+		final ByteArrayOutputStream file = new ByteArrayOutputStream();
+		final LogSink consoleSink = new LogSink("console", console, 4, OverflowPolicy.DROP_NEWEST);
+		final LogSink fileSink = new LogSink("file", file, 1024, OverflowPolicy.BLOCK);
+		final FanOutAppender appender = new FanOutAppender(FanOutAppenderTest.MESSAGE_LAYOUT, consoleSink, fileSink);
+		this._service.addAppender(appender);
+
+		for (int i = 0; i < 100; i++)
+		{
+			this._service.logMessage(FanOutAppenderTest.class, "slowSinkIsolated", "event " + i);
+		}
+		appender.flush();
+
+		Assert.assertEquals(100, new String(file.toByteArray(), StandardCharsets.UTF_8).split("\n").length);
+		Assert.assertEquals(SinkHealth.SLOW, consoleSink.getHealth());
+		Assert.assertTrue(consoleSink.getDroppedCount() > 0);
+		Assert.assertEquals(0L, fileSink.getDroppedCount());
+
+		console._release.countDown();
+		appender.close();
+		Assert.assertEquals(100L, consoleSink.getWrittenCount() + consoleSink.getDroppedCount());
+	}
+
+	@Test
+	public void stalledSinkDoesNotBlock() throws InterruptedException
+	{
+		final BlockedStream console = new BlockedStream();
+		final LogSink consoleSink = new LogSink("console", console, 1, OverflowPolicy.BLOCK);
+		final FanOutAppender appender = new FanOutAppender(FanOutAppenderTest.MESSAGE_LAYOUT, consoleSink);
+		this._service.addAppender(appender);
+
+		// the first event is taken by the consumer and stalls it, the second fills the queue.
+		this._service.logMessage(FanOutAppenderTest.class, "stalledSinkDoesNotBlock", "first");
+		Assert.assertTrue(console._entered.await(5, TimeUnit.SECONDS));
+		this._service.logMessage(FanOutAppenderTest.class, "stalledSinkDoesNotBlock", "second");
+		this._service.logMessage(FanOutAppenderTest.class, "stalledSinkDoesNotBlock", "third");
+		Assert.assertEquals(SinkHealth.SLOW, consoleSink.getHealth());
+		Assert.assertEquals(1L, consoleSink.getDroppedCount());
+
+		console._release.countDown();
+		appender.close();
+	}
+
+	@Test
+	public void failedSinkIsolated() throws InterruptedException
+	{
+		final ByteArrayOutputStream file = new ByteArrayOutputStream();
+		final LogSink brokenSink = new LogSink("broken", new BrokenStream(), 16, OverflowPolicy.BLOCK);
+		final LogSink fileSink = new LogSink("file", file, 16, OverflowPolicy.BLOCK);
+		final FanOutAppender appender = new FanOutAppender(FanOutAppenderTest.MESSAGE_LAYOUT, brokenSink, fileSink);
+		this._service.addAppender(appender);
+
+		this._service.logMessage(FanOutAppenderTest.class, "failedSinkIsolated", "first");
+		FanOutAppenderTest.awaitHealth(brokenSink, SinkHealth.FAILED);
+		for (int i = 0; i < 100; i++)
+		{
+			this._service.logMessage(FanOutAppenderTest.class, "failedSinkIsolated", "event " + i);
+		}
+		appender.flush();
+
+		Assert.assertEquals(101, new String(file.toByteArray(), StandardCharsets.UTF_8).split("\n").length);
+		Assert.assertTrue(brokenSink.getFailureCount() > 0);
+		Assert.assertEquals(0L, brokenSink.getWrittenCount());
+		appender.close();
+	}
+
+	@Test
+	public void invalidParameters()
+	{
+		try
+		{
+			new LogSink("console", System.out, 0, OverflowPolicy.BLOCK);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertEquals("The 'capacity' parameter must be greater than zero.", e.getMessage());
+		}
+		try
+		{
+			new FanOutAppender(FanOutAppenderTest.MESSAGE_LAYOUT);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertEquals("The 'sinks' parameter must not be null or empty.", e.getMessage());
+		}
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._service = new DirectLogService();
+		for (final LogAppender appender : this._service.getAppenders())
+		{
+			this._service.removeAppender(appender);
+		}
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.getDispatcher().close();
+	}
+
+}
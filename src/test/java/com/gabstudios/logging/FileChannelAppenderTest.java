@@ -0,0 +1,201 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class FileChannelAppenderTest
+{
+	/*
+	 * Writes only the message, so the file can be checked line by line.
+	 */
+	private static final LogLayout	MESSAGE_LAYOUT	= new LogLayout()
+	{
+		@Override
+		public void format(final LogEvent event, final StringBuilder builder)
+		{
+			builder.append(event.getMessage()).append('\n');
+		}
+	};
+
+	@Rule
+	public TemporaryFolder			_folder			= new TemporaryFolder();
+
+	private DirectLogService		_service;
+
+	private Path					_file;
+
+	@Test
+	public void append() throws IOException
+	{
+		final FileChannelAppender appender = new FileChannelAppender(this._file,
+		        FileChannelAppenderTest.MESSAGE_LAYOUT, 1024, 1000000L, false);
+		this._service.addAppender(appender);
+
+		this._service.logMessage(FileChannelAppenderTest.class, "append", "first");
+		this._service.logMessage(FileChannelAppenderTest.class, "append", "second é");
+		appender.flush();
+
+		Assert.assertEquals("first\nsecond é\n", new String(Files.readAllBytes(this._file), StandardCharsets.UTF_8));
+		Assert.assertEquals(1L, appender.getBatchCount());
+		appender.close();
+	}
+
+	@Test
+	public void closeOnDeadline() throws IOException, InterruptedException
+	{
+		final FileChannelAppender appender = new FileChannelAppender(this._file,
+		        FileChannelAppenderTest.MESSAGE_LAYOUT, 1024 * 1024, 100L, true);
+		this._service.addAppender(appender);
+
+		this._service.logMessage(FileChannelAppenderTest.class, "closeOnDeadline", "waits for the deadline");
+
+		final long end = System.currentTimeMillis() + 5000L;
+		while ((appender.getBatchCount() == 0) && (System.currentTimeMillis() < end))
+		{
+			Thread.sleep(1);
+		}
+		Assert.assertEquals(1L, appender.getBatchCount());
+		Assert.assertEquals("waits for the deadline\n",
+		        new String(Files.readAllBytes(this._file), StandardCharsets.UTF_8));
+		appender.close();
+	}
+
+	@Test
+	public void closeOnSize() throws IOException
+	{
+		final FileChannelAppender appender = new FileChannelAppender(this._file,
+		        FileChannelAppenderTest.MESSAGE_LAYOUT, 64, 60000000L, false);
+		this._service.addAppender(appender);
+
+		for (int i = 0; i < 100; i++)
+		{
+			this._service.logMessage(FileChannelAppenderTest.class, "closeOnSize", "event " + i);
+		}
+		appender.close();
+
+		Assert.assertTrue(appender.getBatchCount() > 1);
+		final List<String> lines = Files.readAllLines(this._file, StandardCharsets.UTF_8);
+		Assert.assertEquals(100, lines.size());
+		for (int i = 0; i < 100; i++)
+		{
+			Assert.assertEquals("event " + i, lines.get(i));
+		}
+	}
+
+	@Test
+	public void manyThreads() throws IOException, InterruptedException
+	{
+		final FileChannelAppender appender = new FileChannelAppender(this._file,
+		        FileChannelAppenderTest.MESSAGE_LAYOUT, 4096, 200L, false);
+		this._service.addAppender(appender);
+
+		final int threadCount = 8;
+		final int eventCount = 2000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++)
+		{
+			final int id = t;
+			threads[t] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						start.await();
+					}
+					catch (final InterruptedException e)
+					{
+						return;
+					}
+					for (int i = 0; i < eventCount; i++)
+					{
+						FileChannelAppenderTest.this._service.logMessage(FileChannelAppenderTest.class, "manyThreads",
+						        "thread " + id + " event " + i);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+		appender.close();
+
+		final List<String> lines = Files.readAllLines(this._file, StandardCharsets.UTF_8);
+		final Set<String> unique = new HashSet<String>(lines);
+		Assert.assertEquals(threadCount * eventCount, lines.size());
+		Assert.assertEquals(threadCount * eventCount, unique.size());
+		Assert.assertTrue(appender.getBatchCount() < lines.size());
+	}
+
+	@Test
+	public void appendAfterClose() throws IOException
+	{
+		final FileChannelAppender appender = new FileChannelAppender(this._file);
+		this._service.addAppender(appender);
+		appender.close();
+		appender.close();
+
+		this._service.logMessage(FileChannelAppenderTest.class, "appendAfterClose", "discarded");
+		appender.flush();
+
+		Assert.assertEquals(0L, Files.size(this._file));
+	}
+
+	@Before
+	public void setUp() throws IOException
+	{
+		this._file = this._folder.getRoot().toPath().resolve("app.log");
+		this._service = new DirectLogService();
+		for (final LogAppender appender : this._service.getAppenders())
+		{
+			this._service.removeAppender(appender);
+		}
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.getDispatcher().close();
+	}
+
+}
@@ -0,0 +1,303 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class FlightRecorderTest
+{
+	private DirectLogService					_service;
+
+	private DirectLogServiceTest.CaptureAppender	_appender;
+
+	@Test
+	public void dumpedByFailure()
+	{
+		final FlightRecorder recorder = new FlightRecorder(8);
+		this._service.setFlightRecorder(recorder);
+
+		this._service.logDebug(FlightRecorderTest.class, "dumpedByFailure", "step {}", 1);
+		this._service.logConfiguration(FlightRecorderTest.class, "dumpedByFailure", "step 2");
+		this._service.logMessage(FlightRecorderTest.class, "dumpedByFailure", "written");
+		Assert.assertEquals(1, this._appender._events.size());
+		Assert.assertEquals(2L, recorder.getRecordedCount());
+
+		// the lead-up is written before the failure.
+		this._service.logFailure(FlightRecorderTest.class, "dumpedByFailure", "failed",
+		        new IllegalStateException("testing"));
+		Assert.assertEquals(4, this._appender._events.size());
+		Assert.assertEquals(Level.FINEST, this._appender._events.get(1).getLevel());
+		Assert.assertEquals("step 1", this._appender._events.get(1).getMessage());
+		Assert.assertEquals(Level.CONFIG, this._appender._events.get(2).getLevel());
+		Assert.assertEquals("failed", this._appender._events.get(3).getMessage());
+		Assert.assertTrue(this._appender._events.get(1).isDumped());
+		Assert.assertFalse(this._appender._events.get(3).isDumped());
+		Assert.assertEquals(1L, recorder.getDumpCount());
+
+		// an event is only dumped once.
+		this._service.logSecurity(FlightRecorderTest.class, "dumpedByFailure", "access denied");
+		Assert.assertEquals(5, this._appender._events.size());
+		Assert.assertEquals(1L, recorder.getDumpCount());
+	}
+
+	@Test
+	public void javaServiceDumpsPastLoggerLevel()
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		final StreamHandler handler = new StreamHandler(out, new SimpleFormatter());
+		handler.setLevel(Level.ALL);
+		final StreamHandler errorHandler = new StreamHandler(errors, new SimpleFormatter());
+		errorHandler.setLevel(Level.SEVERE);
+
+		final Logger logger = Logger.getLogger(FlightRecorderTest.class.getName());
+		logger.setUseParentHandlers(false);
+		logger.addHandler(handler);
+		logger.addHandler(errorHandler);
+		logger.setLevel(Level.INFO);
+		final JavaLogService service = new JavaLogService();
+		try
+		{
+			service.setFlightRecorder(new FlightRecorder(8));
+			service.logDebug(FlightRecorderTest.class, "javaServiceDumpsPastLoggerLevel", "step 1");
+			service.logFailure(FlightRecorderTest.class, "javaServiceDumpsPastLoggerLevel", "failed");
+			handler.flush();
+			errorHandler.flush();
+
+			final String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+			Assert.assertTrue(text, text.contains("|FINEST|"));
+			Assert.assertTrue(text, text.indexOf("step 1") >= 0);
+			Assert.assertTrue(text, text.indexOf("step 1") < text.indexOf("failed"));
+
+			// a handler keeps its own level for a dumped event.
+			final String errorText = new String(errors.toByteArray(), StandardCharsets.UTF_8);
+			Assert.assertTrue(errorText, errorText.contains("failed"));
+			Assert.assertFalse(errorText, errorText.contains("step 1"));
+		}
+		finally
+		{
+			service.setFlightRecorder(null);
+			logger.removeHandler(handler);
+			logger.removeHandler(errorHandler);
+			logger.setUseParentHandlers(true);
+			logger.setLevel(null);
+		}
+	}
+
+	@Test
+	public void javaServiceDropsEventsNoLongerLoggable()
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final StreamHandler handler = new StreamHandler(out, new SimpleFormatter());
+		handler.setLevel(Level.ALL);
+
+		final Logger logger = Logger.getLogger(FlightRecorderTest.class.getName());
+		logger.setUseParentHandlers(false);
+		logger.addHandler(handler);
+		logger.setLevel(Level.ALL);
+		final JavaLogService service = new JavaLogService();
+		try
+		{
+			final LogBatch batch = service.batch(FlightRecorderTest.class);
+			batch.logDebug("javaServiceDropsEventsNoLongerLoggable", "queued while debug was on");
+			logger.setLevel(Level.WARNING);
+			batch.commit();
+			handler.flush();
+
+			Assert.assertEquals(0, out.size());
+		}
+		finally
+		{
+			logger.removeHandler(handler);
+			logger.setUseParentHandlers(true);
+			logger.setLevel(null);
+		}
+	}
+
+	@Test
+	public void keepsLastEvents()
+	{
+		final FlightRecorder recorder = new FlightRecorder(3);
+		Assert.assertEquals(4, recorder.getCapacity());
+		this._service.setFlightRecorder(recorder);
+
+		for (int i = 0; i < 10; i++)
+		{
+			this._service.logDebug(FlightRecorderTest.class, "keepsLastEvents", "step {}", i);
+		}
+		Assert.assertEquals(0, this._appender._events.size());
+
+		Assert.assertEquals(4, recorder.dump());
+		Assert.assertEquals(4, this._appender._events.size());
+		for (int i = 0; i < 4; i++)
+		{
+			Assert.assertEquals("step " + (i + 6), this._appender._events.get(i).getMessage());
+		}
+		Assert.assertEquals(0, recorder.dump());
+	}
+
+	@Test
+	public void enabledLevelNotRecorded()
+	{
+		final FlightRecorder recorder = new FlightRecorder(8);
+		this._service.setFlightRecorder(recorder);
+		this._service.setLevel(DirectLogService.ROOT, Level.FINEST);
+
+		this._service.logDebug(FlightRecorderTest.class, "enabledLevelNotRecorded", "written");
+		Assert.assertEquals(1, this._appender._events.size());
+		Assert.assertEquals(0L, recorder.getRecordedCount());
+	}
+
+	@Test
+	public void triggerLevel()
+	{
+		final FlightRecorder recorder = new FlightRecorder(8, LogService.SecurityLevel.SECURITY);
+		this._service.setFlightRecorder(recorder);
+
+		this._service.logDebug(FlightRecorderTest.class, "triggerLevel", "step 1");
+		this._service.logFailure(FlightRecorderTest.class, "triggerLevel", "failed");
+		Assert.assertEquals(1, this._appender._events.size());
+
+		this._service.logSecurity(FlightRecorderTest.class, "triggerLevel", "access denied");
+		Assert.assertEquals(3, this._appender._events.size());
+		Assert.assertEquals("step 1", this._appender._events.get(1).getMessage());
+	}
+
+	@Test
+	public void clear()
+	{
+		final FlightRecorder recorder = new FlightRecorder(8);
+		this._service.setFlightRecorder(recorder);
+
+		this._service.logDebug(FlightRecorderTest.class, "clear", "step 1");
+		recorder.clear();
+		this._service.logDebug(FlightRecorderTest.class, "clear", "step 2");
+		Assert.assertEquals(1, recorder.dump());
+		Assert.assertEquals("step 2", this._appender._events.get(0).getMessage());
+	}
+
+	@Test
+	public void replaceRecorder()
+	{
+		final FlightRecorder recorder = new FlightRecorder(8);
+		this._service.setFlightRecorder(recorder);
+		Assert.assertSame(recorder, this._service.getFlightRecorder());
+
+		this._service.logDebug(FlightRecorderTest.class, "replaceRecorder", "step 1");
+		this._service.setFlightRecorder(null);
+		Assert.assertNull(this._service.getFlightRecorder());
+
+		// the previous recorder discards its events and no longer dumps.
+		Assert.assertEquals(0, recorder.dump());
+		this._service.logDebug(FlightRecorderTest.class, "replaceRecorder", "step 2");
+		this._service.logFailure(FlightRecorderTest.class, "replaceRecorder", "failed");
+		Assert.assertEquals(1, this._appender._events.size());
+	}
+
+	@Test
+	public void boundToOneService()
+	{
+		final FlightRecorder recorder = new FlightRecorder(8);
+		this._service.setFlightRecorder(recorder);
+		try
+		{
+			new DirectLogService().setFlightRecorder(recorder);
+			Assert.fail("Expected an IllegalStateException.");
+		}
+		catch (final IllegalStateException e)
+		{
+			Assert.assertSame(recorder, this._service.getFlightRecorder());
+		}
+	}
+
+	@Test
+	public void invalidTriggerLevel()
+	{
+		try
+		{
+			new FlightRecorder(8, Level.FINE);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertEquals("The 'triggerLevel' parameter must be above INFO.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void registeredWithJmx() throws JMException
+	{
+		final LogProvider logProvider = LogProvider.getProvider();
+		final ObjectName name = new ObjectName(FlightRecorder.OBJECT_NAME);
+		try
+		{
+			final FlightRecorder recorder = logProvider.enableFlightRecorder(16, Level.SEVERE);
+			Assert.assertSame(recorder, logProvider.getService().getFlightRecorder());
+			Assert.assertEquals(16,
+			        ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Capacity"));
+			Assert.assertEquals(0,
+			        ManagementFactory.getPlatformMBeanServer().invoke(name, "dump", new Object[0], new String[0]));
+		}
+		finally
+		{
+			logProvider.disableFlightRecorder();
+		}
+
+		Assert.assertNull(logProvider.getService().getFlightRecorder());
+		Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._service = new DirectLogService();
+		for (final LogAppender appender : this._service.getAppenders())
+		{
+			this._service.removeAppender(appender);
+		}
+		this._appender = new DirectLogServiceTest.CaptureAppender();
+		this._service.addAppender(this._appender);
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.setFlightRecorder(null);
+		this._service.getDispatcher().close();
+	}
+
+}
@@ -0,0 +1,254 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class LevelRegistryTest
+{
+	@Rule
+	public TemporaryFolder			_folder	= new TemporaryFolder();
+
+	private DirectLogService		_service;
+
+	private LevelRegistry			_registry;
+
+	private ClassLogger				_classLogger;
+
+	/*
+	 * Writes a file of levels.
+	 */
+	private static void write(final Path file, final String text) throws IOException
+	{
+		Files.write(file, text.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	/*
+	 * Waits for the watcher to read a change of the file.
+	 */
+	private void awaitLoggable(final Level level, final boolean loggable) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 30000L;
+		while ((this._classLogger.isLoggable(level) != loggable) && (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(20L);
+		}
+		Assert.assertEquals(loggable, this._classLogger.isLoggable(level));
+	}
+
+	@Test
+	public void setLevel()
+	{
+		Assert.assertFalse(this._classLogger.isLoggable(Level.FINEST));
+
+		this._registry.setLevel("com.gabstudios", Level.FINEST);
+		Assert.assertTrue(this._classLogger.isLoggable(Level.FINEST));
+		Assert.assertEquals(Level.FINEST, this._service.getLevel("com.gabstudios"));
+
+		this._registry.setLevel("com.gabstudios", null);
+		Assert.assertFalse(this._classLogger.isLoggable(Level.FINEST));
+		Assert.assertNull(this._registry.getLevel("com.gabstudios"));
+	}
+
+	@Test
+	public void setLevels()
+	{
+		final Map<String, Level> levels = new HashMap<String, Level>();
+		levels.put(LevelRegistry.ROOT, Level.SEVERE);
+		levels.put(LevelRegistryTest.class.getName(), Level.CONFIG);
+		this._registry.setLevels(levels);
+
+		Assert.assertTrue(this._classLogger.isLoggable(Level.CONFIG));
+		Assert.assertFalse(this._service.forClass(LevelRegistry.class).isLoggable(Level.WARNING));
+		Assert.assertEquals(levels, this._registry.getLevels());
+
+		// a level that is not in the new levels is removed, and the root falls back to the system property.
+		this._registry.setLevels(new HashMap<String, Level>());
+		Assert.assertTrue(this._registry.getLevels().isEmpty());
+		Assert.assertFalse(this._classLogger.isLoggable(Level.CONFIG));
+		Assert.assertTrue(this._classLogger.isLoggable(Level.INFO));
+	}
+
+	@Test
+	public void mxBean()
+	{
+		this._registry.setLevelName("com.gabstudios.logging", "FINE");
+		Assert.assertEquals("FINE", this._registry.getLevelNames().get("com.gabstudios.logging"));
+		Assert.assertEquals("FINE", this._registry.getEffectiveLevelName(LevelRegistryTest.class.getName()));
+		Assert.assertTrue(this._classLogger.isLoggable(Level.FINE));
+
+		this._registry.setLevelName("com.gabstudios.logging", "");
+		Assert.assertEquals("INFO", this._registry.getEffectiveLevelName(LevelRegistryTest.class.getName()));
+		Assert.assertNull(this._registry.getWatchedFile());
+	}
+
+	@Test
+	public void javaLogService()
+	{
+		final JavaLogService service = new JavaLogService();
+		final ClassLogger classLogger = service.forClass(LevelRegistryTest.class);
+		final Logger logger = Logger.getLogger("com.gabstudios.logging");
+		final Level original = logger.getLevel();
+		try
+		{
+			service.getLevelRegistry().setLevel("com.gabstudios.logging", Level.FINEST);
+			Assert.assertEquals(Level.FINEST, logger.getLevel());
+			Assert.assertTrue(classLogger.isLoggable(Level.FINEST));
+			Assert.assertEquals("FINEST",
+			        service.getLevelRegistry().getEffectiveLevelName(LevelRegistryTest.class.getName()));
+
+			// removing the level gives the logger back the level it had before.
+			service.getLevelRegistry().setLevel("com.gabstudios.logging", null);
+			Assert.assertEquals(original, logger.getLevel());
+		}
+		finally
+		{
+			logger.setLevel(original);
+		}
+	}
+
+	@Test
+	public void watch() throws IOException, InterruptedException
+	{
+		final Path file = this._folder.getRoot().toPath().resolve("levels.properties");
+		LevelRegistryTest.write(file, "# levels\n.level=INFO\ncom.gabstudios.logging.level=FINE\nother=value\n");
+
+		this._registry.watch(file);
+		Assert.assertEquals(file.toAbsolutePath().toString(), this._registry.getWatchedFile());
+		Assert.assertTrue(this._classLogger.isLoggable(Level.FINE));
+		Assert.assertEquals(2, this._registry.getLevels().size());
+
+		LevelRegistryTest.write(file, ".level=INFO\ncom.gabstudios.logging.level=FINEST\n");
+		awaitLoggable(Level.FINEST, true);
+
+		// a file that cannot be parsed keeps the levels read before.
+		LevelRegistryTest.write(file, "com.gabstudios.logging.level=NOT_A_LEVEL\n");
+		LevelRegistryTest.write(file, ".level=INFO\n");
+		awaitLoggable(Level.FINE, false);
+
+		this._registry.stopWatching();
+		Assert.assertNull(this._registry.getWatchedFile());
+	}
+
+	@Test
+	public void changeWhileCreating() throws InterruptedException
+	{
+		final CountDownLatch resolving = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicBoolean block = new AtomicBoolean(true);
+		final DirectLogService service = new DirectLogService()
+		{
+			@Override
+			protected Level resolveLevel(final String className)
+			{
+				final Level level = super.resolveLevel(className);
+				if (className.equals(Created.class.getName()) && block.getAndSet(false))
+				{
+					// holds the old level while the level is changed.
+					resolving.countDown();
+					try
+					{
+						release.await();
+					}
+					catch (final InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+					}
+				}
+				return (level);
+			}
+		};
+
+		final ClassLogger[] classLogger = new ClassLogger[1];
+		final Thread creator = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				classLogger[0] = service.forClass(Created.class);
+			}
+		});
+		creator.start();
+		resolving.await();
+		service.setLevel(DirectLogService.ROOT, Level.FINEST);
+		release.countDown();
+		creator.join();
+
+		Assert.assertTrue(classLogger[0].isLoggable(Level.FINEST));
+		service.getDispatcher().close();
+	}
+
+	/*
+	 * A class whose logger is made during a level change.
+	 */
+	private static final class Created
+	{
+		// void - only its name is used.
+	}
+
+	@Test
+	public void invalidName()
+	{
+		try
+		{
+			this._registry.setLevel(null, Level.INFO);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected.
+		}
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._service = new DirectLogService();
+		this._registry = this._service.getLevelRegistry();
+		this._classLogger = this._service.forClass(LevelRegistryTest.class);
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._registry.stopWatching();
+		this._service.getDispatcher().close();
+	}
+
+}
@@ -0,0 +1,258 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.logging.Level;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class LogBatchTest
+{
+	private static final int		THREADS		= 8;
+
+	private static final int		BATCHES		= 200;
+
+	private static final int		BATCH_SIZE	= 10;
+
+	private DirectLogService		_service;
+
+	private ByteArrayOutputStream	_out;
+
+	/*
+	 * Gets the messages written so far.
+	 */
+	private String[] messages()
+	{
+		this._service.getDispatcher().flush();
+		final String text = new String(this._out.toByteArray(), StandardCharsets.UTF_8);
+		if (text.isEmpty())
+		{
+			return (new String[0]);
+		}
+		final String[] lines = text.split(System.lineSeparator());
+		for (int i = 0; i < lines.length; i++)
+		{
+			lines[i] = lines[i].substring(lines[i].lastIndexOf('|') + 1);
+		}
+		return (lines);
+	}
+
+	/*
+	 * Commits batches from several threads at once.
+	 */
+	private void commitBatches() throws InterruptedException
+	{
+		final Thread[] threads = new Thread[LogBatchTest.THREADS];
+		for (int i = 0; i < threads.length; i++)
+		{
+			final int thread = i;
+			threads[i] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					final LogBatch batch = LogBatchTest.this._service.batch(LogBatchTest.class);
+					for (int j = 0; j < LogBatchTest.BATCHES; j++)
+					{
+						for (int k = 0; k < LogBatchTest.BATCH_SIZE; k++)
+						{
+							batch.logMessage("run", "thread " + thread + " batch " + j + " event " + k);
+						}
+						batch.commit();
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+	}
+
+	/*
+	 * Checks that the events of each batch were written together and in order.
+	 */
+	private void assertContiguous(final String[] messages)
+	{
+		Assert.assertEquals(LogBatchTest.THREADS * LogBatchTest.BATCHES * LogBatchTest.BATCH_SIZE, messages.length);
+		for (int i = 0; i < messages.length; i += LogBatchTest.BATCH_SIZE)
+		{
+			final String first = messages[i].substring(0, messages[i].lastIndexOf(" event "));
+			for (int k = 0; k < LogBatchTest.BATCH_SIZE; k++)
+			{
+				Assert.assertEquals(first + " event " + k, messages[i + k]);
+			}
+		}
+	}
+
+	@Test
+	public void commit()
+	{
+		final LogBatch batch = this._service.batch(LogBatchTest.class);
+		Assert.assertSame(this._service.forClass(LogBatchTest.class), batch.getClassLogger());
+
+		batch.logMessage("commit", "first").logWarning("commit", "second").logFailure("commit", "third");
+		Assert.assertEquals(3, batch.size());
+		Assert.assertEquals(0, messages().length);
+
+		batch.commit();
+		Assert.assertEquals(0, batch.size());
+		Assert.assertArrayEquals(new String[] { "first", "second", "third" }, messages());
+	}
+
+	@Test
+	public void close()
+	{
+		try (LogBatch batch = this._service.batch(LogBatchTest.class))
+		{
+			batch.logMessage("close", "committed on close");
+		}
+		Assert.assertArrayEquals(new String[] { "committed on close" }, messages());
+	}
+
+	@Test
+	public void discard()
+	{
+		final LogBatch batch = this._service.batch(LogBatchTest.class);
+		batch.logMessage("discard", "not written");
+		batch.discard();
+		batch.commit();
+
+		Assert.assertEquals(0, batch.size());
+		Assert.assertEquals(0, messages().length);
+	}
+
+	@Test
+	public void level()
+	{
+		this._service.setLevel(DirectLogService.ROOT, Level.WARNING);
+
+		final LogBatch batch = this._service.batch(LogBatchTest.class);
+		batch.logDebug("level", "not added").logMessage("level", "not added").logWarning("level", "added");
+		Assert.assertEquals(1, batch.size());
+	}
+
+	@Test
+	public void invalidEvent()
+	{
+		final LogBatch batch = this._service.batch(LogBatchTest.class);
+		batch.logMessage("invalidEvent", "valid");
+		batch.logMessage(null, "invalid");
+		try
+		{
+			batch.commit();
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected.
+		}
+
+		// nothing is written when one event is invalid.
+		Assert.assertEquals(0, batch.size());
+		Assert.assertEquals(0, messages().length);
+	}
+
+	@Test
+	public void invalidThrown()
+	{
+		try
+		{
+			this._service.batch(LogBatchTest.class).logFailure("invalidThrown", "message", null);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected.
+		}
+	}
+
+	@Test
+	public void sanitized()
+	{
+		this._service.batch(LogBatchTest.class).logMessage("sanitized", "line\nbreak").commit();
+		final String[] messages = messages();
+		Assert.assertEquals(1, messages.length);
+		Assert.assertFalse(messages[0].contains("\n"));
+	}
+
+	@Test
+	public void contiguous() throws InterruptedException
+	{
+		commitBatches();
+		assertContiguous(messages());
+	}
+
+	@Test
+	public void contiguousAsync() throws InterruptedException
+	{
+		// a small buffer, so callers wait for slots and batches are claimed while others are taken.
+		this._service.setDispatcher(new AsyncLogDispatcher(16, OverflowPolicy.BLOCK, this._service.getDispatcher()));
+
+		commitBatches();
+		assertContiguous(messages());
+	}
+
+	@Test
+	public void largerThanAsyncBuffer()
+	{
+		this._service.setDispatcher(new AsyncLogDispatcher(4, OverflowPolicy.BLOCK, this._service.getDispatcher()));
+
+		final LogBatch batch = this._service.batch(LogBatchTest.class);
+		for (int i = 0; i < 10; i++)
+		{
+			batch.logMessage("largerThanAsyncBuffer", "event " + i);
+		}
+		batch.commit();
+
+		final String[] messages = messages();
+		Assert.assertEquals(10, messages.length);
+		for (int i = 0; i < messages.length; i++)
+		{
+			Assert.assertEquals("event " + i, messages[i]);
+		}
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._out = new ByteArrayOutputStream();
+		this._service = new DirectLogService();
+		this._service.removeAppender(this._service.getAppenders().get(0));
+		this._service.addAppender(new StreamAppender(this._out, new SimpleLogLayout(ZoneOffset.UTC), false));
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.getDispatcher().close();
+	}
+
+}
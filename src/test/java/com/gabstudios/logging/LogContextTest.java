@@ -0,0 +1,199 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class LogContextTest
+{
+	private DirectLogService		_service;
+
+	private ByteArrayOutputStream	_out;
+
+	/*
+	 * Gets the text written so far.
+	 */
+	private String text()
+	{
+		this._service.getDispatcher().flush();
+		return (new String(this._out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void putAndRemove()
+	{
+		Assert.assertSame(LogContext.EMPTY, LogContext.current());
+
+		LogContext.put("requestId", "42");
+		LogContext.put("tenant", "acme");
+		LogContext.put("requestId", "43");
+		Assert.assertEquals("43", LogContext.current().get("requestId"));
+		Assert.assertEquals("requestId=43 tenant=acme", LogContext.current().toString());
+
+		LogContext.remove("requestId");
+		Assert.assertNull(LogContext.current().get("requestId"));
+		Assert.assertEquals(1, LogContext.current().size());
+
+		LogContext.remove("tenant");
+		Assert.assertSame(LogContext.EMPTY, LogContext.current());
+	}
+
+	@Test
+	public void snapshot()
+	{
+		LogContext.put("requestId", "42");
+		final LogContext snapshot = LogContext.current();
+		LogContext.put("requestId", "43");
+
+		// a change replaces the context of the thread and leaves the snapshot as it was.
+		Assert.assertEquals("42", snapshot.get("requestId"));
+		Assert.assertNotSame(snapshot, LogContext.current());
+		Assert.assertSame(LogContext.current(), LogContext.current());
+	}
+
+	@Test
+	public void sanitized()
+	{
+		LogContext.put("user", "bob\nadmin");
+		Assert.assertFalse(LogContext.current().get("user").contains("\n"));
+	}
+
+	@Test
+	public void invalid()
+	{
+		try
+		{
+			LogContext.put(null, "value");
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected.
+		}
+
+		final StringBuilder value = new StringBuilder();
+		for (int i = 0; i <= LogContext.MAX_VALUE_LENGTH; i++)
+		{
+			value.append('x');
+		}
+		try
+		{
+			LogContext.put("key", value.toString());
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected.
+		}
+		Assert.assertSame(LogContext.EMPTY, LogContext.current());
+	}
+
+	@Test
+	public void wrap() throws Exception
+	{
+		LogContext.put("requestId", "42");
+		final LogContext context = LogContext.current();
+
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			final Future<LogContext> wrapped = executor.submit(LogContext.wrap(new Callable<LogContext>()
+			{
+				@Override
+				public LogContext call()
+				{
+					return (LogContext.current());
+				}
+			}));
+			Assert.assertSame(context, wrapped.get());
+
+			// the thread of the executor gets its own context back.
+			final Future<LogContext> after = executor.submit(new Callable<LogContext>()
+			{
+				@Override
+				public LogContext call()
+				{
+					return (LogContext.current());
+				}
+			});
+			Assert.assertSame(LogContext.EMPTY, after.get());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void layout()
+	{
+		this._service.logMessage(LogContextTest.class, "layout", "without");
+		LogContext.put("requestId", "42");
+		this._service.logMessage(LogContextTest.class, "layout", "with");
+
+		final String[] lines = text().split(System.lineSeparator());
+		Assert.assertTrue(lines[0], lines[0].endsWith(" layout|without"));
+		Assert.assertTrue(lines[1], lines[1].endsWith(" layout|requestId=42|with"));
+	}
+
+	@Test
+	public void async()
+	{
+		this._service.setDispatcher(new AsyncLogDispatcher(16, OverflowPolicy.BLOCK, this._service.getDispatcher()));
+
+		// the context is taken on the calling thread, not the consumer thread.
+		LogContext.put("requestId", "42");
+		this._service.logMessage(LogContextTest.class, "async", "queued");
+		LogContext.clear();
+
+		Assert.assertTrue(text().endsWith(" async|requestId=42|queued" + System.lineSeparator()));
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._out = new ByteArrayOutputStream();
+		this._service = new DirectLogService();
+		this._service.removeAppender(this._service.getAppenders().get(0));
+		this._service.addAppender(new StreamAppender(this._out, new SimpleLogLayout(ZoneOffset.UTC), false));
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.getDispatcher().close();
+		LogContext.clear();
+	}
+
+}
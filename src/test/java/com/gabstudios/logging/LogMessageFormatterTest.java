@@ -0,0 +1,90 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class LogMessageFormatterTest
+{
+	private static final LogSanitizer UPPER_CASE = new LogSanitizer()
+	{
+		@Override
+		public String sanitize(final String untrustedData)
+		{
+			return (untrustedData.toUpperCase());
+		}
+	};
+
+	@Test
+	public void formatObjects()
+	{
+		Assert.assertEquals("user BOB took 12 ms", LogMessageFormatter.format("user {} took {} ms",
+		        new Object[] { "bob", 12 }, LogMessageFormatterTest.UPPER_CASE));
+	}
+
+	@Test
+	public void formatSanitizesOnlyArguments()
+	{
+		Assert.assertEquals("user BOB", LogMessageFormatter.format("user {}", new Object[] { "bob" },
+		        LogMessageFormatterTest.UPPER_CASE));
+	}
+
+	@Test
+	public void formatMissingAndExtraArguments()
+	{
+		Assert.assertEquals("a A b {}",
+		        LogMessageFormatter.format("a {} b {}", new Object[] { "a" }, LogMessageFormatterTest.UPPER_CASE));
+		Assert.assertEquals("a A",
+		        LogMessageFormatter.format("a {}", new Object[] { "a", "b" }, LogMessageFormatterTest.UPPER_CASE));
+		Assert.assertEquals("a NULL",
+		        LogMessageFormatter.format("a {}", new Object[] { null }, LogMessageFormatterTest.UPPER_CASE));
+	}
+
+	@Test
+	public void formatArgumentThatFormats()
+	{
+		// the toString() of the argument formats a message on the same thread while the outer one is being built.
+		final Object arg = new Object()
+		{
+			@Override
+			public String toString()
+			{
+				return (LogMessageFormatter.format("inner {}", new Object[] { "value" },
+				        LogMessageFormatterTest.UPPER_CASE));
+			}
+		};
+		Assert.assertEquals("outer INNER VALUE done", LogMessageFormatter.format("outer {} done",
+		        new Object[] { arg }, LogMessageFormatterTest.UPPER_CASE));
+		Assert.assertEquals("took 7 ms", LogMessageFormatter.format("took {} ms", 7L));
+	}
+
+	@Test
+	public void formatPrimitives()
+	{
+		Assert.assertEquals("took 42 ms", LogMessageFormatter.format("took {} ms", 42L));
+		Assert.assertEquals("ratio 0.5", LogMessageFormatter.format("ratio {}", 0.5d));
+		Assert.assertEquals("no placeholder", LogMessageFormatter.format("no placeholder", 42L));
+	}
+
+}
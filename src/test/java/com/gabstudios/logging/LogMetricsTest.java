@@ -0,0 +1,201 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class LogMetricsTest
+{
+	private LogService	_logService;
+
+	private LogMetrics	_metrics;
+
+	private Logger		_logger;
+
+	@Test
+	public void countsEventsByLevelAndClass()
+	{
+		final LogMetricsSnapshot before = this._metrics.snapshot();
+		for (int i = 0; i < 10; i++)
+		{
+			this._logService.logWarning(LogMetricsTest.class, "countsEventsByLevelAndClass", "testing metrics");
+		}
+		this._logService.logSecurity(LogMetricsTest.class, "countsEventsByLevelAndClass", "testing metrics");
+		final LogMetricsSnapshot after = this._metrics.snapshot();
+
+		Assert.assertEquals(10L, delta(before, after, "WARNING"));
+		Assert.assertEquals(1L, delta(before, after, "SECURITY"));
+		Assert.assertEquals(11L, after.getEventCount() - before.getEventCount());
+		Assert.assertEquals(11L, this._logService.forClass(LogMetricsTest.class).getEventCount());
+		Assert.assertEquals(Long.valueOf(11L), after.getEventCountsByClass().get(LogMetricsTest.class.getName()));
+		Assert.assertTrue(after.getMessageCharacters() > before.getMessageCharacters());
+
+		long latencyEvents = 0;
+		for (final long count : after.getLatencyBuckets())
+		{
+			latencyEvents += count;
+		}
+		Assert.assertTrue(latencyEvents >= 11L);
+		Assert.assertTrue(after.getLatencyPercentileMicros(99d) > 0L);
+	}
+
+	@Test
+	public void countsSuppressedEvents()
+	{
+		final long before = this._metrics.getSuppressedCount();
+		this._logService.setLengthPolicy(LengthPolicy.DROP);
+		try
+		{
+			this._logService.logWarning(LogMetricsTest.class, "countsSuppressedEvents", new String(new char[300]));
+		}
+		finally
+		{
+			this._logService.setLengthPolicy(LengthPolicy.THROW);
+		}
+		Assert.assertEquals(before + 1, this._metrics.getSuppressedCount());
+	}
+
+	@Test
+	public void countsMethodNameCacheLookups()
+	{
+		this._logService.logWarning(LogMetricsTest.class, "countsMethodNameCacheLookups", "testing metrics");
+		final long hits = this._metrics.getMethodNameCacheHits();
+		final long misses = this._metrics.getMethodNameCacheMisses();
+
+		this._logService.logWarning(LogMetricsTest.class, "countsMethodNameCacheLookups", "testing metrics");
+		Assert.assertEquals(hits + 1, this._metrics.getMethodNameCacheHits());
+		Assert.assertEquals(misses, this._metrics.getMethodNameCacheMisses());
+
+		// a new sanitizer makes every cached method name a miss.
+		this._logService.setSanitizer(DefaultLogSanitizer.INSTANCE);
+		this._logService.logWarning(LogMetricsTest.class, "countsMethodNameCacheLookups", "testing metrics");
+		Assert.assertEquals(misses + 1, this._metrics.getMethodNameCacheMisses());
+		Assert.assertEquals(misses + 1, this._metrics.snapshot().getMethodNameCacheMisses());
+	}
+
+	@Test
+	public void countsBytesAndDropsOfAppenders()
+	{
+		final DirectLogService service = new DirectLogService();
+		for (final LogAppender appender : service.getAppenders())
+		{
+			service.removeAppender(appender);
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.addAppender(new StreamAppender(out, new SimpleLogLayout(), true));
+		service.addAppender(new StreamAppender(new OutputStream()
+		{
+			@Override
+			public void write(final int b) throws IOException
+			{
+				throw (new IOException("testing metrics"));
+			}
+		}, new SimpleLogLayout(), true));
+
+		final LogMetrics metrics = service.getMetrics();
+		service.logWarning(LogMetricsTest.class, "countsBytesAndDropsOfAppenders", "testing metrics");
+
+		Assert.assertTrue(out.size() > 0);
+		Assert.assertEquals(out.size(), metrics.getBytesWritten());
+		Assert.assertEquals(1L, metrics.getDroppedCount());
+		Assert.assertEquals(1L, metrics.snapshot().getDroppedCount());
+	}
+
+	@Test
+	public void disabledRecordsNothing()
+	{
+		this._metrics.setEnabled(false);
+		try
+		{
+			final long before = this._metrics.getEventCount();
+			this._logService.logWarning(LogMetricsTest.class, "disabledRecordsNothing", "testing metrics");
+			Assert.assertEquals(before, this._metrics.getEventCount());
+		}
+		finally
+		{
+			this._metrics.setEnabled(true);
+		}
+	}
+
+	@Test
+	public void latencyBuckets()
+	{
+		Assert.assertEquals(0, LogMetrics.latencyBucket(999L));
+		Assert.assertEquals(1, LogMetrics.latencyBucket(1000L));
+		Assert.assertEquals(2, LogMetrics.latencyBucket(3000L));
+		Assert.assertEquals(LogMetrics.LATENCY_BUCKET_COUNT - 1, LogMetrics.latencyBucket(Long.MAX_VALUE));
+		Assert.assertEquals(4L, LogMetricsSnapshot.getLatencyBucketBoundMicros(2));
+	}
+
+	@Test
+	public void registeredWithJmx() throws Exception
+	{
+		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName name = new ObjectName(LogMetrics.OBJECT_NAME);
+
+		Assert.assertTrue(server.isRegistered(name));
+
+		this._logService.logWarning(LogMetricsTest.class, "registeredWithJmx", "testing metrics");
+		final Long eventCount = (Long) server.getAttribute(name, "EventCount");
+		Assert.assertTrue(eventCount.longValue() > 0L);
+	}
+
+	/*
+	 * Gets how much the count of a level went up.
+	 */
+	private static long delta(final LogMetricsSnapshot before, final LogMetricsSnapshot after, final String level)
+	{
+		return (after.getEventCountsByLevel().get(level).longValue()
+		        - before.getEventCountsByLevel().get(level).longValue());
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._logService = LogProvider.getProvider().getService();
+		this._metrics = LogProvider.getProvider().getMetrics();
+		this._logger = Logger.getLogger(LogMetricsTest.class.getName());
+		this._logger.setLevel(Level.WARNING);
+		this._logService.forClass(LogMetricsTest.class).resetEventCount();
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._logger.setLevel(null);
+	}
+
+}
@@ -64,6 +64,95 @@ public class LogProviderTest
 
 	}
 
+	@Test
+	public void enableAsync()
+	{
+		final LogProvider logProvider = LogProvider.getProvider();
+		try
+		{
+			final AsyncLogDispatcher dispatcher = logProvider.enableAsync(128, OverflowPolicy.DROP_NEWEST);
+
+			Assert.assertTrue(logProvider.isAsync());
+			Assert.assertSame(dispatcher, logProvider.getService().getDispatcher());
+			Assert.assertEquals(128, dispatcher.getBufferSize());
+
+			logProvider.getService().logMessage(LogProviderTest.class, "enableAsync", "testing async logMessage");
+		}
+		finally
+		{
+			logProvider.disableAsync();
+		}
+
+		Assert.assertFalse(logProvider.isAsync());
+		Assert.assertSame(JavaLogDispatcher.INSTANCE, logProvider.getService().getDispatcher());
+	}
+
+	@Test
+	public void enableSecurityLane()
+	{
+		final LogProvider logProvider = LogProvider.getProvider();
+		try
+		{
+			final SecurityLogDispatcher lane = logProvider.enableSecurityLane(16, 8, 50L);
+
+			Assert.assertSame(lane, logProvider.getService().getSecurityDispatcher());
+			Assert.assertSame(JavaLogDispatcher.INSTANCE, lane.getDelegate());
+
+			logProvider.getService().logSecurity(LogProviderTest.class, "enableSecurityLane", "testing the lane");
+			lane.flush();
+			Assert.assertEquals(0, lane.getQueuedCount());
+		}
+		finally
+		{
+			logProvider.disableSecurityLane();
+		}
+
+		Assert.assertNull(logProvider.getService().getSecurityDispatcher());
+	}
+
+	@Test
+	public void loadDefaultLogService()
+	{
+		Assert.assertTrue(LogProvider.loadLogService(null) instanceof JavaLogService);
+		Assert.assertTrue(LogProvider.loadLogService("") instanceof JavaLogService);
+	}
+
+	@Test
+	public void loadDirectLogService()
+	{
+		final LogService logService = LogProvider.loadLogService(DirectLogService.class.getName());
+
+		Assert.assertTrue(logService instanceof DirectLogService);
+	}
+
+	@Test
+	public void loadUnknownLogService()
+	{
+		try
+		{
+			LogProvider.loadLogService("com.gabstudios.logging.MissingLogService");
+			Assert.fail("Expected a LogProviderSysException.");
+		}
+		catch (final LogProviderSysException e)
+		{
+			Assert.assertTrue(e.getCause() instanceof ClassNotFoundException);
+		}
+	}
+
+	@Test
+	public void loadNotALogService()
+	{
+		try
+		{
+			LogProvider.loadLogService(LogEvent.class.getName());
+			Assert.fail("Expected a LogProviderSysException.");
+		}
+		catch (final LogProviderSysException e)
+		{
+			Assert.assertTrue(e.getCause() instanceof ClassCastException);
+		}
+	}
+
 	@Before
 	public void setUp()
 	{
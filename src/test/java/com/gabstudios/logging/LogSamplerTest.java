@@ -0,0 +1,238 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class LogSamplerTest
+{
+	/*
+	 * Keeps the records that reach the java logging.
+	 */
+	static class RecordHandler extends Handler
+	{
+		final List<LogRecord> _records = new ArrayList<LogRecord>();
+
+		@Override
+		public synchronized void publish(final LogRecord record)
+		{
+			this._records.add(record);
+		}
+
+		@Override
+		public void flush()
+		{
+			// void - does nothing.
+		}
+
+		@Override
+		public void close()
+		{
+			// void - does nothing.
+		}
+	}
+
+	private DirectLogService						_service;
+
+	private DirectLogServiceTest.CaptureAppender	_appender;
+
+	@Test
+	public void everyNth()
+	{
+		final LogSampler sampler = LogSampler.everyNth(4);
+		int sampled = 0;
+		for (int i = 0; i < 100; i++)
+		{
+			if (sampler.sample())
+			{
+				sampled++;
+			}
+		}
+		Assert.assertEquals(25, sampled);
+		Assert.assertEquals(4d, sampler.getSampleRate(), 0d);
+	}
+
+	@Test
+	public void everyNthCountsEachThread() throws InterruptedException
+	{
+		final LogSampler sampler = LogSampler.everyNth(4);
+		final AtomicInteger sampled = new AtomicInteger();
+		final Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for (int j = 0; j < 12; j++)
+					{
+						if (sampler.sample())
+						{
+							sampled.incrementAndGet();
+						}
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+		// three in the twelve events of each thread, whatever its phase.
+		Assert.assertEquals(12, sampled.get());
+	}
+
+	@Test
+	public void probability()
+	{
+		final LogSampler sampler = LogSampler.probability(0.5d);
+		int sampled = 0;
+		for (int i = 0; i < 10000; i++)
+		{
+			if (sampler.sample())
+			{
+				sampled++;
+			}
+		}
+		Assert.assertTrue(sampled > 4000);
+		Assert.assertTrue(sampled < 6000);
+		Assert.assertEquals(2d, sampler.getSampleRate(), 0d);
+	}
+
+	@Test
+	public void firstPerSecond()
+	{
+		final LogSampler sampler = LogSampler.firstPerSecond(5);
+		int sampled = 0;
+		for (int i = 0; i < 100; i++)
+		{
+			if (sampler.sample())
+			{
+				sampled++;
+			}
+		}
+		// the test may cross into the next second.
+		Assert.assertTrue(sampled >= 5);
+		Assert.assertTrue(sampled <= 10);
+		Assert.assertTrue(sampler.getSampleRate() >= 1d);
+	}
+
+	@Test
+	public void invalidProbability()
+	{
+		try
+		{
+			LogSampler.probability(0d);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertEquals("The 'probability' parameter must be greater than zero and no more than one.",
+			        e.getMessage());
+		}
+	}
+
+	@Test
+	public void sampleDebugByPackage()
+	{
+		this._service.setLevel(DirectLogService.ROOT, Level.FINEST);
+		this._service.setSampler("com.gabstudios", LogSampler.everyNth(10));
+
+		for (int i = 0; i < 100; i++)
+		{
+			this._service.logDebug(LogSamplerTest.class, "sampleDebugByPackage", "testing logDebug");
+			this._service.logConfiguration(LogSamplerTest.class, "sampleDebugByPackage", "testing logConfiguration");
+		}
+		// debug and configuration share the sampler of the class.
+		Assert.assertEquals(20, this._appender._events.size());
+		Assert.assertEquals(10d, this._appender._events.get(0).getSampleRate(), 0d);
+
+		// other levels are never sampled.
+		this._service.logWarning(LogSamplerTest.class, "sampleDebugByPackage", "testing logWarning");
+		Assert.assertEquals(21, this._appender._events.size());
+		Assert.assertEquals(1d, this._appender._events.get(20).getSampleRate(), 0d);
+
+		this._service.setSampler("com.gabstudios", null);
+		Assert.assertNull(this._service.forClass(LogSamplerTest.class).getSampler());
+		Assert.assertNull(this._service.getSampler("com.gabstudios"));
+	}
+
+	@Test
+	public void sampledLogRecord()
+	{
+		final JavaLogService service = new JavaLogService();
+		final Logger logger = Logger.getLogger(LogSamplerTest.class.getName());
+		final RecordHandler handler = new RecordHandler();
+		logger.setLevel(Level.FINEST);
+		logger.addHandler(handler);
+		try
+		{
+			service.setSampler(LogSamplerTest.class.getName(), LogSampler.everyNth(2));
+			service.logDebug(LogSamplerTest.class, "sampledLogRecord", "testing logDebug");
+			service.logDebug(LogSamplerTest.class, "sampledLogRecord", "testing logDebug");
+			service.logWarning(LogSamplerTest.class, "sampledLogRecord", "testing logWarning");
+		}
+		finally
+		{
+			logger.removeHandler(handler);
+			logger.setLevel(null);
+		}
+
+		Assert.assertEquals(2, handler._records.size());
+		Assert.assertEquals(2d, ((SampledLogRecord) handler._records.get(0)).getSampleRate(), 0d);
+		Assert.assertEquals("sampledLogRecord", handler._records.get(0).getSourceMethodName());
+		Assert.assertFalse(handler._records.get(1) instanceof SampledLogRecord);
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._service = new DirectLogService();
+		for (final LogAppender appender : this._service.getAppenders())
+		{
+			this._service.removeAppender(appender);
+		}
+		this._appender = new DirectLogServiceTest.CaptureAppender();
+		this._service.addAppender(this._appender);
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.getDispatcher().close();
+	}
+
+}
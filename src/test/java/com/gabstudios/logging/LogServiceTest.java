@@ -16,8 +16,14 @@
 
 package com.gabstudios.logging;
 
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import org.junit.After;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -29,8 +35,151 @@ import org.junit.Test;
  */
 public class LogServiceTest
 {
+	/*
+	 * A class whose logger is turned off.
+	 */
+	static class DisabledClass
+	{
+		// void - used for its name only.
+	}
+
+	// keep a strong reference so the level is not lost when the logger is collected.
+	private static final Logger	DISABLED_LOGGER	= Logger.getLogger(DisabledClass.class.getName());
+
 	LogService _logService;
 
+	@Test
+	public void disabledLevelDoesNotAllocate()
+	{
+		final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+		final long threadId = Thread.currentThread().getId();
+		final int iterations = 100000;
+
+		// warm up so the measurement is not polluted by class loading and compilation.
+		for (int i = 0; i < iterations; i++)
+		{
+			this._logService.logDebug(DisabledClass.class, "disabledLevelDoesNotAllocate", "testing disabled");
+		}
+
+		final long before = allocationBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < iterations; i++)
+		{
+			this._logService.logDebug(DisabledClass.class, "disabledLevelDoesNotAllocate", "testing disabled");
+		}
+		final long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+		// anything less than one byte per call is the measuring itself, not the log calls.
+		Assert.assertTrue("allocated " + allocated + " bytes", allocated < iterations);
+	}
+
+	@Test
+	public void disabledLevelSkipsValidation()
+	{
+		try
+		{
+			this._logService.logDebug(DisabledClass.class, null, (String) null);
+		}
+		catch (final Exception e)
+		{
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void lengthPolicyThrow()
+	{
+		this._logService.setLengthPolicy(LengthPolicy.THROW);
+		this._logService.logMessage(LogProviderTest.class, "lengthPolicyThrow", repeat('x', 257));
+	}
+
+	@Test
+	public void lengthPolicyTruncate()
+	{
+		try
+		{
+			this._logService.setLengthPolicy(LengthPolicy.TRUNCATE);
+			this._logService.logMessage(LogProviderTest.class, repeat('m', 65), repeat('x', 257));
+		}
+		catch (final Exception e)
+		{
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test
+	public void lengthPolicyDrop()
+	{
+		try
+		{
+			this._logService.setLengthPolicy(LengthPolicy.DROP);
+			this._logService.logMessage(LogProviderTest.class, "lengthPolicyDrop", repeat('x', 257));
+		}
+		catch (final Exception e)
+		{
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test
+	public void disabledLevelSkipsSupplier()
+	{
+		final boolean[] called = new boolean[1];
+		this._logService.logDebug(DisabledClass.class, "disabledLevelSkipsSupplier", new Supplier<String>()
+		{
+			@Override
+			public String get()
+			{
+				called[0] = true;
+				return ("testing supplier");
+			}
+		});
+
+		Assert.assertFalse(called[0]);
+	}
+
+	@Test
+	public void logTemplates()
+	{
+		try
+		{
+			this._logService.logDebug(LogProviderTest.class, "logTemplates", "user {} took {} ms", "bob", 12);
+			this._logService.logMessage(LogProviderTest.class, "logTemplates", "took {} ms", 12);
+			this._logService.logWarning(LogProviderTest.class, "logTemplates", "ratio {}", 0.5d);
+			this._logService.logFailure(LogProviderTest.class, "logTemplates", "{} {} {}", "a", "b", "c");
+			this._logService.logConfiguration(LogProviderTest.class, "logTemplates", new Supplier<String>()
+			{
+				@Override
+				public String get()
+				{
+					return ("testing supplier");
+				}
+			});
+
+			Assert.assertTrue(true);
+		}
+		catch (final Exception e)
+		{
+			Assert.fail(e.toString());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void logTemplateEmpty()
+	{
+		this._logService.logMessage(LogProviderTest.class, "logTemplateEmpty", "", "arg");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void logMessageEmptyMethodName()
+	{
+		this._logService.logMessage(LogProviderTest.class, "", "testing logMessage");
+	}
+
 	@Test
 	public void logConfiguration()
 	{
@@ -187,15 +336,30 @@ public class LogServiceTest
 
 	}
 
+	/*
+	 * Builds a string of the given length.
+	 */
+	private static String repeat(final char c, final int length)
+	{
+		final StringBuilder builder = new StringBuilder(length);
+		for (int i = 0; i < length; i++)
+		{
+			builder.append(c);
+		}
+		return (builder.toString());
+	}
+
 	@Before
 	public void setUp()
 	{
+		DISABLED_LOGGER.setLevel(Level.OFF);
 		this._logService = LogProvider.getProvider().getService();
 	}
 
 	@After
 	public void tearDown()
 	{
+		this._logService.setLengthPolicy(LengthPolicy.THROW);
 	}
 
 }
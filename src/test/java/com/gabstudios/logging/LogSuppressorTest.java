@@ -0,0 +1,215 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class LogSuppressorTest
+{
+	private static final long					SECOND	= TimeUnit.SECONDS.toNanos(1L);
+
+	private DirectLogService					_service;
+
+	private DirectLogServiceTest.CaptureAppender	_appender;
+
+	private ClassLogger							_classLogger;
+
+	@Test
+	public void rateLimit()
+	{
+		final LogSuppressor suppressor = new LogSuppressor(10, 3, 0L);
+		final long now = System.nanoTime();
+
+		// the burst is let through at once, then one event every 100 ms.
+		for (int i = 0; i < 3; i++)
+		{
+			Assert.assertTrue(suppressor.admit(this._classLogger, Level.WARNING, "rateLimit", "message " + i, now));
+		}
+		Assert.assertFalse(suppressor.admit(this._classLogger, Level.WARNING, "rateLimit", "message 3", now));
+		Assert.assertTrue(suppressor.admit(this._classLogger, Level.WARNING, "rateLimit", "message 4",
+		        now + (LogSuppressorTest.SECOND / 10)));
+
+		// each level and method name has its own bucket.
+		Assert.assertTrue(suppressor.admit(this._classLogger, Level.SEVERE, "rateLimit", "message 5", now));
+		Assert.assertTrue(suppressor.admit(this._classLogger, Level.WARNING, "otherMethod", "message 6", now));
+	}
+
+	@Test
+	public void collapseDuplicates()
+	{
+		final LogSuppressor suppressor = new LogSuppressor(1000, 1000, 1000L);
+		final long now = System.nanoTime();
+
+		Assert.assertTrue(suppressor.admit(this._classLogger, Level.WARNING, "collapse", "same", now));
+		Assert.assertFalse(suppressor.admit(this._classLogger, Level.WARNING, "collapse", "same", now + 1));
+		Assert.assertTrue(suppressor.admit(this._classLogger, Level.WARNING, "collapse", "different", now + 2));
+
+		// once the window has passed the message is written again.
+		Assert.assertTrue(suppressor.admit(this._classLogger, Level.WARNING, "collapse", "different",
+		        now + (2 * LogSuppressorTest.SECOND)));
+	}
+
+	@Test
+	public void summary()
+	{
+		final LogSuppressor suppressor = new LogSuppressor(1000, 1000, 60000L);
+		this._service.setSuppressor(suppressor);
+
+		for (int i = 0; i < 100; i++)
+		{
+			this._service.logWarning(LogSuppressorTest.class, "summary", "downstream failed");
+		}
+		Assert.assertEquals(1, this._appender._events.size());
+
+		suppressor.summarize();
+		Assert.assertEquals(2, this._appender._events.size());
+		final LogEvent event = this._appender._events.get(1);
+		Assert.assertEquals(Level.WARNING, event.getLevel());
+		Assert.assertEquals("summary", event.getMethodName());
+		Assert.assertEquals("Suppressed 0 events over the rate limit and 99 repeats of: downstream failed",
+		        event.getMessage());
+
+		// nothing was suppressed since the last summary.
+		suppressor.summarize();
+		Assert.assertEquals(2, this._appender._events.size());
+	}
+
+	@Test
+	public void idleCallSitesRemoved()
+	{
+		final LogSuppressor suppressor = new LogSuppressor(10, 1, 1000L);
+		this._service.setSuppressor(suppressor);
+
+		final long now = System.nanoTime();
+		for (int i = 0; i < 100; i++)
+		{
+			Assert.assertTrue(suppressor.admit(this._classLogger, Level.WARNING, "method" + i, "message", now));
+		}
+		Assert.assertFalse(suppressor.admit(this._classLogger, Level.WARNING, "method0", "other", now));
+		Assert.assertEquals(100, suppressor.getCallSiteCount());
+
+		// inside the duplicate window every call site is kept.
+		suppressor.summarize(now + (LogSuppressorTest.SECOND / 2));
+		Assert.assertEquals(100, suppressor.getCallSiteCount());
+
+		// the call site that summarized is kept until a later summary finds it idle.
+		Assert.assertFalse(suppressor.admit(this._classLogger, Level.WARNING, "method0", "again", now));
+		suppressor.summarize(now + (2 * LogSuppressorTest.SECOND));
+		Assert.assertEquals(1, suppressor.getCallSiteCount());
+		suppressor.summarize(now + (3 * LogSuppressorTest.SECOND));
+		Assert.assertEquals(0, suppressor.getCallSiteCount());
+
+		Assert.assertTrue(suppressor.admit(this._classLogger, Level.WARNING, "method0", "message",
+		        now + (3 * LogSuppressorTest.SECOND)));
+		Assert.assertEquals(1, suppressor.getCallSiteCount());
+	}
+
+	@Test
+	public void securityExempt()
+	{
+		this._service.setSuppressor(new LogSuppressor(1, 1, 60000L));
+
+		for (int i = 0; i < 10; i++)
+		{
+			this._service.logSecurity(LogSuppressorTest.class, "securityExempt", "access denied");
+		}
+		Assert.assertEquals(10, this._appender._events.size());
+	}
+
+	@Test
+	public void replaceSuppressor()
+	{
+		final LogSuppressor suppressor = new LogSuppressor(1, 1, 60000L);
+		this._service.setSuppressor(suppressor);
+		Assert.assertSame(suppressor, this._service.getSuppressor());
+
+		this._service.logWarning(LogSuppressorTest.class, "replaceSuppressor", "downstream failed");
+		this._service.logWarning(LogSuppressorTest.class, "replaceSuppressor", "downstream failed");
+		Assert.assertEquals(1, this._appender._events.size());
+
+		// the previous suppressor writes its last summary.
+		this._service.setSuppressor(null);
+		Assert.assertNull(this._service.getSuppressor());
+		Assert.assertEquals(2, this._appender._events.size());
+
+		this._service.logWarning(LogSuppressorTest.class, "replaceSuppressor", "downstream failed");
+		Assert.assertEquals(3, this._appender._events.size());
+	}
+
+	@Test
+	public void boundToOneService()
+	{
+		final LogSuppressor suppressor = new LogSuppressor(1, 1, 0L);
+		this._service.setSuppressor(suppressor);
+		try
+		{
+			new DirectLogService().setSuppressor(suppressor);
+			Assert.fail("Expected an IllegalStateException.");
+		}
+		catch (final IllegalStateException e)
+		{
+			Assert.assertSame(suppressor, this._service.getSuppressor());
+		}
+	}
+
+	@Test
+	public void invalidRate()
+	{
+		try
+		{
+			new LogSuppressor(0, 1, 0L);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertEquals("The 'eventsPerSecond' parameter must be greater than zero.", e.getMessage());
+		}
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._service = new DirectLogService();
+		for (final LogAppender appender : this._service.getAppenders())
+		{
+			this._service.removeAppender(appender);
+		}
+		this._appender = new DirectLogServiceTest.CaptureAppender();
+		this._service.addAppender(this._appender);
+		this._classLogger = this._service.forClass(LogSuppressorTest.class);
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.setSuppressor(null);
+		this._service.getDispatcher().close();
+	}
+
+}
@@ -0,0 +1,216 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class MappedFileAppenderTest
+{
+	/*
+	 * Writes only the message, so the size of each event is known.
+	 */
+	private static final LogLayout	MESSAGE_LAYOUT	= new LogLayout()
+	{
+		@Override
+		public void format(final LogEvent event, final StringBuilder builder)
+		{
+			builder.append(event.getMessage()).append('\n');
+		}
+	};
+
+	@Rule
+	public TemporaryFolder			_folder			= new TemporaryFolder();
+
+	private DirectLogService		_service;
+
+	private Path					_directory;
+
+	/*
+	 * Lists the segments in name order.
+	 */
+	private List<Path> segments() throws IOException
+	{
+		final List<Path> segments = new ArrayList<Path>();
+		try (Stream<Path> stream = Files.list(this._directory))
+		{
+			stream.forEach(segments::add);
+		}
+		Collections.sort(segments);
+		return (segments);
+	}
+
+	/*
+	 * Reads a segment as text.
+	 */
+	private static String read(final Path path) throws IOException
+	{
+		return (new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void append() throws IOException
+	{
+		final MappedFileAppender appender = new MappedFileAppender(this._directory, "app", 4096, 0L,
+		        MappedFileAppenderTest.MESSAGE_LAYOUT);
+		this._service.addAppender(appender);
+
+		this._service.logMessage(MappedFileAppenderTest.class, "append", "first");
+		this._service.logMessage(MappedFileAppenderTest.class, "append", "second é");
+		appender.close();
+
+		final List<Path> segments = segments();
+		Assert.assertEquals(1, segments.size());
+		Assert.assertEquals("app-000001.log", segments.get(0).getFileName().toString());
+		Assert.assertEquals("first\nsecond é\n", MappedFileAppenderTest.read(segments.get(0)));
+		Assert.assertNull(appender.getSegment());
+	}
+
+	@Test
+	public void rollOnSize() throws IOException
+	{
+		final MappedFileAppender appender = new MappedFileAppender(this._directory, "app",
+		        MappedFileAppender.MIN_SEGMENT_SIZE, 0L, MappedFileAppenderTest.MESSAGE_LAYOUT);
+		this._service.addAppender(appender);
+
+		final StringBuilder message = new StringBuilder();
+		for (int i = 0; i < 99; i++)
+		{
+			message.append('x');
+		}
+		for (int i = 0; i < 30; i++)
+		{
+			this._service.logMessage(MappedFileAppenderTest.class, "rollOnSize", message.toString());
+		}
+		appender.close();
+
+		final List<Path> segments = segments();
+		Assert.assertTrue(segments.size() > 1);
+		long total = 0;
+		for (final Path segment : segments)
+		{
+			final String text = MappedFileAppenderTest.read(segment);
+			Assert.assertTrue(text.endsWith("x\n"));
+			Assert.assertEquals(-1, text.indexOf('\0'));
+			total += text.length();
+		}
+		Assert.assertEquals(30 * 100, total);
+	}
+
+	@Test
+	public void rollOnTime() throws IOException, InterruptedException
+	{
+		final MappedFileAppender appender = new MappedFileAppender(this._directory, "app", 4096, 1L,
+		        MappedFileAppenderTest.MESSAGE_LAYOUT);
+		this._service.addAppender(appender);
+
+		this._service.logMessage(MappedFileAppenderTest.class, "rollOnTime", "first");
+		Thread.sleep(5);
+		this._service.logMessage(MappedFileAppenderTest.class, "rollOnTime", "second");
+		appender.close();
+
+		final List<Path> segments = segments();
+		Assert.assertEquals("second\n", MappedFileAppenderTest.read(segments.get(segments.size() - 1)));
+	}
+
+	@Test
+	public void recoverUnclosedSegment() throws IOException
+	{
+		final MappedFileAppender first = new MappedFileAppender(this._directory, "app", 4096, 0L,
+		        MappedFileAppenderTest.MESSAGE_LAYOUT);
+		this._service.addAppender(first);
+		this._service.logMessage(MappedFileAppenderTest.class, "recoverUnclosedSegment", "before the crash");
+		this._service.removeAppender(first);
+
+		// not closed, so the segment still holds the unused bytes.
+		Assert.assertEquals(4096L, Files.size(first.getSegment()));
+
+		final MappedFileAppender second = new MappedFileAppender(this._directory, "app", 4096, 0L,
+		        MappedFileAppenderTest.MESSAGE_LAYOUT);
+		second.close();
+
+		final List<Path> segments = segments();
+		Assert.assertEquals(2, segments.size());
+		Assert.assertEquals("before the crash\n", MappedFileAppenderTest.read(segments.get(0)));
+		Assert.assertEquals("app-000002.log", segments.get(1).getFileName().toString());
+	}
+
+	@Test
+	public void appendAfterClose() throws IOException
+	{
+		final MappedFileAppender appender = new MappedFileAppender(this._directory, "app", 4096, 0L,
+		        MappedFileAppenderTest.MESSAGE_LAYOUT);
+		this._service.addAppender(appender);
+		appender.close();
+		appender.close();
+
+		this._service.logMessage(MappedFileAppenderTest.class, "appendAfterClose", "discarded");
+
+		Assert.assertEquals("", MappedFileAppenderTest.read(segments().get(0)));
+	}
+
+	@Test
+	public void segmentTooSmall() throws IOException
+	{
+		try
+		{
+			new MappedFileAppender(this._directory, "app", 16, 0L, MappedFileAppenderTest.MESSAGE_LAYOUT);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertTrue(segments().isEmpty());
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException
+	{
+		this._directory = this._folder.newFolder("logs").toPath();
+		this._service = new DirectLogService();
+		for (final LogAppender appender : this._service.getAppenders())
+		{
+			this._service.removeAppender(appender);
+		}
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.getDispatcher().close();
+	}
+
+}
@@ -0,0 +1,85 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class MethodNameCacheTest
+{
+	private MethodNameCache _cache;
+
+	@Test
+	public void getAndPut()
+	{
+		Assert.assertNull(this._cache.get("run", 0));
+
+		this._cache.put("run", "run", 0);
+
+		Assert.assertEquals("run", this._cache.get("run", 0));
+		Assert.assertEquals("run", this._cache.get(new String("run"), 0));
+		Assert.assertNull(this._cache.get("stop", 0));
+	}
+
+	@Test
+	public void newGenerationMisses()
+	{
+		this._cache.put("run", "run", 0);
+
+		Assert.assertNull(this._cache.get("run", 1));
+		Assert.assertEquals(0, this._cache.size(1));
+	}
+
+	@Test
+	public void bounded()
+	{
+		for (int i = 0; i < 10000; i++)
+		{
+			this._cache.put("method" + i, "method" + i, 0);
+		}
+
+		Assert.assertTrue(this._cache.size(0) <= MethodNameCache.SIZE);
+		Assert.assertEquals("method9999", this._cache.get("method9999", 0));
+	}
+
+	@Test
+	public void sanitizedValue()
+	{
+		final LogService logService = new DirectLogService();
+		final ClassLogger classLogger = logService.forClass(MethodNameCacheTest.class);
+		logService.setLengthPolicy(LengthPolicy.TRUNCATE);
+		logService.logSecurity(MethodNameCacheTest.class, "bad\nname", "testing cache");
+
+		final MethodNameCache cache = classLogger.getMethodNames();
+		Assert.assertEquals(1, cache.size(1));
+		Assert.assertEquals("bad\\nname", cache.get("bad\nname", 1));
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._cache = new MethodNameCache();
+	}
+
+}
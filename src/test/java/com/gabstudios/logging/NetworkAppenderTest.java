@@ -0,0 +1,424 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class NetworkAppenderTest
+{
+	/*
+	 * Writes only the message.
+	 */
+	private static final LogLayout	MESSAGE_LAYOUT	= new LogLayout()
+	{
+		@Override
+		public void format(final LogEvent event, final StringBuilder builder)
+		{
+			builder.append(event.getMessage());
+		}
+	};
+
+	/*
+	 * A stand-in collector that keeps the bytes of each TCP connection it accepts.
+	 */
+	private static final class Collector
+	{
+		final List<ByteArrayOutputStream>	_connections	= new CopyOnWriteArrayList<ByteArrayOutputStream>();
+
+		final List<SocketChannel>			_clients		= new CopyOnWriteArrayList<SocketChannel>();
+
+		ServerSocketChannel					_server;
+
+		int									_port;
+
+		void start(final int port) throws IOException
+		{
+			final ServerSocketChannel server = ServerSocketChannel.open();
+			server.setOption(StandardSocketOptions.SO_REUSEADDR, Boolean.TRUE);
+			server.bind(new InetSocketAddress("127.0.0.1", port));
+			this._server = server;
+			this._port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+
+			final Thread acceptor = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					accept(server);
+				}
+			}, "collector");
+			acceptor.setDaemon(true);
+			acceptor.start();
+		}
+
+		void accept(final ServerSocketChannel server)
+		{
+			try
+			{
+				while (true)
+				{
+					final SocketChannel client = server.accept();
+					this._clients.add(client);
+					final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					this._connections.add(bytes);
+					final Thread reader = new Thread(new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							read(client, bytes);
+						}
+					}, "collector-reader");
+					reader.setDaemon(true);
+					reader.start();
+				}
+			}
+			catch (final IOException e)
+			{
+				// stopped.
+			}
+		}
+
+		void read(final SocketChannel client, final ByteArrayOutputStream bytes)
+		{
+			final ByteBuffer buffer = ByteBuffer.allocate(8192);
+			try
+			{
+				while (client.read(buffer) >= 0)
+				{
+					synchronized (bytes)
+					{
+						bytes.write(buffer.array(), 0, buffer.position());
+					}
+					buffer.clear();
+				}
+			}
+			catch (final IOException e)
+			{
+				// stopped.
+			}
+		}
+
+		void stop() throws IOException
+		{
+			this._server.close();
+			for (final SocketChannel client : this._clients)
+			{
+				client.close();
+			}
+		}
+
+		/*
+		 * The messages received, a connection at a time. A frame cut by a dropped connection is left out.
+		 */
+		List<String> messages(final NetworkFraming framing)
+		{
+			final List<String> messages = new ArrayList<String>();
+			for (final ByteArrayOutputStream connection : this._connections)
+			{
+				final byte[] bytes;
+				synchronized (connection)
+				{
+					bytes = connection.toByteArray();
+				}
+				NetworkAppenderTest.parse(bytes, framing, messages);
+			}
+			return (messages);
+		}
+	}
+
+	private DirectLogService		_service;
+
+	private Collector				_collector;
+
+	private NetworkAppender			_appender;
+
+	/*
+	 * Splits a stream into its messages.
+	 */
+	private static void parse(final byte[] bytes, final NetworkFraming framing, final List<String> messages)
+	{
+		int position = 0;
+		while (position < bytes.length)
+		{
+			int length;
+			int start;
+			if (framing == NetworkFraming.LENGTH_PREFIXED)
+			{
+				if ((position + 4) > bytes.length)
+				{
+					return;
+				}
+				length = ByteBuffer.wrap(bytes, position, 4).getInt();
+				start = position + 4;
+			}
+			else
+			{
+				length = 0;
+				start = position;
+				while ((start < bytes.length) && (bytes[start] != ' '))
+				{
+					length = (length * 10) + (bytes[start++] - '0');
+				}
+				start++;
+			}
+			if ((start + length) > bytes.length)
+			{
+				return;
+			}
+			messages.add(new String(bytes, start, length, StandardCharsets.UTF_8));
+			position = start + length;
+		}
+	}
+
+	/*
+	 * Waits up to five seconds for the collector to receive a number of messages.
+	 */
+	private List<String> await(final NetworkFraming framing, final int count) throws InterruptedException
+	{
+		final long end = System.currentTimeMillis() + 5000L;
+		List<String> messages = this._collector.messages(framing);
+		while ((messages.size() < count) && (System.currentTimeMillis() < end))
+		{
+			Thread.sleep(5);
+			messages = this._collector.messages(framing);
+		}
+		return (messages);
+	}
+
+	@Test
+	public void tcpSyslog() throws InterruptedException
+	{
+		this._appender = new NetworkAppender("127.0.0.1", this._collector._port, NetworkProtocol.TCP,
+		        NetworkFraming.SYSLOG, new SyslogLayout(SyslogLayout.USER_FACILITY, "host", "app", null), 4096);
+		this._service.addAppender(this._appender);
+
+		this._service.logMessage(NetworkAppenderTest.class, "tcpSyslog", "first é");
+		LogContext.put("requestId", "4\"2");
+		this._service.logWarning(NetworkAppenderTest.class, "tcpSyslog", "second");
+		this._appender.flush();
+
+		final List<String> messages = await(NetworkFraming.SYSLOG, 2);
+		Assert.assertEquals(2, messages.size());
+		Assert.assertTrue(messages.get(0), messages.get(0)
+		        .matches("<14>1 \\d{4}-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d\\.\\d{3}Z host app \\S+ INFO - "
+		                + NetworkAppenderTest.class.getName() + " tcpSyslog: first é"));
+		Assert.assertTrue(messages.get(1), messages.get(1).startsWith("<12>1 "));
+		Assert.assertTrue(messages.get(1), messages.get(1).contains(" WARNING [context@32473 requestId=\"4\\\"2\"] "));
+		Assert.assertEquals(2L, this._appender.getSentCount());
+		Assert.assertEquals(1L, this._appender.getConnectCount());
+	}
+
+	@Test
+	public void udpLengthPrefixed() throws IOException
+	{
+		try (DatagramChannel collector = DatagramChannel.open())
+		{
+			collector.bind(new InetSocketAddress("127.0.0.1", 0));
+			collector.socket().setSoTimeout(5000);
+			final int port = ((InetSocketAddress) collector.getLocalAddress()).getPort();
+			this._appender = new NetworkAppender("127.0.0.1", port, NetworkProtocol.UDP,
+			        NetworkFraming.LENGTH_PREFIXED, NetworkAppenderTest.MESSAGE_LAYOUT, 4096);
+			this._service.addAppender(this._appender);
+
+			for (int i = 0; i < 3; i++)
+			{
+				this._service.logMessage(NetworkAppenderTest.class, "udpLengthPrefixed", "datagram " + i);
+			}
+
+			final DatagramPacket packet = new DatagramPacket(new byte[1024], 1024);
+			for (int i = 0; i < 3; i++)
+			{
+				collector.socket().receive(packet);
+				final List<String> messages = new ArrayList<String>();
+				NetworkAppenderTest.parse(Arrays.copyOf(packet.getData(), packet.getLength()),
+				        NetworkFraming.LENGTH_PREFIXED, messages);
+				Assert.assertEquals(1, messages.size());
+				Assert.assertEquals("datagram " + i, messages.get(0));
+			}
+		}
+	}
+
+	@Test
+	public void reconnects() throws IOException, InterruptedException
+	{
+		this._appender = new NetworkAppender("127.0.0.1", this._collector._port, NetworkProtocol.TCP,
+		        NetworkFraming.LENGTH_PREFIXED, NetworkAppenderTest.MESSAGE_LAYOUT, 64 * 1024);
+		this._service.addAppender(this._appender);
+
+		this._service.logMessage(NetworkAppenderTest.class, "reconnects", "before");
+		Assert.assertEquals(1, await(NetworkFraming.LENGTH_PREFIXED, 1).size());
+
+		// the drop is seen on a write after the collector goes away.
+		this._collector.stop();
+		final long end = System.currentTimeMillis() + 5000L;
+		while (this._appender.isConnected() && (System.currentTimeMillis() < end))
+		{
+			this._service.logMessage(NetworkAppenderTest.class, "reconnects", "probe");
+			Thread.sleep(5);
+		}
+		Assert.assertFalse(this._appender.isConnected());
+
+		final long start = System.nanoTime();
+		for (int i = 0; i < 100; i++)
+		{
+			this._service.logMessage(NetworkAppenderTest.class, "reconnects", "while down " + i);
+		}
+		this._appender.flush();
+		Assert.assertTrue((System.nanoTime() - start) < 1000000000L);
+		Assert.assertTrue(this._appender.getBufferedSize() > 0);
+
+		this._collector.start(this._collector._port);
+		final List<String> messages = await(NetworkFraming.LENGTH_PREFIXED, 102);
+		int next = 0;
+		for (final String message : messages)
+		{
+			if (message.equals("while down " + next))
+			{
+				next++;
+			}
+		}
+		Assert.assertEquals(100, next);
+		Assert.assertTrue(this._appender.getConnectCount() >= 2);
+		Assert.assertEquals(0L, this._appender.getDroppedCount());
+	}
+
+	@Test
+	public void backsOffAfterWriteFailures() throws IOException, InterruptedException
+	{
+		final int port;
+		try (DatagramChannel closed = DatagramChannel.open())
+		{
+			closed.bind(new InetSocketAddress("127.0.0.1", 0));
+			port = ((InetSocketAddress) closed.getLocalAddress()).getPort();
+		}
+		// a datagram channel connects to a port nobody listens on, and then its writes fail.
+		this._appender = new NetworkAppender("127.0.0.1", port, NetworkProtocol.UDP, NetworkFraming.LENGTH_PREFIXED,
+		        NetworkAppenderTest.MESSAGE_LAYOUT, 64 * 1024);
+		this._service.addAppender(this._appender);
+
+		final long end = System.currentTimeMillis() + 1000L;
+		int i = 0;
+		while (System.currentTimeMillis() < end)
+		{
+			this._service.logMessage(NetworkAppenderTest.class, "backsOffAfterWriteFailures", "event " + i++);
+			Thread.sleep(1);
+		}
+		Assert.assertTrue(String.valueOf(this._appender.getConnectCount()), this._appender.getConnectCount() < 30L);
+	}
+
+	@Test
+	public void neverBlocks() throws IOException
+	{
+		this._collector.stop();
+		this._appender = new NetworkAppender("127.0.0.1", this._collector._port, NetworkProtocol.TCP,
+		        NetworkFraming.LENGTH_PREFIXED, NetworkAppenderTest.MESSAGE_LAYOUT, 1024);
+		this._service.addAppender(this._appender);
+
+		final long start = System.nanoTime();
+		for (int i = 0; i < 1000; i++)
+		{
+			this._service.logMessage(NetworkAppenderTest.class, "neverBlocks", "event " + i);
+		}
+		this._appender.flush();
+		Assert.assertTrue((System.nanoTime() - start) < 1000000000L);
+		Assert.assertFalse(this._appender.isConnected());
+		Assert.assertTrue(this._appender.getDroppedCount() > 0);
+		Assert.assertEquals(0L, this._appender.getSentCount());
+	}
+
+	@Test
+	public void syslogLayout()
+	{
+		final LogEvent event = new LogEvent();
+		event.set(new DirectLogService().forClass(NetworkAppenderTest.class), LogService.SecurityLevel.SECURITY,
+		        "syslogLayout", "denied", null, 1517406310250L, 1L, LogContext.EMPTY);
+		final StringBuilder builder = new StringBuilder();
+		new SyslogLayout(4, "my host", "app", null).format(event, builder);
+		Assert.assertEquals("<34>1 2018-01-31T13:45:10.250Z my_host app " + builder.toString().split(" ")[4]
+		        + " SECURITY - " + NetworkAppenderTest.class.getName() + " syslogLayout: denied", builder.toString());
+	}
+
+	@Test
+	public void invalidParameters()
+	{
+		try
+		{
+			new NetworkAppender("127.0.0.1", 0, NetworkProtocol.TCP, NetworkFraming.SYSLOG,
+			        NetworkAppenderTest.MESSAGE_LAYOUT, 1024);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertEquals("The 'port' parameter must be from 1 to 65535.", e.getMessage());
+		}
+		try
+		{
+			new SyslogLayout(24, "host", "app", null);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertEquals("The 'facility' parameter must be from 0 to 23.", e.getMessage());
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException
+	{
+		this._collector = new Collector();
+		this._collector.start(0);
+		this._service = new DirectLogService();
+		for (final LogAppender appender : this._service.getAppenders())
+		{
+			this._service.removeAppender(appender);
+		}
+	}
+
+	@After
+	public void tearDown() throws IOException
+	{
+		this._service.getDispatcher().close();
+		this._collector.stop();
+		LogContext.clear();
+	}
+
+}
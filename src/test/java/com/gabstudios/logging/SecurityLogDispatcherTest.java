@@ -0,0 +1,336 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class SecurityLogDispatcherTest
+{
+	/*
+	 * Keeps the thread of every event and counts the flushes.
+	 */
+	static class ThreadAppender implements LogAppender
+	{
+		final List<String>		_threads	= new ArrayList<String>();
+
+		final AtomicInteger		_flushCount	= new AtomicInteger();
+
+		@Override
+		public synchronized void append(final LogEvent event)
+		{
+			this._threads.add(event.getLevel().getName() + "@" + Thread.currentThread().getName());
+		}
+
+		synchronized List<String> threads()
+		{
+			return (new ArrayList<String>(this._threads));
+		}
+
+		@Override
+		public void flush()
+		{
+			this._flushCount.incrementAndGet();
+		}
+
+		@Override
+		public void close()
+		{
+			// void - does nothing.
+		}
+	}
+
+	/*
+	 * Holds every event until it is released.
+	 */
+	static class BlockingAppender extends ThreadAppender
+	{
+		final CountDownLatch _release = new CountDownLatch(1);
+
+		@Override
+		public void append(final LogEvent event)
+		{
+			try
+			{
+				this._release.await();
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			super.append(event);
+		}
+	}
+
+	/*
+	 * Keeps a copy of every event.
+	 */
+	static class CopyAppender extends ThreadAppender
+	{
+		final List<LogEvent> _events = new ArrayList<LogEvent>();
+
+		@Override
+		public synchronized void append(final LogEvent event)
+		{
+			final LogEvent copy = new LogEvent();
+			copy.copyFrom(event);
+			this._events.add(copy);
+		}
+
+		synchronized List<LogEvent> events()
+		{
+			return (new ArrayList<LogEvent>(this._events));
+		}
+	}
+
+	private DirectLogService		_service;
+
+	private SecurityLogDispatcher	_lane;
+
+	/*
+	 * Replaces the appenders of the service with one appender and gives it a security lane.
+	 */
+	private void setUpLane(final ThreadAppender appender, final int bufferSize, final int syncEvents,
+	        final long syncIntervalMillis)
+	{
+		this._service.removeAppender(this._service.getAppenders().get(0));
+		this._service.addAppender(appender);
+		this._lane = new SecurityLogDispatcher(bufferSize, syncEvents, syncIntervalMillis,
+		        this._service.getDispatcher());
+		this._service.setSecurityDispatcher(this._lane);
+	}
+
+	/*
+	 * Waits until the appender has been flushed by the lane.
+	 */
+	private static void awaitFlush(final ThreadAppender appender) throws InterruptedException
+	{
+		final long deadline = System.currentTimeMillis() + 10000L;
+		while ((appender._flushCount.get() == 0) && (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(5L);
+		}
+		Assert.assertTrue(appender._flushCount.get() > 0);
+	}
+
+	@Test
+	public void gatesOnSecurityLevel()
+	{
+		final ThreadAppender appender = new ThreadAppender();
+		this._service.removeAppender(this._service.getAppenders().get(0));
+		this._service.addAppender(appender);
+
+		// a security event is logged when only severe events are, and not when the level is off.
+		this._service.setLevel(DirectLogService.ROOT, Level.SEVERE);
+		this._service.logWarning(SecurityLogDispatcherTest.class, "gatesOnSecurityLevel", "warning");
+		this._service.logSecurity(SecurityLogDispatcherTest.class, "gatesOnSecurityLevel", "security");
+		Assert.assertEquals(1, appender.threads().size());
+		Assert.assertTrue(appender.threads().get(0).startsWith("SECURITY@"));
+
+		this._service.setLevel(DirectLogService.ROOT, Level.OFF);
+		this._service.logSecurity(SecurityLogDispatcherTest.class, "gatesOnSecurityLevel", "security");
+		Assert.assertEquals(1, appender.threads().size());
+	}
+
+	@Test
+	public void ownLane()
+	{
+		final ThreadAppender appender = new ThreadAppender();
+		setUpLane(appender, 16, 64, 1000L);
+
+		this._service.logMessage(SecurityLogDispatcherTest.class, "ownLane", "message");
+		this._service.logSecurity(SecurityLogDispatcherTest.class, "ownLane", "security");
+		this._lane.flush();
+
+		final List<String> threads = appender.threads();
+		Assert.assertEquals(2, threads.size());
+		Assert.assertTrue(threads.contains("INFO@" + Thread.currentThread().getName()));
+		Assert.assertTrue(threads.contains("SECURITY@gab-logging-security"));
+	}
+
+	@Test
+	public void neverDrops() throws InterruptedException
+	{
+		final BlockingAppender appender = new BlockingAppender();
+		setUpLane(appender, 4, 64, 1000L);
+
+		final Thread producer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				for (int i = 0; i < 20; i++)
+				{
+					SecurityLogDispatcherTest.this._service.logSecurity(SecurityLogDispatcherTest.class, "neverDrops",
+					        "security " + i);
+				}
+			}
+		});
+		producer.start();
+
+		// the producer waits on the full lane instead of dropping events.
+		producer.join(200L);
+		Assert.assertTrue(producer.isAlive());
+
+		appender._release.countDown();
+		producer.join();
+		this._lane.flush();
+		Assert.assertEquals(20, appender.threads().size());
+		Assert.assertEquals(0L, this._lane.getDroppedCount());
+	}
+
+	@Test
+	public void keepsEventDetails()
+	{
+		final CopyAppender appender = new CopyAppender();
+		setUpLane(appender, 16, 64, 1000L);
+
+		final ClassLogger classLogger = this._service.forClass(SecurityLogDispatcherTest.class);
+		final LogEvent[] events = new LogEvent[2];
+		for (int i = 0; i < events.length; i++)
+		{
+			events[i] = new LogEvent();
+			events[i].set(classLogger, LogService.SecurityLevel.SECURITY, "keepsEventDetails", "event " + i, null,
+			        1000L + i, 42L + i, LogContext.EMPTY.with("requestId", Integer.toString(i)));
+		}
+		this._lane.dispatch(events[0]);
+		this._lane.dispatch(events, events.length);
+		this._lane.flush();
+
+		final List<LogEvent> written = appender.events();
+		Assert.assertEquals(3, written.size());
+		for (int i = 0; i < written.size(); i++)
+		{
+			final int index = (i == 0) ? 0 : (i - 1);
+			Assert.assertEquals(1000L + index, written.get(i).getMillis());
+			Assert.assertEquals(42L + index, written.get(i).getThreadId());
+			Assert.assertEquals(Integer.toString(index), written.get(i).getContext().get("requestId"));
+		}
+	}
+
+	@Test
+	public void closeKeepsEveryEvent() throws InterruptedException
+	{
+		final CopyAppender appender = new CopyAppender();
+		setUpLane(appender, 8, 64, 1000L);
+
+		final int threadCount = 4;
+		final int eventCount = 2000;
+		final CountDownLatch started = new CountDownLatch(threadCount);
+		final Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++)
+		{
+			threads[t] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					started.countDown();
+					for (int i = 0; i < eventCount; i++)
+					{
+						SecurityLogDispatcherTest.this._service.logSecurity(SecurityLogDispatcherTest.class,
+						        "closeKeepsEveryEvent", "security " + i);
+					}
+				}
+			});
+			threads[t].start();
+		}
+
+		// events published while the lane closes are drained, and the later ones go straight to the delegate.
+		started.await();
+		this._lane.close();
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+		Assert.assertEquals(threadCount * eventCount, appender.events().size());
+	}
+
+	@Test
+	public void syncsAfterEvents() throws InterruptedException
+	{
+		final ThreadAppender appender = new ThreadAppender();
+		setUpLane(appender, 16, 2, TimeUnit.HOURS.toMillis(1));
+
+		this._service.logSecurity(SecurityLogDispatcherTest.class, "syncsAfterEvents", "first");
+		this._service.logSecurity(SecurityLogDispatcherTest.class, "syncsAfterEvents", "second");
+		SecurityLogDispatcherTest.awaitFlush(appender);
+		Assert.assertTrue(this._lane.getSyncCount() > 0);
+	}
+
+	@Test
+	public void syncsAfterInterval() throws InterruptedException
+	{
+		final ThreadAppender appender = new ThreadAppender();
+		setUpLane(appender, 16, 1000, 20L);
+
+		this._service.logSecurity(SecurityLogDispatcherTest.class, "syncsAfterInterval", "only");
+		SecurityLogDispatcherTest.awaitFlush(appender);
+
+		// ordinary events do not flush.
+		final int flushCount = appender._flushCount.get();
+		this._service.logMessage(SecurityLogDispatcherTest.class, "syncsAfterInterval", "message");
+		Thread.sleep(50L);
+		Assert.assertEquals(flushCount, appender._flushCount.get());
+	}
+
+	@Test
+	public void invalidSyncEvents()
+	{
+		try
+		{
+			new SecurityLogDispatcher(16, 0, 100L, this._service.getDispatcher());
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected.
+		}
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._service = new DirectLogService();
+	}
+
+	@After
+	public void tearDown()
+	{
+		if (this._lane != null)
+		{
+			this._lane.close();
+		}
+		this._service.getDispatcher().close();
+	}
+
+}
@@ -0,0 +1,129 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.ZoneOffset;
+import java.util.logging.Level;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class StackTraceCacheTest
+{
+
+	/*
+	 * Creates a throwable with a fixed stack trace, so its fingerprint does not depend on where the test runs.
+	 */
+	private static Throwable fixed(final String message, final int line)
+	{
+		final IllegalStateException cause = new IllegalStateException("cause");
+		cause.setStackTrace(new StackTraceElement[] { new StackTraceElement("com.acme.Db", "connect", "Db.java", 10) });
+		final RuntimeException thrown = new RuntimeException(message, cause);
+		thrown.setStackTrace(new StackTraceElement[] {
+		        new StackTraceElement("com.acme.Order", "submit", "Order.java", line),
+		        new StackTraceElement("com.acme.Main", "main", "Main.java", 5) });
+		return (thrown);
+	}
+
+	@Test
+	public void fullThenFingerprint()
+	{
+		final StackTraceCache cache = new StackTraceCache();
+		final Throwable thrown = StackTraceCacheTest.fixed("first", 42);
+		final String id = StackTraceCache.fingerprintId(thrown);
+
+		final StringWriter writer = new StringWriter();
+		thrown.printStackTrace(new PrintWriter(writer));
+		Assert.assertEquals("[trace " + id + "] " + writer.toString(), cache.format(thrown));
+
+		// the same frames with another message are the same trace.
+		Assert.assertEquals("[trace " + id + " seen 2 times] java.lang.RuntimeException: second"
+		        + System.lineSeparator(), cache.format(StackTraceCacheTest.fixed("second", 42)));
+		Assert.assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void stableFingerprint()
+	{
+		// the same in every run, so logs of different runs can be matched.
+		Assert.assertEquals("f5ca7744f82fcbb8", StackTraceCache.fingerprintId(StackTraceCacheTest.fixed("a", 42)));
+		Assert.assertEquals(16, StackTraceCache.fingerprintId(new Exception()).length());
+
+		// another line or cause is another trace.
+		Assert.assertFalse(StackTraceCache.fingerprintId(StackTraceCacheTest.fixed("a", 42))
+		        .equals(StackTraceCache.fingerprintId(StackTraceCacheTest.fixed("a", 43))));
+		final Throwable noCause = StackTraceCacheTest.fixed("a", 42);
+		noCause.getCause().setStackTrace(new StackTraceElement[0]);
+		Assert.assertFalse(StackTraceCache.fingerprint(noCause) == StackTraceCache
+		        .fingerprint(StackTraceCacheTest.fixed("a", 42)));
+	}
+
+	@Test
+	public void evictsLeastRecentlySeen()
+	{
+		final StackTraceCache cache = new StackTraceCache(2);
+		final Throwable first = StackTraceCacheTest.fixed("a", 1);
+		cache.format(first);
+		cache.format(StackTraceCacheTest.fixed("a", 2));
+		cache.format(first);
+		cache.format(StackTraceCacheTest.fixed("a", 3));
+		Assert.assertEquals(2, cache.size());
+
+		// the second trace was evicted and is written in full again, the first was kept.
+		Assert.assertTrue(cache.format(first).contains(" seen 3 times] "));
+		Assert.assertFalse(cache.format(StackTraceCacheTest.fixed("a", 2)).contains(" seen "));
+	}
+
+	@Test
+	public void layout()
+	{
+		final SimpleLogLayout layout = new SimpleLogLayout(ZoneOffset.UTC, new StackTraceCache());
+		final LogEvent event = new LogEvent();
+		final Throwable thrown = StackTraceCacheTest.fixed("failed", 42);
+		event.set(new DirectLogService().forClass(StackTraceCacheTest.class), Level.SEVERE, "layout", "failed", thrown, 0L, 1L, LogContext.EMPTY);
+
+		final StringBuilder builder = new StringBuilder();
+		layout.format(event, builder);
+		layout.format(event, builder);
+		final String id = StackTraceCache.fingerprintId(thrown);
+		Assert.assertTrue(builder.toString().contains("\tat com.acme.Order.submit(Order.java:42)"));
+		Assert.assertTrue(builder.toString().endsWith("|failed" + System.lineSeparator() + "[trace " + id
+		        + " seen 2 times] java.lang.RuntimeException: failed" + System.lineSeparator()));
+	}
+
+	@Test
+	public void invalidCapacity()
+	{
+		try
+		{
+			new StackTraceCache(0);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			Assert.assertEquals("The 'capacity' parameter must be greater than zero.", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class StreamLogHandlerTest
+{
+	private static final long		WRITE_MILLIS	= 25L;
+
+	private ByteArrayOutputStream	_out;
+
+	private StreamLogHandler		_handler;
+
+	private Logger					_logger;
+
+	/*
+	 * Counts the lines written so far.
+	 */
+	private int lineCount()
+	{
+		this._handler.flush();
+		final String text = new String(this._out.toByteArray(), StandardCharsets.UTF_8);
+		return (text.isEmpty() ? 0 : text.split(System.lineSeparator()).length);
+	}
+
+	@Test
+	public void publish()
+	{
+		final LogRecord record = new LogRecord(Level.WARNING, "testing the handler");
+		record.setLoggerName("com.acme.Order");
+		this._handler.publish(record);
+
+		Assert.assertEquals("WARNING|com.acme.Order|testing the handler" + System.lineSeparator(),
+		        new String(this._out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void level()
+	{
+		this._handler.setLevel(Level.SEVERE);
+		this._handler.publish(new LogRecord(Level.WARNING, "not written"));
+		Assert.assertEquals(0, lineCount());
+	}
+
+	@Test
+	public void closed()
+	{
+		this._handler.close();
+		this._handler.publish(new LogRecord(Level.WARNING, "not written"));
+		Assert.assertEquals(0, this._out.size());
+	}
+
+	@Test
+	public void platformThreads() throws InterruptedException
+	{
+		final Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for (int j = 0; j < 1000; j++)
+					{
+						StreamLogHandlerTest.this._logger.info("platform");
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+		Assert.assertEquals(8000, lineCount());
+	}
+
+	/*
+	 * Many virtual threads log to a stream whose write blocks, so they queue on the lock of the handler. If a thread
+	 * that writes or waits for the lock held its carrier thread, as it does in the synchronized StreamHandler, every
+	 * carrier would be taken and a virtual thread that does not log would only run once the queue is nearly written.
+	 */
+	@Test
+	public void virtualThreads() throws Exception
+	{
+		Method factory = null;
+		try
+		{
+			factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		}
+		catch (final NoSuchMethodException e)
+		{
+			// void - virtual threads need java 21.
+		}
+		Assume.assumeNotNull(factory);
+
+		final CountDownLatch writing = new CountDownLatch(1);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream()
+		{
+			@Override
+			public void write(final byte[] bytes, final int offset, final int length)
+			{
+				writing.countDown();
+				try
+				{
+					Thread.sleep(StreamLogHandlerTest.WRITE_MILLIS);
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+				super.write(bytes, offset, length);
+			}
+		};
+		final StreamLogHandler handler = new StreamLogHandler(out,
+		        new CompiledFormatter("%4$s|%3$s|%5$s%n", ZoneOffset.UTC), false);
+		this._logger.removeHandler(this._handler);
+		this._logger.addHandler(handler);
+
+		// four writers for each carrier thread.
+		final int writers = 4 * Runtime.getRuntime().availableProcessors();
+		final ExecutorService executor = (ExecutorService) factory.invoke(null);
+		for (int i = 0; i < writers; i++)
+		{
+			executor.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					StreamLogHandlerTest.this._logger.info("blocked");
+				}
+			});
+		}
+		Assert.assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+		final long submitted = System.nanoTime();
+		final AtomicLong ran = new AtomicLong();
+		executor.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				ran.set(System.nanoTime());
+			}
+		});
+		executor.shutdown();
+		Assert.assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+		handler.close();
+
+		final long waitedMillis = TimeUnit.NANOSECONDS.toMillis(ran.get() - submitted);
+		final String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		Assert.assertEquals(writers, text.split(System.lineSeparator()).length);
+		// pinned carriers would make it wait for about three quarters of the writes.
+		Assert.assertTrue("waited " + waitedMillis + " ms",
+		        waitedMillis < ((writers * StreamLogHandlerTest.WRITE_MILLIS) / 4));
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._out = new ByteArrayOutputStream();
+		this._handler = new StreamLogHandler(this._out, new CompiledFormatter("%4$s|%3$s|%5$s%n", ZoneOffset.UTC),
+		        false);
+		this._logger = Logger.getLogger(StreamLogHandlerTest.class.getName());
+		this._logger.setUseParentHandlers(false);
+		this._logger.addHandler(this._handler);
+	}
+
+	@After
+	public void tearDown()
+	{
+		for (final Handler handler : this._logger.getHandlers())
+		{
+			this._logger.removeHandler(handler);
+		}
+		this._logger.setUseParentHandlers(true);
+		this._handler.close();
+	}
+
+}
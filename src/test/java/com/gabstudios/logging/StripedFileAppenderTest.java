@@ -0,0 +1,198 @@
+/*****************************************************************************************
+ *
+ * Copyright 2018 Gregory Brown. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ *****************************************************************************************
+ */
+
+package com.gabstudios.logging;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ *
+ *
+ * @author Gregory Brown (sysdevone)
+ *
+ */
+public class StripedFileAppenderTest
+{
+	private static final int		THREADS	= 8;
+
+	private static final int		EVENTS	= 2000;
+
+	@Rule
+	public TemporaryFolder			_folder	= new TemporaryFolder();
+
+	private DirectLogService		_service;
+
+	private StripedFileAppender		_appender;
+
+	private Path					_file;
+
+	/*
+	 * Replaces the appenders of the service with a striped appender.
+	 */
+	private void setUpAppender(final int stripes, final int bufferSize, final long flushIntervalMillis)
+	        throws IOException
+	{
+		this._appender = new StripedFileAppender(this._file, new SimpleLogLayout(ZoneOffset.UTC), stripes, bufferSize,
+		        flushIntervalMillis);
+		this._service.addAppender(this._appender);
+	}
+
+	/*
+	 * Reads the lines written so far.
+	 */
+	private List<String> lines() throws IOException
+	{
+		return (Files.readAllLines(this._file, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void keepsThreadOrder() throws IOException, InterruptedException
+	{
+		setUpAppender(2, 512, 1000L);
+
+		final Thread[] threads = new Thread[StripedFileAppenderTest.THREADS];
+		for (int i = 0; i < threads.length; i++)
+		{
+			final int thread = i;
+			threads[i] = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for (int j = 0; j < StripedFileAppenderTest.EVENTS; j++)
+					{
+						StripedFileAppenderTest.this._service.logMessage(StripedFileAppenderTest.class, "run",
+						        "thread " + thread + " event " + j);
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+		this._appender.flush();
+
+		final List<String> lines = lines();
+		Assert.assertEquals(StripedFileAppenderTest.THREADS * StripedFileAppenderTest.EVENTS, lines.size());
+
+		// every line is whole, and the events of each thread are in order.
+		final int[] next = new int[StripedFileAppenderTest.THREADS];
+		for (final String line : lines)
+		{
+			final String message = line.substring(line.lastIndexOf('|') + 1);
+			final String[] words = message.split(" ");
+			Assert.assertEquals(4, words.length);
+			final int thread = Integer.parseInt(words[1]);
+			Assert.assertEquals(next[thread], Integer.parseInt(words[3]));
+			next[thread]++;
+		}
+		Assert.assertTrue(this._appender.getWrittenBufferCount() > 1);
+	}
+
+	@Test
+	public void flushInterval() throws IOException, InterruptedException
+	{
+		setUpAppender(4, 64 * 1024, 20L);
+
+		this._service.logMessage(StripedFileAppenderTest.class, "flushInterval", "not full");
+
+		// the writer collects the buffer without a flush.
+		final long deadline = System.currentTimeMillis() + 10000L;
+		while (lines().isEmpty() && (System.currentTimeMillis() < deadline))
+		{
+			Thread.sleep(5L);
+		}
+		Assert.assertEquals(1, lines().size());
+		Assert.assertTrue(lines().get(0).endsWith("|not full"));
+	}
+
+	@Test
+	public void largeEvent() throws IOException
+	{
+		setUpAppender(1, 64, 1000L);
+
+		final StringBuilder message = new StringBuilder();
+		for (int i = 0; i < 200; i++)
+		{
+			message.append((char) ('a' + (i % 26)));
+		}
+		this._service.logMessage(StripedFileAppenderTest.class, "largeEvent", "small");
+		this._service.logMessage(StripedFileAppenderTest.class, "largeEvent", message.toString());
+		this._service.logMessage(StripedFileAppenderTest.class, "largeEvent", "small again");
+		this._appender.flush();
+
+		final List<String> lines = lines();
+		Assert.assertEquals(3, lines.size());
+		Assert.assertTrue(lines.get(0).endsWith("|small"));
+		Assert.assertTrue(lines.get(1).endsWith("|" + message));
+		Assert.assertTrue(lines.get(2).endsWith("|small again"));
+	}
+
+	@Test
+	public void close() throws IOException
+	{
+		setUpAppender(2, 1024, 1000L);
+
+		this._service.logMessage(StripedFileAppenderTest.class, "close", "before");
+		this._appender.close();
+		this._service.logMessage(StripedFileAppenderTest.class, "close", "after");
+
+		Assert.assertEquals(1, lines().size());
+	}
+
+	@Test
+	public void invalidStripes() throws IOException
+	{
+		try
+		{
+			new StripedFileAppender(this._file, new SimpleLogLayout(), 0, 1024, 100L);
+			Assert.fail("Expected an IllegalArgumentException.");
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected.
+		}
+	}
+
+	@Before
+	public void setUp()
+	{
+		this._file = this._folder.getRoot().toPath().resolve("app.log");
+		this._service = new DirectLogService();
+		this._service.removeAppender(this._service.getAppenders().get(0));
+	}
+
+	@After
+	public void tearDown()
+	{
+		this._service.getDispatcher().close();
+	}
+
+}